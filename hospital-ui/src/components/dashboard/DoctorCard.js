@@ -33,7 +33,8 @@ function DoctorCard({ doctor, appointmentStats }) {
         }
     };
 
-    const imageUrl = doctor.imageUrl ? (doctor.imageUrl.startsWith('http') ? doctor.imageUrl : `http://localhost:8081${doctor.imageUrl}`) : null;
+    const photo = doctor.cardImageUrl || doctor.imageUrl;
+    const imageUrl = photo ? (photo.startsWith('http') ? photo : `http://localhost:8081${photo}`) : null;
 
     return (
         <>
@@ -3,6 +3,8 @@ import { MdEdit, MdDelete, MdVisibility } from 'react-icons/md';
 import './DoctorsTable.css';
 
 function DoctorsTable({ doctors, onEdit, onDelete, onView }) {
+    const getPhotoUrl = (url) => url.startsWith('http') ? url : `http://localhost:8081${url}`;
+
     const getInitials = (name) => {
         return name
             .split(' ')
@@ -43,7 +45,7 @@ function DoctorsTable({ doctors, onEdit, onDelete, onView }) {
                                 <div className="doctor-photo-cell">
                                     {doctor.imageUrl ? (
                                         <img
-                                            src={doctor.imageUrl.startsWith('http') ? doctor.imageUrl : `http://localhost:8081${doctor.imageUrl}`}
+                                            src={getPhotoUrl(doctor.thumbnailUrl || doctor.imageUrl)}
                                             alt={doctor.name}
                                         />
                                     ) : (
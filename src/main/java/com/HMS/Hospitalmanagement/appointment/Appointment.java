@@ -9,7 +9,12 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "appointments")
+@Table(name = "appointments", indexes = {
+        @Index(name = "idx_appointments_date_id", columnList = "appointment_date, id"),
+        @Index(name = "idx_appointments_doctor_date", columnList = "doctor_id, appointment_date, id"),
+        @Index(name = "idx_appointments_patient_date", columnList = "patient_id, appointment_date, id"),
+        @Index(name = "idx_appointments_status_date", columnList = "status, appointment_date, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
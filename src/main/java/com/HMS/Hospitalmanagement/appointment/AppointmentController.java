@@ -1,9 +1,15 @@
 package com.HMS.Hospitalmanagement.appointment;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -12,10 +18,16 @@ import java.util.Optional;
 public class AppointmentController {
 
     private final AppointmentService appointmentService;
+    private final AppointmentImportService appointmentImportService;
+    private final AppointmentStreamService appointmentStreamService;
 
     @Autowired
-    public AppointmentController(AppointmentService appointmentService) {
+    public AppointmentController(AppointmentService appointmentService,
+            AppointmentImportService appointmentImportService,
+            AppointmentStreamService appointmentStreamService) {
         this.appointmentService = appointmentService;
+        this.appointmentImportService = appointmentImportService;
+        this.appointmentStreamService = appointmentStreamService;
     }
 
     @PostMapping
@@ -23,6 +35,11 @@ public class AppointmentController {
         return appointmentService.createAppointment(appointment);
     }
 
+    @PostMapping(value = "/import", consumes = { "text/csv", "text/plain" })
+    public ResponseEntity<AppointmentImportReport> importAppointments(InputStream body) throws IOException {
+        return ResponseEntity.ok(appointmentImportService.importCsv(body));
+    }
+
     @GetMapping
     public List<Appointment> getAllAppointments(
             @RequestParam(required = false) Long patientId,
@@ -36,6 +53,33 @@ public class AppointmentController {
         return appointmentService.getAllAppointments();
     }
 
+    @GetMapping("/page")
+    public ResponseEntity<AppointmentPage> getAppointmentPage(
+            @RequestParam(required = false) Long doctorId,
+            @RequestParam(required = false) Long patientId,
+            @RequestParam(required = false) Appointment.AppointmentStatus status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit) {
+        try {
+            return ResponseEntity.ok(
+                    appointmentService.getAppointmentPage(doctorId, patientId, status, from, to, cursor, limit));
+        } catch (IllegalArgumentException | java.time.format.DateTimeParseException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamAppointments(
+            @RequestParam(required = false) Long doctorId,
+            @RequestParam(required = false) Long patientId) {
+        if (doctorId == null && patientId == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(appointmentStreamService.subscribe(doctorId, patientId));
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<Appointment> getAppointmentById(@PathVariable Long id) {
         Optional<Appointment> appointment = appointmentService.getAppointmentById(id);
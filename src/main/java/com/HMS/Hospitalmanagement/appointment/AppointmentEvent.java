@@ -0,0 +1,23 @@
+package com.HMS.Hospitalmanagement.appointment;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Published in-process by AppointmentService after an appointment is written.
+ * previousDoctorId is set when an update moved the appointment to another doctor; previous is
+ * the appointment as it was before an update, and null for CREATED and DELETED.
+ */
+@Data
+@AllArgsConstructor
+public class AppointmentEvent {
+
+    private Type type;
+    private AppointmentSummary appointment;
+    private Long previousDoctorId;
+    private AppointmentSummary previous;
+
+    public enum Type {
+        CREATED, UPDATED, DELETED
+    }
+}
@@ -0,0 +1,414 @@
+package com.HMS.Hospitalmanagement.appointment;
+
+import com.HMS.Hospitalmanagement.doctor.Doctor;
+import com.HMS.Hospitalmanagement.doctor.DoctorRepository;
+import com.HMS.Hospitalmanagement.patient.Patient;
+import com.HMS.Hospitalmanagement.patient.PatientRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Streams a CSV of appointments into the appointments table in chunks.
+ * Each chunk resolves its patient and doctor IDs with one query per table,
+ * reserves slots in DoctorSlotIndex (so conflicts are checked in memory, both
+ * against existing bookings and earlier rows of the same file) and is written
+ * with a single batched INSERT. Bad rows are reported and skipped. Every imported row is published as
+ * an AppointmentEvent, like a booking made through AppointmentService.
+ *
+ * Expected header: patientId,doctorId,appointmentDate,reason,status,labTestsRequired
+ */
+@Service
+public class AppointmentImportService {
+
+    private static final int CHUNK_SIZE = 500;
+    private static final int MAX_REPORTED_ERRORS = 1000;
+    private static final String INSERT_SQL = "INSERT INTO appointments "
+            + "(patient_id, doctor_id, appointment_date, reason, status, lab_tests_required) "
+            + "VALUES (?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final PatientRepository patientRepository;
+    private final DoctorRepository doctorRepository;
+    private final DoctorSlotIndex slotIndex;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // Negative ids hold a reservation in the slot index until the real id is known
+    private final AtomicLong placeholderIds = new AtomicLong();
+
+    @Autowired
+    public AppointmentImportService(JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            PatientRepository patientRepository,
+            DoctorRepository doctorRepository,
+            DoctorSlotIndex slotIndex,
+            ApplicationEventPublisher eventPublisher) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.patientRepository = patientRepository;
+        this.doctorRepository = doctorRepository;
+        this.slotIndex = slotIndex;
+        this.eventPublisher = eventPublisher;
+    }
+
+    public AppointmentImportReport importCsv(InputStream input) throws IOException {
+        AppointmentImportReport report = new AppointmentImportReport();
+        CsvReader reader = new CsvReader(new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8)));
+
+        List<String> headerFields = reader.next();
+        if (headerFields == null) {
+            return report;
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < headerFields.size(); i++) {
+            columns.put(headerFields.get(i).trim(), i);
+        }
+
+        List<ImportRow> chunk = new ArrayList<>(CHUNK_SIZE);
+        while (true) {
+            List<String> fields;
+            try {
+                fields = reader.next();
+            } catch (IllegalArgumentException e) {
+                // An unterminated quote runs to the end of the input
+                report.setTotalRows(report.getTotalRows() + 1);
+                addError(report, reader.line(), e.getMessage());
+                break;
+            }
+            if (fields == null) {
+                break;
+            }
+            report.setTotalRows(report.getTotalRows() + 1);
+            try {
+                chunk.add(parseRow(reader.line(), fields, columns));
+            } catch (RuntimeException e) {
+                addError(report, reader.line(), e.getMessage());
+            }
+            if (chunk.size() == CHUNK_SIZE) {
+                importChunk(chunk, report);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            importChunk(chunk, report);
+        }
+        return report;
+    }
+
+    private void importChunk(List<ImportRow> chunk, AppointmentImportReport report) {
+        Set<Long> patientIds = new HashSet<>();
+        Set<Long> doctorIds = new HashSet<>();
+        for (ImportRow row : chunk) {
+            patientIds.add(row.patientId);
+            doctorIds.add(row.doctorId);
+        }
+        Map<Long, Patient> patients = new HashMap<>();
+        for (Object[] found : patientRepository.findNames(patientIds)) {
+            Patient patient = new Patient();
+            patient.setId((Long) found[0]);
+            patient.setName((String) found[1]);
+            patients.put(patient.getId(), patient);
+        }
+        Map<Long, Doctor> doctors = new HashMap<>();
+        for (Object[] found : doctorRepository.findNames(doctorIds)) {
+            Doctor doctor = new Doctor();
+            doctor.setId((Long) found[0]);
+            doctor.setName((String) found[1]);
+            doctor.setSpecialization((String) found[2]);
+            doctors.put(doctor.getId(), doctor);
+        }
+
+        List<ImportRow> accepted = new ArrayList<>(chunk.size());
+        for (ImportRow row : chunk) {
+            row.patient = patients.get(row.patientId);
+            row.doctor = doctors.get(row.doctorId);
+            if (row.patient == null) {
+                addError(report, row.line, "Patient not found with ID: " + row.patientId);
+            } else if (row.doctor == null) {
+                addError(report, row.line, "Doctor not found with ID: " + row.doctorId);
+            } else if (row.isActive()
+                    && !slotIndex.tryReserve(row.doctorId, row.appointmentDate, row.placeholderId)) {
+                addError(report, row.line, "Doctor is already booked at this time");
+            } else {
+                accepted.add(row);
+            }
+        }
+        if (accepted.isEmpty()) {
+            return;
+        }
+
+        List<Long> ids;
+        try {
+            ids = insertBatch(accepted);
+        } catch (RuntimeException e) {
+            // One bad row fails the whole batch (nothing of it is committed), so retry row by row
+            // to insert the good rows and report only the bad ones
+            ids = new ArrayList<>(accepted.size());
+            List<ImportRow> inserted = new ArrayList<>(accepted.size());
+            for (ImportRow row : accepted) {
+                try {
+                    ids.add(insertRow(row));
+                    inserted.add(row);
+                } catch (RuntimeException rowError) {
+                    if (row.isActive()) {
+                        slotIndex.remove(row.doctorId, row.appointmentDate, row.placeholderId);
+                    }
+                    addError(report, row.line, "Insert failed: " + rowError.getMessage());
+                }
+            }
+            accepted = inserted;
+        }
+
+        for (int i = 0; i < accepted.size(); i++) {
+            confirm(accepted.get(i), i < ids.size() ? ids.get(i) : null);
+        }
+        report.setImported(report.getImported() + accepted.size());
+    }
+
+    /**
+     * Inserts the rows as one JDBC batch in one transaction and returns the generated ids, which some
+     * drivers return for only part of a batch.
+     */
+    private List<Long> insertBatch(List<ImportRow> rows) {
+        KeyHolder keys = new GeneratedKeyHolder();
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(
+                connection -> connection.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        setRow(ps, rows.get(i));
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return rows.size();
+                    }
+                },
+                keys));
+        List<Long> ids = new ArrayList<>(rows.size());
+        for (Map<String, Object> key : keys.getKeyList()) {
+            ids.add(((Number) key.values().iterator().next()).longValue());
+        }
+        return ids;
+    }
+
+    private Long insertRow(ImportRow row) {
+        KeyHolder key = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS);
+            setRow(ps, row);
+            return ps;
+        }, key);
+        Number id = key.getKey();
+        return id != null ? id.longValue() : null;
+    }
+
+    private static void setRow(PreparedStatement ps, ImportRow row) throws SQLException {
+        ps.setLong(1, row.patientId);
+        ps.setLong(2, row.doctorId);
+        ps.setTimestamp(3, Timestamp.valueOf(row.appointmentDate));
+        ps.setString(4, row.reason);
+        ps.setString(5, row.status.name());
+        ps.setString(6, row.labTestsRequired);
+    }
+
+    /**
+     * Bookkeeping for a row that is in the table: swaps its placeholder reservation for the real id
+     * under the doctor's lock, adding the real id first, so the slot is never free in between, and then
+     * publishes the row.
+     */
+    private void confirm(ImportRow row, Long id) {
+        Appointment appointment = row.toAppointment(id);
+        if (row.isActive()) {
+            slotIndex.withDoctorLock(row.doctorId, () -> {
+                if (id != null) {
+                    slotIndex.add(appointment);
+                    slotIndex.remove(row.doctorId, row.appointmentDate, row.placeholderId);
+                } else {
+                    // Driver did not return the key; reload this doctor's calendar from the table
+                    slotIndex.evict(row.doctorId);
+                }
+                return null;
+            });
+        }
+        eventPublisher.publishEvent(new AppointmentEvent(AppointmentEvent.Type.CREATED,
+                AppointmentSummary.of(appointment), null, null));
+    }
+
+    private ImportRow parseRow(long line, List<String> fields, Map<String, Integer> columns) {
+        ImportRow row = new ImportRow();
+        row.line = line;
+        row.placeholderId = -placeholderIds.incrementAndGet();
+        try {
+            row.patientId = Long.parseLong(required(fields, columns, "patientId"));
+            row.doctorId = Long.parseLong(required(fields, columns, "doctorId"));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid patientId or doctorId");
+        }
+        try {
+            row.appointmentDate = LocalDateTime.parse(required(fields, columns, "appointmentDate"));
+        } catch (java.time.format.DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid appointmentDate, expected ISO format like 2025-01-31T10:30");
+        }
+        row.reason = optional(fields, columns, "reason");
+        row.labTestsRequired = optional(fields, columns, "labTestsRequired");
+        String status = optional(fields, columns, "status");
+        try {
+            row.status = status == null
+                    ? Appointment.AppointmentStatus.SCHEDULED
+                    : Appointment.AppointmentStatus.valueOf(status.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid status: " + status);
+        }
+        return row;
+    }
+
+    private static String required(List<String> fields, Map<String, Integer> columns, String name) {
+        String value = optional(fields, columns, name);
+        if (value == null) {
+            throw new IllegalArgumentException(name + " is required");
+        }
+        return value.trim();
+    }
+
+    private static String optional(List<String> fields, Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name);
+        if (index == null || index >= fields.size() || fields.get(index).isEmpty()) {
+            return null;
+        }
+        return fields.get(index);
+    }
+
+    private static void addError(AppointmentImportReport report, long line, String message) {
+        report.setFailed(report.getFailed() + 1);
+        if (report.getErrors().size() < MAX_REPORTED_ERRORS) {
+            report.getErrors().add(new AppointmentImportReport.RowError(line, message));
+        }
+    }
+
+    /**
+     * Reads CSV records one at a time, honouring double-quoted fields, which may hold commas, "" escapes
+     * and line breaks. Blank lines between records are skipped.
+     */
+    static class CsvReader {
+
+        private final BufferedReader reader;
+        private long lineNumber;
+        private long recordLine;
+
+        CsvReader(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        /**
+         * The fields of the next record, or null at the end of the input. Throws IllegalArgumentException
+         * when the input ends inside a quoted field.
+         */
+        List<String> next() throws IOException {
+            String line;
+            do {
+                line = reader.readLine();
+                if (line == null) {
+                    return null;
+                }
+                lineNumber++;
+            } while (line.isBlank());
+            recordLine = lineNumber;
+
+            List<String> fields = new ArrayList<>();
+            StringBuilder current = new StringBuilder();
+            boolean quoted = false;
+            while (true) {
+                for (int i = 0; i < line.length(); i++) {
+                    char c = line.charAt(i);
+                    if (quoted) {
+                        if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                            current.append('"');
+                            i++;
+                        } else if (c == '"') {
+                            quoted = false;
+                        } else {
+                            current.append(c);
+                        }
+                    } else if (c == '"') {
+                        quoted = true;
+                    } else if (c == ',') {
+                        fields.add(current.toString());
+                        current.setLength(0);
+                    } else {
+                        current.append(c);
+                    }
+                }
+                if (!quoted) {
+                    break;
+                }
+                line = reader.readLine();
+                if (line == null) {
+                    throw new IllegalArgumentException("Unterminated quoted field");
+                }
+                lineNumber++;
+                current.append('\n');
+            }
+            fields.add(current.toString());
+            return fields;
+        }
+
+        /** The line the last record returned by next() starts on, counting from 1. */
+        long line() {
+            return recordLine;
+        }
+    }
+
+    private static class ImportRow {
+        long line;
+        long placeholderId;
+        Long patientId;
+        Long doctorId;
+        LocalDateTime appointmentDate;
+        String reason;
+        Appointment.AppointmentStatus status;
+        String labTestsRequired;
+        Patient patient;
+        Doctor doctor;
+
+        boolean isActive() {
+            return status != Appointment.AppointmentStatus.CANCELLED;
+        }
+
+        Appointment toAppointment(Long id) {
+            Appointment appointment = new Appointment();
+            appointment.setId(id);
+            appointment.setPatient(patient);
+            appointment.setDoctor(doctor);
+            appointment.setAppointmentDate(appointmentDate);
+            appointment.setStatus(status);
+            appointment.setReason(reason);
+            appointment.setLabTestsRequired(labTestsRequired);
+            return appointment;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.HMS.Hospitalmanagement.appointment;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated appointment listing. nextCursor is null on the last page.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AppointmentPage {
+
+    private List<AppointmentSummary> items;
+    private String nextCursor;
+}
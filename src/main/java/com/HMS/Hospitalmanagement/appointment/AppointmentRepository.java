@@ -1,7 +1,12 @@
 package com.HMS.Hospitalmanagement.appointment;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -10,5 +15,38 @@ public interface AppointmentRepository extends JpaRepository<Appointment, Long>
 
     List<Appointment> findByDoctorId(Long doctorId);
 
+    List<Appointment> findByDoctorIdAndStatusNot(Long doctorId, Appointment.AppointmentStatus status);
+
     List<Appointment> findByStatus(Appointment.AppointmentStatus status);
+
+    // Rows of (doctor id, appointment id, appointment date), a range over idx_appointments_doctor_date per doctor
+    @Query("SELECT a.doctor.id, a.id, a.appointmentDate FROM Appointment a "
+            + "WHERE a.doctor.id IN :doctorIds AND a.status <> :excluded "
+            + "AND a.appointmentDate >= :from AND a.appointmentDate < :to")
+    List<Object[]> findStartsBetween(@Param("doctorIds") Collection<Long> doctorIds,
+            @Param("excluded") Appointment.AppointmentStatus excluded,
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to);
+
+    @Query("SELECT new com.HMS.Hospitalmanagement.appointment.AppointmentSummary("
+            + "a.id, a.appointmentDate, a.reason, a.status, a.labTestsRequired, "
+            + "p.id, p.name, d.id, d.name, d.specialization) "
+            + "FROM Appointment a JOIN a.patient p JOIN a.doctor d "
+            + "WHERE a.appointmentDate IS NOT NULL "
+            + "AND (:doctorId IS NULL OR d.id = :doctorId) "
+            + "AND (:patientId IS NULL OR p.id = :patientId) "
+            + "AND (:status IS NULL OR a.status = :status) "
+            + "AND (:from IS NULL OR a.appointmentDate >= :from) "
+            + "AND (:to IS NULL OR a.appointmentDate < :to) "
+            + "AND (:afterDate IS NULL OR a.appointmentDate > :afterDate "
+            + "OR (a.appointmentDate = :afterDate AND a.id > :afterId)) "
+            + "ORDER BY a.appointmentDate, a.id")
+    List<AppointmentSummary> findSummaryPage(@Param("doctorId") Long doctorId,
+            @Param("patientId") Long patientId,
+            @Param("status") Appointment.AppointmentStatus status,
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to,
+            @Param("afterDate") LocalDateTime afterDate,
+            @Param("afterId") Long afterId,
+            Limit limit);
 }
@@ -1,52 +1,58 @@
 package com.HMS.Hospitalmanagement.appointment;
 
+import com.HMS.Hospitalmanagement.archive.AppointmentArchiveService;
+import com.HMS.Hospitalmanagement.archive.ArchivedAppointmentRepository;
 import com.HMS.Hospitalmanagement.patient.Patient;
 import com.HMS.Hospitalmanagement.patient.PatientRepository;
 import com.HMS.Hospitalmanagement.doctor.Doctor;
 import com.HMS.Hospitalmanagement.doctor.DoctorRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 
 @Service
 public class AppointmentService {
 
+    private static final int MAX_PAGE_SIZE = 500;
+
     private final AppointmentRepository appointmentRepository;
     private final PatientRepository patientRepository;
     private final DoctorRepository doctorRepository;
+    private final DoctorSlotIndex slotIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ArchivedAppointmentRepository archivedAppointmentRepository;
+    private final AppointmentArchiveService archiveService;
 
     @Autowired
     public AppointmentService(AppointmentRepository appointmentRepository,
             PatientRepository patientRepository,
-            DoctorRepository doctorRepository) {
+            DoctorRepository doctorRepository,
+            DoctorSlotIndex slotIndex,
+            ApplicationEventPublisher eventPublisher,
+            ArchivedAppointmentRepository archivedAppointmentRepository,
+            AppointmentArchiveService archiveService) {
         this.appointmentRepository = appointmentRepository;
         this.patientRepository = patientRepository;
         this.doctorRepository = doctorRepository;
+        this.slotIndex = slotIndex;
+        this.eventPublisher = eventPublisher;
+        this.archivedAppointmentRepository = archivedAppointmentRepository;
+        this.archiveService = archiveService;
     }
 
     public Appointment createAppointment(Appointment appointment) {
-        if (appointment.getDoctor() != null && appointment.getDoctor().getId() != null
-                && appointment.getAppointmentDate() != null) {
-            List<Appointment> existingAppointments = appointmentRepository
-                    .findByDoctorId(appointment.getDoctor().getId());
-
-            for (Appointment existing : existingAppointments) {
-                if (existing.getStatus() != Appointment.AppointmentStatus.CANCELLED) {
-                    java.time.Duration duration = java.time.Duration.between(appointment.getAppointmentDate(),
-                            existing.getAppointmentDate());
-                    long diffMinutes = Math.abs(duration.toMinutes());
-
-                    if (diffMinutes < 30) {
-                        throw new RuntimeException("Doctor is already booked at this time");
-                    }
-                }
-            }
-        }
-
-        
-        
         if (appointment.getPatient() != null && appointment.getPatient().getId() != null) {
             Patient patient = patientRepository.findById(appointment.getPatient().getId())
                     .orElseThrow(() -> new RuntimeException(
@@ -64,17 +70,93 @@ public class AppointmentService {
         } else {
             throw new RuntimeException("Doctor ID is required");
         }
-        
+
         if (appointment.getStatus() == null) {
             appointment.setStatus(Appointment.AppointmentStatus.SCHEDULED);
         }
-        return appointmentRepository.save(appointment);
+
+        Long doctorId = appointment.getDoctor().getId();
+        Appointment created = slotIndex.withDoctorLock(doctorId, () -> {
+            if (appointment.getAppointmentDate() != null
+                    && appointment.getStatus() != Appointment.AppointmentStatus.CANCELLED
+                    && !slotIndex.isFree(doctorId, appointment.getAppointmentDate(), null)) {
+                throw new RuntimeException("Doctor is already booked at this time");
+            }
+            Appointment saved = appointmentRepository.save(appointment);
+            slotIndex.add(saved);
+            return saved;
+        });
+        publish(new AppointmentEvent(AppointmentEvent.Type.CREATED,
+                AppointmentSummary.of(created), null, null));
+        return created;
     }
 
+    /**
+     * The unpaged reads (this one, by patient, by doctor and by id) see only the live table. Archived
+     * appointments are reached through getAppointmentPage, whose date range decides whether the archive is read.
+     */
     public List<Appointment> getAllAppointments() {
         return appointmentRepository.findAll();
     }
 
+    public AppointmentPage getAppointmentPage(Long doctorId, Long patientId, Appointment.AppointmentStatus status,
+            LocalDateTime from, LocalDateTime to, String cursor, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        LocalDateTime afterDate = null;
+        Long afterId = null;
+        if (cursor != null && !cursor.isEmpty()) {
+            String[] parts = decodeCursor(cursor);
+            afterDate = LocalDateTime.parse(parts[0]);
+            afterId = Long.parseLong(parts[1]);
+        }
+
+        // Fetch one extra row to know whether another page exists without a count query
+        List<AppointmentSummary> rows = appointmentRepository.findSummaryPage(doctorId, patientId, status, from, to,
+                afterDate, afterId, Limit.of(pageSize + 1));
+        if (archiveService.needsArchive(from)) {
+            rows = mergeByDateAndId(rows, archivedAppointmentRepository.findSummaryPage(doctorId, patientId, status,
+                    from, to, afterDate, afterId, Limit.of(pageSize + 1)));
+        }
+        if (rows.size() <= pageSize) {
+            return new AppointmentPage(rows, null);
+        }
+        List<AppointmentSummary> items = rows.subList(0, pageSize);
+        AppointmentSummary last = items.get(pageSize - 1);
+        return new AppointmentPage(new ArrayList<>(items), encodeCursor(last.getAppointmentDate(), last.getId()));
+    }
+
+    private static List<AppointmentSummary> mergeByDateAndId(List<AppointmentSummary> a, List<AppointmentSummary> b) {
+        Comparator<AppointmentSummary> order = Comparator.comparing(AppointmentSummary::getAppointmentDate)
+                .thenComparing(AppointmentSummary::getId);
+        List<AppointmentSummary> merged = new ArrayList<>(a.size() + b.size());
+        int i = 0;
+        int j = 0;
+        while (i < a.size() && j < b.size()) {
+            merged.add(order.compare(a.get(i), b.get(j)) <= 0 ? a.get(i++) : b.get(j++));
+        }
+        merged.addAll(a.subList(i, a.size()));
+        merged.addAll(b.subList(j, b.size()));
+        return merged;
+    }
+
+    private static String encodeCursor(LocalDateTime appointmentDate, Long id) {
+        String raw = appointmentDate + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return parts;
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+
     public List<Appointment> getAppointmentsByPatient(Long patientId) {
         return appointmentRepository.findByPatientId(patientId);
     }
@@ -89,6 +171,10 @@ public class AppointmentService {
 
     public Appointment updateAppointment(Long id, Appointment appointmentDetails) {
         return appointmentRepository.findById(id).map(appointment -> {
+            AppointmentSummary before = AppointmentSummary.of(appointment);
+            Long oldDoctorId = appointment.getDoctor() != null ? appointment.getDoctor().getId() : null;
+            LocalDateTime oldDate = appointment.getAppointmentDate();
+
             if (appointmentDetails.getAppointmentDate() != null) {
                 appointment.setAppointmentDate(appointmentDetails.getAppointmentDate());
             }
@@ -111,15 +197,60 @@ public class AppointmentService {
                 Doctor doctor = doctorRepository.findById(appointmentDetails.getDoctor().getId()).orElse(null);
                 appointment.setDoctor(doctor);
             }
-            return appointmentRepository.save(appointment);
+
+            Appointment saved;
+            if (DoctorSlotIndex.isIndexable(appointment)) {
+                Long doctorId = appointment.getDoctor().getId();
+                saved = slotIndex.withDoctorLock(doctorId, () -> {
+                    if (!slotIndex.isFree(doctorId, appointment.getAppointmentDate(), appointment.getId())) {
+                        throw new RuntimeException("Doctor is already booked at this time");
+                    }
+                    Appointment result = appointmentRepository.save(appointment);
+                    if (doctorId.equals(oldDoctorId)) {
+                        slotIndex.remove(oldDoctorId, oldDate, result.getId());
+                    }
+                    slotIndex.add(result);
+                    return result;
+                });
+            } else {
+                saved = appointmentRepository.save(appointment);
+            }
+            Long newDoctorId = saved.getDoctor() != null ? saved.getDoctor().getId() : null;
+            if (!DoctorSlotIndex.isIndexable(saved) || !Objects.equals(oldDoctorId, newDoctorId)) {
+                slotIndex.remove(oldDoctorId, oldDate, saved.getId());
+            }
+            publish(new AppointmentEvent(AppointmentEvent.Type.UPDATED,
+                    AppointmentSummary.of(saved), oldDoctorId, before));
+            return saved;
         }).orElse(null);
     }
 
     public boolean deleteAppointment(Long id) {
-        if (appointmentRepository.existsById(id)) {
+        return appointmentRepository.findById(id).map(appointment -> {
             appointmentRepository.deleteById(id);
+            if (appointment.getDoctor() != null) {
+                slotIndex.remove(appointment.getDoctor().getId(), appointment.getAppointmentDate(), id);
+            }
+            publish(new AppointmentEvent(AppointmentEvent.Type.DELETED,
+                    AppointmentSummary.of(appointment), null, null));
             return true;
+        }).orElse(false);
+    }
+
+    /**
+     * Publishes the event now, or, when called inside a transaction (such as a waitlist booking), once that
+     * transaction has committed, so listeners never see a write that is rolled back.
+     */
+    private void publish(AppointmentEvent event) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            eventPublisher.publishEvent(event);
+            return;
         }
-        return false;
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                eventPublisher.publishEvent(event);
+            }
+        });
     }
 }
@@ -0,0 +1,160 @@
+package com.HMS.Hospitalmanagement.appointment;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fans appointment changes out to Server-Sent Event subscribers, keyed by doctor or patient.
+ * Every subscriber gets its own bounded queue drained by a virtual thread, so a slow
+ * client never holds up the publisher or other clients; a subscriber whose queue
+ * overflows is disconnected and the browser's EventSource reconnects.
+ */
+@Service
+public class AppointmentStreamService {
+
+    private static final long EMITTER_TIMEOUT_MS = TimeUnit.MINUTES.toMillis(30);
+    private static final long HEARTBEAT_SECONDS = 25;
+    private static final int QUEUE_CAPACITY = 256;
+    private static final ThreadFactory SUBSCRIBER_THREADS = Thread.ofVirtual().name("appointment-sse-", 0).factory();
+
+    private final Map<String, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicLong eventIds = new AtomicLong();
+
+    public SseEmitter subscribe(Long doctorId, Long patientId) {
+        SseEmitter emitter = new SseEmitter(EMITTER_TIMEOUT_MS);
+        List<String> keys = new ArrayList<>();
+        if (doctorId != null) {
+            keys.add(doctorKey(doctorId));
+        }
+        if (patientId != null) {
+            keys.add(patientKey(patientId));
+        }
+
+        Subscriber subscriber = new Subscriber(emitter, keys);
+        for (String key : keys) {
+            subscribers.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(subscriber);
+        }
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(e -> subscriber.close());
+        subscriber.thread = SUBSCRIBER_THREADS.newThread(subscriber);
+        subscriber.thread.start();
+        return emitter;
+    }
+
+    @EventListener
+    public void onAppointmentEvent(AppointmentEvent event) {
+        AppointmentSummary appointment = event.getAppointment();
+        Set<Subscriber> targets = ConcurrentHashMap.newKeySet();
+        collect(targets, doctorKey(appointment.getDoctorId()));
+        if (event.getPreviousDoctorId() != null) {
+            collect(targets, doctorKey(event.getPreviousDoctorId()));
+        }
+        collect(targets, patientKey(appointment.getPatientId()));
+        if (targets.isEmpty()) {
+            return;
+        }
+
+        String id = String.valueOf(eventIds.incrementAndGet());
+        for (Subscriber subscriber : targets) {
+            // Each subscriber needs its own built event; SseEventBuilder.build() is not reusable
+            subscriber.offer(SseEmitter.event()
+                    .id(id)
+                    .name(event.getType().name())
+                    .data(appointment, MediaType.APPLICATION_JSON)
+                    .build());
+        }
+    }
+
+    private void collect(Set<Subscriber> targets, String key) {
+        Set<Subscriber> matching = subscribers.get(key);
+        if (matching != null) {
+            targets.addAll(matching);
+        }
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        for (String key : subscriber.keys) {
+            subscribers.computeIfPresent(key, (k, set) -> {
+                set.remove(subscriber);
+                return set.isEmpty() ? null : set;
+            });
+        }
+    }
+
+    private static String doctorKey(Long doctorId) {
+        return "doctor:" + doctorId;
+    }
+
+    private static String patientKey(Long patientId) {
+        return "patient:" + patientId;
+    }
+
+    private final class Subscriber implements Runnable {
+
+        private final SseEmitter emitter;
+        private final List<String> keys;
+        private final BlockingQueue<Set<ResponseBodyEmitter.DataWithMediaType>> queue =
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        private volatile boolean closed;
+        private volatile Thread thread;
+
+        Subscriber(SseEmitter emitter, List<String> keys) {
+            this.emitter = emitter;
+            this.keys = keys;
+        }
+
+        void offer(Set<ResponseBodyEmitter.DataWithMediaType> event) {
+            if (!closed && !queue.offer(event)) {
+                close();
+                emitter.complete();
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (!closed) {
+                    Set<ResponseBodyEmitter.DataWithMediaType> event = queue.poll(HEARTBEAT_SECONDS, TimeUnit.SECONDS);
+                    if (closed) {
+                        break;
+                    }
+                    emitter.send(event != null ? event : SseEmitter.event().comment("keep-alive").build());
+                }
+            } catch (IOException | IllegalStateException e) {
+                emitter.completeWithError(e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                close();
+            }
+        }
+
+        void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            unsubscribe(this);
+            Thread worker = thread;
+            if (worker != null && worker != Thread.currentThread()) {
+                worker.interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.HMS.Hospitalmanagement.appointment;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Flat, read-only view of an appointment used by list endpoints, so listing
+ * does not hydrate the full Patient and Doctor entities for every row.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AppointmentSummary {
+
+    private Long id;
+    private LocalDateTime appointmentDate;
+    private String reason;
+    private Appointment.AppointmentStatus status;
+    private String labTestsRequired;
+    private Long patientId;
+    private String patientName;
+    private Long doctorId;
+    private String doctorName;
+    private String doctorSpecialization;
+
+    public static AppointmentSummary of(Appointment appointment) {
+        return new AppointmentSummary(
+                appointment.getId(),
+                appointment.getAppointmentDate(),
+                appointment.getReason(),
+                appointment.getStatus(),
+                appointment.getLabTestsRequired(),
+                appointment.getPatient() != null ? appointment.getPatient().getId() : null,
+                appointment.getPatient() != null ? appointment.getPatient().getName() : null,
+                appointment.getDoctor() != null ? appointment.getDoctor().getId() : null,
+                appointment.getDoctor() != null ? appointment.getDoctor().getName() : null,
+                appointment.getDoctor() != null ? appointment.getDoctor().getSpecialization() : null);
+    }
+}
@@ -0,0 +1,100 @@
+package com.HMS.Hospitalmanagement.appointment;
+
+import com.HMS.Hospitalmanagement.doctor.Doctor;
+import com.HMS.Hospitalmanagement.doctor.DoctorRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Answers "when is this doctor free" from the per-day slot bitmaps of DoctorSlotIndex, offering only
+ * slots within working hours. Doctors whose calendar is already in the index are answered from memory; the
+ * rest are read with one query over just the requested days, never their whole history. A search is
+ * limited to one specialization so it stays bounded.
+ */
+@Service
+public class AvailabilityService {
+
+    private static final Duration MAX_RANGE = Duration.ofDays(31);
+
+    private final DoctorSlotIndex slotIndex;
+    private final DoctorRepository doctorRepository;
+    private final WorkingHours workingHours;
+
+    @Autowired
+    public AvailabilityService(DoctorSlotIndex slotIndex, DoctorRepository doctorRepository,
+            WorkingHours workingHours) {
+        this.slotIndex = slotIndex;
+        this.doctorRepository = doctorRepository;
+        this.workingHours = workingHours;
+    }
+
+    public Optional<DoctorAvailability> getAvailability(Long doctorId, LocalDateTime from, LocalDateTime to) {
+        validateRange(from, to);
+        return doctorRepository.findById(doctorId).map(doctor -> availabilityOf(List.of(doctor), from, to).get(0));
+    }
+
+    public List<DoctorAvailability> searchAvailability(String specialization, LocalDateTime from, LocalDateTime to) {
+        if (specialization == null || specialization.isBlank()) {
+            throw new IllegalArgumentException("specialization is required");
+        }
+        validateRange(from, to);
+        List<DoctorAvailability> result = new ArrayList<>();
+        for (DoctorAvailability availability : availabilityOf(
+                doctorRepository.findBySpecializationIgnoreCase(specialization), from, to)) {
+            if (!availability.getOpenSlots().isEmpty()) {
+                result.add(availability);
+            }
+        }
+        return result;
+    }
+
+    private List<DoctorAvailability> availabilityOf(List<Doctor> doctors, LocalDateTime from, LocalDateTime to) {
+        if (doctors.isEmpty()) {
+            return List.of();
+        }
+        List<Long> ids = new ArrayList<>(doctors.size());
+        for (Doctor doctor : doctors) {
+            ids.add(doctor.getId());
+        }
+        LocalDate firstDay = from.toLocalDate();
+        Map<Long, long[]> busy = slotIndex.busySlots(ids, firstDay, to.toLocalDate());
+
+        List<DoctorAvailability> result = new ArrayList<>(doctors.size());
+        for (Doctor doctor : doctors) {
+            long[] days = busy.get(doctor.getId());
+            List<LocalDateTime> openSlots = new ArrayList<>();
+            for (int i = 0; i < days.length; i++) {
+                LocalDate day = firstDay.plusDays(i);
+                for (int slot = workingHours.firstSlot(); slot < workingHours.endSlot(); slot++) {
+                    if ((days[i] & (1L << slot)) != 0) {
+                        continue;
+                    }
+                    LocalDateTime start = DoctorSlotIndex.slotStart(day, slot);
+                    if (!start.isBefore(from) && !start.plusMinutes(DoctorSlotIndex.SLOT_MINUTES).isAfter(to)) {
+                        openSlots.add(start);
+                    }
+                }
+            }
+            result.add(new DoctorAvailability(doctor.getId(), doctor.getName(), doctor.getSpecialization(),
+                    openSlots));
+        }
+        return result;
+    }
+
+    private static void validateRange(LocalDateTime from, LocalDateTime to) {
+        if (from == null || to == null || !from.isBefore(to)) {
+            throw new IllegalArgumentException("'from' must be before 'to'");
+        }
+        if (Duration.between(from, to).compareTo(MAX_RANGE) > 0) {
+            throw new IllegalArgumentException("Availability range cannot exceed " + MAX_RANGE.toDays() + " days");
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.HMS.Hospitalmanagement.appointment;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DoctorAvailability {
+
+    private Long doctorId;
+    private String doctorName;
+    private String specialization;
+    private List<LocalDateTime> openSlots;
+}
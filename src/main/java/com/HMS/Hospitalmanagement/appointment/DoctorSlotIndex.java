@@ -0,0 +1,250 @@
+package com.HMS.Hospitalmanagement.appointment;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * In-memory calendar of active (non-cancelled) appointments per doctor.
+ * Each doctor's calendar is loaded from the appointments table on first use and
+ * then kept in sync by AppointmentService, so conflict checks are a sorted-map
+ * range lookup instead of a scan over the doctor's whole history.
+ * Alongside the calendar, every day with bookings keeps a 48-bit bitmap of the
+ * half-hour slot starts that are blocked, which backs the availability search.
+ * All access to a calendar happens under that doctor's lock stripe.
+ */
+@Component
+public class DoctorSlotIndex {
+
+    public static final long SLOT_MINUTES = 30;
+    public static final int SLOTS_PER_DAY = (int) (24 * 60 / SLOT_MINUTES);
+
+    private static final int LOCK_STRIPES = 64;
+
+    private final AppointmentRepository appointmentRepository;
+    private final ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+    private final Map<Long, DoctorCalendar> calendars = new ConcurrentHashMap<>();
+
+    @Autowired
+    public DoctorSlotIndex(AppointmentRepository appointmentRepository) {
+        this.appointmentRepository = appointmentRepository;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    public <T> T withDoctorLock(Long doctorId, Supplier<T> action) {
+        ReentrantLock lock = lockFor(doctorId);
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns true when no active appointment of the doctor starts less than
+     * SLOT_MINUTES before or after the given time. The appointment with id
+     * ignoreId (if any) is not counted, so an appointment can be moved within its own slot.
+     */
+    public boolean isFree(Long doctorId, LocalDateTime start, Long ignoreId) {
+        return withDoctorLock(doctorId, () -> {
+            for (Set<Long> ids : calendar(doctorId).around(start).values()) {
+                if (ids.size() > 1 || !ids.contains(ignoreId)) {
+                    return false;
+                }
+            }
+            return true;
+        });
+    }
+
+    /**
+     * Bitmaps of blocked slot starts of several doctors for each day from firstDay to lastDay (index 0 is
+     * firstDay); bit i is set when the slot starting i * SLOT_MINUTES after midnight conflicts with an active
+     * appointment. Calendars already in the index answer from memory. The other doctors' bitmaps come from one
+     * query over just these days and their calendars are not loaded, so a search never pulls in whole histories.
+     */
+    public Map<Long, long[]> busySlots(Collection<Long> doctorIds, LocalDate firstDay, LocalDate lastDay) {
+        int days = (int) ChronoUnit.DAYS.between(firstDay, lastDay) + 1;
+        Map<Long, long[]> result = new HashMap<>();
+        Map<Long, DoctorCalendar> unloaded = new HashMap<>();
+        for (Long doctorId : doctorIds) {
+            long[] bits = withDoctorLock(doctorId, () -> {
+                DoctorCalendar calendar = calendars.get(doctorId);
+                return calendar != null ? calendar.busy(firstDay, days) : null;
+            });
+            if (bits != null) {
+                result.put(doctorId, bits);
+            } else {
+                unloaded.put(doctorId, new DoctorCalendar());
+            }
+        }
+        if (!unloaded.isEmpty()) {
+            // An appointment up to SLOT_MINUTES before midnight still blocks the first slot of the day
+            for (Object[] row : appointmentRepository.findStartsBetween(unloaded.keySet(),
+                    Appointment.AppointmentStatus.CANCELLED, firstDay.atStartOfDay().minusMinutes(SLOT_MINUTES),
+                    lastDay.plusDays(1).atStartOfDay())) {
+                unloaded.get((Long) row[0]).add((LocalDateTime) row[2], (Long) row[1]);
+            }
+            unloaded.forEach((doctorId, calendar) -> result.put(doctorId, calendar.busy(firstDay, days)));
+        }
+        return result;
+    }
+
+    public void add(Appointment appointment) {
+        if (!isIndexable(appointment)) {
+            return;
+        }
+        Long doctorId = appointment.getDoctor().getId();
+        withDoctorLock(doctorId, () -> {
+            calendar(doctorId).add(appointment.getAppointmentDate(), appointment.getId());
+            return null;
+        });
+    }
+
+    /**
+     * Checks and books a slot in one step; used when the row id is not known yet
+     * (for example a placeholder id during bulk import).
+     */
+    public boolean tryReserve(Long doctorId, LocalDateTime start, Long appointmentId) {
+        return withDoctorLock(doctorId, () -> {
+            if (!isFree(doctorId, start, null)) {
+                return false;
+            }
+            calendar(doctorId).add(start, appointmentId);
+            return true;
+        });
+    }
+
+    public void remove(Long doctorId, LocalDateTime start, Long appointmentId) {
+        if (doctorId == null || start == null || appointmentId == null) {
+            return;
+        }
+        withDoctorLock(doctorId, () -> {
+            DoctorCalendar calendar = calendars.get(doctorId);
+            if (calendar != null) {
+                calendar.remove(start, appointmentId);
+            }
+            return null;
+        });
+    }
+
+    public void evict(Long doctorId) {
+        withDoctorLock(doctorId, () -> calendars.remove(doctorId));
+    }
+
+    private DoctorCalendar calendar(Long doctorId) {
+        DoctorCalendar calendar = calendars.get(doctorId);
+        if (calendar == null) {
+            calendar = new DoctorCalendar();
+            for (Appointment existing : appointmentRepository.findByDoctorIdAndStatusNot(doctorId,
+                    Appointment.AppointmentStatus.CANCELLED)) {
+                if (existing.getAppointmentDate() != null) {
+                    calendar.add(existing.getAppointmentDate(), existing.getId());
+                }
+            }
+            calendars.put(doctorId, calendar);
+        }
+        return calendar;
+    }
+
+    private ReentrantLock lockFor(Long doctorId) {
+        return locks[Math.floorMod(doctorId.hashCode(), LOCK_STRIPES)];
+    }
+
+    static boolean isIndexable(Appointment appointment) {
+        return appointment.getId() != null
+                && appointment.getDoctor() != null && appointment.getDoctor().getId() != null
+                && appointment.getAppointmentDate() != null
+                && appointment.getStatus() != Appointment.AppointmentStatus.CANCELLED;
+    }
+
+    public static LocalDateTime slotStart(LocalDate day, int slot) {
+        return day.atStartOfDay().plusMinutes(slot * SLOT_MINUTES);
+    }
+
+    private static class DoctorCalendar {
+
+        private final NavigableMap<LocalDateTime, Set<Long>> entries = new TreeMap<>();
+        private final Map<LocalDate, Long> busy = new HashMap<>();
+
+        long[] busy(LocalDate firstDay, int days) {
+            long[] bits = new long[days];
+            for (int i = 0; i < days; i++) {
+                bits[i] = busy.getOrDefault(firstDay.plusDays(i), 0L);
+            }
+            return bits;
+        }
+
+        NavigableMap<LocalDateTime, Set<Long>> around(LocalDateTime start) {
+            return entries.subMap(start.minusMinutes(SLOT_MINUTES), false, start.plusMinutes(SLOT_MINUTES), false);
+        }
+
+        void add(LocalDateTime start, Long appointmentId) {
+            entries.computeIfAbsent(start, k -> new HashSet<>()).add(appointmentId);
+            for (LocalDateTime slot : blockedSlots(start)) {
+                busy.merge(slot.toLocalDate(), 1L << slotOfDay(slot), (a, b) -> a | b);
+            }
+        }
+
+        void remove(LocalDateTime start, Long appointmentId) {
+            Set<Long> ids = entries.get(start);
+            if (ids == null || !ids.remove(appointmentId)) {
+                return;
+            }
+            if (ids.isEmpty()) {
+                entries.remove(start);
+            }
+            // Another appointment may still block the same slots, so rebuild the affected days
+            for (LocalDateTime slot : blockedSlots(start)) {
+                rebuildDay(slot.toLocalDate());
+            }
+        }
+
+        private void rebuildDay(LocalDate day) {
+            LocalDateTime dayStart = day.atStartOfDay();
+            long bits = 0L;
+            for (LocalDateTime start : entries.subMap(dayStart.minusMinutes(SLOT_MINUTES), false,
+                    dayStart.plusDays(1).plusMinutes(SLOT_MINUTES), false).keySet()) {
+                for (LocalDateTime slot : blockedSlots(start)) {
+                    if (slot.toLocalDate().equals(day)) {
+                        bits |= 1L << slotOfDay(slot);
+                    }
+                }
+            }
+            if (bits == 0L) {
+                busy.remove(day);
+            } else {
+                busy.put(day, bits);
+            }
+        }
+
+        /** Slot starts less than SLOT_MINUTES away from the given time: one if aligned, otherwise two. */
+        private static LocalDateTime[] blockedSlots(LocalDateTime start) {
+            LocalDateTime floor = start.toLocalDate().atStartOfDay()
+                    .plusMinutes(slotOfDay(start) * SLOT_MINUTES);
+            if (floor.equals(start)) {
+                return new LocalDateTime[] { floor };
+            }
+            return new LocalDateTime[] { floor, floor.plusMinutes(SLOT_MINUTES) };
+        }
+
+        private static int slotOfDay(LocalDateTime time) {
+            return (int) (time.toLocalTime().toSecondOfDay() / (SLOT_MINUTES * 60));
+        }
+    }
+}
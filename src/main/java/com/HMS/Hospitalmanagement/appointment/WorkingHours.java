@@ -0,0 +1,49 @@
+package com.HMS.Hospitalmanagement.appointment;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalTime;
+
+/**
+ * The clinic's opening hours as a range of DoctorSlotIndex slots. Availability offers only these
+ * slots, and utilization is measured against them.
+ */
+@Component
+public class WorkingHours {
+
+    private final int firstSlot;
+    private final int endSlot;
+
+    @Autowired
+    public WorkingHours(@Value("${hms.appointments.opens-at:09:00}") String opensAt,
+            @Value("${hms.appointments.closes-at:17:00}") String closesAt) {
+        long slotSeconds = DoctorSlotIndex.SLOT_MINUTES * 60;
+        // A slot counts only if it starts at or after opening and ends by closing
+        this.firstSlot = (int) ((LocalTime.parse(opensAt).toSecondOfDay() + slotSeconds - 1) / slotSeconds);
+        this.endSlot = (int) (LocalTime.parse(closesAt).toSecondOfDay() / slotSeconds);
+        if (firstSlot >= endSlot) {
+            throw new IllegalArgumentException("Working hours must contain at least one "
+                    + DoctorSlotIndex.SLOT_MINUTES + "-minute slot: " + opensAt + "-" + closesAt);
+        }
+    }
+
+    public int firstSlot() {
+        return firstSlot;
+    }
+
+    /** Exclusive. */
+    public int endSlot() {
+        return endSlot;
+    }
+
+    public int slotsPerDay() {
+        return endSlot - firstSlot;
+    }
+
+    /** Bitmap in the layout of DoctorSlotIndex.busySlots with the working slots set. */
+    public long mask() {
+        return ((1L << endSlot) - 1) & -(1L << firstSlot);
+    }
+}
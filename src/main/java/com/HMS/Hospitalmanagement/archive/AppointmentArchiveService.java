@@ -0,0 +1,188 @@
+package com.HMS.Hospitalmanagement.archive;
+
+import com.HMS.Hospitalmanagement.appointment.DoctorSlotIndex;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Moves finished (COMPLETED or CANCELLED) appointments older than the configured
+ * horizon, together with their bills, into appointments_archive and bills_archive.
+ * Rows are moved in small batches, each in its own transaction, with a pause in
+ * between so the job does not hold long locks on the hot tables. Archived rows are read
+ * back only by date-ranged queries that ask needsArchive first.
+ */
+@Service
+public class AppointmentArchiveService {
+
+    private static final String ARCHIVABLE = "appointment_date < ? AND status IN ('COMPLETED', 'CANCELLED')";
+    private static final String SELECT_BATCH_SQL = "SELECT id, doctor_id, appointment_date FROM appointments "
+            + "WHERE " + ARCHIVABLE + " ORDER BY appointment_date, id LIMIT ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ArchivedAppointmentRepository archivedAppointmentRepository;
+    private final DoctorSlotIndex slotIndex;
+
+    @Value("${hms.archive.horizon-days:730}")
+    private int horizonDays;
+
+    @Value("${hms.archive.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${hms.archive.pause-ms:200}")
+    private long pauseMs;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    // Newest appointment date present in the archive; null while the archive is empty
+    private volatile LocalDateTime archivedThrough;
+
+    @Autowired
+    public AppointmentArchiveService(JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            ArchivedAppointmentRepository archivedAppointmentRepository,
+            DoctorSlotIndex slotIndex) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.archivedAppointmentRepository = archivedAppointmentRepository;
+        this.slotIndex = slotIndex;
+    }
+
+    public int getHorizonDays() {
+        return horizonDays;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadWatermark() {
+        archivedThrough = archivedAppointmentRepository.findLatestAppointmentDate();
+    }
+
+    /**
+     * True when a query starting at {@code from} (null meaning unbounded) can match archived rows.
+     */
+    public boolean needsArchive(LocalDateTime from) {
+        LocalDateTime through = archivedThrough;
+        return through != null && (from == null || !from.isAfter(through));
+    }
+
+    @Scheduled(cron = "${hms.archive.cron:0 30 2 * * *}")
+    public void runScheduled() {
+        archive(horizonDays);
+    }
+
+    /**
+     * Archives finished appointments older than olderThanDays, which may not be below the configured
+     * horizon so an on-demand run cannot reach into recent history.
+     */
+    public ArchiveRunResult archive(int olderThanDays) {
+        if (olderThanDays < horizonDays) {
+            throw new IllegalArgumentException("olderThanDays must be at least " + horizonDays);
+        }
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(olderThanDays);
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("Archive job is already running");
+        }
+        long started = System.currentTimeMillis();
+        long appointments = 0;
+        long bills = 0;
+        try {
+            while (true) {
+                List<ArchiveCandidate> batch = jdbcTemplate.query(SELECT_BATCH_SQL,
+                        (rs, rowNum) -> new ArchiveCandidate(rs.getLong("id"), rs.getLong("doctor_id"),
+                                rs.getTimestamp("appointment_date").toLocalDateTime()),
+                        Timestamp.valueOf(cutoff), batchSize);
+                if (batch.isEmpty()) {
+                    break;
+                }
+                MovedBatch moved = moveBatch(batch, cutoff);
+                bills += moved.bills();
+                appointments += moved.appointments().size();
+
+                for (ArchiveCandidate candidate : moved.appointments()) {
+                    slotIndex.remove(candidate.doctorId(), candidate.appointmentDate(), candidate.id());
+                    LocalDateTime through = archivedThrough;
+                    if (through == null || candidate.appointmentDate().isAfter(through)) {
+                        archivedThrough = candidate.appointmentDate();
+                    }
+                }
+                if (batch.size() < batchSize) {
+                    break;
+                }
+                Thread.sleep(pauseMs);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            running.set(false);
+        }
+        return new ArchiveRunResult(cutoff, appointments, bills, System.currentTimeMillis() - started);
+    }
+
+    /**
+     * Moves the batch in one transaction. The rows are locked and re-checked against the cutoff and
+     * status first, so one reopened or moved forward since it was selected stays where it is.
+     */
+    private MovedBatch moveBatch(List<ArchiveCandidate> batch, LocalDateTime cutoff) {
+        MovedBatch moved = transactionTemplate.execute(status -> {
+            List<Object> args = new ArrayList<>(batch.size() + 1);
+            args.add(Timestamp.valueOf(cutoff));
+            for (ArchiveCandidate candidate : batch) {
+                args.add(candidate.id());
+            }
+            Set<Long> locked = new HashSet<>(jdbcTemplate.queryForList("SELECT id FROM appointments WHERE "
+                    + ARCHIVABLE + " AND id IN (" + placeholders(batch.size()) + ") FOR UPDATE",
+                    Long.class, args.toArray()));
+            List<ArchiveCandidate> movable = batch.stream().filter(c -> locked.contains(c.id())).toList();
+            if (movable.isEmpty()) {
+                return new MovedBatch(movable, 0);
+            }
+
+            String in = placeholders(movable.size());
+            List<Object> ids = new ArrayList<>(movable.size());
+            for (ArchiveCandidate candidate : movable) {
+                ids.add(candidate.id());
+            }
+            List<Object> withTimestamp = new ArrayList<>(ids.size() + 1);
+            withTimestamp.add(Timestamp.valueOf(LocalDateTime.now()));
+            withTimestamp.addAll(ids);
+
+            int billRows = jdbcTemplate.update("INSERT INTO bills_archive "
+                    + "(id, appointment_id, consultation_fee, test_charges, total_amount, payment_status, bill_date, archived_at) "
+                    + "SELECT id, appointment_id, consultation_fee, test_charges, total_amount, payment_status, bill_date, ? "
+                    + "FROM bills WHERE appointment_id IN (" + in + ")", withTimestamp.toArray());
+            jdbcTemplate.update("INSERT INTO appointments_archive "
+                    + "(id, patient_id, doctor_id, appointment_date, reason, status, lab_tests_required, archived_at) "
+                    + "SELECT id, patient_id, doctor_id, appointment_date, reason, status, lab_tests_required, ? "
+                    + "FROM appointments WHERE id IN (" + in + ")", withTimestamp.toArray());
+            jdbcTemplate.update("DELETE FROM bills WHERE appointment_id IN (" + in + ")", ids.toArray());
+            jdbcTemplate.update("DELETE FROM appointments WHERE id IN (" + in + ")", ids.toArray());
+            return new MovedBatch(movable, billRows);
+        });
+        return moved != null ? moved : new MovedBatch(List.of(), 0);
+    }
+
+    private static String placeholders(int count) {
+        return String.join(",", Collections.nCopies(count, "?"));
+    }
+
+    private record MovedBatch(List<ArchiveCandidate> appointments, int bills) {
+    }
+
+    private record ArchiveCandidate(long id, long doctorId, LocalDateTime appointmentDate) {
+    }
+}
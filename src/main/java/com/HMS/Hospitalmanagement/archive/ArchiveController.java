@@ -0,0 +1,32 @@
+package com.HMS.Hospitalmanagement.archive;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/archive")
+public class ArchiveController {
+
+    private final AppointmentArchiveService archiveService;
+
+    @Autowired
+    public ArchiveController(AppointmentArchiveService archiveService) {
+        this.archiveService = archiveService;
+    }
+
+    /**
+     * olderThanDays defaults to hms.archive.horizon-days and may not be lower.
+     */
+    @PostMapping("/run")
+    public ResponseEntity<ArchiveRunResult> runArchive(@RequestParam(required = false) Integer olderThanDays) {
+        try {
+            return ResponseEntity.ok(archiveService.archive(
+                    olderThanDays != null ? olderThanDays : archiveService.getHorizonDays()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(409).build();
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.HMS.Hospitalmanagement.archive;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArchiveRunResult {
+
+    private LocalDateTime cutoff;
+    private long archivedAppointments;
+    private long archivedBills;
+    private long durationMs;
+}
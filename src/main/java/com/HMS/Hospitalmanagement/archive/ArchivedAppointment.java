@@ -0,0 +1,43 @@
+package com.HMS.Hospitalmanagement.archive;
+
+import com.HMS.Hospitalmanagement.appointment.Appointment;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+/**
+ * Cold copy of a finished appointment moved out of the appointments table by
+ * AppointmentArchiveService. Keeps the original id; patient and doctor are plain
+ * ids so archived history survives later changes to those rows.
+ */
+@Entity
+@Table(name = "appointments_archive", indexes = {
+        @Index(name = "idx_appointments_archive_date_id", columnList = "appointment_date, id"),
+        @Index(name = "idx_appointments_archive_doctor_date", columnList = "doctor_id, appointment_date, id"),
+        @Index(name = "idx_appointments_archive_patient_date", columnList = "patient_id, appointment_date, id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArchivedAppointment {
+
+    @Id
+    private Long id;
+
+    @Column(name = "patient_id")
+    private Long patientId;
+
+    @Column(name = "doctor_id")
+    private Long doctorId;
+
+    private LocalDateTime appointmentDate;
+    private String reason;
+
+    @Enumerated(EnumType.STRING)
+    private Appointment.AppointmentStatus status;
+
+    private String labTestsRequired;
+    private LocalDateTime archivedAt;
+}
@@ -0,0 +1,42 @@
+package com.HMS.Hospitalmanagement.archive;
+
+import com.HMS.Hospitalmanagement.appointment.Appointment;
+import com.HMS.Hospitalmanagement.appointment.AppointmentSummary;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ArchivedAppointmentRepository extends JpaRepository<ArchivedAppointment, Long> {
+
+    @Query("SELECT MAX(a.appointmentDate) FROM ArchivedAppointment a")
+    LocalDateTime findLatestAppointmentDate();
+
+    @Query("SELECT new com.HMS.Hospitalmanagement.appointment.AppointmentSummary("
+            + "a.id, a.appointmentDate, a.reason, a.status, a.labTestsRequired, "
+            + "a.patientId, p.name, a.doctorId, d.name, d.specialization) "
+            + "FROM ArchivedAppointment a "
+            + "LEFT JOIN Patient p ON p.id = a.patientId "
+            + "LEFT JOIN Doctor d ON d.id = a.doctorId "
+            + "WHERE a.appointmentDate IS NOT NULL "
+            + "AND (:doctorId IS NULL OR a.doctorId = :doctorId) "
+            + "AND (:patientId IS NULL OR a.patientId = :patientId) "
+            + "AND (:status IS NULL OR a.status = :status) "
+            + "AND (:from IS NULL OR a.appointmentDate >= :from) "
+            + "AND (:to IS NULL OR a.appointmentDate < :to) "
+            + "AND (:afterDate IS NULL OR a.appointmentDate > :afterDate "
+            + "OR (a.appointmentDate = :afterDate AND a.id > :afterId)) "
+            + "ORDER BY a.appointmentDate, a.id")
+    List<AppointmentSummary> findSummaryPage(@Param("doctorId") Long doctorId,
+            @Param("patientId") Long patientId,
+            @Param("status") Appointment.AppointmentStatus status,
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to,
+            @Param("afterDate") LocalDateTime afterDate,
+            @Param("afterId") Long afterId,
+            Limit limit);
+}
@@ -0,0 +1,35 @@
+package com.HMS.Hospitalmanagement.archive;
+
+import com.HMS.Hospitalmanagement.billing.Bill;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "bills_archive", indexes = {
+        @Index(name = "idx_bills_archive_appointment", columnList = "appointment_id"),
+        @Index(name = "idx_bills_archive_date", columnList = "bill_date")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArchivedBill {
+
+    @Id
+    private Long id;
+
+    @Column(name = "appointment_id")
+    private Long appointmentId;
+
+    private Double consultationFee;
+    private Double testCharges;
+    private Double totalAmount;
+
+    @Enumerated(EnumType.STRING)
+    private Bill.PaymentStatus paymentStatus;
+
+    private LocalDateTime billDate;
+    private LocalDateTime archivedAt;
+}
@@ -0,0 +1,22 @@
+package com.HMS.Hospitalmanagement.archive;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.util.List;
+
+@Repository
+public interface ArchivedBillRepository extends JpaRepository<ArchivedBill, Long> {
+
+    // Rows of (id, billDate, paymentStatus, consultationFee, testCharges, totalAmount, appointmentDate,
+    // patientId, patientName, patientContact, doctorName, doctorSpecialization); at most one row
+    @Query("SELECT b.id, b.billDate, b.paymentStatus, b.consultationFee, b.testCharges, b.totalAmount, "
+            + "a.appointmentDate, a.patientId, p.name, p.contactNumber, d.name, d.specialization "
+            + "FROM ArchivedBill b "
+            + "LEFT JOIN ArchivedAppointment a ON a.id = b.appointmentId "
+            + "LEFT JOIN Patient p ON p.id = a.patientId "
+            + "LEFT JOIN Doctor d ON d.id = a.doctorId "
+            + "WHERE b.id = :id")
+    List<Object[]> findInvoiceRow(@Param("id") Long id);
+}
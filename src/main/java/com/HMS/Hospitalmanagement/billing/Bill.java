@@ -8,7 +8,9 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "bills")
+@Table(name = "bills", indexes = {
+        @Index(name = "idx_bills_date", columnList = "bill_date")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -31,6 +33,10 @@ public class Bill {
 
     private LocalDateTime billDate;
 
+    // Concurrent edits of one bill fail instead of both retracting the same revenue fact
+    @Version
+    private long version;
+
     public enum PaymentStatus {
         PENDING, PAID, CANCELLED
     }
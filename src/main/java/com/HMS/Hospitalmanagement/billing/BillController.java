@@ -1,21 +1,37 @@
 package com.HMS.Hospitalmanagement.billing;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/bills")
 public class BillController {
 
     private final BillService billService;
+    private final BillGenerationJob billGenerationJob;
+    private final InvoiceService invoiceService;
 
     @Autowired
-    public BillController(BillService billService) {
+    public BillController(BillService billService, BillGenerationJob billGenerationJob,
+            InvoiceService invoiceService) {
         this.billService = billService;
+        this.billGenerationJob = billGenerationJob;
+        this.invoiceService = invoiceService;
     }
 
     @PostMapping
@@ -28,6 +44,31 @@ public class BillController {
         return billService.getAllBills();
     }
 
+    @PostMapping("/generate")
+    public ResponseEntity<BillGenerationStatus> generateBills() {
+        if (!billGenerationJob.start()) {
+            return ResponseEntity.status(409).body(billGenerationJob.getStatus());
+        }
+        return ResponseEntity.accepted().body(billGenerationJob.getStatus());
+    }
+
+    @GetMapping("/generate/status")
+    public BillGenerationStatus getBillGenerationStatus() {
+        return billGenerationJob.getStatus();
+    }
+
+    @GetMapping("/summary")
+    public ResponseEntity<List<RevenueBucket>> getRevenueSummary(
+            @RequestParam(defaultValue = "day") String groupBy,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        try {
+            return ResponseEntity.ok(billService.getRevenueSummary(groupBy, from, to));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<Bill> getBillById(@PathVariable Long id) {
         Optional<Bill> bill = billService.getBillById(id);
@@ -35,6 +76,36 @@ public class BillController {
                 .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
+    @GetMapping("/{id}/invoice")
+    public ResponseEntity<Resource> getInvoice(@PathVariable Long id) {
+        try {
+            return invoiceService.getInvoice(id)
+                    .<ResponseEntity<Resource>>map(file -> ResponseEntity.ok()
+                            .contentType(MediaType.TEXT_HTML)
+                            .header(HttpHeaders.CONTENT_DISPOSITION,
+                                    "inline; filename=\"INV-" + id + ".html\"")
+                            .body(new FileSystemResource(file)))
+                    .orElseGet(() -> ResponseEntity.notFound().build());
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(503).header(HttpHeaders.RETRY_AFTER, "1").build();
+        }
+    }
+
+    @PostMapping("/invoices/render")
+    public ResponseEntity<Map<String, Object>> renderInvoices(@RequestParam String month) {
+        YearMonth yearMonth;
+        try {
+            yearMonth = YearMonth.parse(month);
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "month must look like 2025-01"));
+        }
+        int queued = invoiceService.renderMonth(yearMonth);
+        if (queued < 0) {
+            return ResponseEntity.status(409).body(Map.of("error", "An invoice batch is already running"));
+        }
+        return ResponseEntity.accepted().body(Map.of("month", month, "queued", queued));
+    }
+
     @GetMapping("/appointment/{appointmentId}")
     public ResponseEntity<Bill> getBillByAppointmentId(@PathVariable Long appointmentId) {
         Optional<Bill> bill = billService.getBillByAppointmentId(appointmentId);
@@ -44,7 +115,12 @@ public class BillController {
 
     @PutMapping("/{id}")
     public ResponseEntity<Bill> updateBill(@PathVariable Long id, @RequestBody Bill billDetails) {
-        Bill updated = billService.updateBill(id, billDetails);
+        Bill updated;
+        try {
+            updated = billService.updateBill(id, billDetails);
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(409).build();
+        }
         if (updated == null) {
             return ResponseEntity.notFound().build();
         }
@@ -53,7 +129,12 @@ public class BillController {
 
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteBill(@PathVariable Long id) {
-        boolean deleted = billService.deleteBill(id);
+        boolean deleted;
+        try {
+            deleted = billService.deleteBill(id);
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(409).build();
+        }
         if (deleted) {
             return ResponseEntity.noContent().build();
         }
@@ -0,0 +1,216 @@
+package com.HMS.Hospitalmanagement.billing;
+
+import com.HMS.Hospitalmanagement.metrics.DoctorMetrics;
+import com.HMS.Hospitalmanagement.patient.PatientTimelineCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Creates PENDING bills for COMPLETED appointments that have none, priced from the
+ * doctor's consultation fee and the LabTestPricing list. Only the tests recorded on the
+ * appointment are charged; a patient's standing tests belong to no single visit. Appointments are scanned in
+ * id order in chunks; each chunk is inserted as one JDBC batch and the last id is
+ * checkpointed in the same transaction, so an interrupted run resumes where it stopped.
+ */
+@Service
+public class BillGenerationJob {
+
+    static final String JOB_NAME = "bill-generation";
+
+    static final String SELECT_CHUNK_SQL = "SELECT a.id, a.patient_id, a.doctor_id, d.consultation_fee, "
+            + "a.lab_tests_required AS lab_tests "
+            + "FROM appointments a "
+            + "JOIN doctors d ON d.id = a.doctor_id "
+            + "LEFT JOIN bills b ON b.appointment_id = a.id "
+            + "WHERE a.status = 'COMPLETED' AND b.id IS NULL AND a.id > ? "
+            + "ORDER BY a.id LIMIT ?";
+    private static final String INSERT_SQL = "INSERT INTO bills "
+            + "(appointment_id, consultation_fee, test_charges, total_amount, payment_status, bill_date, version) "
+            + "VALUES (?, ?, ?, ?, ?, ?, 0)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final JobCheckpointRepository checkpointRepository;
+    private final LabTestPricing labTestPricing;
+    private final RevenueRollup revenueRollup;
+    private final DoctorMetrics doctorMetrics;
+    private final PatientTimelineCache timelineCache;
+
+    @Value("${hms.billing.generate-chunk-size:500}")
+    private int chunkSize;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile BillGenerationStatus lastStatus = new BillGenerationStatus();
+
+    @Autowired
+    public BillGenerationJob(JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            JobCheckpointRepository checkpointRepository,
+            LabTestPricing labTestPricing,
+            RevenueRollup revenueRollup,
+            DoctorMetrics doctorMetrics,
+            PatientTimelineCache timelineCache) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.checkpointRepository = checkpointRepository;
+        this.labTestPricing = labTestPricing;
+        this.revenueRollup = revenueRollup;
+        this.doctorMetrics = doctorMetrics;
+        this.timelineCache = timelineCache;
+    }
+
+    @Scheduled(cron = "${hms.billing.generate-cron:0 0 1 * * *}")
+    public void runScheduled() {
+        run();
+    }
+
+    /**
+     * Starts a run on a background thread. Returns false if a run is already in progress.
+     */
+    public boolean start() {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        try {
+            Thread.ofVirtual().name("bill-generation").start(this::execute);
+        } catch (RuntimeException e) {
+            running.set(false);
+            throw e;
+        }
+        return true;
+    }
+
+    public BillGenerationStatus getStatus() {
+        return lastStatus;
+    }
+
+    public BillGenerationStatus run() {
+        if (!running.compareAndSet(false, true)) {
+            return lastStatus;
+        }
+        return execute();
+    }
+
+    /** Runs the job; the caller has already claimed the running flag, which this releases when done. */
+    private BillGenerationStatus execute() {
+        BillGenerationStatus status = new BillGenerationStatus();
+        status.setRunning(true);
+        status.setStartedAt(LocalDateTime.now());
+        lastStatus = status;
+        long startedNanos = System.nanoTime();
+        try {
+            JobCheckpoint checkpoint = checkpointRepository.findById(JOB_NAME)
+                    .orElse(new JobCheckpoint(JOB_NAME, 0L, "COMPLETED", null));
+            long afterId = "RUNNING".equals(checkpoint.getStatus()) ? checkpoint.getLastId() : 0L;
+            status.setResumedAfterId(afterId > 0 ? afterId : null);
+            saveCheckpoint(afterId, "RUNNING");
+
+            while (true) {
+                List<Candidate> chunk = jdbcTemplate.query(SELECT_CHUNK_SQL,
+                        (rs, rowNum) -> new Candidate(rs.getLong("id"), rs.getLong("patient_id"),
+                                rs.getLong("doctor_id"), rs.getDouble("consultation_fee"), rs.getString("lab_tests")),
+                        afterId, chunkSize);
+                if (chunk.isEmpty()) {
+                    break;
+                }
+                LocalDateTime billDate = LocalDateTime.now();
+                List<Candidate> inserted = insertChunk(chunk, billDate);
+                for (Candidate candidate : inserted) {
+                    RevenueRollup.Fact fact = new RevenueRollup.Fact(billDate.toLocalDate(), candidate.doctorId(),
+                            Bill.PaymentStatus.PENDING, candidate.total(labTestPricing));
+                    revenueRollup.apply(fact, 1);
+                    doctorMetrics.applyBill(fact, 1);
+                    timelineCache.invalidate(candidate.patientId());
+                }
+
+                afterId = chunk.get(chunk.size() - 1).appointmentId();
+                status.setScanned(status.getScanned() + chunk.size());
+                status.setCreated(status.getCreated() + inserted.size());
+                status.setSkipped(status.getSkipped() + chunk.size() - inserted.size());
+                status.setLastAppointmentId(afterId);
+                status.setBillsPerSecond(rate(status.getCreated(), startedNanos));
+                if (chunk.size() < chunkSize) {
+                    break;
+                }
+            }
+            saveCheckpoint(0L, "COMPLETED");
+        } catch (RuntimeException e) {
+            status.setError(e.getMessage());
+        } finally {
+            status.setBillsPerSecond(rate(status.getCreated(), startedNanos));
+            status.setFinishedAt(LocalDateTime.now());
+            status.setRunning(false);
+            running.set(false);
+        }
+        return status;
+    }
+
+    private List<Candidate> insertChunk(List<Candidate> chunk, LocalDateTime billDate) {
+        Long lastId = chunk.get(chunk.size() - 1).appointmentId();
+        try {
+            transactionTemplate.executeWithoutResult(tx -> {
+                List<Object[]> rows = new ArrayList<>(chunk.size());
+                for (Candidate candidate : chunk) {
+                    rows.add(toRow(candidate, billDate));
+                }
+                jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+                saveCheckpoint(lastId, "RUNNING");
+            });
+            return chunk;
+        } catch (DataIntegrityViolationException e) {
+            // A bill was created by hand meanwhile; fall back to row-by-row for this chunk
+            List<Candidate> inserted = new ArrayList<>();
+            for (Candidate candidate : chunk) {
+                try {
+                    jdbcTemplate.update(INSERT_SQL, toRow(candidate, billDate));
+                    inserted.add(candidate);
+                } catch (DataIntegrityViolationException duplicate) {
+                    // already billed
+                }
+            }
+            saveCheckpoint(lastId, "RUNNING");
+            return inserted;
+        }
+    }
+
+    private Object[] toRow(Candidate candidate, LocalDateTime billDate) {
+        double testCharges = labTestPricing.priceOf(candidate.labTests());
+        return new Object[] {
+                candidate.appointmentId(),
+                candidate.consultationFee(),
+                testCharges,
+                candidate.consultationFee() + testCharges,
+                Bill.PaymentStatus.PENDING.name(),
+                Timestamp.valueOf(billDate)
+        };
+    }
+
+    private void saveCheckpoint(Long lastId, String state) {
+        checkpointRepository.save(new JobCheckpoint(JOB_NAME, lastId, state, LocalDateTime.now()));
+    }
+
+    private static double rate(long count, long startedNanos) {
+        double seconds = Duration.ofNanos(System.nanoTime() - startedNanos).toMillis() / 1000.0;
+        return seconds > 0 ? count / seconds : count;
+    }
+
+    private record Candidate(long appointmentId, long patientId, long doctorId, double consultationFee,
+            String labTests) {
+
+        double total(LabTestPricing pricing) {
+            return consultationFee + pricing.priceOf(labTests);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.HMS.Hospitalmanagement.billing;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+public class BillGenerationStatus {
+
+    private boolean running;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private Long resumedAfterId;
+    private Long lastAppointmentId;
+    private long scanned;
+    private long created;
+    private long skipped;
+    private double billsPerSecond;
+    private String error;
+}
@@ -1,7 +1,12 @@
 package com.HMS.Hospitalmanagement.billing;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -10,4 +15,12 @@ public interface BillRepository extends JpaRepository<Bill, Long> {
     Optional<Bill> findByAppointmentId(Long appointmentId);
 
     List<Bill> findByPaymentStatus(Bill.PaymentStatus paymentStatus);
+
+    @Query("SELECT b.id FROM Bill b WHERE b.billDate >= :from AND b.billDate < :to ORDER BY b.id")
+    List<Long> findIdsByBillDateBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM Bill b WHERE b.id = :id AND b.version = :version")
+    int deleteByIdAndVersion(@Param("id") Long id, @Param("version") long version);
 }
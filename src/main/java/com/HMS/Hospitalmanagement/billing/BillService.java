@@ -2,9 +2,13 @@ package com.HMS.Hospitalmanagement.billing;
 
 import com.HMS.Hospitalmanagement.appointment.Appointment;
 import com.HMS.Hospitalmanagement.appointment.AppointmentRepository;
+import com.HMS.Hospitalmanagement.metrics.DoctorMetrics;
+import com.HMS.Hospitalmanagement.patient.PatientTimelineCache;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
@@ -12,13 +16,22 @@ import java.util.Optional;
 @Service
 public class BillService {
 
+    private static final int MAX_WRITE_ATTEMPTS = 3;
+
     private final BillRepository billRepository;
     private final AppointmentRepository appointmentRepository;
+    private final RevenueRollup revenueRollup;
+    private final DoctorMetrics doctorMetrics;
+    private final PatientTimelineCache timelineCache;
 
     @Autowired
-    public BillService(BillRepository billRepository, AppointmentRepository appointmentRepository) {
+    public BillService(BillRepository billRepository, AppointmentRepository appointmentRepository,
+            RevenueRollup revenueRollup, DoctorMetrics doctorMetrics, PatientTimelineCache timelineCache) {
         this.billRepository = billRepository;
         this.appointmentRepository = appointmentRepository;
+        this.revenueRollup = revenueRollup;
+        this.doctorMetrics = doctorMetrics;
+        this.timelineCache = timelineCache;
     }
 
     public Bill createBill(Bill bill) {
@@ -37,9 +50,16 @@ public class BillService {
         }
         
         bill.calculateTotal();
-        return billRepository.save(bill);
+        Bill saved = billRepository.save(bill);
+        revenueRollup.add(saved);
+        doctorMetrics.applyBill(revenueRollup.snapshot(saved), 1);
+        timelineCache.invalidate(patientIdOf(saved));
+        return saved;
     }
 
+    /**
+     * Bill reads see only the live table; archived bills are not served here.
+     */
     public List<Bill> getAllBills() {
         return billRepository.findAll();
     }
@@ -52,8 +72,18 @@ public class BillService {
         return billRepository.findByAppointmentId(appointmentId);
     }
 
+    /**
+     * Applies the changes to the bill's current version. A concurrent update or delete makes the
+     * versioned save fail, and the change is re-applied to a fresh read, so each version's revenue
+     * fact is retracted exactly once.
+     */
     public Bill updateBill(Long id, Bill billDetails) {
-        return billRepository.findById(id).map(bill -> {
+        for (int attempt = 1; ; attempt++) {
+            Bill bill = billRepository.findById(id).orElse(null);
+            if (bill == null) {
+                return null;
+            }
+            RevenueRollup.Fact before = revenueRollup.snapshot(bill);
             if (billDetails.getConsultationFee() != null) {
                 bill.setConsultationFee(billDetails.getConsultationFee());
             }
@@ -65,15 +95,50 @@ public class BillService {
             }
             
             bill.calculateTotal();
-            return billRepository.save(bill);
-        }).orElse(null);
+            Bill saved;
+            try {
+                saved = billRepository.save(bill);
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt == MAX_WRITE_ATTEMPTS) {
+                    throw e;
+                }
+                continue;
+            }
+            revenueRollup.apply(before, -1);
+            revenueRollup.add(saved);
+            doctorMetrics.applyBill(before, -1);
+            doctorMetrics.applyBill(revenueRollup.snapshot(saved), 1);
+            timelineCache.invalidate(patientIdOf(saved));
+            return saved;
+        }
     }
 
     public boolean deleteBill(Long id) {
-        if (billRepository.existsById(id)) {
-            billRepository.deleteById(id);
+        for (int attempt = 1; ; attempt++) {
+            Bill bill = billRepository.findById(id).orElse(null);
+            if (bill == null) {
+                return false;
+            }
+            // Only the delete that removed this exact version retracts it
+            if (billRepository.deleteByIdAndVersion(id, bill.getVersion()) == 0) {
+                if (attempt == MAX_WRITE_ATTEMPTS) {
+                    throw new OptimisticLockingFailureException("Bill " + id + " kept changing during delete");
+                }
+                continue;
+            }
+            revenueRollup.remove(bill);
+            doctorMetrics.applyBill(revenueRollup.snapshot(bill), -1);
+            timelineCache.invalidate(patientIdOf(bill));
             return true;
         }
-        return false;
+    }
+
+    public List<RevenueBucket> getRevenueSummary(String groupBy, LocalDate from, LocalDate to) {
+        return revenueRollup.summarize(groupBy, from, to);
+    }
+
+    private static Long patientIdOf(Bill bill) {
+        Appointment appointment = bill.getAppointment();
+        return appointment != null && appointment.getPatient() != null ? appointment.getPatient().getId() : null;
     }
 }
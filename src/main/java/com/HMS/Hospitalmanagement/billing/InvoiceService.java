@@ -0,0 +1,284 @@
+package com.HMS.Hospitalmanagement.billing;
+
+import com.HMS.Hospitalmanagement.appointment.Appointment;
+import com.HMS.Hospitalmanagement.archive.AppointmentArchiveService;
+import com.HMS.Hospitalmanagement.archive.ArchivedBillRepository;
+import com.HMS.Hospitalmanagement.doctor.Doctor;
+import com.HMS.Hospitalmanagement.patient.Patient;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Renders HTML invoices on a small bounded worker pool and caches them on disk.
+ * The cache file name contains a fingerprint of every field shown on the invoice
+ * (plus the template), so a changed bill gets a new file, replacing the old one, and
+ * a repeated download of an unchanged bill is just a file send. Archived bills are looked
+ * up in bills_archive when the live table does not have them.
+ */
+@Service
+public class InvoiceService {
+
+    // The template is English, so month names must not follow the server's default locale
+    private static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern("dd MMM yyyy", Locale.ENGLISH);
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("dd MMM yyyy HH:mm",
+            Locale.ENGLISH);
+
+    private final BillRepository billRepository;
+    private final ArchivedBillRepository archivedBillRepository;
+    private final AppointmentArchiveService archiveService;
+    private final long renderWaitMs;
+    private final InvoiceTemplate template;
+    private final String templateHash;
+    private final Path cacheDir;
+    private final ThreadPoolExecutor renderPool;
+    private final AtomicBoolean batchRunning = new AtomicBoolean();
+
+    @Autowired
+    public InvoiceService(BillRepository billRepository,
+            ArchivedBillRepository archivedBillRepository,
+            AppointmentArchiveService archiveService,
+            @Value("${hms.invoice.cache-dir:invoice-cache}") String cacheDir,
+            @Value("${hms.invoice.workers:4}") int workers,
+            @Value("${hms.invoice.queue-capacity:200}") int queueCapacity,
+            @Value("${hms.invoice.render-wait-ms:2000}") long renderWaitMs) {
+        this.billRepository = billRepository;
+        this.archivedBillRepository = archivedBillRepository;
+        this.archiveService = archiveService;
+        this.renderWaitMs = renderWaitMs;
+        try (InputStream in = new ClassPathResource("templates/invoice.html").getInputStream()) {
+            String source = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            this.template = new InvoiceTemplate(source);
+            this.templateHash = sha256(source).substring(0, 8);
+            this.cacheDir = Paths.get(cacheDir);
+            Files.createDirectories(this.cacheDir);
+        } catch (IOException e) {
+            throw new RuntimeException("Could not initialize invoice rendering!", e);
+        }
+        this.renderPool = new ThreadPoolExecutor(workers, workers, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                Thread.ofPlatform().name("invoice-render-", 0).daemon(true).factory());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        renderPool.shutdown();
+    }
+
+    /**
+     * Returns the cached invoice file for the bill, rendering it first if needed.
+     * Throws RejectedExecutionException when the render queue is full or the render takes longer than
+     * render-wait-ms; in the latter case it still completes, so a retry finds it in the cache.
+     */
+    public Optional<Path> getInvoice(Long billId) {
+        Optional<Bill> bill = billRepository.findById(billId);
+        if (bill.isEmpty() && archiveService.needsArchive(null)) {
+            bill = findArchived(billId);
+        }
+        if (bill.isEmpty()) {
+            return Optional.empty();
+        }
+        Map<String, String> values = valuesOf(bill.get());
+        Path file = cacheFile(billId, values);
+        if (Files.exists(file)) {
+            return Optional.of(file);
+        }
+        Future<Path> rendering = renderPool.submit(() -> writeInvoice(billId, file, values));
+        try {
+            return Optional.of(rendering.get(renderWaitMs, TimeUnit.MILLISECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Invoice rendering interrupted", e);
+        } catch (TimeoutException e) {
+            throw new RejectedExecutionException("Invoice for bill " + billId + " is still rendering");
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Could not render invoice for bill " + billId, e);
+        }
+    }
+
+    /** Rebuilds the invoice fields of an archived bill, whose patient and doctor are looked up by id. */
+    private Optional<Bill> findArchived(Long billId) {
+        List<Object[]> rows = archivedBillRepository.findInvoiceRow(billId);
+        if (rows.isEmpty()) {
+            return Optional.empty();
+        }
+        Object[] row = rows.get(0);
+        Bill bill = new Bill();
+        bill.setId((Long) row[0]);
+        bill.setBillDate((LocalDateTime) row[1]);
+        bill.setPaymentStatus((Bill.PaymentStatus) row[2]);
+        bill.setConsultationFee((Double) row[3]);
+        bill.setTestCharges((Double) row[4]);
+        bill.setTotalAmount((Double) row[5]);
+        if (row[7] != null) {
+            Appointment appointment = new Appointment();
+            appointment.setAppointmentDate((LocalDateTime) row[6]);
+            Patient patient = new Patient();
+            patient.setId((Long) row[7]);
+            patient.setName((String) row[8]);
+            patient.setContactNumber((String) row[9]);
+            appointment.setPatient(patient);
+            if (row[10] != null) {
+                Doctor doctor = new Doctor();
+                doctor.setName((String) row[10]);
+                doctor.setSpecialization((String) row[11]);
+                appointment.setDoctor(doctor);
+            }
+            bill.setAppointment(appointment);
+        }
+        return Optional.of(bill);
+    }
+
+    /**
+     * Renders every invoice of the month in the background. Returns the number of bills
+     * queued, or -1 if a batch is already running.
+     */
+    public int renderMonth(YearMonth month) {
+        if (!batchRunning.compareAndSet(false, true)) {
+            return -1;
+        }
+        List<Long> ids = billRepository.findIdsByBillDateBetween(month.atDay(1).atStartOfDay(),
+                month.plusMonths(1).atDay(1).atStartOfDay());
+        // Leave room in the queue for interactive downloads while the batch runs
+        Semaphore slots = new Semaphore(Math.max(1, renderPool.getQueue().remainingCapacity() / 2));
+        Thread.ofVirtual().name("invoice-batch").start(() -> {
+            try {
+                for (Long id : ids) {
+                    slots.acquire();
+                    try {
+                        renderPool.execute(() -> {
+                            try {
+                                billRepository.findById(id).ifPresent(bill -> {
+                                    Map<String, String> values = valuesOf(bill);
+                                    Path file = cacheFile(id, values);
+                                    if (!Files.exists(file)) {
+                                        writeInvoice(id, file, values);
+                                    }
+                                });
+                            } finally {
+                                slots.release();
+                            }
+                        });
+                    } catch (RuntimeException e) {
+                        slots.release();
+                        throw e;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                batchRunning.set(false);
+            }
+        });
+        return ids.size();
+    }
+
+    private Path writeInvoice(Long billId, Path file, Map<String, String> values) {
+        try {
+            Path temp = Files.createTempFile(cacheDir, "render-", ".tmp");
+            Files.writeString(temp, template.render(values), StandardCharsets.UTF_8);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new RuntimeException("Could not write invoice file. Error: " + e.getMessage());
+        }
+        deleteOtherRenditions(billId, file);
+        return file;
+    }
+
+    /**
+     * Drops the files of earlier versions of the bill, which no request can hit again. Losing a race
+     * with a concurrent render only costs a re-render.
+     */
+    private void deleteOtherRenditions(Long billId, Path keep) {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(cacheDir, "INV-" + billId + "-*.html")) {
+            for (Path old : files) {
+                if (!old.equals(keep)) {
+                    Files.deleteIfExists(old);
+                }
+            }
+        } catch (IOException e) {
+            // Stale files only cost disk space; the next render tries again
+        }
+    }
+
+    private Path cacheFile(Long billId, Map<String, String> values) {
+        StringBuilder fingerprint = new StringBuilder(templateHash);
+        values.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(entry -> fingerprint.append('|').append(entry.getKey()).append('=').append(entry.getValue()));
+        return cacheDir.resolve("INV-" + billId + "-" + sha256(fingerprint.toString()).substring(0, 16) + ".html");
+    }
+
+    private static Map<String, String> valuesOf(Bill bill) {
+        Map<String, String> values = new HashMap<>();
+        values.put("billId", String.valueOf(bill.getId()));
+        values.put("billDate", format(bill.getBillDate(), DATE));
+        values.put("paymentStatus", bill.getPaymentStatus() != null ? bill.getPaymentStatus().name() : "");
+        values.put("consultationFee", money(bill.getConsultationFee()));
+        values.put("testCharges", money(bill.getTestCharges()));
+        values.put("totalAmount", money(bill.getTotalAmount()));
+
+        Appointment appointment = bill.getAppointment();
+        if (appointment != null) {
+            values.put("appointmentDate", format(appointment.getAppointmentDate(), DATE_TIME));
+            if (appointment.getPatient() != null) {
+                values.put("patientId", String.valueOf(appointment.getPatient().getId()));
+                values.put("patientName", appointment.getPatient().getName());
+                values.put("patientContact", appointment.getPatient().getContactNumber());
+            }
+            if (appointment.getDoctor() != null) {
+                values.put("doctorName", appointment.getDoctor().getName());
+                values.put("doctorSpecialization", appointment.getDoctor().getSpecialization());
+            }
+        }
+        return values;
+    }
+
+    private static String money(Double amount) {
+        return String.format(Locale.ROOT, "%.2f", amount != null ? amount : 0.0);
+    }
+
+    private static String format(LocalDateTime time, DateTimeFormatter formatter) {
+        return time != null ? time.format(formatter) : "";
+    }
+
+    private static String sha256(String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
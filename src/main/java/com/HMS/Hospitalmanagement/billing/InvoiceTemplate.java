@@ -0,0 +1,60 @@
+package com.HMS.Hospitalmanagement.billing;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An HTML template with {{name}} placeholders, split once into literal and
+ * placeholder segments so rendering is a single pass of appends. Values are
+ * HTML-escaped.
+ */
+public class InvoiceTemplate {
+
+    private final List<String> literals = new ArrayList<>();
+    private final List<String> placeholders = new ArrayList<>();
+    private final int sizeHint;
+
+    public InvoiceTemplate(String source) {
+        int position = 0;
+        while (true) {
+            int open = source.indexOf("{{", position);
+            int close = open < 0 ? -1 : source.indexOf("}}", open + 2);
+            if (open < 0 || close < 0) {
+                literals.add(source.substring(position));
+                break;
+            }
+            literals.add(source.substring(position, open));
+            placeholders.add(source.substring(open + 2, close).trim());
+            position = close + 2;
+        }
+        this.sizeHint = source.length() + 256;
+    }
+
+    public String render(Map<String, String> values) {
+        StringBuilder out = new StringBuilder(sizeHint);
+        for (int i = 0; i < placeholders.size(); i++) {
+            out.append(literals.get(i));
+            appendEscaped(out, values.get(placeholders.get(i)));
+        }
+        out.append(literals.get(literals.size() - 1));
+        return out.toString();
+    }
+
+    private static void appendEscaped(StringBuilder out, String value) {
+        if (value == null) {
+            return;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '<' -> out.append("&lt;");
+                case '>' -> out.append("&gt;");
+                case '&' -> out.append("&amp;");
+                case '"' -> out.append("&quot;");
+                case '\'' -> out.append("&#39;");
+                default -> out.append(c);
+            }
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.HMS.Hospitalmanagement.billing;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+/**
+ * Progress marker of a batch job. lastId is the last key the job fully processed;
+ * a job that finds its checkpoint still RUNNING resumes after it.
+ */
+@Entity
+@Table(name = "job_checkpoints")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class JobCheckpoint {
+
+    @Id
+    private String jobName;
+
+    private Long lastId;
+    private String status;
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,49 @@
+package com.HMS.Hospitalmanagement.billing;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Lab test price list used for generated bills, configured as
+ * hms.billing.lab-test-prices[Test Name]=price. Unlisted tests cost defaultLabTestPrice.
+ */
+@Component
+@ConfigurationProperties(prefix = "hms.billing")
+public class LabTestPricing {
+
+    private Map<String, Double> labTestPrices = new HashMap<>();
+    private double defaultLabTestPrice = 0.0;
+
+    public double priceOf(String labTestsRequired) {
+        if (labTestsRequired == null || labTestsRequired.isBlank()) {
+            return 0.0;
+        }
+        double total = 0.0;
+        for (String test : labTestsRequired.split(",")) {
+            String name = test.trim();
+            if (!name.isEmpty()) {
+                total += labTestPrices.getOrDefault(name, defaultLabTestPrice);
+            }
+        }
+        return total;
+    }
+
+    public Map<String, Double> getLabTestPrices() {
+        return labTestPrices;
+    }
+
+    public void setLabTestPrices(Map<String, Double> labTestPrices) {
+        this.labTestPrices = labTestPrices;
+    }
+
+    public double getDefaultLabTestPrice() {
+        return defaultLabTestPrice;
+    }
+
+    public void setDefaultLabTestPrice(double defaultLabTestPrice) {
+        this.defaultLabTestPrice = defaultLabTestPrice;
+    }
+}
@@ -0,0 +1,16 @@
+package com.HMS.Hospitalmanagement.billing;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RevenueBucket {
+
+    private String key;
+    private String label;
+    private long billCount;
+    private double totalAmount;
+}
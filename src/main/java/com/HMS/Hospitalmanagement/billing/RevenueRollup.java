@@ -0,0 +1,183 @@
+package com.HMS.Hospitalmanagement.billing;
+
+import com.HMS.Hospitalmanagement.doctor.Doctor;
+import com.HMS.Hospitalmanagement.doctor.DoctorRepository;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Revenue counters per (bill day, doctor, payment status), seeded once at startup with
+ * a GROUP BY over bills and bills_archive and then maintained incrementally by
+ * BillService. Summaries are computed from these buckets, never from the bills table.
+ * The seed runs once all beans exist, before the web server and the scheduled jobs start,
+ * so no bill is written while the GROUP BY reads.
+ */
+@Component
+public class RevenueRollup implements SmartInitializingSingleton {
+
+    private static final String SEED_SQL = "SELECT DATE(b.bill_date) AS bill_day, a.doctor_id, b.payment_status, "
+            + "COUNT(*) AS bill_count, SUM(COALESCE(b.total_amount, 0)) AS total "
+            + "FROM bills b LEFT JOIN appointments a ON a.id = b.appointment_id "
+            + "GROUP BY DATE(b.bill_date), a.doctor_id, b.payment_status "
+            + "UNION ALL "
+            + "SELECT DATE(b.bill_date), a.doctor_id, b.payment_status, COUNT(*), SUM(COALESCE(b.total_amount, 0)) "
+            + "FROM bills_archive b LEFT JOIN appointments_archive a ON a.id = b.appointment_id "
+            + "GROUP BY DATE(b.bill_date), a.doctor_id, b.payment_status";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DoctorRepository doctorRepository;
+    // apply() takes the read lock; seed() swaps in the counters it built under the write lock
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile Map<Key, Cell> cells = new ConcurrentHashMap<>();
+
+    @Autowired
+    public RevenueRollup(JdbcTemplate jdbcTemplate, DoctorRepository doctorRepository) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.doctorRepository = doctorRepository;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        seed();
+    }
+
+    /**
+     * Builds the counters into a fresh map and swaps it in whole, so summaries never see them cleared or
+     * half-built.
+     */
+    public void seed() {
+        Map<Key, Cell> seeded = new ConcurrentHashMap<>();
+        jdbcTemplate.query(SEED_SQL, (RowCallbackHandler) rs -> {
+            java.sql.Date day = rs.getDate(1);
+            long doctorId = rs.getLong(2);
+            boolean noDoctor = rs.wasNull();
+            String status = rs.getString(3);
+            Key key = new Key(day != null ? day.toLocalDate() : null,
+                    noDoctor ? null : doctorId,
+                    status != null ? Bill.PaymentStatus.valueOf(status) : null);
+            seeded.merge(key, new Cell(rs.getLong(4), rs.getDouble(5)), Cell::plus);
+        });
+        lock.writeLock().lock();
+        try {
+            cells = seeded;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void add(Bill bill) {
+        apply(snapshot(bill), 1);
+    }
+
+    public void remove(Bill bill) {
+        apply(snapshot(bill), -1);
+    }
+
+    /** Captures the fields the rollup depends on, so an update can retract the old values. */
+    public Fact snapshot(Bill bill) {
+        Long doctorId = bill.getAppointment() != null && bill.getAppointment().getDoctor() != null
+                ? bill.getAppointment().getDoctor().getId()
+                : null;
+        return new Fact(bill.getBillDate() != null ? bill.getBillDate().toLocalDate() : null,
+                doctorId,
+                bill.getPaymentStatus(),
+                bill.getTotalAmount() != null ? bill.getTotalAmount() : 0.0);
+    }
+
+    public void apply(Fact fact, int sign) {
+        Key key = new Key(fact.day(), fact.doctorId(), fact.status());
+        lock.readLock().lock();
+        try {
+            cells.compute(key, (k, cell) -> {
+                Cell updated = (cell != null ? cell : Cell.EMPTY).plus(new Cell(sign, sign * fact.amount()));
+                return updated.count() == 0 ? null : updated;
+            });
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<RevenueBucket> summarize(String groupBy, LocalDate from, LocalDate to) {
+        if (!"day".equals(groupBy) && !"doctor".equals(groupBy) && !"status".equals(groupBy)) {
+            throw new IllegalArgumentException("groupBy must be one of day, doctor, status");
+        }
+        Map<String, Cell> grouped = new TreeMap<>();
+        for (Map.Entry<Key, Cell> entry : cells.entrySet()) {
+            Key key = entry.getKey();
+            if ((from != null || to != null) && key.day() == null) {
+                continue;
+            }
+            if (from != null && key.day().isBefore(from)) {
+                continue;
+            }
+            if (to != null && key.day().isAfter(to)) {
+                continue;
+            }
+            grouped.merge(bucketOf(key, groupBy), entry.getValue(), Cell::plus);
+        }
+
+        Map<Long, String> doctorNames = new HashMap<>();
+        if ("doctor".equals(groupBy)) {
+            Set<Long> ids = new HashSet<>();
+            for (String bucket : grouped.keySet()) {
+                if (!"none".equals(bucket)) {
+                    ids.add(Long.parseLong(bucket));
+                }
+            }
+            for (Doctor doctor : doctorRepository.findAllById(ids)) {
+                doctorNames.put(doctor.getId(), doctor.getName());
+            }
+        }
+
+        List<RevenueBucket> buckets = new ArrayList<>(grouped.size());
+        for (Map.Entry<String, Cell> entry : grouped.entrySet()) {
+            String label = entry.getKey();
+            if ("doctor".equals(groupBy) && !"none".equals(label)) {
+                label = doctorNames.getOrDefault(Long.parseLong(entry.getKey()), label);
+            }
+            buckets.add(new RevenueBucket(entry.getKey(), label, entry.getValue().count(), entry.getValue().amount()));
+        }
+        return buckets;
+    }
+
+    private static String bucketOf(Key key, String groupBy) {
+        switch (groupBy) {
+            case "day":
+                return key.day() != null ? key.day().toString() : "none";
+            case "doctor":
+                return key.doctorId() != null ? key.doctorId().toString() : "none";
+            default:
+                return key.status() != null ? key.status().name() : "none";
+        }
+    }
+
+    public record Fact(LocalDate day, Long doctorId, Bill.PaymentStatus status, double amount) {
+    }
+
+    private record Key(LocalDate day, Long doctorId, Bill.PaymentStatus status) {
+    }
+
+    private record Cell(long count, double amount) {
+
+        static final Cell EMPTY = new Cell(0, 0.0);
+
+        Cell plus(Cell other) {
+            return new Cell(count + other.count, amount + other.amount);
+        }
+    }
+}
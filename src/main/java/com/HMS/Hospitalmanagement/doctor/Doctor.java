@@ -31,4 +31,10 @@ public class Doctor {
     private Double consultationFee; 
     private String status; 
     private String certificateUrl; 
+    // The photo as uploaded; imageUrl, cardImageUrl and thumbnailUrl are renditions of it once rendered
+    private String photoUrl;
+    private String cardImageUrl;
+    private String thumbnailUrl;
+    // Set when the photo could not be decoded, so it is not queued again at every startup
+    private Boolean photoRenderFailed;
 }
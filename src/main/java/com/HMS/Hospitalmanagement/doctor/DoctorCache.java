@@ -0,0 +1,194 @@
+package com.HMS.Hospitalmanagement.doctor;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * In-process cache of the doctor directory: the full list as one snapshot and single doctors
+ * in a bounded LRU map. DoctorEvents patch both in place, so a write never forces the whole list
+ * to be reloaded; the TTL only catches writes made behind DoctorService's back. Every change
+ * bumps a version that GET /doctors hands out as its ETag.
+ */
+@Component
+public class DoctorCache {
+
+    private final long ttlMillis;
+    private final int maxSize;
+    // Keeps versions handed out before a restart from matching the ones handed out after it
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+    private final Object lock = new Object();
+    private final ReentrantLock listLoad = new ReentrantLock();
+    private final Map<Long, CachedDoctor> doctors;
+    private volatile CachedList list;
+    private long version;
+
+    private final LongAdder listHits = new LongAdder();
+    private final LongAdder listMisses = new LongAdder();
+    private final LongAdder doctorHits = new LongAdder();
+    private final LongAdder doctorMisses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public DoctorCache(@Value("${hms.doctors.cache-ttl-seconds:300}") long ttlSeconds,
+            @Value("${hms.doctors.cache-max-size:10000}") int maxSize) {
+        this.ttlMillis = ttlSeconds * 1000;
+        this.maxSize = maxSize;
+        this.doctors = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, CachedDoctor> eldest) {
+                if (size() > DoctorCache.this.maxSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * The cached list, loading it if absent or expired. Only one caller loads; the others wait for it.
+     */
+    public Directory getDirectory(Supplier<List<Doctor>> loader) {
+        CachedList cached = list;
+        if (cached != null && cached.expiresAt() > System.currentTimeMillis()) {
+            listHits.increment();
+            return cached.directory();
+        }
+        listLoad.lock();
+        try {
+            cached = list;
+            if (cached != null && cached.expiresAt() > System.currentTimeMillis()) {
+                listHits.increment();
+                return cached.directory();
+            }
+            listMisses.increment();
+            if (cached != null) {
+                expirations.increment();
+            }
+            long seen;
+            synchronized (lock) {
+                seen = version;
+            }
+            List<Doctor> loaded = List.copyOf(loader.get());
+            synchronized (lock) {
+                if (version != seen) {
+                    // A write landed while loading; serve what was read but neither cache nor tag it
+                    return new Directory(null, loaded);
+                }
+                version++;
+                Directory directory = new Directory(etag(), loaded);
+                list = new CachedList(directory, System.currentTimeMillis() + ttlMillis);
+                return directory;
+            }
+        } finally {
+            listLoad.unlock();
+        }
+    }
+
+    public Optional<Doctor> getDoctor(Long id, Function<Long, Optional<Doctor>> loader) {
+        long seen;
+        synchronized (lock) {
+            CachedDoctor cached = doctors.get(id);
+            if (cached != null) {
+                if (cached.expiresAt() > System.currentTimeMillis()) {
+                    doctorHits.increment();
+                    return Optional.of(cached.doctor());
+                }
+                doctors.remove(id);
+                expirations.increment();
+            }
+            seen = version;
+        }
+        doctorMisses.increment();
+        Optional<Doctor> loaded = loader.apply(id);
+        loaded.ifPresent(doctor -> {
+            synchronized (lock) {
+                if (version == seen) {
+                    doctors.put(id, new CachedDoctor(doctor, System.currentTimeMillis() + ttlMillis));
+                }
+            }
+        });
+        return loaded;
+    }
+
+    @EventListener
+    public void onDoctorEvent(DoctorEvent event) {
+        Doctor doctor = event.getDoctor();
+        boolean deleted = event.getType() == DoctorEvent.Type.DELETED;
+        synchronized (lock) {
+            invalidations.increment();
+            version++;
+            if (deleted) {
+                doctors.remove(doctor.getId());
+            } else {
+                doctors.put(doctor.getId(), new CachedDoctor(doctor, System.currentTimeMillis() + ttlMillis));
+            }
+            CachedList cached = list;
+            if (cached == null) {
+                return;
+            }
+            List<Doctor> current = cached.directory().doctors();
+            List<Doctor> patched = new ArrayList<>(current.size() + 1);
+            boolean found = false;
+            for (Doctor listed : current) {
+                if (listed.getId().equals(doctor.getId())) {
+                    found = true;
+                    if (!deleted) {
+                        patched.add(doctor);
+                    }
+                } else {
+                    patched.add(listed);
+                }
+            }
+            if (!found && !deleted) {
+                patched.add(doctor);
+            }
+            list = new CachedList(new Directory(etag(), List.copyOf(patched)), cached.expiresAt());
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (lock) {
+            invalidations.increment();
+            version++;
+            doctors.clear();
+            list = null;
+        }
+    }
+
+    public DoctorCacheStats stats() {
+        synchronized (lock) {
+            return new DoctorCacheStats(listHits.sum(), listMisses.sum(), doctorHits.sum(), doctorMisses.sum(),
+                    evictions.sum(), expirations.sum(), invalidations.sum(), doctors.size(), etag());
+        }
+    }
+
+    private String etag() {
+        return "\"" + epoch + "-" + version + "\"";
+    }
+
+    /**
+     * etag is null when the list was read while it was being changed and must not be cached by clients.
+     */
+    public record Directory(String etag, List<Doctor> doctors) {
+    }
+
+    private record CachedList(Directory directory, long expiresAt) {
+    }
+
+    private record CachedDoctor(Doctor doctor, long expiresAt) {
+    }
+}
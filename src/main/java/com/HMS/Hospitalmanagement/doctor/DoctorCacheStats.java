@@ -0,0 +1,21 @@
+package com.HMS.Hospitalmanagement.doctor;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DoctorCacheStats {
+
+    private long listHits;
+    private long listMisses;
+    private long doctorHits;
+    private long doctorMisses;
+    private long evictions;
+    private long expirations;
+    private long invalidations;
+    private int cachedDoctors;
+    private String version;
+}
@@ -1,8 +1,11 @@
 package com.HMS.Hospitalmanagement.doctor;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.Optional;
@@ -12,10 +15,12 @@ import java.util.Optional;
 public class DoctorController {
 
     private final DoctorService doctorService;
+    private final DoctorSearchIndex searchIndex;
 
     @Autowired
-    public DoctorController(DoctorService doctorService) {
+    public DoctorController(DoctorService doctorService, DoctorSearchIndex searchIndex) {
         this.doctorService = doctorService;
+        this.searchIndex = searchIndex;
     }
 
     @PostMapping
@@ -24,8 +29,32 @@ public class DoctorController {
     }
 
     @GetMapping
-    public List<Doctor> getAllDoctors() {
-        return doctorService.getAllDoctors();
+    public ResponseEntity<List<Doctor>> getAllDoctors(WebRequest request) {
+        DoctorCache.Directory directory = doctorService.getDirectory();
+        if (directory.etag() == null) {
+            return ResponseEntity.ok(directory.doctors());
+        }
+        if (request.checkNotModified(directory.etag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(directory.etag()).build();
+        }
+        return ResponseEntity.ok()
+                .eTag(directory.etag())
+                .cacheControl(CacheControl.noCache())
+                .body(directory.doctors());
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<DoctorSearchResult> search(DoctorSearchQuery query) {
+        try {
+            return ResponseEntity.ok(searchIndex.search(query));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/cache/stats")
+    public DoctorCacheStats getCacheStats() {
+        return doctorService.getCacheStats();
     }
 
     @GetMapping("/{id}")
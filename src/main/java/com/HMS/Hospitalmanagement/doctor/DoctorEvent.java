@@ -0,0 +1,19 @@
+package com.HMS.Hospitalmanagement.doctor;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Published in-process after a doctor row is written. For DELETED, doctor is the row as it was.
+ */
+@Data
+@AllArgsConstructor
+public class DoctorEvent {
+
+    private Type type;
+    private Doctor doctor;
+
+    public enum Type {
+        CREATED, UPDATED, DELETED
+    }
+}
@@ -1,9 +1,20 @@
 package com.HMS.Hospitalmanagement.doctor;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 public interface DoctorRepository extends JpaRepository<Doctor, Long> {
     Doctor findByName(String name);
+
+    List<Doctor> findBySpecializationIgnoreCase(String specialization);
+
+    // Rows of (id, name, specialization) for the ids that exist
+    @Query("SELECT d.id, d.name, d.specialization FROM Doctor d WHERE d.id IN :ids")
+    List<Object[]> findNames(@Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,432 @@
+package com.HMS.Hospitalmanagement.doctor;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory faceted index over all doctors. Every doctor has a slot number, and each facet value
+ * (specialization, qualification, status, fee band, experience band) keeps a BitSet of the slots
+ * that have it, so filtering is a few word-wise ANDs and facet counts are AND-cardinalities.
+ * Result pages are read off one ascending order of the live slots per sort key, which a DoctorEvent
+ * updates by taking out the changed slot and binary-inserting it again; descending pages read the
+ * same order backwards. Built at startup and kept current from DoctorEvents; it starts out empty and
+ * takes events from the start, since doctors are written (and other startup work publishes events)
+ * before the load runs.
+ */
+@Component
+public class DoctorSearchIndex {
+
+    private static final int MAX_LIMIT = 100;
+    private static final String[] FACETS = {"specialization", "qualification", "status", "feeBand", "experienceBand"};
+    private static final double[] FEE_BANDS = {0, 500, 1000, 2000, 5000};
+    private static final int[] EXPERIENCE_BANDS = {0, 5, 10, 20};
+
+    private final DoctorRepository doctorRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<Doctor> doctors = new ArrayList<>();
+    private final Map<Long, Integer> slots = new HashMap<>();
+    private final Deque<Integer> freeSlots = new ArrayDeque<>();
+    private final BitSet live = new BitSet();
+    // Per facet: value key (lower case) -> slots, and value key -> label as first seen
+    private final List<Map<String, BitSet>> facetSlots = new ArrayList<>();
+    private final List<Map<String, String>> facetLabels = new ArrayList<>();
+    // Per sort key: the live slots in ascending order, in the first orderSize elements
+    private final Map<SortKey, int[]> orders = new EnumMap<>(SortKey.class);
+    private int orderSize;
+
+    @Autowired
+    public DoctorSearchIndex(DoctorRepository doctorRepository) {
+        this.doctorRepository = doctorRepository;
+        for (int i = 0; i < FACETS.length; i++) {
+            facetSlots.add(new HashMap<>());
+            facetLabels.add(new HashMap<>());
+        }
+        for (SortKey sortKey : SortKey.values()) {
+            orders.put(sortKey, new int[0]);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        lock.writeLock().lock();
+        try {
+            // Read under the lock so no DoctorEvent can be applied and then overwritten by an older read
+            for (Doctor doctor : doctorRepository.findAll()) {
+                put(doctor);
+            }
+            rebuildOrders();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @EventListener
+    public void onDoctorEvent(DoctorEvent event) {
+        lock.writeLock().lock();
+        try {
+            Integer slot = slots.get(event.getDoctor().getId());
+            if (slot != null) {
+                unorder(slot);
+            }
+            if (event.getType() == DoctorEvent.Type.DELETED) {
+                remove(event.getDoctor().getId());
+            } else {
+                put(event.getDoctor());
+                order(slots.get(event.getDoctor().getId()));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public DoctorSearchResult search(DoctorSearchQuery query) {
+        SortKey sortKey = SortKey.of(query.getSort());
+        boolean descendingOrder = "desc".equalsIgnoreCase(query.getOrder());
+        if (!descendingOrder && !"asc".equalsIgnoreCase(query.getOrder())) {
+            throw new IllegalArgumentException("order must be asc or desc");
+        }
+        int offset = Math.max(0, query.getOffset());
+        int limit = Math.max(1, Math.min(query.getLimit(), MAX_LIMIT));
+        List<List<String>> selected = List.of(nullToEmpty(query.getSpecialization()),
+                nullToEmpty(query.getQualification()), nullToEmpty(query.getStatus()),
+                nullToEmpty(query.getFeeBand()), nullToEmpty(query.getExperienceBand()));
+
+        lock.readLock().lock();
+        try {
+            BitSet base = baseSet(query);
+            BitSet[] filters = new BitSet[FACETS.length];
+            for (int i = 0; i < FACETS.length; i++) {
+                filters[i] = facetFilter(i, selected.get(i));
+            }
+
+            BitSet matches = (BitSet) base.clone();
+            for (BitSet filter : filters) {
+                if (filter != null) {
+                    matches.and(filter);
+                }
+            }
+
+            Map<String, List<DoctorSearchResult.FacetCount>> facets = new LinkedHashMap<>();
+            for (int i = 0; i < FACETS.length; i++) {
+                // A facet's own selection is left out of its counts, so the other values stay selectable
+                BitSet mask = (BitSet) base.clone();
+                for (int j = 0; j < FACETS.length; j++) {
+                    if (j != i && filters[j] != null) {
+                        mask.and(filters[j]);
+                    }
+                }
+                facets.put(FACETS[i], counts(i, mask));
+            }
+
+            List<Doctor> items = new ArrayList<>(limit);
+            int[] order = orders.get(sortKey);
+            int valued = firstWithoutValue(order, sortKey);
+            int skipped = 0;
+            for (int i = 0; i < orderSize; i++) {
+                // Descending walks the valued part backwards; doctors without a value stay last either way
+                int slot = order[!descendingOrder ? i : i < valued ? valued - 1 - i : i];
+                if (!matches.get(slot)) {
+                    continue;
+                }
+                if (skipped++ < offset) {
+                    continue;
+                }
+                items.add(doctors.get(slot));
+                if (items.size() == limit) {
+                    break;
+                }
+            }
+            return new DoctorSearchResult(matches.cardinality(), items, facets);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Live doctors narrowed by the filters that are not facets (fee and experience ranges, name).
+     */
+    private BitSet baseSet(DoctorSearchQuery query) {
+        BitSet base = (BitSet) live.clone();
+        String name = query.getName() != null && !query.getName().isBlank()
+                ? query.getName().trim().toLowerCase(Locale.ROOT)
+                : null;
+        if (name == null && query.getMinFee() == null && query.getMaxFee() == null
+                && query.getMinExperience() == null && query.getMaxExperience() == null) {
+            return base;
+        }
+        for (int slot = base.nextSetBit(0); slot >= 0; slot = base.nextSetBit(slot + 1)) {
+            Doctor doctor = doctors.get(slot);
+            Double fee = doctor.getConsultationFee();
+            Integer experience = doctor.getExperience();
+            boolean keep = (query.getMinFee() == null || (fee != null && fee >= query.getMinFee()))
+                    && (query.getMaxFee() == null || (fee != null && fee <= query.getMaxFee()))
+                    && (query.getMinExperience() == null || (experience != null && experience >= query.getMinExperience()))
+                    && (query.getMaxExperience() == null || (experience != null && experience <= query.getMaxExperience()))
+                    && (name == null || (doctor.getName() != null
+                            && doctor.getName().toLowerCase(Locale.ROOT).contains(name)));
+            if (!keep) {
+                base.clear(slot);
+            }
+        }
+        return base;
+    }
+
+    /**
+     * Union of the selected values' slots, or null when nothing is selected for the facet.
+     */
+    private BitSet facetFilter(int facet, List<String> values) {
+        if (values.isEmpty()) {
+            return null;
+        }
+        BitSet filter = new BitSet();
+        for (String value : values) {
+            BitSet bits = facetSlots.get(facet).get(key(value));
+            if (bits != null) {
+                filter.or(bits);
+            }
+        }
+        return filter;
+    }
+
+    private List<DoctorSearchResult.FacetCount> counts(int facet, BitSet mask) {
+        List<DoctorSearchResult.FacetCount> counts = new ArrayList<>();
+        for (Map.Entry<String, BitSet> value : facetSlots.get(facet).entrySet()) {
+            BitSet bits = (BitSet) value.getValue().clone();
+            bits.and(mask);
+            counts.add(new DoctorSearchResult.FacetCount(facetLabels.get(facet).get(value.getKey()), bits.cardinality()));
+        }
+        counts.sort(Comparator.comparingInt(DoctorSearchResult.FacetCount::getCount).reversed()
+                .thenComparing(DoctorSearchResult.FacetCount::getValue));
+        return counts;
+    }
+
+    private void put(Doctor doctor) {
+        Integer slot = slots.get(doctor.getId());
+        if (slot != null) {
+            unindex(slot);
+        } else {
+            slot = freeSlots.isEmpty() ? doctors.size() : freeSlots.pop();
+            if (slot == doctors.size()) {
+                doctors.add(null);
+            }
+            slots.put(doctor.getId(), slot);
+        }
+        doctors.set(slot, doctor);
+        live.set(slot);
+        String[] values = facetValues(doctor);
+        for (int i = 0; i < FACETS.length; i++) {
+            if (values[i] != null) {
+                String key = key(values[i]);
+                facetSlots.get(i).computeIfAbsent(key, k -> new BitSet()).set(slot);
+                facetLabels.get(i).putIfAbsent(key, values[i].trim());
+            }
+        }
+    }
+
+    private void remove(Long doctorId) {
+        Integer slot = slots.remove(doctorId);
+        if (slot == null) {
+            return;
+        }
+        unindex(slot);
+        doctors.set(slot, null);
+        live.clear(slot);
+        freeSlots.push(slot);
+    }
+
+    private void unindex(int slot) {
+        String[] values = facetValues(doctors.get(slot));
+        for (int i = 0; i < FACETS.length; i++) {
+            if (values[i] == null) {
+                continue;
+            }
+            String key = key(values[i]);
+            BitSet bits = facetSlots.get(i).get(key);
+            if (bits != null) {
+                bits.clear(slot);
+                if (bits.isEmpty()) {
+                    facetSlots.get(i).remove(key);
+                    facetLabels.get(i).remove(key);
+                }
+            }
+        }
+    }
+
+    /**
+     * Sorts all live slots; used for the initial load, after which events update the orders in place.
+     */
+    private void rebuildOrders() {
+        orderSize = live.cardinality();
+        for (SortKey sortKey : SortKey.values()) {
+            Comparator<Doctor> comparator = sortKey.comparator();
+            orders.put(sortKey, live.stream().boxed()
+                    .sorted(Comparator.comparing((Integer slot) -> doctors.get(slot), comparator))
+                    .mapToInt(Integer::intValue)
+                    .toArray());
+        }
+    }
+
+    /**
+     * Takes the slot out of every order. Searched linearly, as the doctor may already carry its new values.
+     */
+    private void unorder(int slot) {
+        for (int[] order : orders.values()) {
+            for (int i = 0; i < orderSize; i++) {
+                if (order[i] == slot) {
+                    System.arraycopy(order, i + 1, order, i, orderSize - i - 1);
+                    break;
+                }
+            }
+        }
+        orderSize--;
+    }
+
+    /**
+     * Binary-inserts the slot, whose doctor is already in place, into every order.
+     */
+    private void order(int slot) {
+        Doctor doctor = doctors.get(slot);
+        for (SortKey sortKey : SortKey.values()) {
+            int[] order = orders.get(sortKey);
+            if (orderSize == order.length) {
+                order = Arrays.copyOf(order, Math.max(16, order.length * 2));
+                orders.put(sortKey, order);
+            }
+            Comparator<Doctor> comparator = sortKey.comparator();
+            int low = 0;
+            int high = orderSize;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (comparator.compare(doctors.get(order[mid]), doctor) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            System.arraycopy(order, low, order, low + 1, orderSize - low);
+            order[low] = slot;
+        }
+        orderSize++;
+    }
+
+    /**
+     * Position of the first doctor without a value for the key; those sort after all the others.
+     */
+    private int firstWithoutValue(int[] order, SortKey sortKey) {
+        int low = 0;
+        int high = orderSize;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sortKey.hasValue(doctors.get(order[mid]))) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static String[] facetValues(Doctor doctor) {
+        return new String[] {
+                blankToNull(doctor.getSpecialization()),
+                blankToNull(doctor.getQualification()),
+                blankToNull(doctor.getStatus()),
+                feeBand(doctor.getConsultationFee()),
+                experienceBand(doctor.getExperience())
+        };
+    }
+
+    private static String feeBand(Double fee) {
+        if (fee == null) {
+            return null;
+        }
+        for (int i = FEE_BANDS.length - 1; i >= 0; i--) {
+            if (fee >= FEE_BANDS[i]) {
+                return i == FEE_BANDS.length - 1
+                        ? (int) FEE_BANDS[i] + "+"
+                        : (int) FEE_BANDS[i] + "-" + ((int) FEE_BANDS[i + 1] - 1);
+            }
+        }
+        return null;
+    }
+
+    private static String experienceBand(Integer years) {
+        if (years == null) {
+            return null;
+        }
+        for (int i = EXPERIENCE_BANDS.length - 1; i >= 0; i--) {
+            if (years >= EXPERIENCE_BANDS[i]) {
+                return i == EXPERIENCE_BANDS.length - 1
+                        ? EXPERIENCE_BANDS[i] + "+"
+                        : EXPERIENCE_BANDS[i] + "-" + (EXPERIENCE_BANDS[i + 1] - 1);
+            }
+        }
+        return null;
+    }
+
+    private static String key(String value) {
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value;
+    }
+
+    private static List<String> nullToEmpty(List<String> values) {
+        return values != null ? values : List.of();
+    }
+
+    private enum SortKey {
+        NAME(doctor -> doctor.getName() != null ? doctor.getName().toLowerCase(Locale.ROOT) : null),
+        FEE(Doctor::getConsultationFee),
+        EXPERIENCE(Doctor::getExperience);
+
+        private final Function<Doctor, Comparable<?>> field;
+
+        SortKey(Function<Doctor, Comparable<?>> field) {
+            this.field = field;
+        }
+
+        /**
+         * Ascending by the field, doctors without a value last, ties broken by id.
+         */
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        Comparator<Doctor> comparator() {
+            Comparator<Doctor> byField = Comparator.comparing((Doctor doctor) -> (Comparable) field.apply(doctor),
+                    Comparator.nullsLast(Comparator.<Comparable>naturalOrder()));
+            return byField.thenComparing(Doctor::getId);
+        }
+
+        boolean hasValue(Doctor doctor) {
+            return field.apply(doctor) != null;
+        }
+
+        static SortKey of(String name) {
+            for (SortKey key : values()) {
+                if (key.name().equalsIgnoreCase(name)) {
+                    return key;
+                }
+            }
+            throw new IllegalArgumentException("sort must be one of name, fee, experience");
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.HMS.Hospitalmanagement.doctor;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Query parameters of GET /doctors/search. Several values of one facet match any of them;
+ * different facets must all match.
+ */
+@Data
+@NoArgsConstructor
+public class DoctorSearchQuery {
+
+    private List<String> specialization;
+    private List<String> qualification;
+    private List<String> status;
+    private List<String> feeBand;
+    private List<String> experienceBand;
+    private Double minFee;
+    private Double maxFee;
+    private Integer minExperience;
+    private Integer maxExperience;
+    private String name;
+    private String sort = "name";
+    private String order = "asc";
+    private int offset = 0;
+    private int limit = 20;
+}
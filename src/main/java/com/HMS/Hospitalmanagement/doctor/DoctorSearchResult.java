@@ -0,0 +1,30 @@
+package com.HMS.Hospitalmanagement.doctor;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * facets maps each facet to its values with the number of doctors that would match if that value
+ * were selected, counted with every other facet's selection applied.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DoctorSearchResult {
+
+    private int total;
+    private List<Doctor> items;
+    private Map<String, List<FacetCount>> facets;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class FacetCount {
+        private String value;
+        private int count;
+    }
+}
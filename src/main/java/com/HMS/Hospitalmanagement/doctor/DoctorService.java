@@ -1,108 +1,188 @@
 package com.HMS.Hospitalmanagement.doctor;
 
+import com.HMS.Hospitalmanagement.storage.ContentStore;
+import com.HMS.Hospitalmanagement.storage.FileSender;
+import com.HMS.Hospitalmanagement.storage.StoredBlob;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 
 @Service
 public class DoctorService {
 
     private final DoctorRepository doctorRepository;
+    private final ContentStore contentStore;
+    private final DoctorCache doctorCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PhotoRenditionService photoRenditionService;
 
     @Autowired
-    public DoctorService(DoctorRepository doctorRepository) {
+    public DoctorService(DoctorRepository doctorRepository,
+            ContentStore contentStore,
+            DoctorCache doctorCache,
+            ApplicationEventPublisher eventPublisher,
+            PhotoRenditionService photoRenditionService) {
         this.doctorRepository = doctorRepository;
+        this.contentStore = contentStore;
+        this.doctorCache = doctorCache;
+        this.eventPublisher = eventPublisher;
+        this.photoRenditionService = photoRenditionService;
     }
 
     public Doctor createDoctor(Doctor doctor) {
-        return doctorRepository.save(doctor);
+        Doctor saved = doctorRepository.save(doctor);
+        eventPublisher.publishEvent(new DoctorEvent(DoctorEvent.Type.CREATED, saved));
+        return saved;
     }
 
     public List<Doctor> getAllDoctors() {
-        return doctorRepository.findAll();
+        return getDirectory().doctors();
+    }
+
+    public DoctorCache.Directory getDirectory() {
+        return doctorCache.getDirectory(doctorRepository::findAll);
     }
 
     public Optional<Doctor> getDoctorById(Long id) {
-        return doctorRepository.findById(id);
+        return doctorCache.getDoctor(id, doctorRepository::findById);
+    }
+
+    public DoctorCacheStats getCacheStats() {
+        return doctorCache.stats();
     }
 
     public Doctor updateDoctor(Long id, Doctor doctorDetails) {
         return doctorRepository.findById(id).map(doctor -> {
+            Doctor previous = copyPhotos(doctor);
             doctor.setName(doctorDetails.getName());
             doctor.setSpecialization(doctorDetails.getSpecialization());
             doctor.setQualification(doctorDetails.getQualification());
             doctor.setExperience(doctorDetails.getExperience());
             doctor.setContactNumber(doctorDetails.getContactNumber());
             doctor.setEmail(doctorDetails.getEmail());
-            doctor.setImageUrl(doctorDetails.getImageUrl());
             doctor.setBio(doctorDetails.getBio());
             doctor.setConsultationFee(doctorDetails.getConsultationFee());
             doctor.setStatus(doctorDetails.getStatus());
-            return doctorRepository.save(doctor);
+            String imageUrl = doctorDetails.getImageUrl();
+            // A client still holding the original's URL from before rendering finished has not changed the photo
+            if (!Objects.equals(previous.getImageUrl(), imageUrl)
+                    && !(imageUrl != null && imageUrl.equals(previous.getPhotoUrl()))) {
+                // Keep the content store's reference counts in step with a photo URL changed by hand
+                String hash = ContentStore.hashFromUrl(imageUrl);
+                if (hash != null && !contentStore.retain(hash)) {
+                    throw new RuntimeException("Unknown image URL: " + imageUrl);
+                }
+                if (hash != null) {
+                    contentStore.retain(hash);
+                }
+                setPhoto(doctor, imageUrl);
+                Doctor saved = saved(doctorRepository.save(doctor));
+                releasePhotos(previous);
+                photoRenditionService.schedule(saved);
+                return saved;
+            }
+            return saved(doctorRepository.save(doctor));
         }).orElse(null);
     }
 
-    public Doctor uploadPhoto(Long id, org.springframework.web.multipart.MultipartFile file) {
+    /**
+     * Stores the upload as the doctor's photo and queues its renditions; until they are ready,
+     * imageUrl points at the upload itself. The upload is served publicly, so it is stored without
+     * the EXIF (GPS position included) and other metadata it came with.
+     */
+    public Doctor uploadPhoto(Long id, MultipartFile file) {
         return doctorRepository.findById(id).map(doctor -> {
-            try {
-                
-                String uploadDir = "uploads/doctors/";
-                java.io.File directory = new java.io.File(uploadDir);
-                if (!directory.exists()) {
-                    directory.mkdirs();
-                }
-
-                
-                String fileName = System.currentTimeMillis() + "_" + file.getOriginalFilename();
-                java.nio.file.Path filePath = java.nio.file.Paths.get(uploadDir + fileName);
-
-                
-                java.nio.file.Files.copy(file.getInputStream(), filePath,
-                        java.nio.file.StandardCopyOption.REPLACE_EXISTING);
-
-                
-                doctor.setImageUrl("/uploads/doctors/" + fileName);
-                return doctorRepository.save(doctor);
-            } catch (java.io.IOException e) {
-                throw new RuntimeException("Failed to store file " + file.getOriginalFilename(), e);
-            }
+            Doctor previous = copyPhotos(doctor);
+            StoredBlob blob = storePhoto(file);
+            // One reference for photoUrl and one for imageUrl
+            contentStore.retain(blob.getHash());
+            setPhoto(doctor, ContentStore.urlOf(blob.getHash()));
+            Doctor saved = saved(doctorRepository.save(doctor));
+            releasePhotos(previous);
+            photoRenditionService.schedule(saved);
+            return saved;
         }).orElse(null);
     }
 
-    public Doctor uploadCertificate(Long id, org.springframework.web.multipart.MultipartFile file) {
+    public Doctor uploadCertificate(Long id, MultipartFile file) {
         return doctorRepository.findById(id).map(doctor -> {
-            try {
-                
-                String uploadDir = "uploads/certificates/";
-                java.io.File directory = new java.io.File(uploadDir);
-                if (!directory.exists()) {
-                    directory.mkdirs();
-                }
-
-                
-                String fileName = System.currentTimeMillis() + "_" + file.getOriginalFilename();
-                java.nio.file.Path filePath = java.nio.file.Paths.get(uploadDir + fileName);
-
-                
-                java.nio.file.Files.copy(file.getInputStream(), filePath,
-                        java.nio.file.StandardCopyOption.REPLACE_EXISTING);
-
-                
-                doctor.setCertificateUrl("/uploads/certificates/" + fileName);
-                return doctorRepository.save(doctor);
-            } catch (java.io.IOException e) {
-                throw new RuntimeException("Failed to store file " + file.getOriginalFilename(), e);
-            }
+            String previous = doctor.getCertificateUrl();
+            doctor.setCertificateUrl(ContentStore.urlOf(storeFile(file).getHash()));
+            Doctor saved = saved(doctorRepository.save(doctor));
+            contentStore.releaseUrl(previous);
+            return saved;
         }).orElse(null);
     }
 
     public boolean deleteDoctor(Long id) {
-        if (doctorRepository.existsById(id)) {
+        Optional<Doctor> doctor = doctorRepository.findById(id);
+        if (doctor.isPresent()) {
             doctorRepository.deleteById(id);
+            eventPublisher.publishEvent(new DoctorEvent(DoctorEvent.Type.DELETED, doctor.get()));
+            releasePhotos(doctor.get());
+            contentStore.releaseUrl(doctor.get().getCertificateUrl());
             return true;
         }
         return false;
     }
+
+    private Doctor saved(Doctor doctor) {
+        eventPublisher.publishEvent(new DoctorEvent(DoctorEvent.Type.UPDATED, doctor));
+        return doctor;
+    }
+
+    private static void setPhoto(Doctor doctor, String url) {
+        doctor.setPhotoUrl(url);
+        doctor.setImageUrl(url);
+        doctor.setCardImageUrl(null);
+        doctor.setThumbnailUrl(null);
+        doctor.setPhotoRenderFailed(null);
+    }
+
+    private static Doctor copyPhotos(Doctor doctor) {
+        Doctor copy = new Doctor();
+        copy.setPhotoUrl(doctor.getPhotoUrl());
+        copy.setImageUrl(doctor.getImageUrl());
+        copy.setCardImageUrl(doctor.getCardImageUrl());
+        copy.setThumbnailUrl(doctor.getThumbnailUrl());
+        return copy;
+    }
+
+    private void releasePhotos(Doctor doctor) {
+        contentStore.releaseUrl(doctor.getPhotoUrl());
+        contentStore.releaseUrl(doctor.getImageUrl());
+        contentStore.releaseUrl(doctor.getCardImageUrl());
+        contentStore.releaseUrl(doctor.getThumbnailUrl());
+    }
+
+    private StoredBlob storePhoto(MultipartFile file) {
+        try {
+            return contentStore.store(new ByteArrayInputStream(ImageRenditions.stripMetadata(file.getBytes())),
+                    contentTypeOf(file));
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to store file " + file.getOriginalFilename(), e);
+        }
+    }
+
+    private StoredBlob storeFile(MultipartFile file) {
+        try (InputStream in = file.getInputStream()) {
+            return contentStore.store(in, contentTypeOf(file));
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to store file " + file.getOriginalFilename(), e);
+        }
+    }
+
+    private static String contentTypeOf(MultipartFile file) {
+        return file.getContentType() != null
+                ? file.getContentType()
+                : FileSender.contentTypeOf(String.valueOf(file.getOriginalFilename()));
+    }
 }
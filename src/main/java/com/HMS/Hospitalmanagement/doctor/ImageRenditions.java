@@ -0,0 +1,356 @@
+package com.HMS.Hospitalmanagement.doctor;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Set;
+
+/**
+ * Decodes an uploaded photo, turns it upright according to its EXIF orientation and encodes
+ * downscaled JPEG copies of it. The copies are written from bare pixels, so no EXIF (camera,
+ * GPS position, capture time) survives into them; the kept original has its metadata stripped
+ * losslessly by stripMetadata.
+ */
+final class ImageRenditions {
+
+    private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    // PNG chunks that carry text, EXIF or timestamps rather than anything needed to show the image
+    private static final Set<String> PNG_METADATA = Set.of("tEXt", "zTXt", "iTXt", "eXIf", "tIME");
+
+    /**
+     * A rendition size. crop renditions are cut to exactly width x height around the centre;
+     * the others are fitted inside it keeping their aspect ratio. Nothing is ever scaled up.
+     */
+    enum Size {
+        THUMBNAIL(96, 96, true),
+        CARD(288, 288, true),
+        PROFILE(800, 800, false);
+
+        final int width;
+        final int height;
+        final boolean crop;
+
+        Size(int width, int height, boolean crop) {
+            this.width = width;
+            this.height = height;
+            this.crop = crop;
+        }
+    }
+
+    private ImageRenditions() {
+    }
+
+    /**
+     * Decodes the image, or returns null if it is not in a format ImageIO reads. Large images are
+     * subsampled while decoding so a 48-megapixel photo never has to be held at full size; they are
+     * still decoded at no less than twice the largest rendition. Throws IllegalArgumentException
+     * for images of more than maxPixels.
+     */
+    static BufferedImage decode(byte[] data, long maxPixels) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(new ByteArrayInputStream(data))) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > maxPixels) {
+                    throw new IllegalArgumentException("Image is " + width + "x" + height + " pixels");
+                }
+                int needed = 2 * Math.max(Size.PROFILE.width, Size.PROFILE.height);
+                int step = Math.max(1, Math.min(width, height) / needed);
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Applies the EXIF orientation (1-8) so the image is upright once the tag is gone.
+     */
+    static BufferedImage orient(BufferedImage image, int orientation) {
+        if (orientation <= 1 || orientation > 8) {
+            return image;
+        }
+        int w = image.getWidth();
+        int h = image.getHeight();
+        boolean swap = orientation >= 5;
+        AffineTransform t = new AffineTransform();
+        switch (orientation) {
+            case 2 -> t.setTransform(-1, 0, 0, 1, w, 0);
+            case 3 -> t.setTransform(-1, 0, 0, -1, w, h);
+            case 4 -> t.setTransform(1, 0, 0, -1, 0, h);
+            case 5 -> t.setTransform(0, 1, 1, 0, 0, 0);
+            case 6 -> t.setTransform(0, 1, -1, 0, h, 0);
+            case 7 -> t.setTransform(0, -1, -1, 0, h, w);
+            default -> t.setTransform(0, -1, 1, 0, 0, w);
+        }
+        BufferedImage out = new BufferedImage(swap ? h : w, swap ? w : h, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = out.createGraphics();
+        try {
+            g.drawImage(image, t, null);
+        } finally {
+            g.dispose();
+        }
+        return out;
+    }
+
+    /**
+     * Scales the image to the size and encodes it as a baseline JPEG.
+     */
+    static byte[] render(BufferedImage image, Size size, float quality) throws IOException {
+        int srcX = 0;
+        int srcY = 0;
+        int srcW = image.getWidth();
+        int srcH = image.getHeight();
+        int targetW;
+        int targetH;
+        if (size.crop) {
+            double scale = Math.min(1.0, Math.max((double) size.width / srcW, (double) size.height / srcH));
+            targetW = Math.min(size.width, (int) Math.round(srcW * scale));
+            targetH = Math.min(size.height, (int) Math.round(srcH * scale));
+            int cropW = Math.min(srcW, (int) Math.round(targetW / scale));
+            int cropH = Math.min(srcH, (int) Math.round(targetH / scale));
+            srcX = (srcW - cropW) / 2;
+            srcY = (srcH - cropH) / 2;
+            srcW = cropW;
+            srcH = cropH;
+        } else {
+            double scale = Math.min(1.0, Math.min((double) size.width / srcW, (double) size.height / srcH));
+            targetW = Math.max(1, (int) Math.round(srcW * scale));
+            targetH = Math.max(1, (int) Math.round(srcH * scale));
+        }
+        return encode(scale(image.getSubimage(srcX, srcY, srcW, srcH), targetW, targetH), quality);
+    }
+
+    /**
+     * Returns the photo without the metadata it may carry: for a JPEG the EXIF, XMP, IPTC and comment
+     * segments and anything after the end of the image (such as the extra pictures of a
+     * multi-picture file), keeping only the EXIF orientation; for a PNG its text, EXIF and time
+     * chunks. The image data itself is copied as it is. Other formats are returned unchanged.
+     */
+    static byte[] stripMetadata(byte[] data) {
+        if (data.length >= 4 && (data[0] & 0xFF) == 0xFF && (data[1] & 0xFF) == 0xD8) {
+            return stripJpeg(data);
+        }
+        if (data.length >= PNG_SIGNATURE.length
+                && Arrays.equals(data, 0, PNG_SIGNATURE.length, PNG_SIGNATURE, 0, PNG_SIGNATURE.length)) {
+            return stripPng(data);
+        }
+        return data;
+    }
+
+    /**
+     * Reads the orientation tag from a JPEG's EXIF block, or returns 1 (upright) if there is none.
+     */
+    static int exifOrientation(byte[] data) {
+        if (data.length < 4 || (data[0] & 0xFF) != 0xFF || (data[1] & 0xFF) != 0xD8) {
+            return 1;
+        }
+        int pos = 2;
+        while (pos + 4 <= data.length && (data[pos] & 0xFF) == 0xFF) {
+            int marker = data[pos + 1] & 0xFF;
+            int length = ((data[pos + 2] & 0xFF) << 8) | (data[pos + 3] & 0xFF);
+            if (marker == 0xDA || length < 2) {
+                return 1;
+            }
+            int start = pos + 4;
+            if (marker == 0xE1 && start + 14 <= data.length && data[start] == 'E' && data[start + 1] == 'x'
+                    && data[start + 2] == 'i' && data[start + 3] == 'f') {
+                return tiffOrientation(data, start + 6, Math.min(data.length, pos + 2 + length));
+            }
+            pos += 2 + length;
+        }
+        return 1;
+    }
+
+    private static byte[] stripJpeg(byte[] data) {
+        int orientation = exifOrientation(data);
+        boolean orientationWritten = orientation <= 1 || orientation > 8;
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length);
+        out.write(data, 0, 2);
+        int pos = 2;
+        while (pos + 2 <= data.length) {
+            if ((data[pos] & 0xFF) != 0xFF) {
+                // Not a marker where one should be; keep the rest rather than guess
+                out.write(data, pos, data.length - pos);
+                break;
+            }
+            int marker = data[pos + 1] & 0xFF;
+            if (marker == 0xFF) {
+                pos++;
+                continue;
+            }
+            if (marker == 0xD9) {
+                out.write(data, pos, 2);
+                break;
+            }
+            if (pos + 4 > data.length) {
+                out.write(data, pos, data.length - pos);
+                break;
+            }
+            int length = ((data[pos + 2] & 0xFF) << 8) | (data[pos + 3] & 0xFF);
+            int end = Math.min(data.length, pos + 2 + length);
+            if (!orientationWritten && marker != 0xE0) {
+                // After the JFIF header, which has to come first
+                out.writeBytes(orientationSegment(orientation));
+                orientationWritten = true;
+            }
+            // APP1-APP15 except the ICC profile (APP2) and Adobe colour transform (APP14), and comments
+            boolean metadata = marker == 0xFE || (marker >= 0xE1 && marker <= 0xEF && marker != 0xE2 && marker != 0xEE);
+            if (!metadata) {
+                out.write(data, pos, end - pos);
+            }
+            pos = end;
+            if (marker == 0xDA) {
+                // Entropy-coded data runs to the next marker that is not a stuffed 0xFF00 or a restart
+                int start = pos;
+                while (pos + 1 < data.length && ((data[pos] & 0xFF) != 0xFF || data[pos + 1] == 0
+                        || ((data[pos + 1] & 0xFF) >= 0xD0 && (data[pos + 1] & 0xFF) <= 0xD7))) {
+                    pos++;
+                }
+                out.write(data, start, (pos + 1 < data.length ? pos : data.length) - start);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * An APP1 segment holding an EXIF block with nothing but the orientation tag.
+     */
+    private static byte[] orientationSegment(int orientation) {
+        return new byte[] {
+                (byte) 0xFF, (byte) 0xE1, 0, 34,
+                'E', 'x', 'i', 'f', 0, 0,
+                'M', 'M', 0, 42, 0, 0, 0, 8,
+                0, 1,
+                0x01, 0x12, 0, 3, 0, 0, 0, 1, 0, (byte) orientation, 0, 0,
+                0, 0, 0, 0
+        };
+    }
+
+    private static byte[] stripPng(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length);
+        out.write(data, 0, PNG_SIGNATURE.length);
+        int pos = PNG_SIGNATURE.length;
+        while (pos + 12 <= data.length) {
+            long length = read(data, pos, 4, false);
+            if (length > data.length - pos - 12) {
+                out.write(data, pos, data.length - pos);
+                break;
+            }
+            String type = new String(data, pos + 4, 4, StandardCharsets.ISO_8859_1);
+            int end = pos + 12 + (int) length;
+            if (!PNG_METADATA.contains(type)) {
+                out.write(data, pos, end - pos);
+            }
+            pos = end;
+            if (type.equals("IEND")) {
+                break;
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static int tiffOrientation(byte[] data, int tiff, int end) {
+        boolean little = data[tiff] == 'I';
+        int ifd = tiff + (int) read(data, tiff + 4, 4, little);
+        if (ifd < tiff || ifd + 2 > end) {
+            return 1;
+        }
+        int entries = (int) read(data, ifd, 2, little);
+        for (int i = 0; i < entries; i++) {
+            int entry = ifd + 2 + i * 12;
+            if (entry + 12 > end) {
+                return 1;
+            }
+            if (read(data, entry, 2, little) == 0x0112) {
+                return (int) read(data, entry + 8, 2, little);
+            }
+        }
+        return 1;
+    }
+
+    private static long read(byte[] data, int offset, int length, boolean little) {
+        long value = 0;
+        for (int i = 0; i < length; i++) {
+            int b = data[offset + (little ? length - 1 - i : i)] & 0xFF;
+            value = (value << 8) | b;
+        }
+        return value;
+    }
+
+    /**
+     * Halves the image with bilinear filtering until one more halving would overshoot, then does the
+     * last step bicubic; one big bilinear step would skip most source pixels and alias badly.
+     */
+    private static BufferedImage scale(BufferedImage image, int width, int height) {
+        BufferedImage current = image;
+        int w = image.getWidth();
+        int h = image.getHeight();
+        do {
+            int nextW = w / 2 >= width ? w / 2 : width;
+            int nextH = h / 2 >= height ? h / 2 : height;
+            // The first step always redraws, which also flattens transparency onto white for JPEG
+            current = draw(current, nextW, nextH, nextW == width && nextH == height
+                    ? RenderingHints.VALUE_INTERPOLATION_BICUBIC
+                    : RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            w = nextW;
+            h = nextH;
+        } while (w != width || h != height);
+        return current;
+    }
+
+    private static BufferedImage draw(BufferedImage image, int width, int height, Object interpolation) {
+        BufferedImage out = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = out.createGraphics();
+        try {
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, width, height);
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, interpolation);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+        return out;
+    }
+
+    private static byte[] encode(BufferedImage image, float quality) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(bytes)) {
+            writer.setOutput(out);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            param.setProgressiveMode(ImageWriteParam.MODE_DISABLED);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,204 @@
+package com.HMS.Hospitalmanagement.doctor;
+
+import com.HMS.Hospitalmanagement.storage.ContentStore;
+import com.HMS.Hospitalmanagement.storage.StoredBlob;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Produces the thumbnail, card and profile renditions of doctor photos on a small bounded worker pool.
+ * The original upload, stripped of its metadata when it was stored, stays in photoUrl; once the
+ * renditions are stored they replace imageUrl (which points at the original until then) and fill
+ * cardImageUrl and thumbnailUrl. Renditions are content-store blobs, so their URLs are content-hashed
+ * and served as immutable. A photo that cannot be decoded is marked with photoRenderFailed and not
+ * tried again until a new one is set.
+ */
+@Service
+public class PhotoRenditionService {
+
+    private static final String JPEG = "image/jpeg";
+
+    private final DoctorRepository doctorRepository;
+    private final ContentStore contentStore;
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final long maxPixels;
+    private final float quality;
+    private final ThreadPoolExecutor renderPool;
+
+    @Autowired
+    public PhotoRenditionService(DoctorRepository doctorRepository,
+            ContentStore contentStore,
+            JdbcTemplate jdbcTemplate,
+            ApplicationEventPublisher eventPublisher,
+            @Value("${hms.doctors.photo-workers:2}") int workers,
+            @Value("${hms.doctors.photo-queue-capacity:100}") int queueCapacity,
+            @Value("${hms.doctors.photo-max-pixels:50000000}") long maxPixels,
+            @Value("${hms.doctors.photo-quality:0.82}") float quality) {
+        this.doctorRepository = doctorRepository;
+        this.contentStore = contentStore;
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventPublisher = eventPublisher;
+        this.maxPixels = maxPixels;
+        this.quality = quality;
+        this.renderPool = new ThreadPoolExecutor(workers, workers, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                Thread.ofPlatform().name("photo-render-", 0).daemon(true).factory());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        renderPool.shutdown();
+    }
+
+    /**
+     * Queues rendering of the doctor's photo. If the queue is full the photo is left as it is and
+     * picked up again at the next startup.
+     */
+    public void schedule(Doctor doctor) {
+        if (ContentStore.hashFromUrl(doctor.getImageUrl()) == null) {
+            return;
+        }
+        Long id = doctor.getId();
+        String source = doctor.getImageUrl();
+        try {
+            renderPool.execute(() -> render(id, source));
+        } catch (RejectedExecutionException e) {
+            // Not fatal: the doctor keeps showing the original photo
+        }
+    }
+
+    /**
+     * Queues every doctor whose photo has no renditions yet, such as photos uploaded before renditions
+     * existed or whose rendering was cut short by a restart.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void renderMissing() {
+        List<Doctor> pending = jdbcTemplate.query(
+                "SELECT id, image_url FROM doctors WHERE thumbnail_url IS NULL "
+                        + "AND (photo_render_failed IS NULL OR photo_render_failed = FALSE) AND image_url LIKE ?",
+                (rs, rowNum) -> {
+                    Doctor doctor = new Doctor();
+                    doctor.setId(rs.getLong("id"));
+                    doctor.setImageUrl(rs.getString("image_url"));
+                    return doctor;
+                },
+                ContentStore.URL_PREFIX + "%");
+        if (pending.isEmpty()) {
+            return;
+        }
+        // Leave room in the queue for fresh uploads while the backlog drains
+        Semaphore slots = new Semaphore(Math.max(1, renderPool.getQueue().remainingCapacity() / 2));
+        Thread.ofVirtual().name("photo-render-backlog").start(() -> {
+            try {
+                for (Doctor doctor : pending) {
+                    slots.acquire();
+                    try {
+                        renderPool.execute(() -> {
+                            try {
+                                render(doctor.getId(), doctor.getImageUrl());
+                            } finally {
+                                slots.release();
+                            }
+                        });
+                    } catch (RejectedExecutionException e) {
+                        slots.release();
+                        return;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+    }
+
+    private void render(Long doctorId, String source) {
+        Optional<Doctor> current = doctorRepository.findById(doctorId);
+        if (current.isEmpty() || !source.equals(current.get().getImageUrl())
+                || current.get().getThumbnailUrl() != null) {
+            return;
+        }
+        String photoUrl = current.get().getPhotoUrl();
+        if (photoUrl != null && !photoUrl.equals(source)) {
+            return;
+        }
+        Optional<StoredBlob> blob = contentStore.find(ContentStore.hashFromUrl(source));
+        if (blob.isEmpty()) {
+            return;
+        }
+
+        byte[] data;
+        try (InputStream in = contentStore.open(blob.get())) {
+            data = in.readAllBytes();
+        } catch (IOException e) {
+            // Tried again at the next startup
+            return;
+        }
+        BufferedImage image;
+        try {
+            image = ImageRenditions.decode(data, maxPixels);
+        } catch (IOException | IllegalArgumentException e) {
+            image = null;
+        }
+        if (image == null) {
+            // Not an image ImageIO can read, or too large; the original stays in place and is not retried
+            jdbcTemplate.update("UPDATE doctors SET photo_render_failed = TRUE "
+                    + "WHERE id = ? AND image_url = ? AND thumbnail_url IS NULL", doctorId, source);
+            return;
+        }
+
+        List<String> stored = new ArrayList<>();
+        try {
+            image = ImageRenditions.orient(image, ImageRenditions.exifOrientation(data));
+            for (ImageRenditions.Size size : ImageRenditions.Size.values()) {
+                byte[] rendition = ImageRenditions.render(image, size, quality);
+                stored.add(ContentStore.urlOf(contentStore.store(new ByteArrayInputStream(rendition), JPEG).getHash()));
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            stored.forEach(contentStore::releaseUrl);
+            return;
+        }
+
+        // Swap only if the photo is still the one rendered; a newer upload or edit wins
+        String thumbnailUrl = stored.get(0);
+        String cardImageUrl = stored.get(1);
+        String profileUrl = stored.get(2);
+        int updated = photoUrl != null
+                ? jdbcTemplate.update("UPDATE doctors SET image_url = ?, card_image_url = ?, thumbnail_url = ? "
+                        + "WHERE id = ? AND image_url = ? AND photo_url = ? AND thumbnail_url IS NULL",
+                        profileUrl, cardImageUrl, thumbnailUrl, doctorId, source, photoUrl)
+                : jdbcTemplate.update("UPDATE doctors SET photo_url = ?, image_url = ?, card_image_url = ?, "
+                        + "thumbnail_url = ? WHERE id = ? AND image_url = ? AND photo_url IS NULL "
+                        + "AND thumbnail_url IS NULL",
+                        source, profileUrl, cardImageUrl, thumbnailUrl, doctorId, source);
+        if (updated == 0) {
+            stored.forEach(contentStore::releaseUrl);
+            return;
+        }
+        if (photoUrl != null) {
+            // imageUrl's reference on the original is no longer needed; photoUrl keeps its own
+            contentStore.releaseUrl(source);
+        }
+        doctorRepository.findById(doctorId).ifPresent(doctor ->
+                eventPublisher.publishEvent(new DoctorEvent(DoctorEvent.Type.UPDATED, doctor)));
+    }
+}
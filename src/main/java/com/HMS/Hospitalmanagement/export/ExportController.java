@@ -0,0 +1,109 @@
+package com.HMS.Hospitalmanagement.export;
+
+import com.HMS.Hospitalmanagement.archive.AppointmentArchiveService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+@RestController
+public class ExportController {
+
+    private static final String[] BILL_COLUMNS = { "id", "appointmentId", "patientId", "doctorId",
+            "consultationFee", "testCharges", "totalAmount", "paymentStatus", "billDate" };
+    private static final String BILL_SQL = "SELECT b.id, b.appointment_id, a.patient_id, a.doctor_id, "
+            + "b.consultation_fee, b.test_charges, b.total_amount, b.payment_status, b.bill_date "
+            + "FROM bills b LEFT JOIN appointments a ON a.id = b.appointment_id";
+    private static final String ARCHIVED_BILL_SQL = "SELECT b.id, b.appointment_id, a.patient_id, a.doctor_id, "
+            + "b.consultation_fee, b.test_charges, b.total_amount, b.payment_status, b.bill_date "
+            + "FROM bills_archive b LEFT JOIN appointments_archive a ON a.id = b.appointment_id";
+
+    private static final String[] APPOINTMENT_COLUMNS = { "id", "patientId", "doctorId", "appointmentDate",
+            "status", "reason", "labTestsRequired" };
+    private static final String APPOINTMENT_SQL = "SELECT a.id, a.patient_id, a.doctor_id, a.appointment_date, "
+            + "a.status, a.reason, a.lab_tests_required FROM appointments a";
+    private static final String ARCHIVED_APPOINTMENT_SQL = "SELECT a.id, a.patient_id, a.doctor_id, "
+            + "a.appointment_date, a.status, a.reason, a.lab_tests_required FROM appointments_archive a";
+
+    private static final String[] PATIENT_COLUMNS = { "id", "name", "age", "gender", "contactNumber",
+            "medicalHistory", "doctorId", "labTestsRequired" };
+    private static final String PATIENT_SQL = "SELECT p.id, p.name, p.age, p.gender, p.contact_number, "
+            + "p.medical_history, p.doctor_id, p.lab_tests_required FROM patients p ORDER BY p.id";
+
+    private final TableExporter tableExporter;
+    private final AppointmentArchiveService archiveService;
+
+    @Autowired
+    public ExportController(TableExporter tableExporter, AppointmentArchiveService archiveService) {
+        this.tableExporter = tableExporter;
+        this.archiveService = archiveService;
+    }
+
+    @GetMapping("/bills/export")
+    public ResponseEntity<StreamingResponseBody> exportBills(
+            @RequestParam(defaultValue = "CSV") ExportFormat format,
+            @RequestParam(defaultValue = "false") boolean gzip,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        List<Object> args = new ArrayList<>();
+        // A bill can be dated well after its archived appointment, so bills_archive is always read
+        String sql = BILL_SQL + dateRange("b.bill_date", from, to, args)
+                + " UNION ALL " + ARCHIVED_BILL_SQL + dateRange("b.bill_date", from, to, args)
+                + " ORDER BY id";
+        return stream("bills", sql, args, BILL_COLUMNS, format, gzip);
+    }
+
+    @GetMapping("/appointments/export")
+    public ResponseEntity<StreamingResponseBody> exportAppointments(
+            @RequestParam(defaultValue = "CSV") ExportFormat format,
+            @RequestParam(defaultValue = "false") boolean gzip,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        List<Object> args = new ArrayList<>();
+        String sql = APPOINTMENT_SQL + dateRange("a.appointment_date", from, to, args);
+        if (archiveService.needsArchive(from)) {
+            sql += " UNION ALL " + ARCHIVED_APPOINTMENT_SQL + dateRange("a.appointment_date", from, to, args);
+        }
+        sql += " ORDER BY appointment_date, id";
+        return stream("appointments", sql, args, APPOINTMENT_COLUMNS, format, gzip);
+    }
+
+    // Patients carry no date column, so this export has no range filter
+    @GetMapping("/patients/export")
+    public ResponseEntity<StreamingResponseBody> exportPatients(
+            @RequestParam(defaultValue = "CSV") ExportFormat format,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        return stream("patients", PATIENT_SQL, new ArrayList<>(), PATIENT_COLUMNS, format, gzip);
+    }
+
+    private ResponseEntity<StreamingResponseBody> stream(String name, String sql, List<Object> args,
+            String[] columns, ExportFormat format, boolean gzip) {
+        String fileName = name + "." + format.getExtension() + (gzip ? ".gz" : "");
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_TYPE, gzip ? "application/gzip" : format.getContentType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                .body(tableExporter.export(sql, args.toArray(), columns, format, gzip));
+    }
+
+    private static String dateRange(String column, LocalDateTime from, LocalDateTime to, List<Object> args) {
+        List<String> conditions = new ArrayList<>();
+        if (from != null) {
+            conditions.add(column + " >= ?");
+            args.add(Timestamp.valueOf(from));
+        }
+        if (to != null) {
+            conditions.add(column + " < ?");
+            args.add(Timestamp.valueOf(to));
+        }
+        return conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions);
+    }
+}
@@ -0,0 +1,163 @@
+package com.HMS.Hospitalmanagement.export;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams the rows of a SQL query straight into the HTTP response as CSV or NDJSON.
+ * The query runs with MySQL's row-streaming fetch size, so the driver hands rows over
+ * one at a time instead of materialising the result set, and output goes through a
+ * fixed-size buffer; memory use does not depend on the number of rows.
+ */
+@Component
+public class TableExporter {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final JdbcTemplate streamingJdbcTemplate;
+
+    @Autowired
+    public TableExporter(DataSource dataSource) {
+        this.streamingJdbcTemplate = new JdbcTemplate(dataSource);
+        // Integer.MIN_VALUE makes MySQL Connector/J stream the result set row by row
+        this.streamingJdbcTemplate.setFetchSize(Integer.MIN_VALUE);
+    }
+
+    public StreamingResponseBody export(String sql, Object[] args, String[] columns, ExportFormat format,
+            boolean gzip) {
+        return out -> {
+            OutputStream target = gzip ? new GZIPOutputStream(out, BUFFER_SIZE) : out;
+            Writer writer = new BufferedWriter(new OutputStreamWriter(target, StandardCharsets.UTF_8), BUFFER_SIZE);
+            if (format == ExportFormat.CSV) {
+                writer.write(String.join(",", columns));
+                writer.write('\n');
+            }
+            try {
+                streamingJdbcTemplate.query(sql, (RowCallbackHandler) rs -> writeRow(writer, rs, columns, format),
+                        args);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            writer.flush();
+            if (gzip) {
+                ((GZIPOutputStream) target).finish();
+            }
+        };
+    }
+
+    private static void writeRow(Writer writer, ResultSet rs, String[] columns, ExportFormat format)
+            throws SQLException {
+        try {
+            if (format == ExportFormat.CSV) {
+                for (int i = 0; i < columns.length; i++) {
+                    if (i > 0) {
+                        writer.write(',');
+                    }
+                    writeCsvValue(writer, rs.getObject(i + 1));
+                }
+            } else {
+                writer.write('{');
+                for (int i = 0; i < columns.length; i++) {
+                    if (i > 0) {
+                        writer.write(',');
+                    }
+                    writeJsonString(writer, columns[i]);
+                    writer.write(':');
+                    writeJsonValue(writer, rs.getObject(i + 1));
+                }
+                writer.write('}');
+            }
+            writer.write('\n');
+        } catch (IOException e) {
+            // Client went away. Closing a streaming result set drains every remaining row, so kill the
+            // query on the server first instead of reading the rest of the table
+            UncheckedIOException failure = new UncheckedIOException(e);
+            try {
+                rs.getStatement().cancel();
+            } catch (SQLException cancelFailure) {
+                failure.addSuppressed(cancelFailure);
+            }
+            throw failure;
+        }
+    }
+
+    private static void writeCsvValue(Writer writer, Object value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        String text = format(value);
+        if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+            writer.write('"');
+            writer.write(text.replace("\"", "\"\""));
+            writer.write('"');
+        } else {
+            writer.write(text);
+        }
+    }
+
+    private static void writeJsonValue(Writer writer, Object value) throws IOException {
+        if (value == null) {
+            writer.write("null");
+        } else if (value instanceof Number || value instanceof Boolean) {
+            writer.write(format(value));
+        } else {
+            writeJsonString(writer, format(value));
+        }
+    }
+
+    private static void writeJsonString(Writer writer, String text) throws IOException {
+        writer.write('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '"' -> writer.write("\\\"");
+                case '\\' -> writer.write("\\\\");
+                case '\n' -> writer.write("\\n");
+                case '\r' -> writer.write("\\r");
+                case '\t' -> writer.write("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        writer.write(String.format("\\u%04x", (int) c));
+                    } else {
+                        writer.write(c);
+                    }
+                }
+            }
+        }
+        writer.write('"');
+    }
+
+    private static String format(Object value) {
+        if (value instanceof Timestamp timestamp) {
+            return timestamp.toLocalDateTime().toString();
+        }
+        // toString switches to scientific notation for large amounts, which spreadsheets and parsers mangle
+        if (value instanceof Double d && Double.isFinite(d)) {
+            return BigDecimal.valueOf(d).toPlainString();
+        }
+        if (value instanceof Float f && Float.isFinite(f)) {
+            return new BigDecimal(f.toString()).toPlainString();
+        }
+        if (value instanceof BigDecimal decimal) {
+            return decimal.toPlainString();
+        }
+        return value.toString();
+    }
+}
@@ -0,0 +1,40 @@
+package com.HMS.Hospitalmanagement.metrics;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDate;
+
+/**
+ * Persisted copy of one doctor's counters for one day, written by DoctorMetrics so a restart
+ * does not have to recount the appointments and bills tables. Amounts are in cents.
+ */
+@Entity
+@Table(name = "doctor_day_metrics", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_doctor_day_metrics", columnNames = {"doctor_id", "metric_day"})
+}, indexes = {
+        @Index(name = "idx_doctor_day_metrics_day", columnList = "metric_day")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DoctorDayMetrics {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "doctor_id", nullable = false)
+    private Long doctorId;
+
+    @Column(name = "metric_day", nullable = false)
+    private LocalDate metricDay;
+
+    private int scheduled;
+    private int completed;
+    private int cancelled;
+    private int bills;
+    private long billedCents;
+    private long paidCents;
+}
@@ -0,0 +1,539 @@
+package com.HMS.Hospitalmanagement.metrics;
+
+import com.HMS.Hospitalmanagement.appointment.Appointment;
+import com.HMS.Hospitalmanagement.appointment.AppointmentEvent;
+import com.HMS.Hospitalmanagement.appointment.AppointmentSummary;
+import com.HMS.Hospitalmanagement.appointment.WorkingHours;
+import com.HMS.Hospitalmanagement.billing.Bill;
+import com.HMS.Hospitalmanagement.billing.JobCheckpoint;
+import com.HMS.Hospitalmanagement.billing.JobCheckpointRepository;
+import com.HMS.Hospitalmanagement.billing.RevenueRollup;
+import com.HMS.Hospitalmanagement.doctor.DoctorEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Per-doctor, per-day appointment and billing counters over a sliding window of days around
+ * today, kept in one ring of primitive arrays per doctor. AppointmentService (through
+ * AppointmentEvent), BillService and the bulk paths feed it every change as it happens, so
+ * reading a doctor's metrics never touches the appointments or bills tables.
+ * Changed days are written to doctor_day_metrics periodically. After a clean shutdown the next
+ * startup reloads them from there; otherwise the window is recounted from the source tables.
+ * Counting runs without the lock: a change to a day that is still being counted only marks the day
+ * stale, and the count recounts stale days before it moves loadedThrough past them.
+ */
+@Component
+public class DoctorMetrics {
+
+    private static final String JOB_NAME = "doctor-metrics";
+    private static final String RUNNING = "RUNNING";
+    private static final String CLEAN = "CLEAN";
+
+    // Ints per slot: scheduled, completed and cancelled appointments, and bills
+    private static final int COUNTS = 4;
+    private static final int COUNT_SCHEDULED = 0;
+    private static final int COUNT_COMPLETED = 1;
+    private static final int COUNT_CANCELLED = 2;
+    private static final int COUNT_BILLS = 3;
+    // Longs per slot: billed and paid cents
+    private static final int AMOUNTS = 2;
+    private static final int AMOUNT_BILLED = 0;
+    private static final int AMOUNT_PAID = 1;
+
+    private static final String APPOINTMENTS_SQL = "SELECT doctor_id, DATE(appointment_date), status, COUNT(*) "
+            + "FROM appointments WHERE appointment_date >= ? AND appointment_date < ? "
+            + "GROUP BY doctor_id, DATE(appointment_date), status "
+            + "UNION ALL "
+            + "SELECT doctor_id, DATE(appointment_date), status, COUNT(*) "
+            + "FROM appointments_archive WHERE appointment_date >= ? AND appointment_date < ? "
+            + "GROUP BY doctor_id, DATE(appointment_date), status";
+    private static final String BILLS_SQL = "SELECT a.doctor_id, DATE(b.bill_date), b.payment_status, COUNT(*), "
+            + "SUM(COALESCE(b.total_amount, 0)) "
+            + "FROM bills b JOIN appointments a ON a.id = b.appointment_id "
+            + "WHERE b.bill_date >= ? AND b.bill_date < ? "
+            + "GROUP BY a.doctor_id, DATE(b.bill_date), b.payment_status "
+            + "UNION ALL "
+            + "SELECT a.doctor_id, DATE(b.bill_date), b.payment_status, COUNT(*), SUM(COALESCE(b.total_amount, 0)) "
+            + "FROM bills_archive b JOIN appointments_archive a ON a.id = b.appointment_id "
+            + "WHERE b.bill_date >= ? AND b.bill_date < ? "
+            + "GROUP BY a.doctor_id, DATE(b.bill_date), b.payment_status";
+    private static final String UPSERT_SQL = "INSERT INTO doctor_day_metrics "
+            + "(doctor_id, metric_day, scheduled, completed, cancelled, bills, billed_cents, paid_cents) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE scheduled = VALUES(scheduled), "
+            + "completed = VALUES(completed), cancelled = VALUES(cancelled), bills = VALUES(bills), "
+            + "billed_cents = VALUES(billed_cents), paid_cents = VALUES(paid_cents)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JobCheckpointRepository checkpointRepository;
+    private final WorkingHours workingHours;
+    private final int pastDays;
+    private final int futureDays;
+
+    // Installing counted days takes the write lock; updates and reads take the read lock plus the
+    // monitor of the doctor's Series
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Series> series = new ConcurrentHashMap<>();
+    // Last day whose counts are complete in memory. Changes to later days are not applied; they add
+    // the day to staleDays, which catchUp() recounts before it moves loadedThrough
+    private volatile long loadedThrough = Long.MIN_VALUE;
+    private final Set<Long> staleDays = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    public DoctorMetrics(JdbcTemplate jdbcTemplate,
+            JobCheckpointRepository checkpointRepository,
+            WorkingHours workingHours,
+            @Value("${hms.metrics.past-days:90}") int pastDays,
+            @Value("${hms.metrics.future-days:60}") int futureDays) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.checkpointRepository = checkpointRepository;
+        this.workingHours = workingHours;
+        this.pastDays = pastDays;
+        this.futureDays = futureDays;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        LocalDate today = LocalDate.now();
+        LocalDate start = today.minusDays(pastDays);
+        LocalDate end = today.plusDays(futureDays);
+        // lastId of the checkpoint is the last day the saved counters cover, as an epoch day
+        Optional<JobCheckpoint> checkpoint = checkpointRepository.findById(JOB_NAME);
+        LocalDate countFrom = start;
+        Map<Long, Series> saved = new HashMap<>();
+        if (checkpoint.isPresent() && CLEAN.equals(checkpoint.get().getStatus())
+                && checkpoint.get().getLastId() != null) {
+            LocalDate savedThrough = LocalDate.ofEpochDay(checkpoint.get().getLastId());
+            if (!savedThrough.isBefore(start)) {
+                loadSaved(start, savedThrough.isAfter(end) ? end : savedThrough, saved);
+                countFrom = savedThrough.plusDays(1);
+            }
+        }
+        lock.writeLock().lock();
+        try {
+            // Changes made since startup are not in the saved counters, but they have marked their days stale
+            series.clear();
+            series.putAll(saved);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        catchUp(countFrom, end);
+        // Until shutdown writes CLEAN, a crash leaves the saved counters marked as not to be trusted
+        checkpointRepository.save(new JobCheckpoint(JOB_NAME, loadedThrough, RUNNING, LocalDateTime.now()));
+    }
+
+    @Scheduled(fixedDelayString = "${hms.metrics.flush-ms:60000}",
+            initialDelayString = "${hms.metrics.flush-ms:60000}")
+    public void flush() {
+        if (loadedThrough == Long.MIN_VALUE) {
+            return;
+        }
+        roll();
+        persist();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (loadedThrough != Long.MIN_VALUE && persist()) {
+            checkpointRepository.save(new JobCheckpoint(JOB_NAME, loadedThrough, CLEAN, LocalDateTime.now()));
+        }
+    }
+
+    @EventListener
+    public void onAppointmentEvent(AppointmentEvent event) {
+        switch (event.getType()) {
+            case CREATED -> applyAppointment(event.getAppointment(), 1);
+            case DELETED -> applyAppointment(event.getAppointment(), -1);
+            default -> {
+                applyAppointment(event.getPrevious(), -1);
+                applyAppointment(event.getAppointment(), 1);
+            }
+        }
+    }
+
+    @EventListener
+    public void onDoctorEvent(DoctorEvent event) {
+        if (event.getType() == DoctorEvent.Type.DELETED) {
+            series.remove(event.getDoctor().getId());
+            jdbcTemplate.update("DELETE FROM doctor_day_metrics WHERE doctor_id = ?", event.getDoctor().getId());
+        }
+    }
+
+    public void applyAppointment(AppointmentSummary appointment, int sign) {
+        if (appointment != null) {
+            applyAppointment(appointment.getDoctorId(), appointment.getAppointmentDate(), appointment.getStatus(),
+                    sign);
+        }
+    }
+
+    public void applyAppointment(Long doctorId, LocalDateTime date, Appointment.AppointmentStatus status, int sign) {
+        if (doctorId == null || date == null || status == null) {
+            return;
+        }
+        int field = switch (status) {
+            case SCHEDULED -> COUNT_SCHEDULED;
+            case COMPLETED -> COUNT_COMPLETED;
+            case CANCELLED -> COUNT_CANCELLED;
+        };
+        update(doctorId, date.toLocalDate(), field, sign, 0, 0);
+    }
+
+    /**
+     * Takes the same facts BillService feeds RevenueRollup. Cancelled bills are not counted.
+     */
+    public void applyBill(RevenueRollup.Fact fact, int sign) {
+        if (fact.doctorId() == null || fact.day() == null || fact.status() == null
+                || fact.status() == Bill.PaymentStatus.CANCELLED) {
+            return;
+        }
+        long cents = Math.round(fact.amount() * 100);
+        update(fact.doctorId(), fact.day(), COUNT_BILLS, sign, sign * cents,
+                fact.status() == Bill.PaymentStatus.PAID ? sign * cents : 0);
+    }
+
+    /**
+     * The doctor's counters for each day from..to and their totals. Both days must lie inside the
+     * window kept in memory, so the cost depends only on the length of the range.
+     */
+    public DoctorMetricsReport report(Long doctorId, LocalDate from, LocalDate to) {
+        LocalDate today = LocalDate.now();
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("'from' must not be after 'to'");
+        }
+        if (from.isBefore(today.minusDays(pastDays)) || to.isAfter(today.plusDays(futureDays))) {
+            throw new IllegalArgumentException("Metrics are kept from " + today.minusDays(pastDays)
+                    + " to " + today.plusDays(futureDays));
+        }
+        int length = (int) (to.toEpochDay() - from.toEpochDay() + 1);
+        int[] counts = new int[length * COUNTS];
+        long[] amounts = new long[length * AMOUNTS];
+        lock.readLock().lock();
+        try {
+            Series doctor = series.get(doctorId);
+            if (doctor != null) {
+                synchronized (doctor) {
+                    for (int i = 0; i < length; i++) {
+                        int slot = doctor.find(from.toEpochDay() + i);
+                        if (slot >= 0) {
+                            System.arraycopy(doctor.counts, slot * COUNTS, counts, i * COUNTS, COUNTS);
+                            System.arraycopy(doctor.amounts, slot * AMOUNTS, amounts, i * AMOUNTS, AMOUNTS);
+                        }
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<DoctorMetricsReport.Day> days = new ArrayList<>(length);
+        DoctorMetricsReport.Totals totals = new DoctorMetricsReport.Totals();
+        int slotsPerDay = workingHours.slotsPerDay();
+        for (int i = 0; i < length; i++) {
+            int scheduled = counts[i * COUNTS + COUNT_SCHEDULED];
+            int completed = counts[i * COUNTS + COUNT_COMPLETED];
+            int cancelled = counts[i * COUNTS + COUNT_CANCELLED];
+            int bills = counts[i * COUNTS + COUNT_BILLS];
+            long billed = amounts[i * AMOUNTS + AMOUNT_BILLED];
+            long paid = amounts[i * AMOUNTS + AMOUNT_PAID];
+            int booked = scheduled + completed;
+            int available = Math.max(0, slotsPerDay - booked);
+            days.add(new DoctorMetricsReport.Day(from.plusDays(i), scheduled, completed, cancelled, booked, available,
+                    (double) booked / slotsPerDay, bills, billed / 100.0, paid / 100.0));
+            totals.setScheduled(totals.getScheduled() + scheduled);
+            totals.setCompleted(totals.getCompleted() + completed);
+            totals.setCancelled(totals.getCancelled() + cancelled);
+            totals.setBooked(totals.getBooked() + booked);
+            totals.setAvailableSlots(totals.getAvailableSlots() + available);
+            totals.setBills(totals.getBills() + bills);
+            totals.setBilledAmount(totals.getBilledAmount() + billed / 100.0);
+            totals.setPaidAmount(totals.getPaidAmount() + paid / 100.0);
+        }
+        long appointments = totals.getScheduled() + totals.getCompleted() + totals.getCancelled();
+        totals.setUtilization((double) totals.getBooked() / ((long) length * slotsPerDay));
+        totals.setCompletionRate(appointments > 0 ? (double) totals.getCompleted() / appointments : 0);
+        totals.setCancellationRate(appointments > 0 ? (double) totals.getCancelled() / appointments : 0);
+        return new DoctorMetricsReport(doctorId, from, to, totals, days);
+    }
+
+    private void update(Long doctorId, LocalDate date, int countField, int count, long billed, long paid) {
+        long day = date.toEpochDay();
+        long today = LocalDate.now().toEpochDay();
+        lock.readLock().lock();
+        try {
+            if (day < today - pastDays || day > today + futureDays) {
+                return;
+            }
+            if (day > loadedThrough) {
+                // The day is being counted, or will be by the next roll; either recounts it
+                staleDays.add(day);
+                return;
+            }
+            Series doctor = series.computeIfAbsent(doctorId, id -> new Series(pastDays + futureDays + 1));
+            synchronized (doctor) {
+                int slot = doctor.slot(day);
+                doctor.counts[slot * COUNTS + countField] += count;
+                doctor.amounts[slot * AMOUNTS + AMOUNT_BILLED] += billed;
+                doctor.amounts[slot * AMOUNTS + AMOUNT_PAID] += paid;
+                doctor.dirty.set(slot);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Counts the days that entered the window since the last roll and drops saved days that left it.
+     */
+    private void roll() {
+        LocalDate today = LocalDate.now();
+        long end = today.plusDays(futureDays).toEpochDay();
+        if (end > loadedThrough) {
+            long from = Math.max(loadedThrough + 1, today.minusDays(pastDays).toEpochDay());
+            catchUp(LocalDate.ofEpochDay(from), LocalDate.ofEpochDay(end));
+            jdbcTemplate.update("DELETE FROM doctor_day_metrics WHERE metric_day < ?",
+                    Date.valueOf(today.minusDays(pastDays)));
+        }
+    }
+
+    /**
+     * Counts from..to and installs the counts, then recounts the days changed meanwhile until a pass
+     * finds none, and only then moves loadedThrough to 'to'. The queries run without the lock. A
+     * change is visible in the tables before it reaches this class, so a day marked stale is recounted
+     * by a query that sees the change, and the change itself is never applied on top.
+     */
+    private void catchUp(LocalDate from, LocalDate to) {
+        List<Long> days = new ArrayList<>();
+        for (long day = from.toEpochDay(); day <= to.toEpochDay(); day++) {
+            days.add(day);
+        }
+        Map<Long, Series> counted = new HashMap<>();
+        if (!days.isEmpty()) {
+            count(from, to, counted);
+        }
+        while (true) {
+            lock.writeLock().lock();
+            try {
+                install(counted, days);
+                if (staleDays.isEmpty()) {
+                    loadedThrough = to.toEpochDay();
+                    return;
+                }
+                // update() adds under the read lock, so nothing is added while this is held
+                days = new ArrayList<>(staleDays);
+                staleDays.clear();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            long windowStart = LocalDate.now().minusDays(pastDays).toEpochDay();
+            days.removeIf(day -> day < windowStart);
+            counted = new HashMap<>();
+            for (long day : days) {
+                count(LocalDate.ofEpochDay(day), LocalDate.ofEpochDay(day), counted);
+            }
+        }
+    }
+
+    /**
+     * Replaces what is held for the days with the counted series' values and marks them for saving.
+     * Caller holds the write lock.
+     */
+    private void install(Map<Long, Series> counted, List<Long> days) {
+        for (Series doctor : series.values()) {
+            for (long day : days) {
+                doctor.clear(day);
+            }
+        }
+        for (Map.Entry<Long, Series> entry : counted.entrySet()) {
+            Series source = entry.getValue();
+            Series doctor = series.computeIfAbsent(entry.getKey(), id -> new Series(pastDays + futureDays + 1));
+            for (long day : days) {
+                int from = source.find(day);
+                if (from >= 0) {
+                    int slot = doctor.slot(day);
+                    System.arraycopy(source.counts, from * COUNTS, doctor.counts, slot * COUNTS, COUNTS);
+                    System.arraycopy(source.amounts, from * AMOUNTS, doctor.amounts, slot * AMOUNTS, AMOUNTS);
+                    doctor.dirty.set(slot);
+                }
+            }
+        }
+    }
+
+    /**
+     * Counts from..to from the appointment and bill tables into the given series and deletes the
+     * saved rows for those days, which may count appointments that are gone. Takes no lock.
+     */
+    private void count(LocalDate from, LocalDate to, Map<Long, Series> into) {
+        jdbcTemplate.update("DELETE FROM doctor_day_metrics WHERE metric_day >= ? AND metric_day <= ?",
+                Date.valueOf(from), Date.valueOf(to));
+
+        Timestamp start = Timestamp.valueOf(from.atStartOfDay());
+        Timestamp end = Timestamp.valueOf(to.plusDays(1).atStartOfDay());
+        jdbcTemplate.query(APPOINTMENTS_SQL, (RowCallbackHandler) rs -> {
+            long doctorId = rs.getLong(1);
+            String status = rs.getString(3);
+            if (status == null) {
+                return;
+            }
+            int field = switch (Appointment.AppointmentStatus.valueOf(status)) {
+                case SCHEDULED -> COUNT_SCHEDULED;
+                case COMPLETED -> COUNT_COMPLETED;
+                case CANCELLED -> COUNT_CANCELLED;
+            };
+            Series doctor = into.computeIfAbsent(doctorId, id -> new Series(pastDays + futureDays + 1));
+            int slot = doctor.slot(rs.getDate(2).toLocalDate().toEpochDay());
+            doctor.counts[slot * COUNTS + field] += rs.getInt(4);
+        }, start, end, start, end);
+        jdbcTemplate.query(BILLS_SQL, (RowCallbackHandler) rs -> {
+            long doctorId = rs.getLong(1);
+            String status = rs.getString(3);
+            if (status == null || Bill.PaymentStatus.valueOf(status) == Bill.PaymentStatus.CANCELLED) {
+                return;
+            }
+            long cents = Math.round(rs.getDouble(5) * 100);
+            Series doctor = into.computeIfAbsent(doctorId, id -> new Series(pastDays + futureDays + 1));
+            int slot = doctor.slot(rs.getDate(2).toLocalDate().toEpochDay());
+            doctor.counts[slot * COUNTS + COUNT_BILLS] += rs.getInt(4);
+            doctor.amounts[slot * AMOUNTS + AMOUNT_BILLED] += cents;
+            if (Bill.PaymentStatus.valueOf(status) == Bill.PaymentStatus.PAID) {
+                doctor.amounts[slot * AMOUNTS + AMOUNT_PAID] += cents;
+            }
+        }, start, end, start, end);
+    }
+
+    /**
+     * Loads saved counters for from..to into the given series.
+     */
+    private void loadSaved(LocalDate from, LocalDate to, Map<Long, Series> into) {
+        jdbcTemplate.query("SELECT doctor_id, metric_day, scheduled, completed, cancelled, bills, billed_cents, "
+                + "paid_cents FROM doctor_day_metrics WHERE metric_day >= ? AND metric_day <= ?",
+                (RowCallbackHandler) rs -> {
+                    Series doctor = into.computeIfAbsent(rs.getLong(1),
+                            id -> new Series(pastDays + futureDays + 1));
+                    int slot = doctor.slot(rs.getDate(2).toLocalDate().toEpochDay());
+                    doctor.counts[slot * COUNTS + COUNT_SCHEDULED] = rs.getInt(3);
+                    doctor.counts[slot * COUNTS + COUNT_COMPLETED] = rs.getInt(4);
+                    doctor.counts[slot * COUNTS + COUNT_CANCELLED] = rs.getInt(5);
+                    doctor.counts[slot * COUNTS + COUNT_BILLS] = rs.getInt(6);
+                    doctor.amounts[slot * AMOUNTS + AMOUNT_BILLED] = rs.getLong(7);
+                    doctor.amounts[slot * AMOUNTS + AMOUNT_PAID] = rs.getLong(8);
+                }, Date.valueOf(from), Date.valueOf(to));
+    }
+
+    /**
+     * Writes every changed day. Returns false if the write failed; the days stay marked for the next flush.
+     */
+    private boolean persist() {
+        List<Object[]> rows = new ArrayList<>();
+        List<Series> owners = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (Map.Entry<Long, Series> entry : series.entrySet()) {
+                Series doctor = entry.getValue();
+                synchronized (doctor) {
+                    BitSet dirty = doctor.dirty;
+                    for (int slot = dirty.nextSetBit(0); slot >= 0; slot = dirty.nextSetBit(slot + 1)) {
+                        rows.add(new Object[] {entry.getKey(), Date.valueOf(LocalDate.ofEpochDay(doctor.days[slot])),
+                                doctor.counts[slot * COUNTS + COUNT_SCHEDULED],
+                                doctor.counts[slot * COUNTS + COUNT_COMPLETED],
+                                doctor.counts[slot * COUNTS + COUNT_CANCELLED],
+                                doctor.counts[slot * COUNTS + COUNT_BILLS],
+                                doctor.amounts[slot * AMOUNTS + AMOUNT_BILLED],
+                                doctor.amounts[slot * AMOUNTS + AMOUNT_PAID]});
+                        owners.add(doctor);
+                    }
+                    dirty.clear();
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (rows.isEmpty()) {
+            return true;
+        }
+        try {
+            jdbcTemplate.batchUpdate(UPSERT_SQL, rows);
+            return true;
+        } catch (RuntimeException e) {
+            for (int i = 0; i < rows.size(); i++) {
+                Series doctor = owners.get(i);
+                synchronized (doctor) {
+                    long day = ((Date) rows.get(i)[1]).toLocalDate().toEpochDay();
+                    int slot = doctor.find(day);
+                    if (slot >= 0) {
+                        doctor.dirty.set(slot);
+                    }
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * One doctor's counters: a ring with one slot per day of the window, each slot tagged with the
+     * epoch day it currently holds. A slot still tagged with a day that has left the window is
+     * cleared the first time the new day is written.
+     */
+    private static final class Series {
+
+        final int[] days;
+        final int[] counts;
+        final long[] amounts;
+        final BitSet dirty = new BitSet();
+
+        Series(int window) {
+            days = new int[window];
+            Arrays.fill(days, Integer.MIN_VALUE);
+            counts = new int[window * COUNTS];
+            amounts = new long[window * AMOUNTS];
+        }
+
+        /** The slot for the day, claimed and zeroed if it held another day. */
+        int slot(long day) {
+            int slot = (int) Math.floorMod(day, days.length);
+            if (days[slot] != day) {
+                days[slot] = (int) day;
+                Arrays.fill(counts, slot * COUNTS, (slot + 1) * COUNTS, 0);
+                Arrays.fill(amounts, slot * AMOUNTS, (slot + 1) * AMOUNTS, 0L);
+            }
+            return slot;
+        }
+
+        /** The slot holding the day, or -1 if nothing was recorded for it. */
+        int find(long day) {
+            int slot = (int) Math.floorMod(day, days.length);
+            return days[slot] == day ? slot : -1;
+        }
+
+        void clear(long day) {
+            int slot = find(day);
+            if (slot >= 0) {
+                Arrays.fill(counts, slot * COUNTS, (slot + 1) * COUNTS, 0);
+                Arrays.fill(amounts, slot * AMOUNTS, (slot + 1) * AMOUNTS, 0L);
+                days[slot] = Integer.MIN_VALUE;
+                dirty.clear(slot);
+            }
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.HMS.Hospitalmanagement.metrics;
+
+import com.HMS.Hospitalmanagement.doctor.DoctorService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+
+@RestController
+@RequestMapping("/doctors")
+public class DoctorMetricsController {
+
+    private static final int DEFAULT_DAYS = 30;
+
+    private final DoctorMetrics doctorMetrics;
+    private final DoctorService doctorService;
+
+    @Autowired
+    public DoctorMetricsController(DoctorMetrics doctorMetrics, DoctorService doctorService) {
+        this.doctorMetrics = doctorMetrics;
+        this.doctorService = doctorService;
+    }
+
+    /**
+     * Defaults to the 30 days up to and including today.
+     */
+    @GetMapping("/{id}/metrics")
+    public ResponseEntity<DoctorMetricsReport> getMetrics(@PathVariable Long id,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        if (doctorService.getDoctorById(id).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(DEFAULT_DAYS - 1);
+        try {
+            return ResponseEntity.ok(doctorMetrics.report(id, start, end));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+}
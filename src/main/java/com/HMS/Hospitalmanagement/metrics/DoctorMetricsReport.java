@@ -0,0 +1,58 @@
+package com.HMS.Hospitalmanagement.metrics;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Response of GET /doctors/{id}/metrics. booked counts scheduled and completed appointments;
+ * utilization is booked over the day's working slots (WorkingHours). Appointments count on the day
+ * they are for, bills on their bill date; cancelled bills count in neither amount.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DoctorMetricsReport {
+
+    private Long doctorId;
+    private LocalDate from;
+    private LocalDate to;
+    private Totals totals;
+    private List<Day> days;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Totals {
+        private long scheduled;
+        private long completed;
+        private long cancelled;
+        private long booked;
+        private long availableSlots;
+        private double utilization;
+        private double completionRate;
+        private double cancellationRate;
+        private long bills;
+        private double billedAmount;
+        private double paidAmount;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Day {
+        private LocalDate date;
+        private int scheduled;
+        private int completed;
+        private int cancelled;
+        private int booked;
+        private int availableSlots;
+        private double utilization;
+        private int bills;
+        private double billedAmount;
+        private double paidAmount;
+    }
+}
@@ -0,0 +1,19 @@
+package com.HMS.Hospitalmanagement.patient;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Published in-process after a patient row is written. For DELETED, patient is the row as it was.
+ */
+@Data
+@AllArgsConstructor
+public class PatientEvent {
+
+    private Type type;
+    private Patient patient;
+
+    public enum Type {
+        CREATED, UPDATED, DELETED
+    }
+}
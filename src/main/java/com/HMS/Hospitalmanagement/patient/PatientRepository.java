@@ -1,9 +1,18 @@
 package com.HMS.Hospitalmanagement.patient;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 public interface PatientRepository extends JpaRepository<Patient, Long> {
     Patient findByName(String name);
+
+    // Rows of (id, name) for the ids that exist
+    @Query("SELECT p.id, p.name FROM Patient p WHERE p.id IN :ids")
+    List<Object[]> findNames(@Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,327 @@
+package com.HMS.Hospitalmanagement.patient;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Trigram index over patient names and contact numbers for typo-tolerant lookups. Names are
+ * folded to lower-case letters and split into words, each padded like "  word " so prefixes
+ * count; numbers are reduced to their digits. Every trigram maps to a posting list of patient
+ * ids, and a query scores the patients sharing enough of its trigrams. Patient ids are dense
+ * auto-increment keys, so they index the per-patient arrays directly.
+ * Built at startup and kept current from PatientEvents. The build reads the table into a fresh
+ * Postings without the lock while searches and events use the current one; changes arriving
+ * meanwhile are also journaled and replayed onto the new Postings before it is swapped in.
+ */
+@Component
+public class PatientSearchIndex {
+
+    // Space, a-z and 0-9; a trigram is a base-37 number
+    private static final int ALPHABET = 37;
+    private static final int TRIGRAMS = ALPHABET * ALPHABET * ALPHABET;
+    private static final int MIN_PHONE_DIGITS = 3;
+    private static final int MAX_LIMIT = 100;
+    // Keeps per-patient hit counts within a short
+    private static final int MAX_QUERY_LENGTH = 200;
+    // Share of the query's trigrams a patient must have to match at all
+    private static final double MIN_COVERAGE = 0.3;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // Guards index and journal; searches take the read lock, changes and the swap the write lock
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Postings index = new Postings();
+    // Changes since the running build started reading; null when no build is running
+    private List<Change> journal;
+    // Per-query hit counters, zeroed again after use so they can be handed to the next query
+    private final ConcurrentLinkedQueue<short[]> scratch = new ConcurrentLinkedQueue<>();
+
+    @Autowired
+    public PatientSearchIndex(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        Thread.ofVirtual().name("patient-search-index-load").start(this::rebuild);
+    }
+
+    /**
+     * Builds the index from the patients table and swaps it in. A change journaled during the build
+     * may already be in what the build read; replaying it writes the same trigrams again, and a
+     * later change to the same patient is journaled after it, so the last one still wins.
+     */
+    void rebuild() {
+        lock.writeLock().lock();
+        try {
+            journal = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        Postings built = new Postings();
+        try {
+            jdbcTemplate.query("SELECT id, name, contact_number FROM patients", (RowCallbackHandler) rs ->
+                    built.put(rs.getLong(1), trigrams(rs.getString(2), rs.getString(3))));
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                journal = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+        lock.writeLock().lock();
+        try {
+            for (Change change : journal) {
+                built.apply(change);
+            }
+            index = built;
+            journal = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @EventListener
+    public void onPatientEvent(PatientEvent event) {
+        Patient patient = event.getPatient();
+        Change change = new Change(patient.getId(), event.getType() == PatientEvent.Type.DELETED ? null
+                : trigrams(patient.getName(), patient.getContactNumber()));
+        lock.writeLock().lock();
+        try {
+            index.apply(change);
+            if (journal != null) {
+                journal.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Patients matching the query, best first: the share of the query's trigrams a patient has,
+     * weighted 3:1 against the Dice similarity of the two trigram sets, so a short query finds
+     * long names but among equal matches the closest name wins.
+     */
+    public Matches search(String query, int offset, int limit) {
+        if (query.length() > MAX_QUERY_LENGTH) {
+            throw new IllegalArgumentException("Query is longer than " + MAX_QUERY_LENGTH + " characters");
+        }
+        int[] terms = trigrams(query, query);
+        if (terms.length == 0) {
+            throw new IllegalArgumentException("Query must contain letters or at least " + MIN_PHONE_DIGITS
+                    + " digits");
+        }
+        int from = Math.max(0, offset);
+        int size = Math.max(1, Math.min(limit, MAX_LIMIT));
+        int keep = (int) Math.min((long) from + size, Integer.MAX_VALUE);
+        int minShared = Math.max(1, (int) Math.ceil(MIN_COVERAGE * terms.length));
+        Comparator<Match> ranking = Comparator.comparingDouble(Match::score).thenComparing(Match::id,
+                Comparator.reverseOrder());
+        // Worst of the kept matches on top, so it is the one evicted
+        PriorityQueue<Match> best = new PriorityQueue<>(ranking);
+        int total = 0;
+
+        lock.readLock().lock();
+        try {
+            Postings current = index;
+            int[][] postings = current.postings;
+            int[] postingSizes = current.postingSizes;
+            short[] counts = borrowScratch(current.patientTrigrams.length);
+            int[] touched = new int[64];
+            int touchedCount = 0;
+            for (int term : terms) {
+                int[] list = postings[term];
+                for (int i = 0; i < postingSizes[term]; i++) {
+                    int id = list[i];
+                    if (counts[id]++ == 0) {
+                        if (touchedCount == touched.length) {
+                            touched = Arrays.copyOf(touched, touchedCount * 2);
+                        }
+                        touched[touchedCount++] = id;
+                    }
+                }
+            }
+            for (int i = 0; i < touchedCount; i++) {
+                int id = touched[i];
+                int shared = counts[id];
+                counts[id] = 0;
+                if (shared < minShared) {
+                    continue;
+                }
+                total++;
+                double coverage = (double) shared / terms.length;
+                double dice = 2.0 * shared / (terms.length + current.patientTrigrams[id].length);
+                Match match = new Match(id, 0.75 * coverage + 0.25 * dice);
+                if (best.size() < keep) {
+                    best.add(match);
+                } else if (ranking.compare(match, best.peek()) > 0) {
+                    best.poll();
+                    best.add(match);
+                }
+            }
+            scratch.offer(counts);
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<Match> ranked = new ArrayList<>(best);
+        ranked.sort(ranking.reversed());
+        List<Match> page = from < ranked.size() ? ranked.subList(from, ranked.size()) : List.of();
+        return new Matches(total, new ArrayList<>(page));
+    }
+
+    /**
+     * A counter array covering every indexed id. Caller holds the read lock, so the id range cannot grow.
+     */
+    private short[] borrowScratch(int ids) {
+        short[] counts = scratch.poll();
+        if (counts == null || counts.length < ids) {
+            counts = new short[ids];
+        }
+        return counts;
+    }
+
+    private static int toSlot(long patientId) {
+        if (patientId <= 0 || patientId >= Integer.MAX_VALUE) {
+            throw new IllegalStateException("Patient id out of range for the search index: " + patientId);
+        }
+        return (int) patientId;
+    }
+
+    /**
+     * Distinct, sorted trigrams of a name and a contact number.
+     */
+    static int[] trigrams(String name, String contactNumber) {
+        int[] codes = new int[16];
+        int count = 0;
+        if (name != null) {
+            String folded = Normalizer.normalize(name, Normalizer.Form.NFD)
+                    .replaceAll("\\p{M}", "")
+                    .toLowerCase(Locale.ROOT)
+                    .replaceAll("[^a-z]+", " ")
+                    .trim();
+            if (!folded.isEmpty()) {
+                for (String word : folded.split(" ")) {
+                    String padded = "  " + word + " ";
+                    for (int i = 0; i + 3 <= padded.length(); i++) {
+                        if (count == codes.length) {
+                            codes = Arrays.copyOf(codes, count * 2);
+                        }
+                        codes[count++] = code(padded.charAt(i), padded.charAt(i + 1), padded.charAt(i + 2));
+                    }
+                }
+            }
+        }
+        if (contactNumber != null) {
+            String digits = contactNumber.replaceAll("[^0-9]", "");
+            if (digits.length() >= MIN_PHONE_DIGITS) {
+                for (int i = 0; i + 3 <= digits.length(); i++) {
+                    if (count == codes.length) {
+                        codes = Arrays.copyOf(codes, count * 2);
+                    }
+                    codes[count++] = code(digits.charAt(i), digits.charAt(i + 1), digits.charAt(i + 2));
+                }
+            }
+        }
+        return Arrays.stream(codes, 0, count).sorted().distinct().toArray();
+    }
+
+    private static int code(char a, char b, char c) {
+        return (symbol(a) * ALPHABET + symbol(b)) * ALPHABET + symbol(c);
+    }
+
+    private static int symbol(char c) {
+        if (c >= 'a' && c <= 'z') {
+            return c - 'a' + 1;
+        }
+        if (c >= '0' && c <= '9') {
+            return c - '0' + 27;
+        }
+        return 0;
+    }
+
+    /**
+     * The posting lists and the trigrams of every indexed patient. Not thread-safe; the live one is
+     * guarded by the index lock, and one being built belongs to the building thread.
+     */
+    private static final class Postings {
+
+        final int[][] postings = new int[TRIGRAMS][];
+        final int[] postingSizes = new int[TRIGRAMS];
+        // Distinct, sorted trigrams of each indexed patient by id; null if the id is not indexed
+        int[][] patientTrigrams = new int[1024][];
+
+        void apply(Change change) {
+            if (change.trigrams() == null) {
+                remove(change.patientId());
+            } else {
+                put(change.patientId(), change.trigrams());
+            }
+        }
+
+        void put(long patientId, int[] trigrams) {
+            int id = toSlot(patientId);
+            if (id >= patientTrigrams.length) {
+                patientTrigrams = Arrays.copyOf(patientTrigrams, Math.max(id + 1, patientTrigrams.length * 2));
+                // Scratch arrays sized for fewer ids are dropped when next borrowed
+            }
+            remove(patientId);
+            patientTrigrams[id] = trigrams;
+            for (int term : trigrams) {
+                int[] list = postings[term];
+                if (list == null) {
+                    list = postings[term] = new int[4];
+                } else if (postingSizes[term] == list.length) {
+                    list = postings[term] = Arrays.copyOf(list, list.length * 2);
+                }
+                list[postingSizes[term]++] = id;
+            }
+        }
+
+        void remove(long patientId) {
+            int id = toSlot(patientId);
+            if (id >= patientTrigrams.length || patientTrigrams[id] == null) {
+                return;
+            }
+            for (int term : patientTrigrams[id]) {
+                int[] list = postings[term];
+                int last = --postingSizes[term];
+                for (int i = 0; i <= last; i++) {
+                    if (list[i] == id) {
+                        // Order within a posting list does not matter, so the last entry fills the gap
+                        list[i] = list[last];
+                        break;
+                    }
+                }
+            }
+            patientTrigrams[id] = null;
+        }
+    }
+
+    /** A patient's new trigrams, or null trigrams for a deleted patient. */
+    private record Change(long patientId, int[] trigrams) {
+    }
+
+    public record Match(long id, double score) {
+    }
+
+    public record Matches(int total, List<Match> page) {
+    }
+}
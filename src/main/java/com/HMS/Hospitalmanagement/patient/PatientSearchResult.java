@@ -0,0 +1,28 @@
+package com.HMS.Hospitalmanagement.patient;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Response of GET /patients/search. total is the number of patients that matched at all;
+ * items is the requested page of them, best match first. score runs from 0 to 1.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PatientSearchResult {
+
+    private int total;
+    private List<Hit> items;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Hit {
+        private Patient patient;
+        private double score;
+    }
+}
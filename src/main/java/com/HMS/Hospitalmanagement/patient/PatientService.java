@@ -3,25 +3,39 @@ package com.HMS.Hospitalmanagement.patient;
 import com.HMS.Hospitalmanagement.doctor.Doctor;
 import com.HMS.Hospitalmanagement.doctor.DoctorRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class PatientService {
 
     private final PatientRepository patientRepository;
     private final DoctorRepository doctorRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PatientSearchIndex searchIndex;
 
     @Autowired
-    public PatientService(PatientRepository patientRepository, DoctorRepository doctorRepository) {
+    public PatientService(PatientRepository patientRepository,
+            DoctorRepository doctorRepository,
+            ApplicationEventPublisher eventPublisher,
+            PatientSearchIndex searchIndex) {
         this.patientRepository = patientRepository;
         this.doctorRepository = doctorRepository;
+        this.eventPublisher = eventPublisher;
+        this.searchIndex = searchIndex;
     }
 
     public Patient createPatient(Patient patient) {
-        return patientRepository.save(patient);
+        Patient saved = patientRepository.save(patient);
+        eventPublisher.publishEvent(new PatientEvent(PatientEvent.Type.CREATED, saved));
+        return saved;
     }
 
     public List<Patient> getAllPatients() {
@@ -47,15 +61,38 @@ public class PatientService {
                 patient.setDoctor(persistedDoctor);
             }
             patient.setLabTestsRequired(patientDetails.getLabTestsRequired());
-            return patientRepository.save(patient);
+            Patient saved = patientRepository.save(patient);
+            eventPublisher.publishEvent(new PatientEvent(PatientEvent.Type.UPDATED, saved));
+            return saved;
         }).orElse(null);
     }
 
     public boolean deletePatient(Long id) {
-        if (patientRepository.existsById(id)) {
+        Optional<Patient> patient = patientRepository.findById(id);
+        if (patient.isPresent()) {
             patientRepository.deleteById(id);
+            eventPublisher.publishEvent(new PatientEvent(PatientEvent.Type.DELETED, patient.get()));
             return true;
         }
         return false;
     }
+
+    /**
+     * Ranked page of patients whose name or contact number resembles the query.
+     */
+    public PatientSearchResult searchPatients(String query, int offset, int limit) {
+        PatientSearchIndex.Matches matches = searchIndex.search(query, offset, limit);
+        List<Long> ids = matches.page().stream().map(PatientSearchIndex.Match::id).toList();
+        Map<Long, Patient> patients = patientRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Patient::getId, Function.identity()));
+        List<PatientSearchResult.Hit> items = new ArrayList<>();
+        for (PatientSearchIndex.Match match : matches.page()) {
+            // A patient deleted since the lookup is simply left out of the page
+            Patient patient = patients.get(match.id());
+            if (patient != null) {
+                items.add(new PatientSearchResult.Hit(patient, match.score()));
+            }
+        }
+        return new PatientSearchResult(matches.total(), items);
+    }
 }
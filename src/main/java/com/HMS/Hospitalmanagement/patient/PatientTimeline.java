@@ -0,0 +1,44 @@
+package com.HMS.Hospitalmanagement.patient;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * One page of GET /patients/{id}/timeline: the patient's appointments, bills and lab reports in
+ * time order. nextCursor is null on the last page.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PatientTimeline {
+
+    private List<Entry> items;
+    private String nextCursor;
+
+    /**
+     * status is the appointment or payment status; title is the appointment reason or the report's
+     * test name; amount is the bill total. Reports are dated at the start of their report day.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Entry {
+        private Type type;
+        private Long id;
+        private LocalDateTime occurredAt;
+        private Long appointmentId;
+        private String status;
+        private String doctorName;
+        private String title;
+        private Double amount;
+    }
+
+    // Declaration order breaks ties between entries at the same time
+    public enum Type {
+        APPOINTMENT, BILL, REPORT
+    }
+}
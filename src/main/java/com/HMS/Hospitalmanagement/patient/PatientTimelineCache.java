@@ -0,0 +1,108 @@
+package com.HMS.Hospitalmanagement.patient;
+
+import com.HMS.Hospitalmanagement.appointment.AppointmentEvent;
+import com.HMS.Hospitalmanagement.appointment.AppointmentSummary;
+import com.HMS.Hospitalmanagement.report.LabReportEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * In-process cache of timeline pages, grouped by patient so a write drops all of one patient's pages
+ * at once. Appointment, lab report and patient events invalidate it; bills have no event, so the
+ * billing code calls invalidate directly. The TTL only catches writes made behind those paths.
+ */
+@Component
+public class PatientTimelineCache {
+
+    private static final int MAX_PAGES_PER_PATIENT = 16;
+
+    private final long ttlMillis;
+    private final int maxPatients;
+
+    private final Object lock = new Object();
+    private final Map<Long, Map<String, CachedPage>> patients;
+    private long version;
+
+    public PatientTimelineCache(@Value("${hms.patients.timeline-cache-ttl-seconds:300}") long ttlSeconds,
+            @Value("${hms.patients.timeline-cache-max-patients:2000}") int maxPatients) {
+        this.ttlMillis = ttlSeconds * 1000;
+        this.maxPatients = maxPatients;
+        this.patients = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Map<String, CachedPage>> eldest) {
+                return size() > PatientTimelineCache.this.maxPatients;
+            }
+        };
+    }
+
+    /**
+     * The cached page, loading it if absent or expired. A null page (unknown patient) is not cached.
+     */
+    public PatientTimeline getPage(Long patientId, String key, Supplier<PatientTimeline> loader) {
+        long seen;
+        synchronized (lock) {
+            Map<String, CachedPage> pages = patients.get(patientId);
+            CachedPage cached = pages != null ? pages.get(key) : null;
+            if (cached != null) {
+                if (cached.expiresAt() > System.currentTimeMillis()) {
+                    return cached.page();
+                }
+                pages.remove(key);
+            }
+            seen = version;
+        }
+        PatientTimeline loaded = loader.get();
+        if (loaded != null) {
+            synchronized (lock) {
+                // A write landed while loading; the page may already be stale, so serve it uncached
+                if (version == seen) {
+                    patients.computeIfAbsent(patientId, id -> new LinkedHashMap<>(4, 0.75f, true) {
+                        @Override
+                        protected boolean removeEldestEntry(Map.Entry<String, CachedPage> eldest) {
+                            return size() > MAX_PAGES_PER_PATIENT;
+                        }
+                    }).put(key, new CachedPage(loaded, System.currentTimeMillis() + ttlMillis));
+                }
+            }
+        }
+        return loaded;
+    }
+
+    public void invalidate(Long patientId) {
+        if (patientId == null) {
+            return;
+        }
+        synchronized (lock) {
+            version++;
+            patients.remove(patientId);
+        }
+    }
+
+    @EventListener
+    public void onAppointmentEvent(AppointmentEvent event) {
+        invalidate(event.getAppointment().getPatientId());
+        AppointmentSummary previous = event.getPrevious();
+        if (previous != null && !Objects.equals(previous.getPatientId(), event.getAppointment().getPatientId())) {
+            invalidate(previous.getPatientId());
+        }
+    }
+
+    @EventListener
+    public void onLabReportEvent(LabReportEvent event) {
+        invalidate(event.getReport().getPatientId());
+    }
+
+    @EventListener
+    public void onPatientEvent(PatientEvent event) {
+        invalidate(event.getPatient().getId());
+    }
+
+    private record CachedPage(PatientTimeline page, long expiresAt) {
+    }
+}
@@ -0,0 +1,200 @@
+package com.HMS.Hospitalmanagement.patient;
+
+import com.HMS.Hospitalmanagement.archive.AppointmentArchiveService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Builds a patient's timeline with one UNION ALL query: each of appointments, bills and lab reports
+ * (and the archive tables, when the page reaches back that far) contributes at most one page of
+ * rows past the cursor through its patient index, and MySQL merges them by time. Pages are keyset
+ * paginated on (time, type, id) and cached per patient in PatientTimelineCache.
+ */
+@Service
+public class PatientTimelineService {
+
+    private static final int MAX_PAGE_SIZE = 200;
+
+    private static final Branch APPOINTMENTS = new Branch(PatientTimeline.Type.APPOINTMENT,
+            "a.id, a.appointment_date AS occurred_at, a.id AS appointment_id, a.status, d.name AS doctor_name, "
+                    + "a.reason AS title, NULL AS amount "
+                    + "FROM appointments a LEFT JOIN doctors d ON d.id = a.doctor_id",
+            "a.patient_id", "a.appointment_date", "a.id", false);
+    private static final Branch ARCHIVED_APPOINTMENTS = new Branch(PatientTimeline.Type.APPOINTMENT,
+            "a.id, a.appointment_date, a.id, a.status, d.name, a.reason, NULL "
+                    + "FROM appointments_archive a LEFT JOIN doctors d ON d.id = a.doctor_id",
+            "a.patient_id", "a.appointment_date", "a.id", false);
+    private static final Branch BILLS = new Branch(PatientTimeline.Type.BILL,
+            "b.id, b.bill_date, b.appointment_id, b.payment_status, d.name, NULL, b.total_amount "
+                    + "FROM bills b JOIN appointments a ON a.id = b.appointment_id "
+                    + "LEFT JOIN doctors d ON d.id = a.doctor_id",
+            "a.patient_id", "b.bill_date", "b.id", false);
+    private static final Branch ARCHIVED_BILLS = new Branch(PatientTimeline.Type.BILL,
+            "b.id, b.bill_date, b.appointment_id, b.payment_status, d.name, NULL, b.total_amount "
+                    + "FROM bills_archive b JOIN appointments_archive a ON a.id = b.appointment_id "
+                    + "LEFT JOIN doctors d ON d.id = a.doctor_id",
+            "a.patient_id", "b.bill_date", "b.id", false);
+    private static final Branch REPORTS = new Branch(PatientTimeline.Type.REPORT,
+            "r.id, r.report_date, r.appointment_id, NULL, r.doctor_name, r.test_name, NULL "
+                    + "FROM lab_reports r",
+            "r.patient_id", "r.report_date", "r.id", true);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PatientRepository patientRepository;
+    private final AppointmentArchiveService archiveService;
+    private final PatientTimelineCache timelineCache;
+
+    @Autowired
+    public PatientTimelineService(JdbcTemplate jdbcTemplate,
+            PatientRepository patientRepository,
+            AppointmentArchiveService archiveService,
+            PatientTimelineCache timelineCache) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.patientRepository = patientRepository;
+        this.archiveService = archiveService;
+        this.timelineCache = timelineCache;
+    }
+
+    /**
+     * A page of the patient's timeline between the from and to days (both inclusive, both optional),
+     * or null if there is no such patient.
+     */
+    public PatientTimeline getTimeline(Long patientId, LocalDate from, LocalDate to, String cursor, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        Cursor after = cursor != null && !cursor.isEmpty() ? decodeCursor(cursor) : null;
+        String key = from + "|" + to + "|" + (after != null ? cursor : "") + "|" + pageSize;
+        return timelineCache.getPage(patientId, key, () -> patientRepository.existsById(patientId)
+                ? load(patientId, from, to, after, pageSize)
+                : null);
+    }
+
+    private PatientTimeline load(Long patientId, LocalDate from, LocalDate to, Cursor after, int pageSize) {
+        List<Branch> branches = new ArrayList<>(List.of(APPOINTMENTS, BILLS, REPORTS));
+        if (archiveService.needsArchive(from != null ? from.atStartOfDay() : null)) {
+            branches.add(ARCHIVED_APPOINTMENTS);
+            branches.add(ARCHIVED_BILLS);
+        }
+
+        // Fetch one extra row to know whether another page exists without a count query
+        StringBuilder sql = new StringBuilder();
+        List<Object> args = new ArrayList<>();
+        for (Branch branch : branches) {
+            if (!sql.isEmpty()) {
+                sql.append(" UNION ALL ");
+            }
+            branch.appendTo(sql, args, patientId, from, to, after, pageSize + 1);
+        }
+        sql.append(" ORDER BY occurred_at, kind, id LIMIT ?");
+        args.add(pageSize + 1);
+
+        PatientTimeline.Type[] types = PatientTimeline.Type.values();
+        List<PatientTimeline.Entry> rows = jdbcTemplate.query(sql.toString(), (rs, rowNum) ->
+                new PatientTimeline.Entry(
+                        types[rs.getInt("kind")],
+                        rs.getLong("id"),
+                        rs.getTimestamp("occurred_at").toLocalDateTime(),
+                        rs.getObject("appointment_id", Long.class),
+                        rs.getString("status"),
+                        rs.getString("doctor_name"),
+                        rs.getString("title"),
+                        rs.getObject("amount", Double.class)),
+                args.toArray());
+        if (rows.size() <= pageSize) {
+            return new PatientTimeline(rows, null);
+        }
+        List<PatientTimeline.Entry> items = new ArrayList<>(rows.subList(0, pageSize));
+        return new PatientTimeline(items, encodeCursor(items.get(pageSize - 1)));
+    }
+
+    private static String encodeCursor(PatientTimeline.Entry last) {
+        String raw = last.getOccurredAt() + "|" + last.getType() + "|" + last.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Cursor decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|");
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return new Cursor(LocalDateTime.parse(parts[0]), PatientTimeline.Type.valueOf(parts[1]),
+                    Long.parseLong(parts[2]));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+
+    private record Cursor(LocalDateTime occurredAt, PatientTimeline.Type type, long id) {
+    }
+
+    /**
+     * One source table of the timeline. columns must yield id, time, appointment id, status, doctor name,
+     * title and amount in that order. dateOnly marks a DATE time column, whose rows sit at midnight.
+     */
+    private record Branch(PatientTimeline.Type type, String columns, String patientColumn, String timeColumn,
+            String idColumn, boolean dateOnly) {
+
+        void appendTo(StringBuilder sql, List<Object> args, Long patientId, LocalDate from, LocalDate to,
+                Cursor after, int limit) {
+            sql.append("(SELECT ").append(type.ordinal()).append(" AS kind, ").append(columns)
+                    .append(" WHERE ").append(patientColumn).append(" = ?");
+            args.add(patientId);
+            if (from != null) {
+                sql.append(" AND ").append(timeColumn).append(" >= ?");
+                args.add(dateOnly ? Date.valueOf(from) : Timestamp.valueOf(from.atStartOfDay()));
+            }
+            if (to != null) {
+                sql.append(" AND ").append(timeColumn).append(dateOnly ? " <= ?" : " < ?");
+                args.add(dateOnly ? Date.valueOf(to) : Timestamp.valueOf(to.plusDays(1).atStartOfDay()));
+            }
+            if (after != null) {
+                appendAfter(sql, args, after);
+            }
+            sql.append(" ORDER BY ").append(timeColumn).append(", ").append(idColumn).append(" LIMIT ?)");
+            args.add(limit);
+        }
+
+        /**
+         * Rows of this branch that come after the cursor in (time, type, id) order. Type and the day-only
+         * time are fixed per branch, so this reduces to a plain range on the time column.
+         */
+        private void appendAfter(StringBuilder sql, List<Object> args, Cursor after) {
+            Object at;
+            boolean exact;
+            if (dateOnly) {
+                LocalDate day = after.occurredAt().toLocalDate();
+                at = Date.valueOf(day);
+                // A cursor later than midnight is past every row of its day
+                exact = after.occurredAt().equals(day.atStartOfDay());
+            } else {
+                at = Timestamp.valueOf(after.occurredAt());
+                exact = true;
+            }
+            int order = Integer.compare(type.ordinal(), after.type().ordinal());
+            if (!exact || order < 0) {
+                sql.append(" AND ").append(timeColumn).append(" > ?");
+                args.add(at);
+            } else if (order > 0) {
+                sql.append(" AND ").append(timeColumn).append(" >= ?");
+                args.add(at);
+            } else {
+                sql.append(" AND (").append(timeColumn).append(" > ? OR (").append(timeColumn).append(" = ? AND ")
+                        .append(idColumn).append(" > ?))");
+                args.add(at);
+                args.add(at);
+                args.add(after.id());
+            }
+        }
+    }
+}
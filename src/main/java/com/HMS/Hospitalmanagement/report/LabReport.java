@@ -2,9 +2,17 @@ package com.HMS.Hospitalmanagement.report;
 
 import jakarta.persistence.*;
 import java.time.LocalDate;
+import java.util.Locale;
 
 @Entity
-@Table(name = "lab_reports")
+@Table(name = "lab_reports", indexes = {
+        @Index(name = "idx_lab_reports_patient_date", columnList = "patient_id, report_date, id"),
+        @Index(name = "idx_lab_reports_appointment", columnList = "appointment_id"),
+        @Index(name = "idx_lab_reports_patient_name", columnList = "patient_name_key, report_date, id"),
+        @Index(name = "idx_lab_reports_doctor_name", columnList = "doctor_name_key, report_date, id"),
+        @Index(name = "idx_lab_reports_test_name", columnList = "test_name_key, report_date, id"),
+        @Index(name = "idx_lab_reports_date", columnList = "report_date, id")
+})
 public class LabReport {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -16,6 +24,15 @@ public class LabReport {
     private LocalDate reportDate;
     private String filePath;
     private String fileName;
+    private String contentHash;
+    private Long patientId;
+    private Long doctorId;
+    private Long appointmentId;
+
+    // Lower-cased copies of the names, so prefix searches are case-insensitive and still use the indexes
+    private String patientNameKey;
+    private String doctorNameKey;
+    private String testNameKey;
 
     public LabReport() {
     }
@@ -85,4 +102,48 @@ public class LabReport {
     public void setFileName(String fileName) {
         this.fileName = fileName;
     }
+
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+
+    public Long getPatientId() {
+        return patientId;
+    }
+
+    public void setPatientId(Long patientId) {
+        this.patientId = patientId;
+    }
+
+    public Long getDoctorId() {
+        return doctorId;
+    }
+
+    public void setDoctorId(Long doctorId) {
+        this.doctorId = doctorId;
+    }
+
+    public Long getAppointmentId() {
+        return appointmentId;
+    }
+
+    public void setAppointmentId(Long appointmentId) {
+        this.appointmentId = appointmentId;
+    }
+
+    @PrePersist
+    @PreUpdate
+    void updateSearchKeys() {
+        patientNameKey = searchKey(patientName);
+        doctorNameKey = searchKey(doctorName);
+        testNameKey = searchKey(testName);
+    }
+
+    static String searchKey(String value) {
+        return value != null ? value.trim().toLowerCase(Locale.ROOT) : null;
+    }
 }
@@ -1,13 +1,20 @@
 package com.HMS.Hospitalmanagement.report;
 
+import com.HMS.Hospitalmanagement.storage.FileSender;
+import com.HMS.Hospitalmanagement.storage.StoredBlob;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.Resource;
-import org.springframework.http.HttpHeaders;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/reports")
@@ -17,21 +24,99 @@ public class LabReportController {
     @Autowired
     private LabReportService labReportService;
 
+    @Autowired
+    private ReportUploadService reportUploadService;
+
+    @Autowired
+    private FileSender fileSender;
+
+    @Autowired
+    private ReportTextIndex reportTextIndex;
+
     @PostMapping("/upload")
     public ResponseEntity<LabReport> uploadReport(
             @RequestParam("file") MultipartFile file,
-            @RequestParam("patientName") String patientName,
-            @RequestParam("doctorName") String doctorName,
-            @RequestParam("testName") String testName) {
+            @RequestParam(value = "patientName", required = false) String patientName,
+            @RequestParam(value = "doctorName", required = false) String doctorName,
+            @RequestParam("testName") String testName,
+            @RequestParam(required = false) Long patientId,
+            @RequestParam(required = false) Long appointmentId) {
 
         try {
-            LabReport report = labReportService.save(file, patientName, doctorName, testName);
+            LabReport report = labReportService.save(file, patientName, doctorName, testName, patientId,
+                    appointmentId);
             return ResponseEntity.ok(report);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
         } catch (Exception e) {
             return ResponseEntity.status(500).build();
         }
     }
 
+    @PostMapping("/uploads")
+    public ResponseEntity<UploadSession> initUpload(
+            @RequestParam("fileName") String fileName,
+            @RequestParam("size") long size,
+            @RequestParam("sha256") String sha256,
+            @RequestParam(value = "patientName", required = false) String patientName,
+            @RequestParam(value = "doctorName", required = false) String doctorName,
+            @RequestParam("testName") String testName,
+            @RequestParam(required = false) Long patientId,
+            @RequestParam(required = false) Long appointmentId) {
+        try {
+            return ResponseEntity.ok(reportUploadService.init(fileName, size, sha256, patientName, doctorName, testName,
+                    patientId, appointmentId));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/uploads/{uploadId}")
+    public ResponseEntity<UploadSession> getUpload(@PathVariable String uploadId) {
+        return reportUploadService.getSession(uploadId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @PutMapping(value = "/uploads/{uploadId}", consumes = "application/octet-stream")
+    public ResponseEntity<UploadSession> uploadChunk(
+            @PathVariable String uploadId,
+            @RequestParam("offset") long offset,
+            InputStream body) {
+        if (reportUploadService.getSession(uploadId).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        try {
+            return ResponseEntity.ok(reportUploadService.writeChunk(uploadId, offset, body));
+        } catch (IllegalStateException e) {
+            // Offset leaves a gap; the client should resume from the session's received offset
+            return ResponseEntity.status(409).body(reportUploadService.getSession(uploadId).orElse(null));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(413).build();
+        }
+    }
+
+    @PostMapping("/uploads/{uploadId}/commit")
+    public ResponseEntity<LabReport> commitUpload(@PathVariable String uploadId) {
+        if (reportUploadService.getSession(uploadId).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        try {
+            return ResponseEntity.ok(reportUploadService.commit(uploadId));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(409).build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(422).build();
+        }
+    }
+
+    @DeleteMapping("/uploads/{uploadId}")
+    public ResponseEntity<Void> abortUpload(@PathVariable String uploadId) {
+        return reportUploadService.abort(uploadId)
+                ? ResponseEntity.ok().build()
+                : ResponseEntity.notFound().build();
+    }
+
     @GetMapping
     public ResponseEntity<List<LabReport>> getAllReports(@RequestParam(required = false) String patientName) {
         if (patientName != null && !patientName.isEmpty()) {
@@ -40,14 +125,48 @@ public class LabReportController {
         return ResponseEntity.ok(labReportService.getAllReports());
     }
 
+    @GetMapping("/search")
+    public ResponseEntity<LabReportPage> searchReports(
+            @RequestParam(required = false) Long patientId,
+            @RequestParam(required = false) Long appointmentId,
+            @RequestParam(required = false) String patientName,
+            @RequestParam(required = false) String doctorName,
+            @RequestParam(required = false) String testName,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit) {
+        try {
+            return ResponseEntity.ok(labReportService.search(patientId, appointmentId, patientName, doctorName,
+                    testName, from, to, cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/fulltext")
+    public ResponseEntity<List<ReportSearchHit>> searchContents(@RequestParam("q") String query,
+            @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(reportTextIndex.search(query, limit));
+    }
+
     @GetMapping("/download/{id}")
-    public ResponseEntity<Resource> downloadReport(@PathVariable Long id) {
+    public void downloadReport(@PathVariable Long id, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
         LabReport report = labReportService.getReportById(id);
-        Resource file = labReportService.load(report.getFileName());
-
-        return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + report.getFileName() + "\"")
-                .body(file);
+        String contentType = FileSender.contentTypeOf(report.getFileName());
+        String disposition = "attachment; filename=\"" + report.getFileName() + "\"";
+        Optional<StoredBlob> blob = labReportService.getStoredBlob(report);
+        if (blob.isPresent()) {
+            fileSender.sendBlob(request, response, blob.get(), contentType, disposition, "private, no-cache");
+            return;
+        }
+        fileSender.send(request, response,
+                labReportService.getReportFile(report),
+                labReportService.getContentHash(report),
+                contentType,
+                disposition,
+                "private, no-cache");
     }
 
     @DeleteMapping("/{id}")
@@ -0,0 +1,19 @@
+package com.HMS.Hospitalmanagement.report;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Published in-process after a lab report row is created or deleted.
+ */
+@Data
+@AllArgsConstructor
+public class LabReportEvent {
+
+    private Type type;
+    private LabReport report;
+
+    public enum Type {
+        CREATED, DELETED
+    }
+}
@@ -0,0 +1,19 @@
+package com.HMS.Hospitalmanagement.report;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated lab report search, newest first. nextCursor is null on the last page.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LabReportPage {
+
+    private List<LabReport> items;
+    private String nextCursor;
+}
@@ -1,11 +1,47 @@
 package com.HMS.Hospitalmanagement.report;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
 import java.util.List;
 
 @Repository
 public interface LabReportRepository extends JpaRepository<LabReport, Long> {
-    List<LabReport> findByPatientName(String patientName);
+    @Query("SELECT r FROM LabReport r WHERE r.patientNameKey = :patientNameKey")
+    List<LabReport> findByPatientNameKey(@Param("patientNameKey") String patientNameKey);
+
+    List<LabReport> findTop500ByIdGreaterThanOrderByIdAsc(Long id);
+
+    /**
+     * Name filters are lower-cased LIKE patterns escaped with '!'; before* is the keyset cursor, and a
+     * null beforeDate with a beforeId means the cursor is among the undated reports, which sort last.
+     * NULLS LAST is MySQL's own order for DESC, so it adds nothing to the SQL and the indexes still serve it.
+     */
+    @Query("SELECT r FROM LabReport r "
+            + "WHERE (:patientId IS NULL OR r.patientId = :patientId) "
+            + "AND (:appointmentId IS NULL OR r.appointmentId = :appointmentId) "
+            + "AND (:patientName IS NULL OR r.patientNameKey LIKE :patientName ESCAPE '!') "
+            + "AND (:doctorName IS NULL OR r.doctorNameKey LIKE :doctorName ESCAPE '!') "
+            + "AND (:testName IS NULL OR r.testNameKey LIKE :testName ESCAPE '!') "
+            + "AND (:from IS NULL OR r.reportDate >= :from) "
+            + "AND (:to IS NULL OR r.reportDate <= :to) "
+            + "AND (:beforeId IS NULL "
+            + "OR (:beforeDate IS NULL AND r.reportDate IS NULL AND r.id < :beforeId) "
+            + "OR (:beforeDate IS NOT NULL AND (r.reportDate < :beforeDate OR r.reportDate IS NULL "
+            + "OR (r.reportDate = :beforeDate AND r.id < :beforeId)))) "
+            + "ORDER BY r.reportDate DESC NULLS LAST, r.id DESC")
+    List<LabReport> search(@Param("patientId") Long patientId,
+            @Param("appointmentId") Long appointmentId,
+            @Param("patientName") String patientName,
+            @Param("doctorName") String doctorName,
+            @Param("testName") String testName,
+            @Param("from") LocalDate from,
+            @Param("to") LocalDate to,
+            @Param("beforeDate") LocalDate beforeDate,
+            @Param("beforeId") Long beforeId,
+            Limit limit);
 }
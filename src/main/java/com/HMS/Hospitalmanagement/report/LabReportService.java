@@ -1,28 +1,58 @@
 package com.HMS.Hospitalmanagement.report;
 
+import com.HMS.Hospitalmanagement.appointment.Appointment;
+import com.HMS.Hospitalmanagement.appointment.AppointmentRepository;
+import com.HMS.Hospitalmanagement.patient.Patient;
+import com.HMS.Hospitalmanagement.patient.PatientRepository;
+import com.HMS.Hospitalmanagement.storage.ContentStore;
+import com.HMS.Hospitalmanagement.storage.FileSender;
+import com.HMS.Hospitalmanagement.storage.StoredBlob;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.net.MalformedURLException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
-import java.util.UUID;
+import java.util.Optional;
 
 @Service
 public class LabReportService {
 
+    private static final int MAX_PAGE_SIZE = 200;
+
     private final Path root = Paths.get("uploads");
 
     @Autowired
     private LabReportRepository labReportRepository;
 
+    @Autowired
+    private ContentStore contentStore;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     public LabReportService() {
         try {
             Files.createDirectories(root);
@@ -31,23 +61,47 @@ public class LabReportService {
         }
     }
 
-    public LabReport save(MultipartFile file, String patientName, String doctorName, String testName) {
-        try {
-            String filename = UUID.randomUUID().toString() + "_" + file.getOriginalFilename();
-            Files.copy(file.getInputStream(), this.root.resolve(filename));
-
-            LabReport report = new LabReport(
-                    patientName,
-                    doctorName,
-                    testName,
-                    LocalDate.now(),
-                    this.root.resolve(filename).toString(),
-                    filename);
-
-            return labReportRepository.save(report);
+    /**
+     * Fills in the search keys of reports written before they existed. Their patient_id stays NULL:
+     * a name is not proof of identity, so such reports are found by name until someone links them
+     * explicitly.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillSearchColumns() {
+        jdbcTemplate.update("UPDATE lab_reports SET patient_name_key = LOWER(TRIM(patient_name)), "
+                + "doctor_name_key = LOWER(TRIM(doctor_name)), test_name_key = LOWER(TRIM(test_name)) "
+                + "WHERE (patient_name_key IS NULL AND patient_name IS NOT NULL) "
+                + "OR (doctor_name_key IS NULL AND doctor_name IS NOT NULL) "
+                + "OR (test_name_key IS NULL AND test_name IS NOT NULL)");
+    }
+
+    public LabReport save(MultipartFile file, String patientName, String doctorName, String testName,
+            Long patientId, Long appointmentId) {
+        LabReport report = new LabReport(patientName, doctorName, testName, LocalDate.now(), null, null);
+        link(report, patientId, appointmentId);
+
+        String filename = originalName(file.getOriginalFilename());
+        StoredBlob blob;
+        try (InputStream in = file.getInputStream()) {
+            blob = contentStore.store(in, file.getContentType() != null
+                    ? file.getContentType()
+                    : FileSender.contentTypeOf(filename));
         } catch (Exception e) {
             throw new RuntimeException("Could not store the file. Error: " + e.getMessage());
         }
+
+        report.setFilePath(contentStore.pathOf(blob.getHash()).toString());
+        report.setFileName(filename);
+        report.setContentHash(blob.getHash());
+        LabReport saved;
+        try {
+            saved = labReportRepository.save(report);
+        } catch (RuntimeException e) {
+            contentStore.release(blob.getHash());
+            throw e;
+        }
+        eventPublisher.publishEvent(new LabReportEvent(LabReportEvent.Type.CREATED, saved));
+        return saved;
     }
 
     public List<LabReport> getAllReports() {
@@ -55,22 +109,105 @@ public class LabReportService {
     }
 
     public List<LabReport> getReportsByPatient(String patientName) {
-        return labReportRepository.findByPatientName(patientName);
+        return labReportRepository.findByPatientNameKey(LabReport.searchKey(patientName));
     }
 
-    public Resource load(String filename) {
-        try {
-            Path file = root.resolve(filename);
-            Resource resource = new UrlResource(file.toUri());
+    /**
+     * Links the report to a patient and/or appointment, taking the names from them when not given.
+     * An appointment also fixes the patient and doctor.
+     */
+    public void link(LabReport report, Long patientId, Long appointmentId) {
+        if (appointmentId != null) {
+            Appointment appointment = appointmentRepository.findById(appointmentId)
+                    .orElseThrow(() -> new IllegalArgumentException("Appointment not found with ID: " + appointmentId));
+            report.setAppointmentId(appointment.getId());
+            if (appointment.getPatient() != null) {
+                if (patientId != null && !patientId.equals(appointment.getPatient().getId())) {
+                    throw new IllegalArgumentException("Appointment " + appointmentId + " belongs to another patient");
+                }
+                patientId = appointment.getPatient().getId();
+            }
+            if (appointment.getDoctor() != null) {
+                report.setDoctorId(appointment.getDoctor().getId());
+                if (report.getDoctorName() == null || report.getDoctorName().isBlank()) {
+                    report.setDoctorName(appointment.getDoctor().getName());
+                }
+            }
+        }
+        if (patientId != null) {
+            Long id = patientId;
+            Patient patient = patientRepository.findById(id)
+                    .orElseThrow(() -> new IllegalArgumentException("Patient not found with ID: " + id));
+            report.setPatientId(patient.getId());
+            if (report.getPatientName() == null || report.getPatientName().isBlank()) {
+                report.setPatientName(patient.getName());
+            }
+        }
+        if (report.getPatientName() == null || report.getPatientName().isBlank()) {
+            throw new IllegalArgumentException("patientName or patientId is required");
+        }
+    }
 
-            if (resource.exists() || resource.isReadable()) {
-                return resource;
-            } else {
+    /**
+     * Keyset-paginated search, newest report first. Name filters are case-insensitive prefixes.
+     */
+    public LabReportPage search(Long patientId, Long appointmentId, String patientName, String doctorName,
+            String testName, LocalDate from, LocalDate to, String cursor, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        LocalDate beforeDate = null;
+        Long beforeId = null;
+        if (cursor != null && !cursor.isEmpty()) {
+            String[] parts = decodeCursor(cursor);
+            beforeDate = parts[0].isEmpty() ? null : LocalDate.parse(parts[0]);
+            beforeId = Long.parseLong(parts[1]);
+        }
+
+        List<LabReport> rows = labReportRepository.search(patientId, appointmentId, prefixPattern(patientName),
+                prefixPattern(doctorName), prefixPattern(testName), from, to, beforeDate, beforeId,
+                Limit.of(pageSize + 1));
+        if (rows.size() <= pageSize) {
+            return new LabReportPage(rows, null);
+        }
+        List<LabReport> items = new ArrayList<>(rows.subList(0, pageSize));
+        LabReport last = items.get(pageSize - 1);
+        return new LabReportPage(items, encodeCursor(last.getReportDate(), last.getId()));
+    }
+
+    public Path getReportFile(LabReport report) {
+        return report.getFilePath() != null ? Paths.get(report.getFilePath()) : root.resolve(report.getFileName());
+    }
+
+    /**
+     * The content-store blob holding the report, if it has been moved into the store.
+     */
+    public Optional<StoredBlob> getStoredBlob(LabReport report) {
+        if (report.getContentHash() == null || !contentStore.isStored(getReportFile(report))) {
+            return Optional.empty();
+        }
+        return contentStore.find(report.getContentHash());
+    }
+
+    /**
+     * Opens the report's plain content, inflating it if the store keeps it compressed.
+     */
+    public InputStream openReport(LabReport report) throws IOException {
+        Optional<StoredBlob> blob = getStoredBlob(report);
+        return blob.isPresent() ? contentStore.open(blob.get()) : Files.newInputStream(getReportFile(report));
+    }
+
+    /**
+     * Content hash used as the download ETag; reports stored before hashes were recorded get theirs on first use.
+     */
+    public String getContentHash(LabReport report) {
+        if (report.getContentHash() == null) {
+            try {
+                report.setContentHash(FileSender.sha256(getReportFile(report)));
+            } catch (IOException e) {
                 throw new RuntimeException("Could not read the file!");
             }
-        } catch (MalformedURLException e) {
-            throw new RuntimeException("Error: " + e.getMessage());
+            labReportRepository.save(report);
         }
+        return report.getContentHash();
     }
 
     public LabReport getReportById(Long id) {
@@ -79,11 +216,51 @@ public class LabReportService {
 
     public void deleteReport(Long id) {
         LabReport report = getReportById(id);
+        Path file = getReportFile(report);
+        labReportRepository.deleteById(id);
+        eventPublisher.publishEvent(new LabReportEvent(LabReportEvent.Type.DELETED, report));
+        if (contentStore.isStored(file)) {
+            contentStore.release(report.getContentHash());
+            return;
+        }
         try {
-            Files.deleteIfExists(root.resolve(report.getFileName()));
-            labReportRepository.deleteById(id);
+            Files.deleteIfExists(file);
         } catch (IOException e) {
             throw new RuntimeException("Could not delete the file. Error: " + e.getMessage());
         }
     }
+
+    private static String prefixPattern(String value) {
+        String key = LabReport.searchKey(value);
+        if (key == null || key.isEmpty()) {
+            return null;
+        }
+        return key.replace("!", "!!").replace("%", "!%").replace("_", "!_") + "%";
+    }
+
+    /**
+     * Rows written outside the service can have no report date; their cursors have an empty date part.
+     */
+    private static String encodeCursor(LocalDate reportDate, Long id) {
+        String raw = (reportDate != null ? reportDate : "") + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", -1);
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return parts;
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+
+    static String originalName(String name) {
+        Path fileName = name != null ? Paths.get(name).getFileName() : null;
+        return fileName != null ? fileName.toString() : "report";
+    }
 }
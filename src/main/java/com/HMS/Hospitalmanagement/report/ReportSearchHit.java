@@ -0,0 +1,20 @@
+package com.HMS.Hospitalmanagement.report;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * A full-text match. Snippets are HTML-escaped with the matched words wrapped in &lt;em&gt;.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReportSearchHit {
+
+    private Long reportId;
+    private double score;
+    private List<String> highlights;
+}
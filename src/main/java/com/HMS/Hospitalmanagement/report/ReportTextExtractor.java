@@ -0,0 +1,222 @@
+package com.HMS.Hospitalmanagement.report;
+
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Pulls searchable text out of a stored report. Plain text formats are decoded as UTF-8.
+ * PDFs are read without a PDF library: content streams are inflated and the strings
+ * shown by the Tj, TJ, ' and " operators are collected, which covers text-based reports
+ * with standard font encodings. Scanned PDFs and CID-keyed fonts yield little or no text.
+ */
+@Component
+public class ReportTextExtractor {
+
+    private static final int MAX_FILE_SIZE = 50 * 1024 * 1024;
+    private static final int MAX_TEXT_LENGTH = 2 * 1024 * 1024;
+    private static final int MAX_STREAM_LENGTH = 16 * 1024 * 1024;
+
+    public String extract(InputStream in, String fileName) throws IOException {
+        byte[] bytes = in.readNBytes(MAX_FILE_SIZE + 1);
+        if (bytes.length > MAX_FILE_SIZE) {
+            return "";
+        }
+        String name = fileName != null ? fileName.toLowerCase(Locale.ROOT) : "";
+        if (startsWith(bytes, "%PDF")) {
+            return limit(extractPdf(bytes));
+        }
+        if (name.endsWith(".txt") || name.endsWith(".csv") || name.endsWith(".md") || name.endsWith(".log")
+                || name.endsWith(".html") || name.endsWith(".htm") || name.endsWith(".xml") || name.endsWith(".json")) {
+            return limit(new String(bytes, StandardCharsets.UTF_8));
+        }
+        return "";
+    }
+
+    private static String extractPdf(byte[] pdf) {
+        StringBuilder text = new StringBuilder();
+        int from = 0;
+        while (true) {
+            int start = indexOf(pdf, "stream", from);
+            if (start < 0) {
+                break;
+            }
+            int dataStart = start + "stream".length();
+            if (dataStart < pdf.length && pdf[dataStart] == '\r') {
+                dataStart++;
+            }
+            if (dataStart < pdf.length && pdf[dataStart] == '\n') {
+                dataStart++;
+            }
+            int end = indexOf(pdf, "endstream", dataStart);
+            if (end < 0) {
+                break;
+            }
+            byte[] content = inflate(pdf, dataStart, end - dataStart);
+            if (content != null) {
+                collectStrings(content, text);
+            }
+            if (text.length() > MAX_TEXT_LENGTH) {
+                break;
+            }
+            from = end + "endstream".length();
+        }
+        return text.toString();
+    }
+
+    /**
+     * Walks a content stream and appends the strings drawn by text-showing operators.
+     */
+    private static void collectStrings(byte[] content, StringBuilder text) {
+        StringBuilder pending = new StringBuilder();
+        int i = 0;
+        while (i < content.length) {
+            byte b = content[i];
+            if (b == '(') {
+                i = readLiteral(content, i + 1, pending);
+            } else if (b == ']' || b == '[') {
+                i++;
+            } else if (b == '-' || (b >= '0' && b <= '9')) {
+                int j = i + 1;
+                while (j < content.length && (content[j] == '.' || (content[j] >= '0' && content[j] <= '9'))) {
+                    j++;
+                }
+                // A large negative kerning adjustment inside TJ is a word gap
+                if (b == '-' && j - i > 3 && pending.length() > 0) {
+                    pending.append(' ');
+                }
+                i = j;
+            } else if (isOperator(content, i, "TJ") || isOperator(content, i, "Tj")
+                    || isOperator(content, i, "'") || isOperator(content, i, "\"")) {
+                if (pending.length() > 0) {
+                    text.append(pending).append(' ');
+                    pending.setLength(0);
+                }
+                i += content[i] == 'T' ? 2 : 1;
+            } else if (isOperator(content, i, "ET")) {
+                text.append('\n');
+                i += 2;
+            } else {
+                i++;
+            }
+        }
+    }
+
+    private static int readLiteral(byte[] content, int i, StringBuilder out) {
+        int depth = 1;
+        while (i < content.length) {
+            byte b = content[i];
+            if (b == '\\' && i + 1 < content.length) {
+                byte next = content[i + 1];
+                switch (next) {
+                    case 'n' -> out.append('\n');
+                    case 'r' -> out.append('\r');
+                    case 't' -> out.append('\t');
+                    case 'b', 'f' -> {
+                    }
+                    default -> {
+                        if (next >= '0' && next <= '7') {
+                            int value = 0;
+                            int digits = 0;
+                            while (digits < 3 && i + 1 < content.length && content[i + 1] >= '0' && content[i + 1] <= '7') {
+                                value = value * 8 + (content[i + 1] - '0');
+                                i++;
+                                digits++;
+                            }
+                            out.append((char) (value & 0xFF));
+                            i++;
+                            continue;
+                        }
+                        out.append((char) next);
+                    }
+                }
+                i += 2;
+                continue;
+            }
+            if (b == '(') {
+                depth++;
+            } else if (b == ')' && --depth == 0) {
+                return i + 1;
+            }
+            out.append((char) (b & 0xFF));
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean isOperator(byte[] content, int i, String op) {
+        if (i + op.length() > content.length) {
+            return false;
+        }
+        for (int k = 0; k < op.length(); k++) {
+            if (content[i + k] != op.charAt(k)) {
+                return false;
+            }
+        }
+        int after = i + op.length();
+        boolean delimitedAfter = after == content.length || isDelimiter(content[after]);
+        boolean delimitedBefore = i == 0 || isDelimiter(content[i - 1]);
+        return delimitedAfter && delimitedBefore;
+    }
+
+    private static boolean isDelimiter(byte b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t' || b == ')' || b == ']';
+    }
+
+    private static byte[] inflate(byte[] data, int offset, int length) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data, offset, length);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.min(length, 1 << 20) * 2 + 64);
+            byte[] buffer = new byte[8192];
+            while (!inflater.finished() && out.size() < MAX_STREAM_LENGTH) {
+                int n = inflater.inflate(buffer);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                out.write(buffer, 0, n);
+            }
+            return out.size() > 0 ? out.toByteArray() : null;
+        } catch (DataFormatException e) {
+            // Not a Flate stream (images, fonts with other filters); uncompressed text streams are rare
+            return null;
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static int indexOf(byte[] data, String token, int from) {
+        outer:
+        for (int i = from; i <= data.length - token.length(); i++) {
+            for (int k = 0; k < token.length(); k++) {
+                if (data[i + k] != token.charAt(k)) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    private static boolean startsWith(byte[] data, String prefix) {
+        if (data.length < prefix.length()) {
+            return false;
+        }
+        for (int k = 0; k < prefix.length(); k++) {
+            if (data[k] != prefix.charAt(k)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String limit(String text) {
+        return text.length() > MAX_TEXT_LENGTH ? text.substring(0, MAX_TEXT_LENGTH) : text;
+    }
+}
@@ -0,0 +1,374 @@
+package com.HMS.Hospitalmanagement.report;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Full-text index over the contents of lab report files. Uploads only enqueue the report;
+ * a background worker extracts the text, keeps it under hms.reports.text-index-dir as
+ * &lt;reportId&gt;.txt and adds it to an in-memory inverted index (term -&gt; report -&gt; count)
+ * that is rebuilt from those files at startup. A full queue never blocks an upload: the
+ * report is simply picked up by the periodic sweep for reports that have no text yet.
+ */
+@Service
+public class ReportTextIndex {
+
+    private static final int MIN_TERM_LENGTH = 2;
+    private static final int MAX_TERM_LENGTH = 40;
+    private static final int SNIPPET_RADIUS = 60;
+    private static final int MAX_SNIPPETS = 3;
+    private static final int MAX_RESULTS = 100;
+
+    private final LabReportRepository labReportRepository;
+    private final LabReportService labReportService;
+    private final ReportTextExtractor extractor;
+    private final Path indexDir;
+    private final BlockingQueue<Long> queue;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Map<Long, Integer>> postings = new HashMap<>();
+    private final Map<Long, Set<String>> documentTerms = new HashMap<>();
+    // Report ids never come back, so a deleted id can be remembered for the worker to skip
+    private final Set<Long> removed = ConcurrentHashMap.newKeySet();
+    private volatile Thread worker;
+
+    @Autowired
+    public ReportTextIndex(LabReportRepository labReportRepository,
+            LabReportService labReportService,
+            ReportTextExtractor extractor,
+            @Value("${hms.reports.text-index-dir:report-index}") String indexDir,
+            @Value("${hms.reports.text-index-queue:1000}") int queueCapacity) {
+        this.labReportRepository = labReportRepository;
+        this.labReportService = labReportService;
+        this.extractor = extractor;
+        this.indexDir = Paths.get(indexDir);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        try {
+            Files.createDirectories(this.indexDir);
+        } catch (IOException e) {
+            throw new RuntimeException("Could not initialize report text index folder!");
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        worker = Thread.ofVirtual().name("report-text-index").start(this::drain);
+        Thread.ofVirtual().name("report-text-index-load").start(() -> {
+            loadStoredText();
+            sweep();
+        });
+    }
+
+    @EventListener
+    public void onLabReportEvent(LabReportEvent event) {
+        if (event.getType() == LabReportEvent.Type.CREATED) {
+            submit(event.getReport().getId());
+        } else {
+            remove(event.getReport().getId());
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        Thread current = worker;
+        if (current != null) {
+            current.interrupt();
+        }
+    }
+
+    /**
+     * Queues the report for indexing without waiting. Returns false when the queue is full.
+     */
+    public boolean submit(Long reportId) {
+        return queue.offer(reportId);
+    }
+
+    public void remove(Long reportId) {
+        removed.add(reportId);
+        lock.writeLock().lock();
+        try {
+            unindex(reportId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        try {
+            Files.deleteIfExists(textFile(reportId));
+        } catch (IOException e) {
+            throw new RuntimeException("Could not delete the indexed text. Error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reports containing every term of the query, best match first, with highlighted snippets.
+     */
+    public List<ReportSearchHit> search(String query, int limit) {
+        List<String> terms = new ArrayList<>(new LinkedHashSet<>(tokenize(query)));
+        if (terms.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Double> scores;
+        int documents;
+        lock.readLock().lock();
+        try {
+            documents = Math.max(1, documentTerms.size());
+            // Start from the rarest term so the candidate set is as small as possible
+            terms.sort(Comparator.comparingInt(term -> postings.getOrDefault(term, Map.of()).size()));
+            Map<Long, Integer> first = postings.get(terms.get(0));
+            if (first == null) {
+                return List.of();
+            }
+            scores = new HashMap<>();
+            for (Long id : first.keySet()) {
+                scores.put(id, 0.0);
+            }
+            for (String term : terms) {
+                Map<Long, Integer> docs = postings.getOrDefault(term, Map.of());
+                double idf = Math.log(1.0 + (double) documents / Math.max(1, docs.size()));
+                scores.keySet().retainAll(docs.keySet());
+                for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+                    entry.setValue(entry.getValue() + (1 + Math.log(docs.get(entry.getKey()))) * idf);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<ReportSearchHit> hits = new ArrayList<>();
+        scores.entrySet().stream()
+                .sorted(Map.Entry.<Long, Double>comparingByValue().reversed())
+                .limit(Math.max(1, Math.min(limit, MAX_RESULTS)))
+                .forEach(entry -> hits.add(new ReportSearchHit(entry.getKey(), entry.getValue(),
+                        highlight(entry.getKey(), terms))));
+        return hits;
+    }
+
+    @Scheduled(fixedDelayString = "${hms.reports.text-index-sweep-ms:600000}",
+            initialDelayString = "${hms.reports.text-index-sweep-ms:600000}")
+    public void sweep() {
+        long afterId = 0;
+        while (true) {
+            List<LabReport> batch = labReportRepository.findTop500ByIdGreaterThanOrderByIdAsc(afterId);
+            if (batch.isEmpty()) {
+                return;
+            }
+            for (LabReport report : batch) {
+                if (!Files.exists(textFile(report.getId())) && !queue.contains(report.getId())) {
+                    if (!queue.offer(report.getId())) {
+                        return;
+                    }
+                }
+            }
+            afterId = batch.get(batch.size() - 1).getId();
+        }
+    }
+
+    private void drain() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                Long reportId = queue.take();
+                try {
+                    index(reportId);
+                } catch (RuntimeException | IOException e) {
+                    // Left without a text file, so the next sweep retries it
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void index(Long reportId) throws IOException {
+        if (removed.contains(reportId)) {
+            return;
+        }
+        LabReport report = labReportRepository.findById(reportId).orElse(null);
+        if (report == null) {
+            return;
+        }
+        String text;
+        try (InputStream in = labReportService.openReport(report)) {
+            text = extractor.extract(in, report.getFileName());
+        }
+        Path temp = Files.createTempFile(indexDir, "text-", ".tmp");
+        Files.writeString(temp, text, StandardCharsets.UTF_8);
+        Files.move(temp, textFile(reportId), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        add(reportId, text);
+        if (removed.contains(reportId)) {
+            // Deleted while it was being extracted
+            remove(reportId);
+        }
+    }
+
+    private void loadStoredText() {
+        try (Stream<Path> files = Files.list(indexDir)) {
+            files.filter(file -> file.getFileName().toString().endsWith(".txt")).forEach(file -> {
+                String name = file.getFileName().toString();
+                try {
+                    add(Long.parseLong(name.substring(0, name.length() - 4)),
+                            Files.readString(file, StandardCharsets.UTF_8));
+                } catch (NumberFormatException | IOException e) {
+                    // Not one of ours or unreadable; the sweep re-extracts missing reports
+                }
+            });
+        } catch (IOException e) {
+            throw new RuntimeException("Could not load report text index. Error: " + e.getMessage());
+        }
+    }
+
+    private void add(Long reportId, String text) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (String term : tokenize(text)) {
+            counts.merge(term, 1, Integer::sum);
+        }
+        lock.writeLock().lock();
+        try {
+            unindex(reportId);
+            for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+                postings.computeIfAbsent(entry.getKey(), k -> new HashMap<>()).put(reportId, entry.getValue());
+            }
+            documentTerms.put(reportId, new HashSet<>(counts.keySet()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void unindex(Long reportId) {
+        Set<String> terms = documentTerms.remove(reportId);
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms) {
+            Map<Long, Integer> docs = postings.get(term);
+            if (docs != null) {
+                docs.remove(reportId);
+                if (docs.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+
+    private List<String> highlight(Long reportId, List<String> terms) {
+        String text;
+        try {
+            text = Files.readString(textFile(reportId), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            return List.of();
+        }
+        Set<String> wanted = new HashSet<>(terms);
+        List<String> snippets = new ArrayList<>();
+        int lastEnd = -1;
+        int i = 0;
+        while (i < text.length() && snippets.size() < MAX_SNIPPETS) {
+            if (!Character.isLetterOrDigit(text.charAt(i))) {
+                i++;
+                continue;
+            }
+            int start = i;
+            while (i < text.length() && Character.isLetterOrDigit(text.charAt(i))) {
+                i++;
+            }
+            if (start >= lastEnd && wanted.contains(text.substring(start, i).toLowerCase(Locale.ROOT))) {
+                int from = Math.max(0, start - SNIPPET_RADIUS);
+                int to = Math.min(text.length(), i + SNIPPET_RADIUS);
+                snippets.add(renderSnippet(text.substring(from, to), wanted, from > 0, to < text.length()));
+                lastEnd = to;
+            }
+        }
+        return snippets;
+    }
+
+    private static String renderSnippet(String window, Set<String> wanted, boolean cutStart, boolean cutEnd) {
+        StringBuilder out = new StringBuilder();
+        if (cutStart) {
+            out.append("...");
+        }
+        int i = 0;
+        while (i < window.length()) {
+            if (!Character.isLetterOrDigit(window.charAt(i))) {
+                appendEscaped(out, Character.isWhitespace(window.charAt(i)) ? ' ' : window.charAt(i));
+                i++;
+                continue;
+            }
+            int start = i;
+            while (i < window.length() && Character.isLetterOrDigit(window.charAt(i))) {
+                i++;
+            }
+            String word = window.substring(start, i);
+            if (wanted.contains(word.toLowerCase(Locale.ROOT))) {
+                out.append("<em>").append(word).append("</em>");
+            } else {
+                out.append(word);
+            }
+        }
+        if (cutEnd) {
+            out.append("...");
+        }
+        return out.toString();
+    }
+
+    private static void appendEscaped(StringBuilder out, char c) {
+        switch (c) {
+            case '<' -> out.append("&lt;");
+            case '>' -> out.append("&gt;");
+            case '&' -> out.append("&amp;");
+            case '"' -> out.append("&quot;");
+            default -> out.append(c);
+        }
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null) {
+            return terms;
+        }
+        int i = 0;
+        while (i < text.length()) {
+            if (!Character.isLetterOrDigit(text.charAt(i))) {
+                i++;
+                continue;
+            }
+            int start = i;
+            while (i < text.length() && Character.isLetterOrDigit(text.charAt(i))) {
+                i++;
+            }
+            int length = i - start;
+            if (length >= MIN_TERM_LENGTH && length <= MAX_TERM_LENGTH) {
+                terms.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+            }
+        }
+        return terms;
+    }
+
+    private Path textFile(Long reportId) {
+        return indexDir.resolve(reportId + ".txt");
+    }
+}
@@ -0,0 +1,257 @@
+package com.HMS.Hospitalmanagement.report;
+
+import com.HMS.Hospitalmanagement.storage.ContentStore;
+import com.HMS.Hospitalmanagement.storage.FileSender;
+import com.HMS.Hospitalmanagement.storage.StoredBlob;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Resumable lab report uploads: init, PUT chunks at byte offsets, commit. Each chunk is
+ * streamed from the request body straight into the upload's file in the content store's
+ * incoming directory with a positional FileChannel write, so nothing is buffered in heap or
+ * multipart temp storage. The client resumes from the session's received offset after a
+ * dropped connection. Commit checks the whole file against the SHA-256 given at init and
+ * then renames it into the content store.
+ */
+@Service
+public class ReportUploadService {
+
+    private final UploadSessionRepository uploadSessionRepository;
+    private final LabReportRepository labReportRepository;
+    private final LabReportService labReportService;
+    private final ContentStore contentStore;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Map<String, ReentrantLock> locks = new ConcurrentHashMap<>();
+
+    @Value("${hms.reports.max-upload-size:2147483648}")
+    private long maxUploadSize;
+
+    @Value("${hms.reports.upload-expiry-hours:24}")
+    private long expiryHours;
+
+    @Autowired
+    public ReportUploadService(UploadSessionRepository uploadSessionRepository,
+            LabReportRepository labReportRepository,
+            LabReportService labReportService,
+            ContentStore contentStore,
+            ApplicationEventPublisher eventPublisher) {
+        this.uploadSessionRepository = uploadSessionRepository;
+        this.labReportRepository = labReportRepository;
+        this.labReportService = labReportService;
+        this.contentStore = contentStore;
+        this.eventPublisher = eventPublisher;
+    }
+
+    public UploadSession init(String fileName, long size, String sha256,
+            String patientName, String doctorName, String testName, Long patientId, Long appointmentId) {
+        if (size <= 0 || size > maxUploadSize) {
+            throw new IllegalArgumentException("Upload size must be between 1 and " + maxUploadSize + " bytes");
+        }
+        if (sha256 == null || !sha256.matches("[0-9a-fA-F]{64}")) {
+            throw new IllegalArgumentException("sha256 must be a 64 character hex digest");
+        }
+        Path name = fileName != null ? Paths.get(fileName).getFileName() : null;
+        if (name == null) {
+            throw new IllegalArgumentException("fileName is required");
+        }
+        LabReport links = new LabReport(patientName, doctorName, testName, null, null, null);
+        labReportService.link(links, patientId, appointmentId);
+
+        UploadSession session = new UploadSession();
+        session.setId(UUID.randomUUID().toString());
+        session.setFileName(name.toString());
+        session.setStoredName(UUID.randomUUID().toString() + "_" + name);
+        session.setSize(size);
+        session.setSha256(sha256.toLowerCase());
+        session.setReceived(0);
+        session.setPatientName(links.getPatientName());
+        session.setDoctorName(links.getDoctorName());
+        session.setTestName(testName);
+        session.setPatientId(links.getPatientId());
+        session.setDoctorId(links.getDoctorId());
+        session.setAppointmentId(links.getAppointmentId());
+        session.setCreatedAt(LocalDateTime.now());
+        session.setLastActivityAt(session.getCreatedAt());
+        try {
+            Files.createFile(contentStore.incomingPath(session.getStoredName()));
+        } catch (IOException e) {
+            throw new RuntimeException("Could not create upload file. Error: " + e.getMessage());
+        }
+        return uploadSessionRepository.save(session);
+    }
+
+    public Optional<UploadSession> getSession(String id) {
+        return uploadSessionRepository.findById(id);
+    }
+
+    /**
+     * Writes the body at {@code offset}. The offset may re-send bytes already received but must not
+     * leave a gap; the chunk may not run past the size declared at init.
+     */
+    public UploadSession writeChunk(String id, long offset, InputStream body) {
+        return withSession(id, session -> {
+            if (offset < 0 || offset > session.getReceived()) {
+                throw new IllegalStateException("Chunk must start at or before offset " + session.getReceived());
+            }
+            long position = offset;
+            try (FileChannel channel = FileChannel.open(contentStore.incomingPath(session.getStoredName()),
+                    StandardOpenOption.WRITE)) {
+                ReadableByteChannel source = Channels.newChannel(body);
+                while (position < session.getSize()) {
+                    long written = channel.transferFrom(source, position, session.getSize() - position);
+                    if (written <= 0) {
+                        break;
+                    }
+                    position += written;
+                }
+                if (position == session.getSize() && body.read() != -1) {
+                    throw new IllegalArgumentException("Chunk runs past the declared upload size");
+                }
+            } catch (IOException e) {
+                // Keep whatever arrived before the connection dropped so the client can resume from it
+                saveProgress(session, position);
+                throw new RuntimeException("Could not write upload chunk. Error: " + e.getMessage());
+            }
+            return saveProgress(session, position);
+        }, () -> {
+            throw new RuntimeException("Upload not found: " + id);
+        });
+    }
+
+    public LabReport commit(String id) {
+        return withSession(id, session -> {
+            if (session.getReceived() != session.getSize()) {
+                throw new IllegalStateException("Upload is incomplete: received " + session.getReceived()
+                        + " of " + session.getSize() + " bytes");
+            }
+            Path file = contentStore.incomingPath(session.getStoredName());
+            String actual = sha256(file);
+            if (!actual.equals(session.getSha256())) {
+                discard(session);
+                throw new IllegalArgumentException("Checksum mismatch: expected " + session.getSha256()
+                        + " but received " + actual);
+            }
+
+            StoredBlob blob;
+            try {
+                blob = contentStore.adopt(file, actual, FileSender.contentTypeOf(session.getFileName()));
+            } catch (IOException e) {
+                throw new RuntimeException("Could not store the file. Error: " + e.getMessage());
+            }
+            LabReport report = new LabReport(
+                    session.getPatientName(),
+                    session.getDoctorName(),
+                    session.getTestName(),
+                    LocalDate.now(),
+                    contentStore.pathOf(blob.getHash()).toString(),
+                    session.getFileName());
+            report.setContentHash(blob.getHash());
+            report.setPatientId(session.getPatientId());
+            report.setDoctorId(session.getDoctorId());
+            report.setAppointmentId(session.getAppointmentId());
+            report = labReportRepository.save(report);
+            eventPublisher.publishEvent(new LabReportEvent(LabReportEvent.Type.CREATED, report));
+            uploadSessionRepository.delete(session);
+            locks.remove(id);
+            return report;
+        }, () -> {
+            throw new RuntimeException("Upload not found: " + id);
+        });
+    }
+
+    public boolean abort(String id) {
+        return withSession(id, session -> {
+            discard(session);
+            locks.remove(id);
+            return true;
+        }, () -> false);
+    }
+
+    @Scheduled(cron = "${hms.reports.upload-cleanup-cron:0 15 * * * *}")
+    public void purgeExpired() {
+        LocalDateTime cutoff = LocalDateTime.now().minusHours(expiryHours);
+        for (String id : uploadSessionRepository.findIdsIdleSince(cutoff)) {
+            withSession(id, session -> {
+                // A chunk may have landed while this waited for the lock
+                LocalDateTime lastActivity = session.getLastActivityAt() != null
+                        ? session.getLastActivityAt() : session.getCreatedAt();
+                if (lastActivity.isBefore(cutoff)) {
+                    discard(session);
+                    locks.remove(id);
+                }
+                return null;
+            }, () -> null);
+        }
+    }
+
+    private UploadSession saveProgress(UploadSession session, long position) {
+        if (position > session.getReceived()) {
+            session.setReceived(position);
+        }
+        session.setLastActivityAt(LocalDateTime.now());
+        return uploadSessionRepository.save(session);
+    }
+
+    private void discard(UploadSession session) {
+        try {
+            Files.deleteIfExists(contentStore.incomingPath(session.getStoredName()));
+        } catch (IOException e) {
+            throw new RuntimeException("Could not delete the file. Error: " + e.getMessage());
+        }
+        uploadSessionRepository.delete(session);
+    }
+
+    /**
+     * Runs the action on the session under its lock, or returns ifMissing without creating a lock
+     * entry when there is no such upload, so requests for unknown ids cannot grow the lock map.
+     */
+    private <T> T withSession(String id, Function<UploadSession, T> action, Supplier<T> ifMissing) {
+        if (!uploadSessionRepository.existsById(id)) {
+            return ifMissing.get();
+        }
+        ReentrantLock lock = locks.computeIfAbsent(id, k -> new ReentrantLock());
+        lock.lock();
+        try {
+            Optional<UploadSession> session = uploadSessionRepository.findById(id);
+            if (session.isEmpty()) {
+                // Committed or aborted while this waited; drop the entry this call may have recreated
+                locks.remove(id, lock);
+                return ifMissing.get();
+            }
+            return action.apply(session.get());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static String sha256(Path file) {
+        try {
+            return FileSender.sha256(file);
+        } catch (IOException e) {
+            throw new RuntimeException("Could not read upload for checksum. Error: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.HMS.Hospitalmanagement.report;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface UploadSessionRepository extends JpaRepository<UploadSession, String> {
+    // Sessions from before lastActivityAt existed fall back to their creation time
+    @Query("SELECT s.id FROM UploadSession s WHERE COALESCE(s.lastActivityAt, s.createdAt) < :time")
+    List<String> findIdsIdleSince(@Param("time") LocalDateTime time);
+}
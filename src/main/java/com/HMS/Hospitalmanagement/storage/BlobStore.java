@@ -0,0 +1,46 @@
+package com.HMS.Hospitalmanagement.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+
+/**
+ * Where content-store bytes physically live. Keys are relative names such as
+ * "ab/cd/&lt;sha256&gt;"; the content store decides them and keeps the reference counts,
+ * a backend only stores, reads and deletes objects. Selected by hms.storage.backend.
+ */
+public interface BlobStore {
+
+    /**
+     * Moves a local file into the store under the key. The file is gone afterwards.
+     */
+    void put(String key, Path file) throws IOException;
+
+    /**
+     * Reads the object from the given byte offset. Throws NoSuchFileException if it does not exist.
+     */
+    InputStream open(String key, long offset) throws IOException;
+
+    boolean exists(String key) throws IOException;
+
+    /**
+     * Deletes the object if it exists.
+     */
+    void delete(String key) throws IOException;
+
+    /**
+     * Calls the action for every object whose key starts with the prefix, one at a time on the calling thread.
+     */
+    void forEach(String prefix, Consumer<Entry> action) throws IOException;
+
+    /**
+     * The object's file when it sits on local disk (so it can be handed to sendfile), otherwise null.
+     */
+    default Path localPath(String key) {
+        return null;
+    }
+
+    record Entry(String key, long size, long lastModified) {
+    }
+}
@@ -0,0 +1,495 @@
+package com.HMS.Hospitalmanagement.storage;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Content-addressed, deduplicating file store. A file is kept in the configured BlobStore under
+ * ab/cd/&lt;sha256&gt; and is hashed while it is streamed to a local temp file, so the
+ * same PDF uploaded three times is stored once with a reference count of three.
+ * Everything that takes the last reference, deletes an object or adopts one that is already there
+ * holds the lock on the hash's stored_blobs row (SELECT ... FOR UPDATE in a transaction), so every
+ * node sharing the database sees the same counts. An upload takes its reference before writing the
+ * object (outside the transaction), so a file is never deleted while another upload of the same
+ * content is adopting it.
+ * Text-like content (text/*, JSON, XML, PDF) is kept gzip-compressed as &lt;sha256&gt;.gz
+ * when that saves at least a tenth of the size; the hash is always of the plain content.
+ * The gzip is written by SeekableGzip and its chunk index is kept on the row, so range reads
+ * do not inflate from the start.
+ */
+@Service
+public class ContentStore {
+
+    public static final String URL_PREFIX = "/uploads/blobs/";
+    public static final String GZIP = "gzip";
+
+    static final Path ROOT = Paths.get("uploads", "blobs");
+    static final Path INCOMING = ROOT.resolve("tmp");
+
+    private static final long MIN_COMPRESS_SIZE = 1024;
+    private static final double MAX_COMPRESSED_RATIO = 0.9;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final Set<String> COMPRESSIBLE_TYPES = Set.of("application/json", "application/xml",
+            "application/pdf", "application/rtf", "application/x-ndjson", "image/svg+xml");
+
+    // Uploads are staged locally whatever the backend; with the local backend adopting one is a rename
+    private final Path incoming = INCOMING;
+    private final JdbcTemplate jdbcTemplate;
+    private final StoredBlobRepository storedBlobRepository;
+    private final BlobStore blobStore;
+    private final TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public ContentStore(JdbcTemplate jdbcTemplate, StoredBlobRepository storedBlobRepository, BlobStore blobStore,
+            TransactionTemplate transactionTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.storedBlobRepository = storedBlobRepository;
+        this.blobStore = blobStore;
+        this.transactionTemplate = transactionTemplate;
+        try {
+            Files.createDirectories(incoming);
+        } catch (IOException e) {
+            throw new RuntimeException("Could not initialize folder for upload!");
+        }
+    }
+
+    /**
+     * Streams the content into the store and takes one reference on it.
+     */
+    public StoredBlob store(InputStream content, String contentType) throws IOException {
+        Path temp = Files.createTempFile(incoming, "upload-", ".tmp");
+        try {
+            MessageDigest digest = newDigest();
+            try (InputStream in = new DigestInputStream(content, digest)) {
+                Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return adopt(temp, HexFormat.of().formatHex(digest.digest()), contentType);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Moves a file whose SHA-256 is already known into the store (or drops it if the
+     * content is already there) and takes one reference on it.
+     */
+    public StoredBlob adopt(Path file, String hash, String contentType) throws IOException {
+        long size = Files.size(file);
+        // Compress outside the transaction; the result is thrown away if the content turns out to be stored already
+        Gzipped compressed = null;
+        if (isCompressible(contentType, size) && existingKey(hash) == null) {
+            try (InputStream in = Files.newInputStream(file)) {
+                compressed = compress(in, size, incoming);
+            }
+        }
+        try {
+            Gzipped candidate = compressed;
+            Adoption adoption = withRow(hash, size, (refCount, rowEncoding) -> {
+                if (refCount > 0) {
+                    // The reference is taken before the upload, which then runs outside the transaction: a
+                    // release of the same content cannot take the count to zero and delete the object while it
+                    // is written. A missing object belongs to an adopter still uploading (or one that failed),
+                    // so it is written again in the row's encoding.
+                    incrementRefCount(hash);
+                    boolean missing = !blobStore.exists(GZIP.equals(rowEncoding) ? gzipKeyOf(hash) : keyOf(hash));
+                    if (!missing) {
+                        Files.delete(file);
+                    }
+                    return new Adoption(missing, rowEncoding);
+                }
+                String existing = existingKey(hash);
+                if (existing != null) {
+                    // The object outlived its row; describe the object that is there
+                    Files.delete(file);
+                    boolean gzipped = existing.equals(gzipKeyOf(hash));
+                    describe(hash, size, contentType, gzipped ? GZIP : null, gzipped ? storedSizeOf(existing) : size,
+                            null);
+                    return new Adoption(false, null);
+                }
+                if (candidate != null) {
+                    describe(hash, size, contentType, GZIP, Files.size(candidate.file()), candidate.index());
+                    return new Adoption(true, GZIP);
+                }
+                describe(hash, size, contentType, null, size, null);
+                return new Adoption(true, null);
+            });
+            boolean upload = adoption.upload();
+            String encoding = adoption.encoding();
+            if (upload) {
+                try {
+                    if (GZIP.equals(encoding)) {
+                        if (compressed == null) {
+                            try (InputStream in = Files.newInputStream(file)) {
+                                compressed = gzip(in, incoming);
+                            }
+                        }
+                        blobStore.put(gzipKeyOf(hash), compressed.file());
+                        compressed = null;
+                        Files.delete(file);
+                    } else {
+                        blobStore.put(keyOf(hash), file);
+                    }
+                } catch (IOException | RuntimeException e) {
+                    try {
+                        release(hash);
+                    } catch (RuntimeException releaseFailure) {
+                        e.addSuppressed(releaseFailure);
+                    }
+                    throw e;
+                }
+            }
+        } finally {
+            if (compressed != null) {
+                Files.deleteIfExists(compressed.file());
+            }
+        }
+        return storedBlobRepository.findById(hash).orElseThrow(() -> new RuntimeException("Blob not found: " + hash));
+    }
+
+    /**
+     * Compresses a blob that was stored plain, if its type qualifies and it shrinks enough.
+     * Returns the number of bytes saved, 0 if it was left as it was.
+     */
+    public long compressStored(StoredBlob blob) throws IOException {
+        String plain = keyOf(blob.getHash());
+        if (blob.getEncoding() != null || !isCompressible(blob.getContentType(), blob.getSize())
+                || !blobStore.exists(plain)) {
+            return 0;
+        }
+        Gzipped compressed;
+        try (InputStream in = blobStore.open(plain, 0)) {
+            compressed = compress(in, blob.getSize(), incoming);
+        }
+        if (compressed == null) {
+            return 0;
+        }
+        long storedSize = Files.size(compressed.file());
+        // Upload beside the plain object outside the transaction; only switching the row over to it holds the lock
+        try {
+            blobStore.put(gzipKeyOf(blob.getHash()), compressed.file());
+        } finally {
+            Files.deleteIfExists(compressed.file());
+        }
+        return transactionTemplate.execute(status -> {
+            List<String> encodings = jdbcTemplate.queryForList(
+                    "SELECT encoding FROM stored_blobs WHERE hash = ? AND ref_count > 0 FOR UPDATE", String.class,
+                    blob.getHash());
+            if (encodings.isEmpty()) {
+                // Released meanwhile. The copy just written is left to the reconciler, as an upload of the
+                // same content may be adopting it by now.
+                return 0L;
+            }
+            if (GZIP.equals(encodings.get(0))) {
+                return 0L;
+            }
+            jdbcTemplate.update("UPDATE stored_blobs SET encoding = ?, stored_size = ?, gzip_index = ? WHERE hash = ?",
+                    GZIP, storedSize, compressed.index(), blob.getHash());
+            deleteObject(plain);
+            return blob.getSize() - storedSize;
+        });
+    }
+
+    /**
+     * Opens the plain content of a blob, inflating it while reading if it is stored compressed.
+     */
+    public InputStream open(StoredBlob blob) throws IOException {
+        InputStream in = blobStore.open(storedKey(blob), 0);
+        return GZIP.equals(blob.getEncoding()) ? inflate(in) : in;
+    }
+
+    /**
+     * Takes another reference on content that is already stored. Returns false if it is not.
+     */
+    public boolean retain(String hash) {
+        return incrementRefCount(hash);
+    }
+
+    /**
+     * Drops one reference and deletes the file once nothing points at it.
+     */
+    public void release(String hash) {
+        transactionTemplate.executeWithoutResult(status -> {
+            if (jdbcTemplate.update(
+                    "UPDATE stored_blobs SET ref_count = ref_count - 1 WHERE hash = ? AND ref_count > 0", hash) > 0) {
+                deleteIfUnreferenced(hash);
+            }
+        });
+    }
+
+    /**
+     * Sets a blob's reference count to what was actually found, provided it is still what the caller saw
+     * and, when lowering it, no reference was taken since retainedBefore (one taken later may belong to a
+     * report or doctor that was not yet saved when the references were counted). A blob left with no
+     * references is deleted. Returns true if the count was changed.
+     */
+    public boolean correctRefCount(String hash, long seen, long actual, LocalDateTime retainedBefore) {
+        return transactionTemplate.execute(status -> {
+            int updated = actual < seen
+                    ? jdbcTemplate.update("UPDATE stored_blobs SET ref_count = ? WHERE hash = ? AND ref_count = ? "
+                            + "AND (retained_at IS NULL OR retained_at < ?) AND created_at < ?", actual, hash, seen,
+                            Timestamp.valueOf(retainedBefore), Timestamp.valueOf(retainedBefore))
+                    : jdbcTemplate.update("UPDATE stored_blobs SET ref_count = ? WHERE hash = ? AND ref_count = ?",
+                            actual, hash, seen);
+            if (updated == 0) {
+                return false;
+            }
+            deleteIfUnreferenced(hash);
+            return true;
+        });
+    }
+
+    /**
+     * Deletes an object that no stored_blobs row accounts for. Returns false if one does by now.
+     */
+    public boolean removeOrphan(String key) {
+        String name = key.substring(key.lastIndexOf('/') + 1);
+        String hash = name.endsWith(".gz") ? name.substring(0, name.length() - 3) : name;
+        try {
+            return withRow(hash, 0, (refCount, encoding) -> {
+                if (refCount > 0 && key.equals(GZIP.equals(encoding) ? gzipKeyOf(hash) : keyOf(hash))) {
+                    return false;
+                }
+                blobStore.delete(key);
+                if (refCount == 0) {
+                    // The row was only there to hold the lock, or belongs to an adopter that will find it gone
+                    jdbcTemplate.update("DELETE FROM stored_blobs WHERE hash = ? AND ref_count = 0", hash);
+                }
+                return true;
+            });
+        } catch (IOException e) {
+            throw new RuntimeException("Could not delete the file. Error: " + e.getMessage());
+        }
+    }
+
+    public void releaseUrl(String url) {
+        String hash = hashFromUrl(url);
+        if (hash != null) {
+            release(hash);
+        }
+    }
+
+    /**
+     * Location for a file being assembled before it is adopted; adopting it is then a rename.
+     */
+    public Path incomingPath(String name) {
+        return incoming.resolve(name);
+    }
+
+    public Optional<StoredBlob> find(String hash) {
+        return storedBlobRepository.findById(hash);
+    }
+
+    /**
+     * Location recorded on reports that live in the store. Only with the local backend is there a file at it.
+     */
+    public Path pathOf(String hash) {
+        return ROOT.resolve(keyOf(hash));
+    }
+
+    /**
+     * The BlobStore key holding the blob's bytes, compressed or not.
+     */
+    public String storedKey(StoredBlob blob) {
+        return GZIP.equals(blob.getEncoding()) ? gzipKeyOf(blob.getHash()) : keyOf(blob.getHash());
+    }
+
+    public boolean isStored(Path file) {
+        return file.toAbsolutePath().normalize().startsWith(ROOT.toAbsolutePath().normalize());
+    }
+
+    public static String urlOf(String hash) {
+        return URL_PREFIX + hash.substring(0, 2) + "/" + hash.substring(2, 4) + "/" + hash;
+    }
+
+    /**
+     * The hash a content URL points at, or null for anything that is not a content URL.
+     */
+    public static String hashFromUrl(String url) {
+        if (url == null || !url.startsWith(URL_PREFIX)) {
+            return null;
+        }
+        String hash = url.substring(url.lastIndexOf('/') + 1);
+        return hash.matches("[0-9a-f]{64}") ? hash : null;
+    }
+
+    /**
+     * Runs the action in a transaction holding the lock on the hash's stored_blobs row, first creating
+     * the row with no references if there is none, so there is always a row to lock. A row with no
+     * references describes nothing yet; whoever takes the first reference fills it in.
+     */
+    private <T> T withRow(String hash, long size, RowAction<T> action) throws IOException {
+        while (true) {
+            try {
+                jdbcTemplate.update("INSERT INTO stored_blobs (hash, size, ref_count, created_at) VALUES (?, ?, 0, ?)",
+                        hash, size, Timestamp.valueOf(LocalDateTime.now()));
+            } catch (DuplicateKeyException e) {
+                // There is one already
+            }
+            try {
+                Optional<T> result = transactionTemplate.execute(status -> {
+                    List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+                            "SELECT ref_count, encoding FROM stored_blobs WHERE hash = ? FOR UPDATE", hash);
+                    if (rows.isEmpty()) {
+                        return Optional.empty();
+                    }
+                    Map<String, Object> row = rows.get(0);
+                    try {
+                        return Optional.of(action.apply(((Number) row.get("ref_count")).longValue(),
+                                (String) row.get("encoding")));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                if (result.isPresent()) {
+                    return result.get();
+                }
+                // Deleted between the insert and the lock; try again
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    /**
+     * Fills in a row that had no references and takes the first one. Called holding the row lock.
+     */
+    private void describe(String hash, long size, String contentType, String encoding, long storedSize,
+            byte[] index) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.update("UPDATE stored_blobs SET size = ?, content_type = ?, encoding = ?, stored_size = ?, "
+                + "gzip_index = ?, ref_count = 1, created_at = ?, retained_at = ? WHERE hash = ?",
+                size, contentType, encoding, storedSize, index, now, now, hash);
+    }
+
+    private boolean incrementRefCount(String hash) {
+        return jdbcTemplate.update("UPDATE stored_blobs SET ref_count = ref_count + 1, retained_at = ? "
+                + "WHERE hash = ? AND ref_count > 0", Timestamp.valueOf(LocalDateTime.now()), hash) > 0;
+    }
+
+    private void deleteIfUnreferenced(String hash) {
+        // The objects go while the delete holds the row lock, so no adopter can see them in between
+        if (jdbcTemplate.update("DELETE FROM stored_blobs WHERE hash = ? AND ref_count = 0", hash) > 0) {
+            deleteObject(keyOf(hash));
+            deleteObject(gzipKeyOf(hash));
+        }
+    }
+
+    private void deleteObject(String key) {
+        try {
+            blobStore.delete(key);
+        } catch (IOException e) {
+            throw new RuntimeException("Could not delete the file. Error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * The key of the object stored for the hash, plain or compressed, or null if there is none.
+     */
+    private String existingKey(String hash) throws IOException {
+        if (blobStore.exists(keyOf(hash))) {
+            return keyOf(hash);
+        }
+        return blobStore.exists(gzipKeyOf(hash)) ? gzipKeyOf(hash) : null;
+    }
+
+    private long storedSizeOf(String key) throws IOException {
+        long[] size = {0};
+        blobStore.forEach(key, entry -> {
+            if (entry.key().equals(key)) {
+                size[0] = entry.size();
+            }
+        });
+        return size[0];
+    }
+
+    static String keyOf(String hash) {
+        return hash.substring(0, 2) + "/" + hash.substring(2, 4) + "/" + hash;
+    }
+
+    static String gzipKeyOf(String hash) {
+        return keyOf(hash) + ".gz";
+    }
+
+    /**
+     * Gzips the content into a temp file in dir and returns it, or null if it did not shrink enough.
+     */
+    static Gzipped compress(InputStream in, long size, Path dir) throws IOException {
+        Gzipped gzipped = gzip(in, dir);
+        if (Files.size(gzipped.file()) > size * MAX_COMPRESSED_RATIO) {
+            Files.deleteIfExists(gzipped.file());
+            return null;
+        }
+        return gzipped;
+    }
+
+    static Gzipped gzip(InputStream in, Path dir) throws IOException {
+        Path temp = Files.createTempFile(dir, "gzip-", ".tmp");
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temp), BUFFER_SIZE)) {
+            return new Gzipped(temp, SeekableGzip.write(in, out));
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+    }
+
+    static InputStream inflate(InputStream compressed) throws IOException {
+        return new GZIPInputStream(compressed, BUFFER_SIZE);
+    }
+
+    static boolean isCompressible(String contentType, long size) {
+        if (contentType == null || size < MIN_COMPRESS_SIZE) {
+            return false;
+        }
+        String type = contentType.split(";")[0].trim().toLowerCase(Locale.ROOT);
+        return type.startsWith("text/") || COMPRESSIBLE_TYPES.contains(type);
+    }
+
+    /**
+     * Work done holding a stored_blobs row lock, given the row's reference count and encoding.
+     */
+    private interface RowAction<T> {
+        T apply(long refCount, String encoding) throws IOException;
+    }
+
+    private record Adoption(boolean upload, String encoding) {
+    }
+
+    /**
+     * A gzipped temp file and the SeekableGzip chunk index of its content.
+     */
+    record Gzipped(Path file, byte[] index) {
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,337 @@
+package com.HMS.Hospitalmanagement.storage;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.ZoneId;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Writes a stored file or content-store blob to the response with a strong ETag, Last-Modified,
+ * single byte-range support (206/416, If-Range) and conditional GET handling (304/412). Files on
+ * local disk are handed to Tomcat's sendfile when the connector supports it and copied with
+ * FileChannel.transferTo otherwise; blobs in a remote BlobStore are streamed from it.
+ * Multi-range requests are answered with the full file, as RFC 9110 allows.
+ * Content-store blobs kept gzip-compressed are sent as stored, with Content-Encoding: gzip,
+ * to clients that accept it and want the whole file; everyone else gets them inflated on the fly.
+ */
+@Component
+public class FileSender {
+
+    private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+    private static final long SENDFILE_MIN_SIZE = 48 * 1024;
+    private static final int HASH_BUFFER_SIZE = 64 * 1024;
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    private final ContentStore contentStore;
+    private final BlobStore blobStore;
+
+    // Hashes of files without a stored hash, valid while size and modification time are unchanged
+    private final Map<Path, HashedFile> hashes = new ConcurrentHashMap<>();
+
+    @Autowired
+    public FileSender(ContentStore contentStore, BlobStore blobStore) {
+        this.contentStore = contentStore;
+        this.blobStore = blobStore;
+    }
+
+    /**
+     * Sends the file. contentHash and contentType may be null, in which case the hash is computed
+     * (and cached) and the type is guessed from the file name.
+     */
+    public void send(HttpServletRequest request, HttpServletResponse response, Path file, String contentHash,
+            String contentType, String contentDisposition, String cacheControl) throws IOException {
+        if (!Files.isRegularFile(file) || !Files.isReadable(file)) {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        long length = Files.size(file);
+        write(request, response, new FileBody(file), null, null, length, length,
+                Files.getLastModifiedTime(file).toMillis(),
+                contentHash != null ? contentHash : hashOf(file),
+                contentType != null ? contentType : contentTypeOf(file.getFileName().toString()),
+                contentDisposition, cacheControl);
+    }
+
+    /**
+     * Sends a blob from the content store, wherever the BlobStore keeps it. contentType overrides the
+     * type recorded with the blob when given.
+     */
+    public void sendBlob(HttpServletRequest request, HttpServletResponse response, StoredBlob blob,
+            String contentType, String contentDisposition, String cacheControl) throws IOException {
+        String key = contentStore.storedKey(blob);
+        Path local = blobStore.localPath(key);
+        Body body = local != null ? new FileBody(local) : new StoredBody(blobStore, key);
+        String type = contentType != null ? contentType
+                : blob.getContentType() != null ? blob.getContentType() : MediaType.APPLICATION_OCTET_STREAM_VALUE;
+        // Blobs never change, so the time they were stored serves as Last-Modified without asking the backend
+        long lastModified = blob.getCreatedAt() != null
+                ? blob.getCreatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+                : -1;
+        try {
+            write(request, response, body, blob.getEncoding(), blob.getGzipIndex(), blob.getSize(),
+                    blob.getStoredSize() != null ? blob.getStoredSize() : blob.getSize(), lastModified,
+                    blob.getHash(), type, contentDisposition, cacheControl);
+        } catch (NoSuchFileException e) {
+            if (response.isCommitted()) {
+                throw e;
+            }
+            response.reset();
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+        }
+    }
+
+    /**
+     * length is the size of the content as the client sees it, storedLength what the body holds,
+     * which is less when it is stored compressed. A range of a compressed body is inflated from the
+     * chunk of gzipIndex it starts in.
+     */
+    private void write(HttpServletRequest request, HttpServletResponse response, Body body, String storedEncoding,
+            byte[] gzipIndex, long length, long storedLength, long lastModified, String hash, String contentType,
+            String contentDisposition, String cacheControl) throws IOException {
+        boolean gzipped = ContentStore.GZIP.equals(storedEncoding);
+        boolean sendStored = gzipped && request.getHeader(HttpHeaders.RANGE) == null && acceptsGzip(request);
+        // The compressed and the plain body are different representations and need different tags
+        String etag = "\"" + hash + (sendStored ? "-gzip" : "") + "\"";
+
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+        if (gzipped) {
+            response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        }
+        if (new ServletWebRequest(request, response).checkNotModified(etag, lastModified)) {
+            return;
+        }
+        response.setHeader(HttpHeaders.ETAG, etag);
+        if (lastModified >= 0) {
+            response.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified);
+        }
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setContentType(contentType);
+        if (contentDisposition != null) {
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, contentDisposition);
+        }
+
+        if (sendStored) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, ContentStore.GZIP);
+            response.setContentLengthLong(storedLength);
+            if (!"HEAD".equals(request.getMethod()) && storedLength > 0) {
+                body.transfer(request, response, 0, storedLength - 1);
+            }
+            return;
+        }
+
+        long start = 0;
+        long end = length - 1;
+        String range = request.getHeader(HttpHeaders.RANGE);
+        if (range != null && length > 0 && ifRangeMatches(request, etag, lastModified)) {
+            List<HttpRange> ranges;
+            try {
+                ranges = HttpRange.parseRanges(range);
+            } catch (IllegalArgumentException e) {
+                ranges = List.of();
+            }
+            if (ranges.size() == 1) {
+                try {
+                    start = ranges.get(0).getRangeStart(length);
+                    end = ranges.get(0).getRangeEnd(length);
+                    // HttpRange clamps the end to the length but lets a start past it through
+                    if (start >= length) {
+                        throw new IllegalArgumentException("Range starts after the end");
+                    }
+                } catch (IllegalArgumentException e) {
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                    response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                    return;
+                }
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+            }
+        }
+
+        long count = end - start + 1;
+        response.setContentLengthLong(count);
+        if ("HEAD".equals(request.getMethod()) || count <= 0) {
+            return;
+        }
+        if (gzipped) {
+            try (InputStream in = SeekableGzip.open(body, gzipIndex, start)) {
+                copy(in, response.getOutputStream(), count);
+            }
+            return;
+        }
+        body.transfer(request, response, start, end);
+    }
+
+    private static void copy(InputStream in, OutputStream out, long count) throws IOException {
+        byte[] buffer = new byte[COPY_BUFFER_SIZE];
+        long remaining = count;
+        while (remaining > 0) {
+            int n = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+            if (n < 0) {
+                break;
+            }
+            out.write(buffer, 0, n);
+            remaining -= n;
+        }
+    }
+
+    private static boolean acceptsGzip(HttpServletRequest request) {
+        String header = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        if (header == null) {
+            return false;
+        }
+        for (String part : header.split(",")) {
+            String[] params = part.trim().split(";");
+            String coding = params[0].trim().toLowerCase(Locale.ROOT);
+            if (!coding.equals(ContentStore.GZIP) && !coding.equals("*")) {
+                continue;
+            }
+            for (int i = 1; i < params.length; i++) {
+                String param = params[i].trim();
+                if (param.startsWith("q=") && param.substring(2).trim().matches("0(\\.0*)?")) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    public static String contentTypeOf(String fileName) {
+        return MediaTypeFactory.getMediaType(fileName).orElse(MediaType.APPLICATION_OCTET_STREAM).toString();
+    }
+
+    /**
+     * SHA-256 of the file, cached until its size or modification time changes.
+     */
+    public String hashOf(Path file) throws IOException {
+        Path key = file.toAbsolutePath().normalize();
+        long size = Files.size(file);
+        long modified = Files.getLastModifiedTime(file).toMillis();
+        HashedFile cached = hashes.get(key);
+        if (cached != null && cached.size() == size && cached.modified() == modified) {
+            return cached.hash();
+        }
+        String hash = sha256(file);
+        hashes.put(key, new HashedFile(size, modified, hash));
+        return hash;
+    }
+
+    public static String sha256(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            ByteBuffer buffer = ByteBuffer.allocateDirect(HASH_BUFFER_SIZE);
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static boolean ifRangeMatches(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ifRange.equals(etag);
+        }
+        try {
+            return request.getDateHeader(HttpHeaders.IF_RANGE) / 1000 == lastModified / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private record HashedFile(long size, long modified, String hash) {
+    }
+
+    /**
+     * The stored bytes of what is being sent; transfer writes the inclusive range start..end of them.
+     */
+    private interface Body extends SeekableGzip.Source {
+
+        void transfer(HttpServletRequest request, HttpServletResponse response, long start, long end)
+                throws IOException;
+    }
+
+    private record FileBody(Path file) implements Body {
+
+        @Override
+        public void transfer(HttpServletRequest request, HttpServletResponse response, long start, long end)
+                throws IOException {
+            if (end - start + 1 >= SENDFILE_MIN_SIZE && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+                // Tomcat sends the file from the kernel once the handler returns
+                request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+                request.setAttribute(SENDFILE_START, start);
+                request.setAttribute(SENDFILE_END, end + 1);
+                return;
+            }
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+                long position = start;
+                while (position <= end) {
+                    long sent = channel.transferTo(position, end + 1 - position, out);
+                    if (sent <= 0) {
+                        break;
+                    }
+                    position += sent;
+                }
+            }
+        }
+
+        @Override
+        public InputStream open(long offset) throws IOException {
+            InputStream in = Files.newInputStream(file);
+            in.skipNBytes(offset);
+            return in;
+        }
+    }
+
+    private record StoredBody(BlobStore store, String key) implements Body {
+
+        @Override
+        public void transfer(HttpServletRequest request, HttpServletResponse response, long start, long end)
+                throws IOException {
+            try (InputStream in = store.open(key, start)) {
+                copy(in, response.getOutputStream(), end - start + 1);
+            }
+        }
+
+        @Override
+        public InputStream open(long offset) throws IOException {
+            return store.open(key, offset);
+        }
+    }
+}
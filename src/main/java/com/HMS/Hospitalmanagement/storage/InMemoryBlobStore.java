@@ -0,0 +1,58 @@
+package com.HMS.Hospitalmanagement.storage;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Keeps objects on the heap. Meant for tests and throwaway instances; nothing survives a restart.
+ */
+public class InMemoryBlobStore implements BlobStore {
+
+    private final Map<String, StoredObject> objects = new ConcurrentHashMap<>();
+
+    @Override
+    public void put(String key, Path file) throws IOException {
+        objects.put(key, new StoredObject(Files.readAllBytes(file), System.currentTimeMillis()));
+        Files.delete(file);
+    }
+
+    @Override
+    public InputStream open(String key, long offset) throws IOException {
+        StoredObject object = objects.get(key);
+        if (object == null) {
+            throw new NoSuchFileException(key);
+        }
+        byte[] bytes = object.bytes();
+        int start = (int) Math.min(offset, bytes.length);
+        return new ByteArrayInputStream(bytes, start, bytes.length - start);
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return objects.containsKey(key);
+    }
+
+    @Override
+    public void delete(String key) {
+        objects.remove(key);
+    }
+
+    @Override
+    public void forEach(String prefix, Consumer<Entry> action) {
+        objects.forEach((key, object) -> {
+            if (key.startsWith(prefix)) {
+                action.accept(new Entry(key, object.bytes().length, object.modified()));
+            }
+        });
+    }
+
+    private record StoredObject(byte[] bytes, long modified) {
+    }
+}
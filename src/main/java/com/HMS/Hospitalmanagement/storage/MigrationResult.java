@@ -0,0 +1,18 @@
+package com.HMS.Hospitalmanagement.storage;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MigrationResult {
+
+    private long reports;
+    private long doctorFiles;
+    private long missingFiles;
+    private long compressedBlobs;
+    private long bytesFreed;
+    private long durationMs;
+}
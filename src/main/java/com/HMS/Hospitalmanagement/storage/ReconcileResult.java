@@ -0,0 +1,27 @@
+package com.HMS.Hospitalmanagement.storage;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReconcileResult {
+
+    private boolean repair;
+    private long scannedReferences;
+    private long scannedObjects;
+    private long orphanedObjects;
+    private long deletedObjects;
+    private long missingObjects;
+    private long refCountMismatches;
+    private long refCountsCorrected;
+    private long danglingReports;
+    private long danglingDoctorFiles;
+    private long clearedDoctorFiles;
+    private long orphanedLegacyFiles;
+    private long deletedLegacyFiles;
+    private long deletedTempFiles;
+    private long durationMs;
+}
@@ -0,0 +1,359 @@
+package com.HMS.Hospitalmanagement.storage;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+
+/**
+ * Keeps objects in an S3-compatible bucket (AWS S3, MinIO and the like), addressed path-style
+ * as endpoint/bucket/prefix+key and signed with AWS Signature V4. Files larger than one part
+ * go up as a multipart upload whose parts are sent in parallel; at most
+ * upload-concurrency parts are held in memory per upload.
+ */
+public class S3BlobStore implements BlobStore {
+
+    private static final long MIN_PART_SIZE = 5L * 1024 * 1024;
+    private static final String UNSIGNED_PAYLOAD = "UNSIGNED-PAYLOAD";
+    private static final String SIGNED_HEADERS = "host;x-amz-content-sha256;x-amz-date";
+    private static final DateTimeFormatter AMZ_DATE =
+            DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'").withZone(ZoneOffset.UTC);
+
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+    private final URI endpoint;
+    private final String bucket;
+    private final String region;
+    private final String accessKey;
+    private final String secretKey;
+    private final String prefix;
+    private final long partSize;
+    private final int uploadConcurrency;
+
+    public S3BlobStore(String endpoint, String bucket, String region, String accessKey, String secretKey,
+            String prefix, long partSize, int uploadConcurrency) {
+        this.endpoint = URI.create(endpoint.endsWith("/") ? endpoint.substring(0, endpoint.length() - 1) : endpoint);
+        this.bucket = bucket;
+        this.region = region;
+        this.accessKey = accessKey;
+        this.secretKey = secretKey;
+        this.prefix = prefix;
+        this.partSize = Math.max(partSize, MIN_PART_SIZE);
+        this.uploadConcurrency = Math.max(1, uploadConcurrency);
+    }
+
+    @Override
+    public void put(String key, Path file) throws IOException {
+        long size = Files.size(file);
+        if (size <= partSize) {
+            HttpResponse<String> response = send("PUT", key, "", HttpRequest.BodyPublishers.ofFile(file), null);
+            check(response, "PUT", key);
+        } else {
+            putMultipart(key, file, size);
+        }
+        Files.delete(file);
+    }
+
+    @Override
+    public InputStream open(String key, long offset) throws IOException {
+        HttpResponse<InputStream> response = send("GET", objectPath(key), "", HttpRequest.BodyPublishers.noBody(),
+                offset > 0 ? "bytes=" + offset + "-" : null, HttpResponse.BodyHandlers.ofInputStream());
+        int status = response.statusCode();
+        if (status == 200 || status == 206) {
+            return response.body();
+        }
+        response.body().close();
+        if (status == 404) {
+            throw new NoSuchFileException(key);
+        }
+        if (status == 416) {
+            // Offset at the end of the object
+            return InputStream.nullInputStream();
+        }
+        throw new IOException("S3 GET " + key + " failed with status " + status);
+    }
+
+    @Override
+    public boolean exists(String key) throws IOException {
+        HttpResponse<String> response = send("HEAD", key, "", HttpRequest.BodyPublishers.noBody(), null);
+        if (response.statusCode() == 404) {
+            return false;
+        }
+        check(response, "HEAD", key);
+        return true;
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        HttpResponse<String> response = send("DELETE", key, "", HttpRequest.BodyPublishers.noBody(), null);
+        if (response.statusCode() != 404) {
+            check(response, "DELETE", key);
+        }
+    }
+
+    @Override
+    public void forEach(String keyPrefix, Consumer<Entry> action) throws IOException {
+        String continuationToken = null;
+        do {
+            String query = (continuationToken != null ? "continuation-token=" + encode(continuationToken) + "&" : "")
+                    + "list-type=2&prefix=" + encode(prefix + keyPrefix);
+            HttpResponse<String> response = send("GET", "/" + bucket, query, HttpRequest.BodyPublishers.noBody(), null,
+                    HttpResponse.BodyHandlers.ofString());
+            check(response, "LIST", keyPrefix);
+            String xml = response.body();
+            int from = 0;
+            while (true) {
+                int start = xml.indexOf("<Contents>", from);
+                if (start < 0) {
+                    break;
+                }
+                int end = xml.indexOf("</Contents>", start);
+                String contents = xml.substring(start, end);
+                String key = unescape(xmlValue(contents, "Key"));
+                action.accept(new Entry(key.substring(prefix.length()), Long.parseLong(xmlValue(contents, "Size")),
+                        Instant.parse(xmlValue(contents, "LastModified")).toEpochMilli()));
+                from = end;
+            }
+            continuationToken = "true".equals(xmlValue(xml, "IsTruncated"))
+                    ? unescape(xmlValue(xml, "NextContinuationToken"))
+                    : null;
+        } while (continuationToken != null);
+    }
+
+    private void putMultipart(String key, Path file, long size) throws IOException {
+        HttpResponse<String> created = send("POST", key, "uploads=", HttpRequest.BodyPublishers.noBody(), null);
+        check(created, "POST", key);
+        String uploadId = xmlValue(created.body(), "UploadId");
+        if (uploadId == null) {
+            throw new IOException("S3 did not return an upload id for " + key);
+        }
+        String encodedUploadId = encode(uploadId);
+
+        int parts = (int) ((size + partSize - 1) / partSize);
+        String[] etags = new String[parts];
+        Semaphore permits = new Semaphore(uploadConcurrency);
+        List<Future<?>> futures = new ArrayList<>(parts);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < parts; i++) {
+                int part = i;
+                futures.add(executor.submit(() -> {
+                    permits.acquire();
+                    try {
+                        etags[part] = uploadPart(key, encodedUploadId, file, part, size);
+                    } finally {
+                        permits.release();
+                    }
+                    return null;
+                }));
+            }
+            try {
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            } catch (ExecutionException | InterruptedException e) {
+                // Stop the remaining parts rather than waiting for them on close
+                futures.forEach(future -> future.cancel(true));
+                throw e;
+            }
+        } catch (ExecutionException | InterruptedException e) {
+            abortMultipart(key, encodedUploadId);
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Upload of " + key + " was interrupted");
+            }
+            throw e.getCause() instanceof IOException io ? io : new IOException(e.getCause());
+        }
+
+        StringBuilder body = new StringBuilder("<CompleteMultipartUpload>");
+        for (int i = 0; i < parts; i++) {
+            body.append("<Part><PartNumber>").append(i + 1).append("</PartNumber><ETag>")
+                    .append(etags[i]).append("</ETag></Part>");
+        }
+        body.append("</CompleteMultipartUpload>");
+        HttpResponse<String> completed = send("POST", key, "uploadId=" + encodedUploadId,
+                HttpRequest.BodyPublishers.ofString(body.toString()), null);
+        // S3 can report a failed completion inside a 200 response
+        if (completed.statusCode() != 200 || completed.body().contains("<Error>")) {
+            abortMultipart(key, encodedUploadId);
+            throw new IOException("S3 multipart upload of " + key + " failed with status " + completed.statusCode());
+        }
+    }
+
+    private String uploadPart(String key, String encodedUploadId, Path file, int part, long size) throws IOException {
+        long start = part * partSize;
+        byte[] bytes;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            channel.position(start);
+            bytes = Channels.newInputStream(channel).readNBytes((int) Math.min(partSize, size - start));
+        }
+        HttpResponse<String> response = send("PUT", key, "partNumber=" + (part + 1) + "&uploadId=" + encodedUploadId,
+                HttpRequest.BodyPublishers.ofByteArray(bytes), null);
+        check(response, "PUT part " + (part + 1) + " of", key);
+        return response.headers().firstValue("ETag")
+                .orElseThrow(() -> new IOException("S3 returned no ETag for part " + (part + 1) + " of " + key));
+    }
+
+    private void abortMultipart(String key, String encodedUploadId) {
+        try {
+            send("DELETE", key, "uploadId=" + encodedUploadId, HttpRequest.BodyPublishers.noBody(), null);
+        } catch (IOException e) {
+            // The bucket's lifecycle rule for incomplete uploads cleans up what is left
+        }
+    }
+
+    private HttpResponse<String> send(String method, String key, String query, HttpRequest.BodyPublisher body,
+            String range) throws IOException {
+        return send(method, objectPath(key), query, body, range, HttpResponse.BodyHandlers.ofString());
+    }
+
+    /**
+     * path must already be URI-encoded, and query in canonical form: parameters sorted by name and URI-encoded.
+     */
+    private <T> HttpResponse<T> send(String method, String path, String query, HttpRequest.BodyPublisher body,
+            String range, HttpResponse.BodyHandler<T> handler) throws IOException {
+        String amzDate = AMZ_DATE.format(Instant.now());
+        URI uri = URI.create(endpoint + path + (query.isEmpty() ? "" : "?" + query));
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri)
+                .method(method, body)
+                .header("x-amz-date", amzDate)
+                .header("x-amz-content-sha256", UNSIGNED_PAYLOAD)
+                .header("Authorization", authorization(method, path, query, amzDate));
+        if (range != null) {
+            request.header("Range", range);
+        }
+        try {
+            return client.send(request.build(), handler);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("S3 " + method + " " + path + " was interrupted");
+        }
+    }
+
+    /**
+     * The Authorization header for a request carrying only the headers this store signs.
+     */
+    String authorization(String method, String path, String query, String amzDate) {
+        String host = endpoint.getPort() == -1 ? endpoint.getHost() : endpoint.getHost() + ":" + endpoint.getPort();
+        SortedMap<String, String> headers = new TreeMap<>();
+        headers.put("host", host);
+        headers.put("x-amz-content-sha256", UNSIGNED_PAYLOAD);
+        headers.put("x-amz-date", amzDate);
+        String signature = signature(secretKey, region, amzDate,
+                canonicalRequest(method, path, query, headers, UNSIGNED_PAYLOAD));
+        return "AWS4-HMAC-SHA256 Credential=" + accessKey + "/" + amzDate.substring(0, 8) + "/" + region
+                + "/s3/aws4_request, SignedHeaders=" + SIGNED_HEADERS + ", Signature=" + signature;
+    }
+
+    /**
+     * SigV4 canonical request. headers are keyed by lower-case name; every one of them is signed.
+     */
+    static String canonicalRequest(String method, String path, String query, SortedMap<String, String> headers,
+            String payloadHash) {
+        StringBuilder canonical = new StringBuilder(method).append('\n').append(path).append('\n')
+                .append(query).append('\n');
+        headers.forEach((name, value) -> canonical.append(name).append(':').append(value.trim()).append('\n'));
+        return canonical.append('\n').append(String.join(";", headers.keySet())).append('\n')
+                .append(payloadHash).toString();
+    }
+
+    /**
+     * Hex SigV4 signature of a canonical request for S3 in the region, at amzDate (yyyyMMdd'T'HHmmss'Z').
+     */
+    static String signature(String secretKey, String region, String amzDate, String canonicalRequest) {
+        String date = amzDate.substring(0, 8);
+        String scope = date + "/" + region + "/s3/aws4_request";
+        String stringToSign = "AWS4-HMAC-SHA256\n" + amzDate + "\n" + scope + "\n" + sha256Hex(canonicalRequest);
+
+        byte[] signingKey = hmac(("AWS4" + secretKey).getBytes(StandardCharsets.UTF_8), date);
+        signingKey = hmac(signingKey, region);
+        signingKey = hmac(signingKey, "s3");
+        signingKey = hmac(signingKey, "aws4_request");
+        return HexFormat.of().formatHex(hmac(signingKey, stringToSign));
+    }
+
+    private static void check(HttpResponse<?> response, String operation, String key) throws IOException {
+        int status = response.statusCode();
+        if (status < 200 || status >= 300) {
+            throw new IOException("S3 " + operation + " " + key + " failed with status " + status);
+        }
+    }
+
+    private static String xmlValue(String xml, String element) {
+        int start = xml.indexOf("<" + element + ">");
+        int end = xml.indexOf("</" + element + ">");
+        return start >= 0 && end > start ? xml.substring(start + element.length() + 2, end) : null;
+    }
+
+    private String objectPath(String key) {
+        return "/" + bucket + "/" + encodePath(prefix + key);
+    }
+
+    private static String unescape(String xml) {
+        return xml.replace("&lt;", "<").replace("&gt;", ">").replace("&quot;", "\"").replace("&apos;", "'")
+                .replace("&amp;", "&");
+    }
+
+    private static String encodePath(String path) {
+        StringBuilder encoded = new StringBuilder();
+        for (String segment : path.split("/", -1)) {
+            if (!encoded.isEmpty()) {
+                encoded.append('/');
+            }
+            encoded.append(encode(segment));
+        }
+        return encoded.toString();
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8)
+                .replace("+", "%20").replace("*", "%2A").replace("%7E", "~");
+    }
+
+    private static String sha256Hex(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] hmac(byte[] key, String value) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(key, "HmacSHA256"));
+            return mac.doFinal(value.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.HMS.Hospitalmanagement.storage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Gzip as the content store writes it: one ordinary gzip member whose deflate stream is fully
+ * flushed after every CHUNK_SIZE bytes of input. A full flush resets the compressor, so
+ * inflating can start afresh at any chunk boundary; the compressed offsets of the boundaries
+ * (8 bytes each, chunk 0 first) form the index kept with the blob. A range read then inflates
+ * at most one chunk it does not send, instead of everything before the range.
+ */
+final class SeekableGzip {
+
+    static final int CHUNK_SIZE = 1024 * 1024;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final byte[] HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0};
+
+    /**
+     * Where the stored bytes of a blob can be read from a compressed offset on.
+     */
+    interface Source {
+        InputStream open(long offset) throws IOException;
+    }
+
+    private SeekableGzip() {
+    }
+
+    /**
+     * Gzips the content into out and returns the chunk index.
+     */
+    static byte[] write(InputStream in, OutputStream out) throws IOException {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        CRC32 crc = new CRC32();
+        ByteArrayOutputStream index = new ByteArrayOutputStream();
+        DataOutputStream offsets = new DataOutputStream(index);
+        byte[] input = new byte[BUFFER_SIZE];
+        byte[] output = new byte[BUFFER_SIZE];
+        try {
+            out.write(HEADER);
+            long written = HEADER.length;
+            long total = 0;
+            int n;
+            while ((n = in.readNBytes(input, 0, (int) Math.min(input.length, CHUNK_SIZE - total % CHUNK_SIZE))) > 0) {
+                if (total % CHUNK_SIZE == 0) {
+                    offsets.writeLong(written);
+                }
+                crc.update(input, 0, n);
+                deflater.setInput(input, 0, n);
+                while (!deflater.needsInput()) {
+                    written += drain(deflater, output, out, Deflater.NO_FLUSH);
+                }
+                total += n;
+                if (total % CHUNK_SIZE == 0) {
+                    int count;
+                    do {
+                        count = drain(deflater, output, out, Deflater.FULL_FLUSH);
+                        written += count;
+                    } while (count == output.length);
+                }
+            }
+            deflater.finish();
+            while (!deflater.finished()) {
+                drain(deflater, output, out, Deflater.NO_FLUSH);
+            }
+            ByteBuffer trailer = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+            trailer.putInt((int) crc.getValue()).putInt((int) total);
+            out.write(trailer.array());
+        } finally {
+            deflater.end();
+        }
+        return index.toByteArray();
+    }
+
+    /**
+     * Opens the plain content at the given offset. Without an index (blobs compressed before the
+     * index was kept) it inflates from the start and skips up to the offset.
+     */
+    static InputStream open(Source source, byte[] index, long offset) throws IOException {
+        int chunks = index != null ? index.length / Long.BYTES : 0;
+        int chunk = (int) Math.min(offset / CHUNK_SIZE, chunks - 1L);
+        InputStream in;
+        long skip;
+        if (chunk <= 0) {
+            in = new GZIPInputStream(source.open(0), BUFFER_SIZE);
+            skip = offset;
+        } else {
+            in = new RawInflaterInputStream(source.open(ByteBuffer.wrap(index, chunk * Long.BYTES, Long.BYTES)
+                    .getLong()));
+            skip = offset - (long) chunk * CHUNK_SIZE;
+        }
+        try {
+            in.skipNBytes(skip);
+            return in;
+        } catch (IOException | RuntimeException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    private static int drain(Deflater deflater, byte[] output, OutputStream out, int flush) throws IOException {
+        int count = deflater.deflate(output, 0, output.length, flush);
+        out.write(output, 0, count);
+        return count;
+    }
+
+    /**
+     * Inflates a deflate stream without gzip framing, releasing the native inflater on close.
+     */
+    private static final class RawInflaterInputStream extends InflaterInputStream {
+
+        RawInflaterInputStream(InputStream in) {
+            super(in, new Inflater(true), BUFFER_SIZE);
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                inf.end();
+            }
+        }
+    }
+}
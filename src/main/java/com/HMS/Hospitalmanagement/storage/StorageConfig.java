@@ -0,0 +1,28 @@
+package com.HMS.Hospitalmanagement.storage;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class StorageConfig {
+
+    @Bean
+    public BlobStore blobStore(@Value("${hms.storage.backend:local}") String backend,
+            @Value("${hms.storage.s3.endpoint:http://localhost:9000}") String endpoint,
+            @Value("${hms.storage.s3.bucket:hms-uploads}") String bucket,
+            @Value("${hms.storage.s3.region:us-east-1}") String region,
+            @Value("${hms.storage.s3.access-key:}") String accessKey,
+            @Value("${hms.storage.s3.secret-key:}") String secretKey,
+            @Value("${hms.storage.s3.prefix:blobs/}") String prefix,
+            @Value("${hms.storage.s3.part-size:16777216}") long partSize,
+            @Value("${hms.storage.s3.upload-concurrency:4}") int uploadConcurrency) {
+        return switch (backend) {
+            case "local" -> new LocalBlobStore(ContentStore.ROOT);
+            case "memory" -> new InMemoryBlobStore();
+            case "s3" -> new S3BlobStore(endpoint, bucket, region, accessKey, secretKey, prefix, partSize,
+                    uploadConcurrency);
+            default -> throw new IllegalStateException("Unknown hms.storage.backend: " + backend);
+        };
+    }
+}
@@ -0,0 +1,37 @@
+package com.HMS.Hospitalmanagement.storage;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/storage")
+public class StorageController {
+
+    private final StorageMigrationService migrationService;
+    private final StorageReconciler reconciler;
+
+    @Autowired
+    public StorageController(StorageMigrationService migrationService, StorageReconciler reconciler) {
+        this.migrationService = migrationService;
+        this.reconciler = reconciler;
+    }
+
+    @PostMapping("/migrate")
+    public ResponseEntity<MigrationResult> migrate() {
+        try {
+            return ResponseEntity.ok(migrationService.migrate());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(409).build();
+        }
+    }
+
+    @PostMapping("/reconcile")
+    public ResponseEntity<ReconcileResult> reconcile(@RequestParam(defaultValue = "false") boolean repair) {
+        try {
+            return ResponseEntity.ok(reconciler.reconcile(repair));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(409).build();
+        }
+    }
+}
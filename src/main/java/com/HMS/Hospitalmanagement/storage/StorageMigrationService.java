@@ -0,0 +1,187 @@
+package com.HMS.Hospitalmanagement.storage;
+
+import com.HMS.Hospitalmanagement.doctor.Doctor;
+import com.HMS.Hospitalmanagement.doctor.DoctorEvent;
+import com.HMS.Hospitalmanagement.doctor.DoctorRepository;
+import com.HMS.Hospitalmanagement.report.LabReport;
+import com.HMS.Hospitalmanagement.report.LabReportRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * One-off move of files stored before the content store existed (uploads/UUID_name,
+ * uploads/doctors/, uploads/certificates/) into it. Duplicates collapse into one blob.
+ * Each report's hash is saved before its file is moved, so a rerun after a crash can
+ * finish a report whose file was already moved. Blobs that predate compression are
+ * compressed in a last pass. Safe to run more than once.
+ */
+@Service
+public class StorageMigrationService {
+
+    private static final String LEGACY_URL_PREFIX = "/uploads/";
+    private static final int UUID_PREFIX_LENGTH = 37;
+
+    private final LabReportRepository labReportRepository;
+    private final DoctorRepository doctorRepository;
+    private final ContentStore contentStore;
+    private final StoredBlobRepository storedBlobRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    @Autowired
+    public StorageMigrationService(LabReportRepository labReportRepository,
+            DoctorRepository doctorRepository,
+            ContentStore contentStore,
+            StoredBlobRepository storedBlobRepository,
+            ApplicationEventPublisher eventPublisher) {
+        this.labReportRepository = labReportRepository;
+        this.doctorRepository = doctorRepository;
+        this.contentStore = contentStore;
+        this.storedBlobRepository = storedBlobRepository;
+        this.eventPublisher = eventPublisher;
+    }
+
+    public MigrationResult migrate() {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("Storage migration is already running");
+        }
+        long started = System.currentTimeMillis();
+        MigrationResult result = new MigrationResult();
+        try {
+            migrateReports(result);
+            migrateDoctors(result);
+            compressBlobs(result);
+        } catch (IOException e) {
+            throw new RuntimeException("Storage migration failed. Error: " + e.getMessage());
+        } finally {
+            running.set(false);
+        }
+        result.setDurationMs(System.currentTimeMillis() - started);
+        return result;
+    }
+
+    private void migrateReports(MigrationResult result) throws IOException {
+        long afterId = 0;
+        while (true) {
+            List<LabReport> batch = labReportRepository.findTop500ByIdGreaterThanOrderByIdAsc(afterId);
+            if (batch.isEmpty()) {
+                return;
+            }
+            for (LabReport report : batch) {
+                Path legacy = report.getFilePath() != null
+                        ? Paths.get(report.getFilePath())
+                        : Paths.get("uploads", report.getFileName());
+                if (contentStore.isStored(legacy)) {
+                    continue;
+                }
+                if (!Files.exists(legacy)) {
+                    // Moved by an interrupted earlier run. Taking another reference may over-count by one,
+                    // which only keeps the blob longer; under-counting could delete it while still in use.
+                    if (report.getContentHash() != null && contentStore.retain(report.getContentHash())) {
+                        report.setFileName(originalName(report.getFileName()));
+                        pointAtBlob(report, report.getContentHash());
+                        result.setReports(result.getReports() + 1);
+                    } else {
+                        result.setMissingFiles(result.getMissingFiles() + 1);
+                    }
+                    continue;
+                }
+                String hash = FileSender.sha256(legacy);
+                report.setContentHash(hash);
+                labReportRepository.save(report);
+                String originalName = originalName(report.getFileName());
+                result.setBytesFreed(result.getBytesFreed() + adopt(legacy, hash, FileSender.contentTypeOf(originalName)));
+                report.setFileName(originalName);
+                pointAtBlob(report, hash);
+                result.setReports(result.getReports() + 1);
+            }
+            afterId = batch.get(batch.size() - 1).getId();
+        }
+    }
+
+    private void migrateDoctors(MigrationResult result) throws IOException {
+        for (Doctor doctor : doctorRepository.findAll()) {
+            String imageUrl = migrateUrl(doctor.getImageUrl(), result);
+            String certificateUrl = migrateUrl(doctor.getCertificateUrl(), result);
+            if (imageUrl != null || certificateUrl != null) {
+                if (imageUrl != null) {
+                    doctor.setImageUrl(imageUrl);
+                }
+                if (certificateUrl != null) {
+                    doctor.setCertificateUrl(certificateUrl);
+                }
+                eventPublisher.publishEvent(new DoctorEvent(DoctorEvent.Type.UPDATED, doctorRepository.save(doctor)));
+            }
+        }
+    }
+
+    /**
+     * Compresses blobs stored before compression was introduced; ones that do not qualify are left as they are.
+     */
+    private void compressBlobs(MigrationResult result) throws IOException {
+        String afterHash = "";
+        while (true) {
+            List<StoredBlob> batch =
+                    storedBlobRepository.findTop500ByEncodingIsNullAndHashGreaterThanOrderByHashAsc(afterHash);
+            if (batch.isEmpty()) {
+                return;
+            }
+            for (StoredBlob blob : batch) {
+                long saved = contentStore.compressStored(blob);
+                if (saved > 0) {
+                    result.setCompressedBlobs(result.getCompressedBlobs() + 1);
+                    result.setBytesFreed(result.getBytesFreed() + saved);
+                }
+            }
+            afterHash = batch.get(batch.size() - 1).getHash();
+        }
+    }
+
+    /**
+     * Returns the content URL for a legacy upload URL, or null when there is nothing to migrate.
+     */
+    private String migrateUrl(String url, MigrationResult result) throws IOException {
+        if (url == null || !url.startsWith(LEGACY_URL_PREFIX) || ContentStore.hashFromUrl(url) != null) {
+            return null;
+        }
+        Path legacy = Paths.get(url.substring(1));
+        if (!Files.exists(legacy)) {
+            result.setMissingFiles(result.getMissingFiles() + 1);
+            return null;
+        }
+        String hash = FileSender.sha256(legacy);
+        result.setBytesFreed(result.getBytesFreed()
+                + adopt(legacy, hash, FileSender.contentTypeOf(legacy.getFileName().toString())));
+        result.setDoctorFiles(result.getDoctorFiles() + 1);
+        return ContentStore.urlOf(hash);
+    }
+
+    /**
+     * Adopts the file and returns the number of bytes saved (its size if the content was already stored).
+     */
+    private long adopt(Path file, String hash, String contentType) throws IOException {
+        long size = Files.size(file);
+        boolean duplicate = contentStore.find(hash).isPresent();
+        contentStore.adopt(file, hash, contentType);
+        return duplicate ? size : 0;
+    }
+
+    private void pointAtBlob(LabReport report, String hash) {
+        report.setFilePath(contentStore.pathOf(hash).toString());
+        labReportRepository.save(report);
+    }
+
+    private static String originalName(String storedName) {
+        return storedName != null && storedName.length() > UUID_PREFIX_LENGTH && storedName.charAt(36) == '_'
+                ? storedName.substring(UUID_PREFIX_LENGTH)
+                : storedName;
+    }
+}
@@ -0,0 +1,455 @@
+package com.HMS.Hospitalmanagement.storage;
+
+import com.HMS.Hospitalmanagement.doctor.DoctorEvent;
+import com.HMS.Hospitalmanagement.doctor.DoctorRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Finds where stored files and the database disagree and, when repairing, fixes what can be fixed
+ * safely. References from lab_reports and doctors are counted in id-ordered batches. The blob store
+ * is then walked in parallel, one task per top-level key prefix, each batch of objects checked
+ * against stored_blobs in one query, and finally stored_blobs is compared with both.
+ * Orphaned objects, unreferenced legacy files under uploads/ and stale upload temp files are only
+ * deleted once older than the grace period, which must exceed hms.reports.upload-expiry-hours.
+ * Every batch is followed by a pause so the job does not compete with requests for the database.
+ */
+@Service
+public class StorageReconciler {
+
+    private static final int KEY_PREFIXES = 256;
+    private static final Pattern BLOB_KEY = Pattern.compile("([0-9a-f]{2})/([0-9a-f]{2})/(\\1\\2[0-9a-f]{60})(\\.gz)?");
+    private static final Path LEGACY_ROOT = Paths.get("uploads");
+    private static final String LEGACY_URL_PREFIX = "/uploads/";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ContentStore contentStore;
+    private final BlobStore blobStore;
+    private final DoctorRepository doctorRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${hms.storage.reconcile-grace-hours:48}")
+    private long graceHours;
+
+    @Value("${hms.storage.reconcile-batch-size:500}")
+    private int batchSize;
+
+    @Value("${hms.storage.reconcile-pause-ms:50}")
+    private long pauseMs;
+
+    @Value("${hms.storage.reconcile-parallelism:4}")
+    private int parallelism;
+
+    @Value("${hms.storage.reconcile-repair:false}")
+    private boolean scheduledRepair;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    @Autowired
+    public StorageReconciler(JdbcTemplate jdbcTemplate,
+            ContentStore contentStore,
+            BlobStore blobStore,
+            DoctorRepository doctorRepository,
+            ApplicationEventPublisher eventPublisher) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.contentStore = contentStore;
+        this.blobStore = blobStore;
+        this.doctorRepository = doctorRepository;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Scheduled(cron = "${hms.storage.reconcile-cron:0 0 4 * * *}")
+    public void runScheduled() {
+        try {
+            reconcile(scheduledRepair);
+        } catch (IllegalStateException e) {
+            // A manual run is in progress
+        }
+    }
+
+    /**
+     * With repair false only reports; nothing is changed.
+     */
+    public ReconcileResult reconcile(boolean repair) {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("Storage reconciliation is already running");
+        }
+        long started = System.currentTimeMillis();
+        LocalDateTime startedAt = LocalDateTime.now();
+        LocalDateTime graceCutoff = startedAt.minusHours(graceHours);
+        ReconcileResult result = new ReconcileResult();
+        result.setRepair(repair);
+        Scan scan = new Scan();
+        try {
+            countReportReferences(scan, result);
+            countDoctorReferences(scan, result);
+            walkObjects(scan, result, repair, toMillis(graceCutoff));
+            compareBlobs(scan, result, repair, startedAt, graceCutoff);
+            resolveDangling(scan, result, repair);
+            sweepLegacyFiles(scan, result, repair, toMillis(graceCutoff));
+            sweepTempFiles(result, repair, toMillis(graceCutoff));
+        } catch (IOException e) {
+            throw new RuntimeException("Storage reconciliation failed. Error: " + e.getMessage());
+        } finally {
+            running.set(false);
+        }
+        result.setDurationMs(System.currentTimeMillis() - started);
+        return result;
+    }
+
+    private void countReportReferences(Scan scan, ReconcileResult result) {
+        long afterId = 0;
+        while (true) {
+            List<ReportRow> batch = jdbcTemplate.query(
+                    "SELECT id, content_hash, file_path, file_name FROM lab_reports WHERE id > ? ORDER BY id LIMIT ?",
+                    (rs, rowNum) -> new ReportRow(rs.getLong("id"), rs.getString("content_hash"),
+                            rs.getString("file_path"), rs.getString("file_name")),
+                    afterId, batchSize);
+            if (batch.isEmpty()) {
+                return;
+            }
+            for (ReportRow report : batch) {
+                result.setScannedReferences(result.getScannedReferences() + 1);
+                Path file = report.filePath() != null ? Paths.get(report.filePath())
+                        : report.fileName() != null ? LEGACY_ROOT.resolve(report.fileName()) : null;
+                if (file != null && contentStore.isStored(file)) {
+                    if (report.contentHash() != null) {
+                        scan.references.computeIfAbsent(report.contentHash(), k -> new int[2])[0]++;
+                    }
+                    continue;
+                }
+                if (file != null) {
+                    scan.legacyFiles.add(file.toAbsolutePath().normalize());
+                }
+                if (file == null || !Files.exists(file)) {
+                    result.setDanglingReports(result.getDanglingReports() + 1);
+                }
+            }
+            afterId = batch.get(batch.size() - 1).id();
+            pause();
+        }
+    }
+
+    private void countDoctorReferences(Scan scan, ReconcileResult result) {
+        long afterId = 0;
+        while (true) {
+            List<DoctorRow> batch = jdbcTemplate.query(
+                    "SELECT id, photo_url, image_url, card_image_url, thumbnail_url, certificate_url FROM doctors "
+                            + "WHERE id > ? ORDER BY id LIMIT ?",
+                    (rs, rowNum) -> new DoctorRow(rs.getLong("id"), rs.getString("photo_url"),
+                            rs.getString("image_url"), rs.getString("card_image_url"), rs.getString("thumbnail_url"),
+                            rs.getString("certificate_url")),
+                    afterId, batchSize);
+            if (batch.isEmpty()) {
+                return;
+            }
+            for (DoctorRow doctor : batch) {
+                countDoctorFile(scan, result, doctor.id(), "photo_url", doctor.photoUrl());
+                countDoctorFile(scan, result, doctor.id(), "image_url", doctor.imageUrl());
+                countDoctorFile(scan, result, doctor.id(), "card_image_url", doctor.cardImageUrl());
+                countDoctorFile(scan, result, doctor.id(), "thumbnail_url", doctor.thumbnailUrl());
+                countDoctorFile(scan, result, doctor.id(), "certificate_url", doctor.certificateUrl());
+            }
+            afterId = batch.get(batch.size() - 1).id();
+            pause();
+        }
+    }
+
+    private void countDoctorFile(Scan scan, ReconcileResult result, long doctorId, String column, String url) {
+        if (url == null || !url.startsWith(LEGACY_URL_PREFIX)) {
+            return;
+        }
+        result.setScannedReferences(result.getScannedReferences() + 1);
+        String hash = ContentStore.hashFromUrl(url);
+        if (hash != null) {
+            scan.references.computeIfAbsent(hash, k -> new int[2])[1]++;
+            scan.doctorFiles.add(new DoctorFile(doctorId, column, url, hash));
+            return;
+        }
+        Path file = Paths.get(url.substring(1));
+        scan.legacyFiles.add(file.toAbsolutePath().normalize());
+        if (!Files.exists(file)) {
+            scan.doctorFiles.add(new DoctorFile(doctorId, column, url, null));
+        }
+    }
+
+    private void walkObjects(Scan scan, ReconcileResult result, boolean repair, long graceCutoff) throws IOException {
+        List<Future<long[]>> futures = new ArrayList<>(KEY_PREFIXES);
+        try (ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, parallelism),
+                Thread.ofVirtual().factory())) {
+            for (int i = 0; i < KEY_PREFIXES; i++) {
+                String prefix = String.format("%02x/", i);
+                futures.add(executor.submit(() -> walkPrefix(prefix, scan, repair, graceCutoff)));
+            }
+            try {
+                for (Future<long[]> future : futures) {
+                    long[] counts = future.get();
+                    result.setScannedObjects(result.getScannedObjects() + counts[0]);
+                    result.setOrphanedObjects(result.getOrphanedObjects() + counts[1]);
+                    result.setDeletedObjects(result.getDeletedObjects() + counts[2]);
+                }
+            } catch (ExecutionException | InterruptedException e) {
+                // Stop the remaining prefixes rather than waiting for them on close
+                futures.forEach(future -> future.cancel(true));
+                throw e;
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            throw new RuntimeException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Storage reconciliation was interrupted");
+        }
+    }
+
+    /**
+     * Returns the number of objects scanned, found orphaned and deleted under one key prefix.
+     */
+    private long[] walkPrefix(String prefix, Scan scan, boolean repair, long graceCutoff) throws IOException {
+        long[] counts = new long[3];
+        List<BlobStore.Entry> batch = new ArrayList<>(batchSize);
+        blobStore.forEach(prefix, entry -> {
+            batch.add(entry);
+            if (batch.size() >= batchSize) {
+                checkObjects(batch, scan, repair, graceCutoff, counts);
+                batch.clear();
+                pause();
+            }
+        });
+        if (!batch.isEmpty()) {
+            checkObjects(batch, scan, repair, graceCutoff, counts);
+        }
+        return counts;
+    }
+
+    private void checkObjects(List<BlobStore.Entry> batch, Scan scan, boolean repair, long graceCutoff,
+            long[] counts) {
+        Set<String> hashes = new HashSet<>();
+        for (BlobStore.Entry entry : batch) {
+            String hash = hashOf(entry.key());
+            if (hash != null) {
+                hashes.add(hash);
+            }
+        }
+        Map<String, String> storedKeys = new HashMap<>();
+        if (!hashes.isEmpty()) {
+            String placeholders = String.join(",", Collections.nCopies(hashes.size(), "?"));
+            jdbcTemplate.query("SELECT hash, encoding FROM stored_blobs WHERE hash IN (" + placeholders + ")",
+                    rs -> {
+                        String hash = rs.getString("hash");
+                        storedKeys.put(hash, ContentStore.GZIP.equals(rs.getString("encoding"))
+                                ? ContentStore.gzipKeyOf(hash) : ContentStore.keyOf(hash));
+                    }, hashes.toArray());
+        }
+        for (BlobStore.Entry entry : batch) {
+            String hash = hashOf(entry.key());
+            if (hash == null) {
+                // Not something the content store wrote; left alone
+                continue;
+            }
+            counts[0]++;
+            if (entry.key().equals(storedKeys.get(hash))) {
+                scan.seenObjects.add(hash);
+                continue;
+            }
+            counts[1]++;
+            if (repair && entry.lastModified() < graceCutoff && contentStore.removeOrphan(entry.key())) {
+                counts[2]++;
+            }
+        }
+    }
+
+    private void compareBlobs(Scan scan, ReconcileResult result, boolean repair, LocalDateTime startedAt,
+            LocalDateTime graceCutoff) {
+        String afterHash = "";
+        while (true) {
+            List<BlobRow> batch = jdbcTemplate.query(
+                    "SELECT hash, ref_count, created_at FROM stored_blobs WHERE hash > ? ORDER BY hash LIMIT ?",
+                    (rs, rowNum) -> {
+                        Timestamp createdAt = rs.getTimestamp("created_at");
+                        return new BlobRow(rs.getString("hash"), rs.getLong("ref_count"),
+                                createdAt != null ? createdAt.toLocalDateTime() : null);
+                    },
+                    afterHash, batchSize);
+            if (batch.isEmpty()) {
+                break;
+            }
+            for (BlobRow blob : batch) {
+                int[] references = scan.references.remove(blob.hash());
+                if (blob.createdAt() != null && !blob.createdAt().isBefore(startedAt)) {
+                    // Stored after the references were counted
+                    continue;
+                }
+                long actual = references != null ? references[0] + references[1] : 0;
+                if (!scan.seenObjects.contains(blob.hash())) {
+                    result.setMissingObjects(result.getMissingObjects() + 1);
+                    if (references != null) {
+                        scan.lost.put(blob.hash(), references);
+                    }
+                }
+                if (actual != blob.refCount()) {
+                    result.setRefCountMismatches(result.getRefCountMismatches() + 1);
+                    if (repair && contentStore.correctRefCount(blob.hash(), blob.refCount(), actual, graceCutoff)) {
+                        result.setRefCountsCorrected(result.getRefCountsCorrected() + 1);
+                    }
+                }
+            }
+            afterHash = batch.get(batch.size() - 1).hash();
+            pause();
+        }
+        // What is left is referenced but has no stored_blobs row at all
+        scan.lost.putAll(scan.references);
+    }
+
+    /**
+     * Counts references whose content is gone. Doctor photos and certificates that point at nothing
+     * are cleared on repair so the UI falls back to its placeholder; reports are only reported.
+     */
+    private void resolveDangling(Scan scan, ReconcileResult result, boolean repair) {
+        for (int[] references : scan.lost.values()) {
+            result.setDanglingReports(result.getDanglingReports() + references[0]);
+        }
+        for (DoctorFile file : scan.doctorFiles) {
+            if (file.hash() != null && !scan.lost.containsKey(file.hash())) {
+                continue;
+            }
+            result.setDanglingDoctorFiles(result.getDanglingDoctorFiles() + 1);
+            if (repair && jdbcTemplate.update("UPDATE doctors SET " + file.column() + " = NULL WHERE id = ? AND "
+                    + file.column() + " = ?", file.doctorId(), file.url()) > 0) {
+                result.setClearedDoctorFiles(result.getClearedDoctorFiles() + 1);
+                doctorRepository.findById(file.doctorId()).ifPresent(doctor ->
+                        eventPublisher.publishEvent(new DoctorEvent(DoctorEvent.Type.UPDATED, doctor)));
+                if (file.hash() != null) {
+                    contentStore.release(file.hash());
+                }
+            }
+        }
+    }
+
+    /**
+     * Files outside the content store that no report or doctor points at any more.
+     */
+    private void sweepLegacyFiles(Scan scan, ReconcileResult result, boolean repair, long graceCutoff)
+            throws IOException {
+        if (!Files.isDirectory(LEGACY_ROOT)) {
+            return;
+        }
+        Path blobRoot = ContentStore.ROOT.toAbsolutePath().normalize();
+        Files.walkFileTree(LEGACY_ROOT, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                return dir.toAbsolutePath().normalize().equals(blobRoot)
+                        ? FileVisitResult.SKIP_SUBTREE
+                        : FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                if (scan.legacyFiles.contains(file.toAbsolutePath().normalize())) {
+                    return FileVisitResult.CONTINUE;
+                }
+                result.setOrphanedLegacyFiles(result.getOrphanedLegacyFiles() + 1);
+                if (repair && attrs.lastModifiedTime().toMillis() < graceCutoff) {
+                    Files.deleteIfExists(file);
+                    result.setDeletedLegacyFiles(result.getDeletedLegacyFiles() + 1);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    /**
+     * Temp files left by uploads that crashed or were abandoned; live upload sessions touch theirs on every chunk.
+     */
+    private void sweepTempFiles(ReconcileResult result, boolean repair, long graceCutoff) throws IOException {
+        if (!repair || !Files.isDirectory(ContentStore.INCOMING)) {
+            return;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(ContentStore.INCOMING)) {
+            for (Path file : files) {
+                if (Files.isRegularFile(file) && Files.getLastModifiedTime(file).toMillis() < graceCutoff) {
+                    Files.deleteIfExists(file);
+                    result.setDeletedTempFiles(result.getDeletedTempFiles() + 1);
+                }
+            }
+        }
+    }
+
+    private void pause() {
+        if (pauseMs <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(pauseMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static String hashOf(String key) {
+        Matcher matcher = BLOB_KEY.matcher(key);
+        return matcher.matches() ? matcher.group(3) : null;
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static class Scan {
+        // hash -> {report references, doctor references}
+        final Map<String, int[]> references = new HashMap<>();
+        final Map<String, int[]> lost = new HashMap<>();
+        final List<DoctorFile> doctorFiles = new ArrayList<>();
+        final Set<Path> legacyFiles = new HashSet<>();
+        final Set<String> seenObjects = ConcurrentHashMap.newKeySet();
+    }
+
+    private record ReportRow(long id, String contentHash, String filePath, String fileName) {
+    }
+
+    private record DoctorRow(long id, String photoUrl, String imageUrl, String cardImageUrl, String thumbnailUrl,
+            String certificateUrl) {
+    }
+
+    /**
+     * A doctor file that is either a content-store blob (hash set) or a missing legacy file (hash null).
+     */
+    private record DoctorFile(long doctorId, String column, String url, String hash) {
+    }
+
+    private record BlobRow(String hash, long refCount, LocalDateTime createdAt) {
+    }
+}
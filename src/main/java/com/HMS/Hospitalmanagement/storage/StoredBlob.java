@@ -0,0 +1,43 @@
+package com.HMS.Hospitalmanagement.storage;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Lob;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A file in the content store, keyed by the SHA-256 of its bytes. refCount is the number
+ * of reports and doctor photos/certificates pointing at it; the file goes when it reaches zero.
+ * size is the content length; storedSize is what it takes on disk, which is smaller when
+ * encoding is "gzip", and gzipIndex then holds the SeekableGzip chunk offsets (null for
+ * blobs compressed before it was kept). retainedAt is when the last reference was taken.
+ */
+@Entity
+@Table(name = "stored_blobs")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StoredBlob {
+
+    @Id
+    private String hash;
+
+    private long size;
+    private String contentType;
+    private String encoding;
+    private Long storedSize;
+
+    @Lob
+    @Column(name = "gzip_index")
+    private byte[] gzipIndex;
+
+    private long refCount;
+    private LocalDateTime createdAt;
+    private LocalDateTime retainedAt;
+}
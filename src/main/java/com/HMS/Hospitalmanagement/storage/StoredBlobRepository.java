@@ -0,0 +1,11 @@
+package com.HMS.Hospitalmanagement.storage;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface StoredBlobRepository extends JpaRepository<StoredBlob, String> {
+    List<StoredBlob> findTop500ByEncodingIsNullAndHashGreaterThanOrderByHashAsc(String hash);
+}
@@ -0,0 +1,57 @@
+package com.HMS.Hospitalmanagement.storage;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Optional;
+
+/**
+ * Serves files under uploads/ (doctor photos, certificates, report files) through
+ * FileSender, so they get the same range, ETag and sendfile handling as report downloads.
+ * Content-store URLs never change meaning, so they are cached as immutable.
+ */
+@RestController
+public class StoredFileController {
+
+    private static final String CACHE_CONTROL = "public, max-age=3600, must-revalidate";
+    private static final String IMMUTABLE_CACHE_CONTROL = "public, max-age=31536000, immutable";
+
+    private final Path root = Paths.get("uploads").toAbsolutePath().normalize();
+    private final FileSender fileSender;
+    private final ContentStore contentStore;
+
+    @Autowired
+    public StoredFileController(FileSender fileSender, ContentStore contentStore) {
+        this.fileSender = fileSender;
+        this.contentStore = contentStore;
+    }
+
+    @GetMapping("/uploads/{*path}")
+    public void getFile(@PathVariable String path, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        String hash = ContentStore.hashFromUrl("/uploads" + path);
+        if (hash != null) {
+            Optional<StoredBlob> blob = contentStore.find(hash);
+            if (blob.isEmpty()) {
+                response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+                return;
+            }
+            fileSender.sendBlob(request, response, blob.get(), null, null, IMMUTABLE_CACHE_CONTROL);
+            return;
+        }
+
+        Path file = root.resolve(path.startsWith("/") ? path.substring(1) : path).normalize();
+        if (!file.startsWith(root) || contentStore.isStored(file)) {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        fileSender.send(request, response, file, null, null, null, CACHE_CONTROL);
+    }
+}
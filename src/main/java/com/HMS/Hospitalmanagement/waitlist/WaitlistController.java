@@ -0,0 +1,44 @@
+package com.HMS.Hospitalmanagement.waitlist;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/waitlist")
+public class WaitlistController {
+
+    private final WaitlistService waitlistService;
+
+    @Autowired
+    public WaitlistController(WaitlistService waitlistService) {
+        this.waitlistService = waitlistService;
+    }
+
+    @PostMapping
+    public ResponseEntity<?> joinWaitlist(@RequestBody WaitlistEntry entry) {
+        try {
+            return ResponseEntity.ok(waitlistService.join(entry));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping
+    public List<WaitlistEntry> getWaitlist(
+            @RequestParam(required = false) Long doctorId,
+            @RequestParam(required = false) Long patientId) {
+        return waitlistService.getEntries(doctorId, patientId);
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> leaveWaitlist(@PathVariable Long id) {
+        if (waitlistService.leave(id)) {
+            return ResponseEntity.noContent().build();
+        }
+        return ResponseEntity.notFound().build();
+    }
+}
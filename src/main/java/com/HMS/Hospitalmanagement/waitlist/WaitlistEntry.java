@@ -0,0 +1,46 @@
+package com.HMS.Hospitalmanagement.waitlist;
+
+import com.HMS.Hospitalmanagement.doctor.Doctor;
+import com.HMS.Hospitalmanagement.patient.Patient;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "appointment_waitlist", indexes = {
+        @Index(name = "idx_waitlist_status_doctor", columnList = "status, doctor_id, window_start")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WaitlistEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne
+    @JoinColumn(name = "patient_id", nullable = false)
+    private Patient patient;
+
+    @ManyToOne
+    @JoinColumn(name = "doctor_id", nullable = false)
+    private Doctor doctor;
+
+    // Any appointment starting between windowStart and windowEnd (inclusive) is acceptable
+    private LocalDateTime windowStart;
+    private LocalDateTime windowEnd;
+    private String reason;
+
+    @Enumerated(EnumType.STRING)
+    private WaitlistStatus status;
+
+    private LocalDateTime createdAt;
+    private Long bookedAppointmentId;
+
+    public enum WaitlistStatus {
+        WAITING, BOOKED, CANCELLED
+    }
+}
@@ -0,0 +1,15 @@
+package com.HMS.Hospitalmanagement.waitlist;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface WaitlistRepository extends JpaRepository<WaitlistEntry, Long> {
+    List<WaitlistEntry> findByStatusAndWindowEndAfter(WaitlistEntry.WaitlistStatus status, LocalDateTime time);
+
+    List<WaitlistEntry> findByDoctorId(Long doctorId);
+
+    List<WaitlistEntry> findByPatientId(Long patientId);
+}
@@ -0,0 +1,258 @@
+package com.HMS.Hospitalmanagement.waitlist;
+
+import com.HMS.Hospitalmanagement.appointment.Appointment;
+import com.HMS.Hospitalmanagement.appointment.AppointmentEvent;
+import com.HMS.Hospitalmanagement.appointment.AppointmentService;
+import com.HMS.Hospitalmanagement.appointment.AppointmentSummary;
+import com.HMS.Hospitalmanagement.appointment.DoctorSlotIndex;
+import com.HMS.Hospitalmanagement.doctor.Doctor;
+import com.HMS.Hospitalmanagement.doctor.DoctorRepository;
+import com.HMS.Hospitalmanagement.patient.Patient;
+import com.HMS.Hospitalmanagement.patient.PatientRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps patients waiting for a doctor's slot and hands a freed slot to the first
+ * matching one. Waiting entries are indexed in memory per doctor and per day of
+ * their window, in FIFO order, so a cancellation only looks at entries for that day.
+ * Index changes and the auto-booking run under the doctor's DoctorSlotIndex lock,
+ * which also serializes them against regular bookings for that doctor.
+ */
+@Service
+public class WaitlistService {
+
+    private static final Duration MAX_WINDOW = Duration.ofDays(14);
+
+    private final WaitlistRepository waitlistRepository;
+    private final PatientRepository patientRepository;
+    private final DoctorRepository doctorRepository;
+    private final AppointmentService appointmentService;
+    private final DoctorSlotIndex slotIndex;
+    private final TransactionTemplate transactionTemplate;
+
+    // doctorId -> day -> entries whose window covers that day, keyed (and so ordered) by entry id
+    private final Map<Long, Map<LocalDate, NavigableMap<Long, WaitlistEntry>>> waiting = new ConcurrentHashMap<>();
+
+    @Autowired
+    public WaitlistService(WaitlistRepository waitlistRepository,
+            PatientRepository patientRepository,
+            DoctorRepository doctorRepository,
+            AppointmentService appointmentService,
+            DoctorSlotIndex slotIndex,
+            TransactionTemplate transactionTemplate) {
+        this.waitlistRepository = waitlistRepository;
+        this.patientRepository = patientRepository;
+        this.doctorRepository = doctorRepository;
+        this.appointmentService = appointmentService;
+        this.slotIndex = slotIndex;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadWaitingEntries() {
+        for (WaitlistEntry entry : waitlistRepository.findByStatusAndWindowEndAfter(
+                WaitlistEntry.WaitlistStatus.WAITING, LocalDateTime.now())) {
+            Long doctorId = entry.getDoctor().getId();
+            slotIndex.withDoctorLock(doctorId, () -> index(entry));
+        }
+    }
+
+    public WaitlistEntry join(WaitlistEntry entry) {
+        if (entry.getWindowStart() == null || entry.getWindowEnd() == null
+                || entry.getWindowEnd().isBefore(entry.getWindowStart())) {
+            throw new IllegalArgumentException("A valid windowStart and windowEnd are required");
+        }
+        if (Duration.between(entry.getWindowStart(), entry.getWindowEnd()).compareTo(MAX_WINDOW) > 0) {
+            throw new IllegalArgumentException("Waitlist window cannot exceed " + MAX_WINDOW.toDays() + " days");
+        }
+        if (entry.getPatient() != null && entry.getPatient().getId() != null) {
+            Patient patient = patientRepository.findById(entry.getPatient().getId())
+                    .orElseThrow(() -> new RuntimeException(
+                            "Patient not found with ID: " + entry.getPatient().getId()));
+            entry.setPatient(patient);
+        } else {
+            throw new RuntimeException("Patient ID is required");
+        }
+        if (entry.getDoctor() != null && entry.getDoctor().getId() != null) {
+            Doctor doctor = doctorRepository.findById(entry.getDoctor().getId())
+                    .orElseThrow(() -> new RuntimeException(
+                            "Doctor not found with ID: " + entry.getDoctor().getId()));
+            entry.setDoctor(doctor);
+        } else {
+            throw new RuntimeException("Doctor ID is required");
+        }
+
+        entry.setId(null);
+        entry.setStatus(WaitlistEntry.WaitlistStatus.WAITING);
+        entry.setCreatedAt(LocalDateTime.now());
+        entry.setBookedAppointmentId(null);
+        Long doctorId = entry.getDoctor().getId();
+        return slotIndex.withDoctorLock(doctorId, () -> {
+            WaitlistEntry saved = waitlistRepository.save(entry);
+            index(saved);
+            return saved;
+        });
+    }
+
+    public List<WaitlistEntry> getEntries(Long doctorId, Long patientId) {
+        if (doctorId != null) {
+            return waitlistRepository.findByDoctorId(doctorId);
+        }
+        if (patientId != null) {
+            return waitlistRepository.findByPatientId(patientId);
+        }
+        return waitlistRepository.findAll();
+    }
+
+    public boolean leave(Long id) {
+        Optional<WaitlistEntry> found = waitlistRepository.findById(id);
+        if (found.isEmpty()) {
+            return false;
+        }
+        WaitlistEntry entry = found.get();
+        Long doctorId = entry.getDoctor().getId();
+        slotIndex.withDoctorLock(doctorId, () -> {
+            unindex(entry);
+            if (entry.getStatus() == WaitlistEntry.WaitlistStatus.WAITING) {
+                entry.setStatus(WaitlistEntry.WaitlistStatus.CANCELLED);
+                waitlistRepository.save(entry);
+            }
+            return null;
+        });
+        return true;
+    }
+
+    /**
+     * Offers the slot an appointment gave up: a deleted active appointment, or an update that cancelled an
+     * active one or moved it to another time or doctor. Either way the freed slot is the one it held before.
+     */
+    @EventListener
+    public void onAppointmentEvent(AppointmentEvent event) {
+        AppointmentSummary freed = freedSlot(event);
+        if (freed == null || freed.getDoctorId() == null || freed.getAppointmentDate() == null
+                || freed.getAppointmentDate().isBefore(LocalDateTime.now())) {
+            return;
+        }
+        offerSlot(freed.getDoctorId(), freed.getAppointmentDate());
+    }
+
+    private static AppointmentSummary freedSlot(AppointmentEvent event) {
+        AppointmentSummary appointment = event.getAppointment();
+        if (event.getType() == AppointmentEvent.Type.DELETED) {
+            return appointment.getStatus() != Appointment.AppointmentStatus.CANCELLED ? appointment : null;
+        }
+        AppointmentSummary previous = event.getPrevious();
+        if (event.getType() != AppointmentEvent.Type.UPDATED || previous == null
+                || previous.getStatus() == Appointment.AppointmentStatus.CANCELLED) {
+            return null;
+        }
+        boolean released = appointment.getStatus() == Appointment.AppointmentStatus.CANCELLED
+                || !Objects.equals(appointment.getDoctorId(), previous.getDoctorId())
+                || !Objects.equals(appointment.getAppointmentDate(), previous.getAppointmentDate());
+        return released ? previous : null;
+    }
+
+    /**
+     * Books the freed slot for the longest-waiting patient whose window contains it.
+     * Returns the new appointment, or null when nobody matched or the slot was taken meanwhile.
+     */
+    public Appointment offerSlot(Long doctorId, LocalDateTime slot) {
+        return slotIndex.withDoctorLock(doctorId, () -> {
+            Map<LocalDate, NavigableMap<Long, WaitlistEntry>> days = waiting.get(doctorId);
+            NavigableMap<Long, WaitlistEntry> candidates = days != null ? days.get(slot.toLocalDate()) : null;
+            if (candidates == null) {
+                return null;
+            }
+            for (WaitlistEntry entry : new ArrayList<>(candidates.values())) {
+                if (entry.getWindowStart().isAfter(slot) || entry.getWindowEnd().isBefore(slot)) {
+                    continue;
+                }
+                if (!slotIndex.isFree(doctorId, slot, null)) {
+                    return null;
+                }
+                try {
+                    Appointment booked = transactionTemplate.execute(status -> book(entry, slot));
+                    unindex(entry);
+                    return booked;
+                } catch (RuntimeException e) {
+                    // The entry can no longer be honoured (patient removed, entry left meanwhile); try the next one.
+                    // The rolled-back booking may already be in the calendar, so reload it from the table.
+                    unindex(entry);
+                    slotIndex.evict(doctorId);
+                }
+            }
+            return null;
+        });
+    }
+
+    @Scheduled(cron = "0 0 3 * * *")
+    public void purgePastDays() {
+        LocalDate today = LocalDate.now();
+        for (Long doctorId : waiting.keySet()) {
+            slotIndex.withDoctorLock(doctorId, () -> waiting.get(doctorId).keySet().removeIf(day -> day.isBefore(today)));
+        }
+    }
+
+    private Appointment book(WaitlistEntry entry, LocalDateTime slot) {
+        WaitlistEntry current = waitlistRepository.findById(entry.getId())
+                .filter(e -> e.getStatus() == WaitlistEntry.WaitlistStatus.WAITING)
+                .orElseThrow(() -> new RuntimeException("Waitlist entry is no longer waiting"));
+
+        Appointment appointment = new Appointment();
+        appointment.setPatient(current.getPatient());
+        appointment.setDoctor(current.getDoctor());
+        appointment.setAppointmentDate(slot);
+        appointment.setReason(current.getReason());
+        appointment.setStatus(Appointment.AppointmentStatus.SCHEDULED);
+        Appointment created = appointmentService.createAppointment(appointment);
+
+        current.setStatus(WaitlistEntry.WaitlistStatus.BOOKED);
+        current.setBookedAppointmentId(created.getId());
+        waitlistRepository.save(current);
+        return created;
+    }
+
+    private Void index(WaitlistEntry entry) {
+        Map<LocalDate, NavigableMap<Long, WaitlistEntry>> days = waiting.computeIfAbsent(entry.getDoctor().getId(),
+                k -> new ConcurrentHashMap<>());
+        for (LocalDate day = entry.getWindowStart().toLocalDate(); !day.isAfter(entry.getWindowEnd().toLocalDate());
+                day = day.plusDays(1)) {
+            days.computeIfAbsent(day, k -> new TreeMap<>()).put(entry.getId(), entry);
+        }
+        return null;
+    }
+
+    private void unindex(WaitlistEntry entry) {
+        Map<LocalDate, NavigableMap<Long, WaitlistEntry>> days = waiting.get(entry.getDoctor().getId());
+        if (days == null || entry.getWindowStart() == null || entry.getWindowEnd() == null) {
+            return;
+        }
+        for (LocalDate day = entry.getWindowStart().toLocalDate(); !day.isAfter(entry.getWindowEnd().toLocalDate());
+                day = day.plusDays(1)) {
+            NavigableMap<Long, WaitlistEntry> entries = days.get(day);
+            if (entries != null) {
+                entries.remove(entry.getId());
+                if (entries.isEmpty()) {
+                    days.remove(day);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.HMS.Hospitalmanagement.appointment;
+
+import com.HMS.Hospitalmanagement.doctor.DoctorRepository;
+import com.HMS.Hospitalmanagement.patient.PatientRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AppointmentImportServiceTest {
+
+    private static final String HEADER = "patientId,doctorId,appointmentDate,reason,status,labTestsRequired\n";
+
+    private final List<AppointmentEvent> events = new ArrayList<>();
+    private AppointmentImportService importService;
+
+    @BeforeEach
+    void setUp() {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        AtomicLong ids = new AtomicLong(100);
+        when(jdbcTemplate.batchUpdate(any(PreparedStatementCreator.class), any(BatchPreparedStatementSetter.class),
+                any(KeyHolder.class))).thenAnswer(invocation -> {
+                    BatchPreparedStatementSetter rows = invocation.getArgument(1);
+                    KeyHolder keys = invocation.getArgument(2);
+                    for (int i = 0; i < rows.getBatchSize(); i++) {
+                        keys.getKeyList().add(Map.of("GENERATED_KEY", ids.incrementAndGet()));
+                    }
+                    return new int[rows.getBatchSize()];
+                });
+
+        PatientRepository patientRepository = mock(PatientRepository.class);
+        when(patientRepository.findNames(anyCollection())).thenAnswer(invocation -> {
+            List<Object[]> rows = new ArrayList<>();
+            for (Long id : invocation.<Collection<Long>>getArgument(0)) {
+                if (id < 90) {
+                    rows.add(new Object[] {id, "Patient " + id});
+                }
+            }
+            return rows;
+        });
+        DoctorRepository doctorRepository = mock(DoctorRepository.class);
+        when(doctorRepository.findNames(anyCollection())).thenAnswer(invocation -> {
+            List<Object[]> rows = new ArrayList<>();
+            for (Long id : invocation.<Collection<Long>>getArgument(0)) {
+                rows.add(new Object[] {id, "Doctor " + id, "Cardiology"});
+            }
+            return rows;
+        });
+        AppointmentRepository appointmentRepository = mock(AppointmentRepository.class);
+        when(appointmentRepository.findByDoctorIdAndStatusNot(anyLong(), any())).thenReturn(List.of());
+
+        importService = new AppointmentImportService(jdbcTemplate,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)), patientRepository, doctorRepository,
+                new DoctorSlotIndex(appointmentRepository), event -> events.add((AppointmentEvent) event));
+    }
+
+    @Test
+    void importedRowsArePublishedWithNames() throws IOException {
+        AppointmentImportReport report = importCsv(HEADER
+                + "1,7,2030-01-15T10:00,\"Chest pain,\nshortness of breath\",SCHEDULED,ECG\n");
+
+        assertEquals(1, report.getTotalRows());
+        assertEquals(1, report.getImported());
+        assertEquals(1, events.size());
+        AppointmentEvent event = events.get(0);
+        assertEquals(AppointmentEvent.Type.CREATED, event.getType());
+        AppointmentSummary appointment = event.getAppointment();
+        assertEquals(101L, appointment.getId());
+        assertEquals("Chest pain,\nshortness of breath", appointment.getReason());
+        assertEquals("Patient 1", appointment.getPatientName());
+        assertEquals("Doctor 7", appointment.getDoctorName());
+        assertEquals("Cardiology", appointment.getDoctorSpecialization());
+        assertEquals(LocalDateTime.of(2030, 1, 15, 10, 0), appointment.getAppointmentDate());
+        assertEquals("ECG", appointment.getLabTestsRequired());
+    }
+
+    @Test
+    void badRowsAreReportedOnTheLineTheyStartOn() throws IOException {
+        AppointmentImportReport report = importCsv(HEADER
+                + "1,7,2030-01-15T10:00,\"first\nsecond\nthird\",,\n"
+                + "\n"
+                + "2,7,2030-01-15T10:15,clash,,\n"
+                + "95,7,2030-01-15T12:00,unknown patient,,\n"
+                + "3,7,not-a-date,,,\n"
+                + "4,7,2030-01-15T10:15,cancelled rows do not block,CANCELLED,\n");
+
+        assertEquals(5, report.getTotalRows());
+        assertEquals(2, report.getImported());
+        assertEquals(3, report.getFailed());
+        Map<Long, String> errors = new TreeMap<>();
+        report.getErrors().forEach(error -> errors.put(error.getLine(), error.getMessage()));
+        assertEquals(Map.of(
+                6L, "Doctor is already booked at this time",
+                7L, "Patient not found with ID: 95",
+                8L, "Invalid appointmentDate, expected ISO format like 2025-01-31T10:30"), errors);
+        assertEquals(2, events.size());
+    }
+
+    @Test
+    void anUnterminatedQuoteFailsTheLastRow() throws IOException {
+        AppointmentImportReport report = importCsv(HEADER
+                + "1,7,2030-01-15T10:00,ok,,\n"
+                + "2,7,2030-01-15T11:00,\"never closed,,\n"
+                + "3,7,2030-01-15T12:00,swallowed,,\n");
+
+        assertEquals(2, report.getTotalRows());
+        assertEquals(1, report.getImported());
+        assertEquals(1, report.getFailed());
+        assertEquals(3L, report.getErrors().get(0).getLine());
+        assertEquals("Unterminated quoted field", report.getErrors().get(0).getMessage());
+    }
+
+    @Test
+    void csvReaderHandlesEscapesAndLineBreaks() throws IOException {
+        AppointmentImportService.CsvReader reader = new AppointmentImportService.CsvReader(new BufferedReader(
+                new StringReader("a,b\r\n\"say \"\"hi\"\"\",\"x\r\ny\",\n\n,\n")));
+
+        assertEquals(List.of("a", "b"), reader.next());
+        assertEquals(1, reader.line());
+        assertEquals(List.of("say \"hi\"", "x\ny", ""), reader.next());
+        assertEquals(2, reader.line());
+        assertEquals(List.of("", ""), reader.next());
+        assertEquals(5, reader.line());
+        assertNull(reader.next());
+    }
+
+    private AppointmentImportReport importCsv(String csv) throws IOException {
+        return importService.importCsv(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,138 @@
+package com.HMS.Hospitalmanagement.appointment;
+
+import com.HMS.Hospitalmanagement.archive.AppointmentArchiveService;
+import com.HMS.Hospitalmanagement.archive.ArchivedAppointmentRepository;
+import com.HMS.Hospitalmanagement.doctor.Doctor;
+import com.HMS.Hospitalmanagement.doctor.DoctorRepository;
+import com.HMS.Hospitalmanagement.patient.Patient;
+import com.HMS.Hospitalmanagement.patient.PatientRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AppointmentServiceConcurrencyTest {
+
+    private static final int BOOKINGS = 300;
+
+    private AppointmentRepository appointmentRepository;
+    private AppointmentService appointmentService;
+
+    @BeforeEach
+    void setUp() {
+        appointmentRepository = mock(AppointmentRepository.class);
+        PatientRepository patientRepository = mock(PatientRepository.class);
+        DoctorRepository doctorRepository = mock(DoctorRepository.class);
+
+        AtomicLong ids = new AtomicLong();
+        when(appointmentRepository.save(any(Appointment.class))).thenAnswer(invocation -> {
+            Appointment appointment = invocation.getArgument(0);
+            if (appointment.getId() == null) {
+                appointment.setId(ids.incrementAndGet());
+            }
+            return appointment;
+        });
+        when(patientRepository.findById(anyLong())).thenAnswer(invocation -> {
+            Patient patient = new Patient();
+            patient.setId(invocation.getArgument(0));
+            return Optional.of(patient);
+        });
+        when(doctorRepository.findById(anyLong())).thenAnswer(invocation -> {
+            Doctor doctor = new Doctor();
+            doctor.setId(invocation.getArgument(0));
+            return Optional.of(doctor);
+        });
+
+        appointmentService = new AppointmentService(appointmentRepository, patientRepository, doctorRepository,
+                new DoctorSlotIndex(appointmentRepository), event -> {
+                }, mock(ArchivedAppointmentRepository.class), mock(AppointmentArchiveService.class));
+    }
+
+    @Test
+    void concurrentBookingsForSameSlotOnlyOneWins() throws Exception {
+        LocalDateTime slot = LocalDateTime.of(2030, 1, 15, 10, 0);
+        ExecutorService executor = Executors.newFixedThreadPool(64);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+
+        for (int i = 0; i < BOOKINGS; i++) {
+            long patientId = i + 1;
+            // Spread the requests across the slot so every pair is less than 30 minutes apart
+            LocalDateTime time = slot.plusSeconds(i % 60);
+            results.add(executor.submit(() -> {
+                start.await();
+                try {
+                    appointmentService.createAppointment(booking(patientId, 1L, time));
+                    return true;
+                } catch (RuntimeException e) {
+                    return false;
+                }
+            }));
+        }
+        start.countDown();
+
+        int winners = 0;
+        for (Future<Boolean> result : results) {
+            if (result.get(30, TimeUnit.SECONDS)) {
+                winners++;
+            }
+        }
+        executor.shutdown();
+
+        assertEquals(1, winners);
+    }
+
+    @Test
+    void cancelledAppointmentFreesTheSlot() {
+        LocalDateTime slot = LocalDateTime.of(2030, 1, 15, 10, 0);
+        Appointment first = appointmentService.createAppointment(booking(1L, 1L, slot));
+
+        assertThrows(RuntimeException.class,
+                () -> appointmentService.createAppointment(booking(2L, 1L, slot.plusMinutes(15))));
+
+        when(appointmentRepository.findById(first.getId())).thenReturn(Optional.of(first));
+        Appointment cancellation = new Appointment();
+        cancellation.setStatus(Appointment.AppointmentStatus.CANCELLED);
+        appointmentService.updateAppointment(first.getId(), cancellation);
+
+        appointmentService.createAppointment(booking(2L, 1L, slot.plusMinutes(15)));
+    }
+
+    @Test
+    void adjacentSlotsAndOtherDoctorsDoNotConflict() {
+        LocalDateTime slot = LocalDateTime.of(2030, 1, 15, 10, 0);
+        appointmentService.createAppointment(booking(1L, 1L, slot));
+        appointmentService.createAppointment(booking(2L, 1L, slot.plusMinutes(30)));
+        appointmentService.createAppointment(booking(3L, 1L, slot.minusMinutes(30)));
+        appointmentService.createAppointment(booking(4L, 2L, slot));
+    }
+
+    private static Appointment booking(Long patientId, Long doctorId, LocalDateTime time) {
+        Patient patient = new Patient();
+        patient.setId(patientId);
+        Doctor doctor = new Doctor();
+        doctor.setId(doctorId);
+
+        Appointment appointment = new Appointment();
+        appointment.setPatient(patient);
+        appointment.setDoctor(doctor);
+        appointment.setAppointmentDate(time);
+        return appointment;
+    }
+}
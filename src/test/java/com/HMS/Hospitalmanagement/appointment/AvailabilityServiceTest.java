@@ -0,0 +1,158 @@
+package com.HMS.Hospitalmanagement.appointment;
+
+import com.HMS.Hospitalmanagement.doctor.Doctor;
+import com.HMS.Hospitalmanagement.doctor.DoctorRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AvailabilityServiceTest {
+
+    private static final LocalDate DAY = LocalDate.of(2030, 1, 15);
+
+    private AppointmentRepository appointmentRepository;
+    private DoctorRepository doctorRepository;
+    private DoctorSlotIndex slotIndex;
+
+    @BeforeEach
+    void setUp() {
+        appointmentRepository = mock(AppointmentRepository.class);
+        doctorRepository = mock(DoctorRepository.class);
+        slotIndex = new DoctorSlotIndex(appointmentRepository);
+        when(doctorRepository.findBySpecializationIgnoreCase("Cardiology"))
+                .thenReturn(List.of(doctor(1L), doctor(2L)));
+    }
+
+    @Test
+    void offersOnlyFreeSlotsWithinWorkingHours() {
+        when(appointmentRepository.findStartsBetween(anyCollection(), any(), any(), any())).thenReturn(List.of(
+                new Object[] {1L, 10L, DAY.atTime(10, 0)},
+                // Off the half-hour grid, so it blocks both 10:30 and 11:00
+                new Object[] {1L, 11L, DAY.atTime(10, 45)}));
+
+        List<DoctorAvailability> result = service("09:00", "13:00")
+                .searchAvailability("Cardiology", DAY.atStartOfDay(), DAY.plusDays(1).atStartOfDay());
+
+        assertEquals(2, result.size());
+        assertEquals(times("09:00", "09:30", "11:30", "12:00", "12:30"), slotsOf(result, 1L));
+        assertEquals(times("09:00", "09:30", "10:00", "10:30", "11:00", "11:30", "12:00", "12:30"),
+                slotsOf(result, 2L));
+    }
+
+    @Test
+    void searchDoesNotLoadWholeCalendars() {
+        when(appointmentRepository.findStartsBetween(anyCollection(), any(), any(), any())).thenReturn(List.of());
+
+        service("09:00", "17:00").searchAvailability("Cardiology", DAY.atStartOfDay(), DAY.plusDays(3).atStartOfDay());
+
+        verify(appointmentRepository, never()).findByDoctorIdAndStatusNot(anyLong(), any());
+    }
+
+    @Test
+    void calendarsAlreadyInTheIndexAreAnsweredFromMemory() {
+        when(appointmentRepository.findByDoctorIdAndStatusNot(anyLong(), any())).thenReturn(List.of());
+        slotIndex.add(appointment(1L, 20L, DAY.atTime(9, 0)));
+        slotIndex.add(appointment(2L, 21L, DAY.atTime(9, 30)));
+
+        List<DoctorAvailability> result = service("09:00", "10:00")
+                .searchAvailability("Cardiology", DAY.atStartOfDay(), DAY.plusDays(1).atStartOfDay());
+
+        verify(appointmentRepository, never()).findStartsBetween(anyCollection(), any(), any(), any());
+        assertEquals(times("09:30"), slotsOf(result, 1L));
+        assertEquals(times("09:00"), slotsOf(result, 2L));
+    }
+
+    @Test
+    void anAppointmentBeforeMidnightBlocksTheFirstSlotOfTheDay() {
+        List<Object[]> rows = List.<Object[]>of(new Object[] {1L, 10L, DAY.minusDays(1).atTime(23, 45)});
+        when(appointmentRepository.findStartsBetween(anyCollection(), any(), any(), any())).thenReturn(rows);
+
+        DoctorAvailability availability = service("00:00", "01:00")
+                .searchAvailability("Cardiology", DAY.atStartOfDay(), DAY.plusDays(1).atStartOfDay()).get(0);
+
+        assertEquals(1L, availability.getDoctorId());
+        assertEquals(times("00:30"), availability.getOpenSlots());
+    }
+
+    @Test
+    void slotsOutsideTheRequestedRangeAreNotOffered() {
+        when(appointmentRepository.findStartsBetween(anyCollection(), any(), any(), any())).thenReturn(List.of());
+
+        List<DoctorAvailability> result = service("09:00", "17:00")
+                .searchAvailability("Cardiology", DAY.atTime(15, 10), DAY.atTime(16, 30));
+
+        assertEquals(times("15:30", "16:00"), slotsOf(result, 1L));
+    }
+
+    @Test
+    void searchRequiresASpecialization() {
+        AvailabilityService service = service("09:00", "17:00");
+
+        assertThrows(IllegalArgumentException.class,
+                () -> service.searchAvailability(null, DAY.atStartOfDay(), DAY.plusDays(1).atStartOfDay()));
+        assertThrows(IllegalArgumentException.class,
+                () -> service.searchAvailability(" ", DAY.atStartOfDay(), DAY.plusDays(1).atStartOfDay()));
+    }
+
+    @Test
+    void workingHoursKeepOnlyWholeSlots() {
+        WorkingHours hours = new WorkingHours("08:15", "17:10");
+
+        assertEquals(17, hours.firstSlot());
+        assertEquals(34, hours.endSlot());
+        assertEquals(hours.slotsPerDay(), Long.bitCount(hours.mask()));
+        assertTrue((hours.mask() & (1L << 17)) != 0);
+        assertTrue((hours.mask() & (1L << 34)) == 0);
+        assertThrows(IllegalArgumentException.class, () -> new WorkingHours("17:00", "09:00"));
+    }
+
+    private AvailabilityService service(String opensAt, String closesAt) {
+        return new AvailabilityService(slotIndex, doctorRepository, new WorkingHours(opensAt, closesAt));
+    }
+
+    private static List<LocalDateTime> slotsOf(List<DoctorAvailability> result, Long doctorId) {
+        return result.stream().filter(availability -> availability.getDoctorId().equals(doctorId))
+                .findFirst().orElseThrow().getOpenSlots();
+    }
+
+    private static List<LocalDateTime> times(String... times) {
+        List<LocalDateTime> result = new ArrayList<>();
+        for (String time : times) {
+            result.add(DAY.atTime(LocalTime.parse(time)));
+        }
+        return result;
+    }
+
+    private static Doctor doctor(Long id) {
+        Doctor doctor = new Doctor();
+        doctor.setId(id);
+        doctor.setName("Doctor " + id);
+        doctor.setSpecialization("Cardiology");
+        return doctor;
+    }
+
+    private static Appointment appointment(Long doctorId, Long id, LocalDateTime time) {
+        Appointment appointment = new Appointment();
+        appointment.setId(id);
+        appointment.setDoctor(doctor(doctorId));
+        appointment.setAppointmentDate(time);
+        appointment.setStatus(Appointment.AppointmentStatus.SCHEDULED);
+        return appointment;
+    }
+}
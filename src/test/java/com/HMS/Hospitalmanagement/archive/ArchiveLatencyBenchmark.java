@@ -0,0 +1,161 @@
+package com.HMS.Hospitalmanagement.archive;
+
+import com.HMS.Hospitalmanagement.appointment.Appointment;
+import com.HMS.Hospitalmanagement.appointment.AppointmentRepository;
+import com.HMS.Hospitalmanagement.appointment.AppointmentService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.LongConsumer;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Per-doctor query latency with a few million appointments, before and after the archive job has
+ * moved the finished ones past the horizon. The unpaged read sees only the live table; the history page
+ * reaches back six years, so after the run it also reads the archive. Runs only with -Pbenchmark, against the scratch schema
+ * in bench.datasource.url, whose appointment and bill tables it empties first. Row count is
+ * -Dbench.rows (default 3,000,000).
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "hms.archive.batch-size=5000",
+        "hms.archive.pause-ms=0"
+})
+class ArchiveLatencyBenchmark {
+
+    private static final int ROWS = Integer.getInteger("bench.rows", 3_000_000);
+    private static final int DOCTORS = 200;
+    private static final int PATIENTS = 20_000;
+    private static final int HISTORY_DAYS = 6 * 365;
+    private static final int SAMPLED_DOCTORS = 20;
+    private static final int ROUNDS = 3;
+    private static final int CHUNK = 10_000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private AppointmentService appointmentService;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private AppointmentArchiveService archiveService;
+
+    @Test
+    void perDoctorLatencyBeforeAndAfterArchiving() {
+        List<Long> doctors = seed();
+
+        Map<String, long[]> before = measure(doctors);
+        ArchiveRunResult run = archiveService.archive(archiveService.getHorizonDays());
+        Map<String, long[]> after = measure(doctors);
+
+        System.out.printf(Locale.ROOT, "%n%,d appointments, %,d archived in %,d ms%n", ROWS,
+                run.getArchivedAppointments(), run.getDurationMs());
+        System.out.printf(Locale.ROOT, "%-28s %12s %12s %12s %12s%n", "query (ms)", "p50 before", "p95 before",
+                "p50 after", "p95 after");
+        for (String query : before.keySet()) {
+            long[] b = before.get(query);
+            long[] a = after.get(query);
+            System.out.printf(Locale.ROOT, "%-28s %12.2f %12.2f %12.2f %12.2f%n", query,
+                    percentile(b, 50), percentile(b, 95), percentile(a, 50), percentile(a, 95));
+        }
+        assertTrue(run.getArchivedAppointments() > 0);
+    }
+
+    private Map<String, long[]> measure(List<Long> doctors) {
+        LocalDateTime now = LocalDateTime.now();
+        Map<String, long[]> timings = new LinkedHashMap<>();
+        time(timings, "recent page (60 days)", doctors, doctorId -> appointmentService.getAppointmentPage(
+                doctorId, null, null, now.minusDays(30), now.plusDays(30), null, 100));
+        time(timings, "calendar load (active)", doctors, doctorId -> appointmentRepository
+                .findByDoctorIdAndStatusNot(doctorId, Appointment.AppointmentStatus.CANCELLED));
+        time(timings, "unpaged by doctor (live)", doctors, appointmentService::getAppointmentsByDoctor);
+        time(timings, "history page (6 years)", doctors, doctorId -> appointmentService.getAppointmentPage(
+                doctorId, null, null, now.minusDays(HISTORY_DAYS), null, null, 100));
+        return timings;
+    }
+
+    private static void time(Map<String, long[]> timings, String name, List<Long> doctors, LongConsumer query) {
+        // One untimed pass warms the JIT and the buffer pool
+        doctors.forEach(query::accept);
+        long[] nanos = new long[doctors.size() * ROUNDS];
+        int i = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            for (long doctorId : doctors) {
+                long start = System.nanoTime();
+                query.accept(doctorId);
+                nanos[i++] = System.nanoTime() - start;
+            }
+        }
+        Arrays.sort(nanos);
+        timings.put(name, nanos);
+    }
+
+    private static double percentile(long[] sorted, int p) {
+        int index = Math.min(sorted.length - 1, (int) Math.ceil(p / 100.0 * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1_000_000.0;
+    }
+
+    /**
+     * Inserts the doctors, patients and appointments; returns the sampled doctor ids.
+     */
+    private List<Long> seed() {
+        jdbcTemplate.update("DELETE FROM bills_archive");
+        jdbcTemplate.update("DELETE FROM appointments_archive");
+        jdbcTemplate.update("DELETE FROM bills");
+        jdbcTemplate.update("DELETE FROM appointments");
+
+        String run = Long.toString(System.currentTimeMillis(), 36);
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < DOCTORS; i++) {
+            rows.add(new Object[] { "bench-" + run + "-doctor-" + i, "Specialty " + (i % 12), 500.0 });
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO doctors (name, specialization, consultation_fee) VALUES (?, ?, ?)",
+                rows);
+        rows.clear();
+        for (int i = 0; i < PATIENTS; i++) {
+            rows.add(new Object[] { "bench-" + run + "-patient-" + i });
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO patients (name) VALUES (?)", rows);
+        List<Long> doctorIds = jdbcTemplate.queryForList("SELECT id FROM doctors WHERE name LIKE ? ORDER BY id",
+                Long.class, "bench-" + run + "-doctor-%");
+        List<Long> patientIds = jdbcTemplate.queryForList("SELECT id FROM patients WHERE name LIKE ? ORDER BY id",
+                Long.class, "bench-" + run + "-patient-%");
+
+        Random random = new Random(42);
+        LocalDateTime today = LocalDateTime.now().toLocalDate().atStartOfDay();
+        rows.clear();
+        for (int i = 0; i < ROWS; i++) {
+            // About 2% in the next two months, the rest spread over six years of history
+            int dayOffset = random.nextInt(50) == 0 ? random.nextInt(60) : -random.nextInt(HISTORY_DAYS);
+            LocalDateTime date = today.plusDays(dayOffset).plusMinutes(30L * (16 + random.nextInt(20)));
+            String status = dayOffset >= 0 ? "SCHEDULED" : random.nextInt(100) < 85 ? "COMPLETED" : "CANCELLED";
+            rows.add(new Object[] {
+                    patientIds.get(random.nextInt(patientIds.size())),
+                    doctorIds.get(random.nextInt(doctorIds.size())),
+                    Timestamp.valueOf(date), "Benchmark visit", status });
+            if (rows.size() == CHUNK || i == ROWS - 1) {
+                jdbcTemplate.batchUpdate("INSERT INTO appointments "
+                        + "(patient_id, doctor_id, appointment_date, reason, status) VALUES (?, ?, ?, ?, ?)", rows);
+                rows.clear();
+            }
+        }
+        return doctorIds.subList(0, Math.min(SAMPLED_DOCTORS, doctorIds.size()));
+    }
+}
@@ -0,0 +1,125 @@
+package com.HMS.Hospitalmanagement.billing;
+
+import com.HMS.Hospitalmanagement.metrics.DoctorMetrics;
+import com.HMS.Hospitalmanagement.patient.PatientTimelineCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BillGenerationJobTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private JobCheckpointRepository checkpointRepository;
+    private BillGenerationJob job;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        checkpointRepository = mock(JobCheckpointRepository.class);
+        when(checkpointRepository.findById(BillGenerationJob.JOB_NAME)).thenReturn(Optional.empty());
+        LabTestPricing pricing = new LabTestPricing();
+        pricing.setLabTestPrices(Map.of("ECG", 40.0, "CBC", 15.0));
+        job = new BillGenerationJob(jdbcTemplate, new TransactionTemplate(mock(PlatformTransactionManager.class)),
+                checkpointRepository, pricing, mock(RevenueRollup.class), mock(DoctorMetrics.class),
+                mock(PatientTimelineCache.class));
+    }
+
+    @Test
+    void billsChargeOnlyTheTestsRecordedOnTheAppointment() throws Exception {
+        assertFalse(BillGenerationJob.SELECT_CHUNK_SQL.contains("patients"));
+        ResultSet first = candidate(1L, 100.0, "ECG, CBC");
+        ResultSet second = candidate(2L, 80.0, null);
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), anyLong(), anyInt())).thenAnswer(invocation -> {
+            if (invocation.<Long>getArgument(2) > 0) {
+                return List.of();
+            }
+            RowMapper<?> mapper = invocation.getArgument(1);
+            return List.of(mapper.mapRow(first, 0), mapper.mapRow(second, 1));
+        });
+
+        BillGenerationStatus status = job.run();
+
+        assertEquals(2, status.getCreated());
+        List<Object[]> rows = capturedBatch();
+        assertEquals(List.of(1L, 100.0, 55.0, 155.0), List.of(rows.get(0)).subList(0, 4));
+        assertEquals(List.of(2L, 80.0, 0.0, 80.0), List.of(rows.get(1)).subList(0, 4));
+    }
+
+    @Test
+    void concurrentStartsLaunchOneRun() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), anyLong(), anyInt())).thenAnswer(invocation -> {
+            release.await();
+            return List.of();
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < 64; i++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                return job.start();
+            }));
+        }
+        start.countDown();
+        int started = 0;
+        for (Future<Boolean> result : results) {
+            if (result.get(30, TimeUnit.SECONDS)) {
+                started++;
+            }
+        }
+        executor.shutdown();
+        assertEquals(1, started);
+
+        release.countDown();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (!job.start()) {
+            assertTrue(System.nanoTime() < deadline, "The first run never finished");
+            Thread.sleep(10);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Object[]> capturedBatch() {
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), rows.capture());
+        return rows.getValue();
+    }
+
+    private static ResultSet candidate(long appointmentId, double fee, String labTests) throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getLong("id")).thenReturn(appointmentId);
+        when(rs.getLong("patient_id")).thenReturn(10L);
+        when(rs.getLong("doctor_id")).thenReturn(20L);
+        when(rs.getDouble("consultation_fee")).thenReturn(fee);
+        when(rs.getString("lab_tests")).thenReturn(labTests);
+        return rs;
+    }
+}
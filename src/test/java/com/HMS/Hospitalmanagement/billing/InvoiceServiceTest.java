@@ -0,0 +1,75 @@
+package com.HMS.Hospitalmanagement.billing;
+
+import com.HMS.Hospitalmanagement.archive.AppointmentArchiveService;
+import com.HMS.Hospitalmanagement.archive.ArchivedBillRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class InvoiceServiceTest {
+
+    @TempDir
+    Path cacheDir;
+
+    private BillRepository billRepository;
+    private ArchivedBillRepository archivedBillRepository;
+    private AppointmentArchiveService archiveService;
+    private InvoiceService invoiceService;
+
+    @BeforeEach
+    void setUp() {
+        billRepository = mock(BillRepository.class);
+        archivedBillRepository = mock(ArchivedBillRepository.class);
+        archiveService = mock(AppointmentArchiveService.class);
+        when(billRepository.findById(anyLong())).thenReturn(Optional.empty());
+        invoiceService = new InvoiceService(billRepository, archivedBillRepository, archiveService,
+                cacheDir.toString(), 1, 10, 30_000);
+    }
+
+    @Test
+    void archivedBillsAreRenderedWithEnglishDates() throws Exception {
+        when(archiveService.needsArchive(null)).thenReturn(true);
+        List<Object[]> rows = List.<Object[]>of(new Object[] {7L, LocalDateTime.of(2021, 1, 20, 9, 0),
+                Bill.PaymentStatus.PAID, 100.0, 25.5, 125.5, LocalDateTime.of(2021, 1, 18, 10, 30),
+                3L, "Ada Lovelace", "555-0100", "Grey", "Surgery"});
+        when(archivedBillRepository.findInvoiceRow(7L)).thenReturn(rows);
+
+        Locale previous = Locale.getDefault();
+        Locale.setDefault(Locale.FRANCE);
+        String html;
+        try {
+            html = Files.readString(invoiceService.getInvoice(7L).orElseThrow());
+        } finally {
+            Locale.setDefault(previous);
+        }
+
+        assertTrue(html.contains("20 Jan 2021"));
+        assertTrue(html.contains("18 Jan 2021 10:30"));
+        assertTrue(html.contains("Ada Lovelace"));
+        assertTrue(html.contains("Dr. Grey"));
+        assertTrue(html.contains("125.50"));
+    }
+
+    @Test
+    void theArchiveIsNotReadWhileItIsEmpty() {
+        when(archiveService.needsArchive(null)).thenReturn(false);
+
+        assertFalse(invoiceService.getInvoice(7L).isPresent());
+        verify(archivedBillRepository, never()).findInvoiceRow(anyLong());
+    }
+}
@@ -0,0 +1,123 @@
+package com.HMS.Hospitalmanagement.billing;
+
+import com.HMS.Hospitalmanagement.appointment.Appointment;
+import com.HMS.Hospitalmanagement.doctor.Doctor;
+import com.HMS.Hospitalmanagement.doctor.DoctorRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RevenueRollupTest {
+
+    private static final LocalDate DAY = LocalDate.of(2030, 1, 15);
+
+    private final List<Object[]> seedRows = new ArrayList<>();
+    private Runnable duringSeed = () -> {
+    };
+    private RevenueRollup rollup;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            for (Object[] row : seedRows) {
+                handler.processRow(resultSet(row));
+            }
+            duringSeed.run();
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class));
+        DoctorRepository doctorRepository = mock(DoctorRepository.class);
+        Doctor doctor = new Doctor();
+        doctor.setId(7L);
+        doctor.setName("Dr. Grey");
+        when(doctorRepository.findAllById(any())).thenReturn(List.of(doctor));
+        rollup = new RevenueRollup(jdbcTemplate, doctorRepository);
+    }
+
+    @Test
+    void seededCountsAndIncrementalBillsAreSummed() {
+        seedRows.add(new Object[] {DAY, 7L, "PAID", 2L, 300.0});
+        seedRows.add(new Object[] {DAY.plusDays(1), null, "PENDING", 1L, 50.0});
+        rollup.seed();
+
+        rollup.add(bill(7L, DAY, Bill.PaymentStatus.PAID, 100.0));
+        Bill pending = bill(7L, DAY.plusDays(1), Bill.PaymentStatus.PENDING, 80.0);
+        rollup.add(pending);
+        rollup.remove(pending);
+
+        assertEquals(List.of(new RevenueBucket("7", "Dr. Grey", 3, 400.0), new RevenueBucket("none", "none", 1, 50.0)),
+                rollup.summarize("doctor", null, null));
+        assertEquals(List.of(new RevenueBucket("PAID", "PAID", 3, 400.0)),
+                rollup.summarize("status", DAY, DAY));
+        assertEquals(List.of(new RevenueBucket(DAY.plusDays(1).toString(), DAY.plusDays(1).toString(), 1, 50.0)),
+                rollup.summarize("day", DAY.plusDays(1), null));
+    }
+
+    @Test
+    void reseedingReplacesTheCounters() {
+        seedRows.add(new Object[] {DAY, 7L, "PAID", 2L, 300.0});
+        rollup.seed();
+        rollup.seed();
+
+        assertEquals(List.of(new RevenueBucket("PAID", "PAID", 2, 300.0)), rollup.summarize("status", null, null));
+    }
+
+    @Test
+    void summariesDuringASeedSeeTheOldCountersUntilTheSwap() {
+        seedRows.add(new Object[] {DAY, 7L, "PAID", 2L, 300.0});
+        rollup.seed();
+        List<List<RevenueBucket>> seen = new ArrayList<>();
+        seedRows.add(new Object[] {DAY, 7L, "PAID", 1L, 20.0});
+        duringSeed = () -> seen.add(rollup.summarize("status", null, null));
+
+        rollup.seed();
+
+        assertEquals(List.of(List.of(new RevenueBucket("PAID", "PAID", 2, 300.0))), seen);
+        assertEquals(List.of(new RevenueBucket("PAID", "PAID", 3, 320.0)), rollup.summarize("status", null, null));
+    }
+
+    @Test
+    void unknownGroupingIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> rollup.summarize("patient", null, null));
+    }
+
+    private static Bill bill(Long doctorId, LocalDate day, Bill.PaymentStatus status, double amount) {
+        Doctor doctor = new Doctor();
+        doctor.setId(doctorId);
+        Appointment appointment = new Appointment();
+        appointment.setDoctor(doctor);
+        Bill bill = new Bill();
+        bill.setAppointment(appointment);
+        bill.setBillDate(day.atTime(12, 0));
+        bill.setPaymentStatus(status);
+        bill.setTotalAmount(amount);
+        return bill;
+    }
+
+    private static ResultSet resultSet(Object[] row) throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getDate(1)).thenReturn(Date.valueOf((LocalDate) row[0]));
+        when(rs.getLong(2)).thenReturn(row[1] != null ? (Long) row[1] : 0L);
+        when(rs.wasNull()).thenReturn(row[1] == null);
+        when(rs.getString(3)).thenReturn((String) row[2]);
+        when(rs.getLong(4)).thenReturn((Long) row[3]);
+        when(rs.getDouble(5)).thenReturn((Double) row[4]);
+        return rs;
+    }
+}
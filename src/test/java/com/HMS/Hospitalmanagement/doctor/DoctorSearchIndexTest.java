@@ -0,0 +1,139 @@
+package com.HMS.Hospitalmanagement.doctor;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DoctorSearchIndexTest {
+
+    private final List<Doctor> rows = new ArrayList<>();
+    private DoctorSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        DoctorRepository doctorRepository = mock(DoctorRepository.class);
+        when(doctorRepository.findAll()).thenReturn(rows);
+        index = new DoctorSearchIndex(doctorRepository);
+        rows.add(doctor(1L, "Grey", "Surgery", "MD", 600.0, 12));
+        rows.add(doctor(2L, "Adams", "Cardiology", "MBBS", 1500.0, 3));
+        rows.add(doctor(3L, "Baker", "surgery", "MBBS", null, 25));
+        rows.add(doctor(4L, "Chen", "Cardiology", "MD", 300.0, null));
+    }
+
+    @Test
+    void eventsBeforeTheLoadAreIndexed() {
+        index.onDoctorEvent(new DoctorEvent(DoctorEvent.Type.CREATED, doctor(5L, "Evans", "ENT", "MS", 800.0, 7)));
+        index.onDoctorEvent(new DoctorEvent(DoctorEvent.Type.UPDATED, doctor(5L, "Evans", "ENT", "MS", 900.0, 7)));
+
+        assertEquals(List.of(5L), ids(index.search(query())));
+
+        rows.add(doctor(5L, "Evans", "ENT", "MS", 900.0, 7));
+        index.load();
+        assertEquals(List.of(2L, 3L, 4L, 5L, 1L), ids(index.search(query())));
+    }
+
+    @Test
+    void facetCountsLeaveOutTheFacetsOwnSelection() {
+        index.load();
+        DoctorSearchQuery query = query();
+        query.setSpecialization(List.of("SURGERY"));
+        query.setQualification(List.of("MBBS"));
+
+        DoctorSearchResult result = index.search(query);
+
+        assertEquals(List.of(3L), ids(result));
+        assertEquals(1, result.getTotal());
+        // Specialization counts apply only the qualification filter, and the reverse
+        assertEquals(Map.of("Surgery", 1, "Cardiology", 1), counts(result, "specialization"));
+        assertEquals(Map.of("MD", 1, "MBBS", 1), counts(result, "qualification"));
+        assertEquals(Map.of("0-4", 0, "10-19", 0, "20+", 1), counts(result, "experienceBand"));
+    }
+
+    @Test
+    void severalValuesOfAFacetMatchAnyOfThem() {
+        index.load();
+        DoctorSearchQuery query = query();
+        query.setFeeBand(List.of("0-499", "1000-1999"));
+
+        assertEquals(List.of(2L, 4L), ids(index.search(query)));
+    }
+
+    @Test
+    void doctorsWithoutASortValueComeLastInBothDirections() {
+        index.load();
+        DoctorSearchQuery query = query();
+        query.setSort("fee");
+        assertEquals(List.of(4L, 1L, 2L, 3L), ids(index.search(query)));
+
+        query.setOrder("desc");
+        assertEquals(List.of(2L, 1L, 4L, 3L), ids(index.search(query)));
+
+        query.setSort("experience");
+        assertEquals(List.of(3L, 1L, 2L, 4L), ids(index.search(query)));
+
+        query.setOffset(1);
+        query.setLimit(2);
+        assertEquals(List.of(1L, 2L), ids(index.search(query)));
+    }
+
+    @Test
+    void updatesAndDeletesMoveDoctorsBetweenFacetsAndPlaces() {
+        index.load();
+        index.onDoctorEvent(new DoctorEvent(DoctorEvent.Type.UPDATED,
+                doctor(2L, "Zhou", "Surgery", "MBBS", 1500.0, 3)));
+        index.onDoctorEvent(new DoctorEvent(DoctorEvent.Type.DELETED, rows.get(0)));
+        index.onDoctorEvent(new DoctorEvent(DoctorEvent.Type.CREATED,
+                doctor(6L, "Abbott", "Surgery", "MD", 50.0, 1)));
+
+        DoctorSearchResult result = index.search(query());
+
+        assertEquals(List.of(6L, 3L, 4L, 2L), ids(result));
+        assertEquals(Map.of("Surgery", 3, "Cardiology", 1), counts(result, "specialization"));
+        DoctorSearchQuery byFee = query();
+        byFee.setSort("fee");
+        assertEquals(List.of(6L, 4L, 2L, 3L), ids(index.search(byFee)));
+    }
+
+    @Test
+    void anUnknownOrderIsRejected() {
+        DoctorSearchQuery query = query();
+        query.setOrder("sideways");
+
+        assertThrows(IllegalArgumentException.class, () -> index.search(query));
+    }
+
+    private static DoctorSearchQuery query() {
+        return new DoctorSearchQuery();
+    }
+
+    private static List<Long> ids(DoctorSearchResult result) {
+        return result.getItems().stream().map(Doctor::getId).toList();
+    }
+
+    private static Map<String, Integer> counts(DoctorSearchResult result, String facet) {
+        return result.getFacets().get(facet).stream()
+                .collect(Collectors.toMap(DoctorSearchResult.FacetCount::getValue,
+                        DoctorSearchResult.FacetCount::getCount));
+    }
+
+    private static Doctor doctor(Long id, String name, String specialization, String qualification, Double fee,
+            Integer experience) {
+        Doctor doctor = new Doctor();
+        doctor.setId(id);
+        doctor.setName(name);
+        doctor.setSpecialization(specialization);
+        doctor.setQualification(qualification);
+        doctor.setConsultationFee(fee);
+        doctor.setExperience(experience);
+        return doctor;
+    }
+}
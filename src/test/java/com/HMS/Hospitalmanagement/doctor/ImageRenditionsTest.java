@@ -0,0 +1,172 @@
+package com.HMS.Hospitalmanagement.doctor;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ImageRenditionsTest {
+
+    private static final String SECRET = "51.5007N 0.1246W";
+
+    @ParameterizedTest
+    @CsvSource({
+            "400, 200, THUMBNAIL, 96, 96",
+            "200, 400, CARD, 200, 288",
+            "600, 900, CARD, 288, 288",
+            "300, 60, THUMBNAIL, 96, 60",
+            "50, 30, CARD, 50, 30",
+            "1600, 1200, PROFILE, 800, 600",
+            "400, 1000, PROFILE, 320, 800",
+            "640, 480, PROFILE, 640, 480"
+    })
+    void renditionsAreCroppedOrFittedWithoutScalingUp(int width, int height, ImageRenditions.Size size,
+            int expectedWidth, int expectedHeight) throws Exception {
+        BufferedImage rendition = decode(ImageRenditions.render(image(width, height), size, 0.9f));
+
+        assertEquals(expectedWidth, rendition.getWidth());
+        assertEquals(expectedHeight, rendition.getHeight());
+    }
+
+    @Test
+    void cropsKeepTheCentre() throws Exception {
+        // Red, green and blue thirds; a square crop of a 3:1 image is the green one
+        BufferedImage image = new BufferedImage(300, 100, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(Color.RED);
+        g.fillRect(0, 0, 100, 100);
+        g.setColor(Color.GREEN);
+        g.fillRect(100, 0, 100, 100);
+        g.setColor(Color.BLUE);
+        g.fillRect(200, 0, 100, 100);
+        g.dispose();
+
+        BufferedImage thumbnail = decode(ImageRenditions.render(image, ImageRenditions.Size.THUMBNAIL, 0.9f));
+
+        for (int[] point : new int[][] {{2, 2}, {48, 48}, {93, 93}}) {
+            Color color = new Color(thumbnail.getRGB(point[0], point[1]));
+            assertTrue(color.getGreen() > 200 && color.getRed() < 60 && color.getBlue() < 60, color.toString());
+        }
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "1, 4, 2, 0, 0",
+            "2, 4, 2, 3, 0",
+            "3, 4, 2, 3, 1",
+            "4, 4, 2, 0, 1",
+            "5, 2, 4, 0, 0",
+            "6, 2, 4, 1, 0",
+            "7, 2, 4, 1, 3",
+            "8, 2, 4, 0, 3"
+    })
+    void orientationMovesTheTopLeftCornerWhereExifSays(int orientation, int width, int height, int x, int y) {
+        BufferedImage image = new BufferedImage(4, 2, BufferedImage.TYPE_INT_RGB);
+        for (int i = 0; i < 4; i++) {
+            for (int j = 0; j < 2; j++) {
+                image.setRGB(i, j, Color.WHITE.getRGB());
+            }
+        }
+        image.setRGB(0, 0, Color.RED.getRGB());
+
+        BufferedImage upright = ImageRenditions.orient(image, orientation);
+
+        assertEquals(width, upright.getWidth());
+        assertEquals(height, upright.getHeight());
+        assertEquals(Color.RED.getRGB(), upright.getRGB(x, y));
+    }
+
+    @Test
+    void strippingDropsExifAndCommentsButKeepsTheOrientation() throws Exception {
+        byte[] plain = jpeg(image(64, 32));
+        byte[] exif = exif(6, SECRET);
+        byte[] comment = segment(0xFE, SECRET.getBytes(StandardCharsets.US_ASCII));
+        ByteArrayOutputStream photo = new ByteArrayOutputStream();
+        photo.write(plain, 0, 2);
+        photo.writeBytes(exif);
+        photo.writeBytes(comment);
+        photo.write(plain, 2, plain.length - 2);
+        // A second picture after the end of the first, as multi-picture files have
+        photo.write(plain, 0, 2);
+        photo.writeBytes(exif);
+        byte[] uploaded = photo.toByteArray();
+        assertEquals(6, ImageRenditions.exifOrientation(uploaded));
+
+        byte[] stripped = ImageRenditions.stripMetadata(uploaded);
+
+        assertFalse(new String(stripped, StandardCharsets.ISO_8859_1).contains(SECRET));
+        assertEquals(6, ImageRenditions.exifOrientation(stripped));
+        assertEquals(plain.length + 36, stripped.length);
+        BufferedImage decoded = decode(stripped);
+        assertEquals(64, decoded.getWidth());
+    }
+
+    @Test
+    void strippingAPhotoWithoutMetadataChangesNothing() throws Exception {
+        byte[] plain = jpeg(image(64, 32));
+
+        assertEquals(new String(plain, StandardCharsets.ISO_8859_1),
+                new String(ImageRenditions.stripMetadata(plain), StandardCharsets.ISO_8859_1));
+        byte[] notAnImage = "%PDF-1.7".getBytes(StandardCharsets.US_ASCII);
+        assertSame(notAnImage, ImageRenditions.stripMetadata(notAnImage));
+    }
+
+    private static BufferedImage image(int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(Color.ORANGE);
+        g.fillRect(0, 0, width, height);
+        g.dispose();
+        return image;
+    }
+
+    private static byte[] jpeg(BufferedImage image) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpeg", out);
+        return out.toByteArray();
+    }
+
+    private static BufferedImage decode(byte[] data) throws Exception {
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(data));
+        assertNotNull(image);
+        return image;
+    }
+
+    /**
+     * An APP1 EXIF segment with the orientation and an ASCII ImageDescription standing in for the GPS block.
+     */
+    private static byte[] exif(int orientation, String description) {
+        byte[] text = (description + "\0").getBytes(StandardCharsets.US_ASCII);
+        ByteArrayOutputStream tiff = new ByteArrayOutputStream();
+        tiff.writeBytes(new byte[] {'M', 'M', 0, 42, 0, 0, 0, 8, 0, 2});
+        tiff.writeBytes(new byte[] {0x01, 0x0E, 0, 2, 0, 0, 0, (byte) text.length, 0, 0, 0, 38});
+        tiff.writeBytes(new byte[] {0x01, 0x12, 0, 3, 0, 0, 0, 1, 0, (byte) orientation, 0, 0});
+        tiff.writeBytes(new byte[] {0, 0, 0, 0});
+        tiff.writeBytes(text);
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        body.writeBytes(new byte[] {'E', 'x', 'i', 'f', 0, 0});
+        body.writeBytes(tiff.toByteArray());
+        return segment(0xE1, body.toByteArray());
+    }
+
+    private static byte[] segment(int marker, byte[] body) {
+        int length = body.length + 2;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.writeBytes(new byte[] {(byte) 0xFF, (byte) marker, (byte) (length >> 8), (byte) length});
+        out.writeBytes(body);
+        return out.toByteArray();
+    }
+}
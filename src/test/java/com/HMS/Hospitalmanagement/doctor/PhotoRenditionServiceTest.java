@@ -0,0 +1,66 @@
+package com.HMS.Hospitalmanagement.doctor;
+
+import com.HMS.Hospitalmanagement.storage.ContentStore;
+import com.HMS.Hospitalmanagement.storage.StoredBlob;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PhotoRenditionServiceTest {
+
+    private static final String HASH = "ab".repeat(32);
+
+    private DoctorRepository doctorRepository;
+    private ContentStore contentStore;
+    private JdbcTemplate jdbcTemplate;
+    private PhotoRenditionService service;
+
+    @BeforeEach
+    void setUp() {
+        doctorRepository = mock(DoctorRepository.class);
+        contentStore = mock(ContentStore.class);
+        jdbcTemplate = mock(JdbcTemplate.class);
+        service = new PhotoRenditionService(doctorRepository, contentStore, jdbcTemplate, event -> { },
+                1, 10, 50_000_000, 0.82f);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void aPhotoThatCannotBeDecodedIsMarkedSoItIsNotRetried() throws Exception {
+        Doctor doctor = new Doctor();
+        doctor.setId(7L);
+        doctor.setImageUrl(ContentStore.urlOf(HASH));
+        doctor.setPhotoUrl(doctor.getImageUrl());
+        StoredBlob blob = new StoredBlob();
+        blob.setHash(HASH);
+        when(doctorRepository.findById(7L)).thenReturn(Optional.of(doctor));
+        when(contentStore.find(HASH)).thenReturn(Optional.of(blob));
+        when(contentStore.open(blob)).thenReturn(
+                new ByteArrayInputStream("not a photo".getBytes(StandardCharsets.US_ASCII)));
+
+        service.schedule(doctor);
+
+        verify(jdbcTemplate, timeout(10_000)).update(startsWith("UPDATE doctors SET photo_render_failed = TRUE"),
+                eq(7L), eq(doctor.getImageUrl()));
+        verify(contentStore, never()).store(any(), anyString());
+    }
+}
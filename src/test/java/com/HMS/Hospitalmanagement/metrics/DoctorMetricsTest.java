@@ -0,0 +1,171 @@
+package com.HMS.Hospitalmanagement.metrics;
+
+import com.HMS.Hospitalmanagement.appointment.Appointment;
+import com.HMS.Hospitalmanagement.appointment.WorkingHours;
+import com.HMS.Hospitalmanagement.billing.JobCheckpoint;
+import com.HMS.Hospitalmanagement.billing.JobCheckpointRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DoctorMetricsTest {
+
+    private static final long DOCTOR = 1L;
+
+    private final LocalDate today = LocalDate.now();
+    private final AppointmentsTable table = new AppointmentsTable();
+    private JobCheckpointRepository checkpointRepository;
+    private DoctorMetrics metrics;
+
+    @BeforeEach
+    void setUp() {
+        checkpointRepository = mock(JobCheckpointRepository.class);
+        metrics = new DoctorMetrics(table, checkpointRepository, new WorkingHours("09:00", "13:00"), 90, 60);
+    }
+
+    @Test
+    void changesWhileTheWindowIsCountedAreCountedOnce() {
+        LocalDate seen = today.plusDays(1);
+        LocalDate unseen = today.plusDays(2);
+        book(seen);
+        // One change commits before the count reads the table, the other after; both are delivered during it
+        table.beforeRead = () -> book(seen);
+        table.afterRead = () -> book(unseen);
+
+        metrics.load();
+
+        assertEquals(2, scheduled(seen));
+        assertEquals(1, scheduled(unseen));
+        book(seen);
+        assertEquals(3, scheduled(seen));
+    }
+
+    @Test
+    void changesBeforeTheLoadAreNotLost() {
+        LocalDate day = today.plusDays(3);
+        when(checkpointRepository.findById("doctor-metrics")).thenReturn(Optional.of(new JobCheckpoint(
+                "doctor-metrics", today.plusDays(60).toEpochDay(), "CLEAN", LocalDateTime.now())));
+        book(day);
+        table.saved.add(new Object[] {DOCTOR, day, 1});
+        // Booked after the counters were saved, before this node loaded them
+        book(day);
+
+        metrics.load();
+
+        assertEquals(2, scheduled(day));
+    }
+
+    @Test
+    void utilizationIsMeasuredAgainstTheWorkingSlots() {
+        metrics.load();
+        book(today);
+        book(today);
+
+        DoctorMetricsReport report = metrics.report(DOCTOR, today, today.plusDays(1));
+
+        DoctorMetricsReport.Day first = report.getDays().get(0);
+        assertEquals(6, first.getAvailableSlots());
+        assertEquals(0.25, first.getUtilization());
+        assertEquals(14, report.getTotals().getAvailableSlots());
+        assertEquals(0.125, report.getTotals().getUtilization());
+    }
+
+    /** Commits a scheduled appointment and then delivers it, as AppointmentService does. */
+    private void book(LocalDate day) {
+        LocalDateTime date = day.atTime(10, 0);
+        table.appointments.add(date);
+        metrics.applyAppointment(DOCTOR, date, Appointment.AppointmentStatus.SCHEDULED, 1);
+    }
+
+    private int scheduled(LocalDate day) {
+        return metrics.report(DOCTOR, day, day).getDays().get(0).getScheduled();
+    }
+
+    /**
+     * The appointments and doctor_day_metrics tables as DoctorMetrics reads them, for one doctor and
+     * scheduled appointments only. A hook can run just before or after the next count reads the table.
+     */
+    private static final class AppointmentsTable extends JdbcTemplate {
+
+        final List<LocalDateTime> appointments = new ArrayList<>();
+        final List<Object[]> saved = new ArrayList<>();
+        Runnable beforeRead;
+        Runnable afterRead;
+
+        @Override
+        public int update(String sql, Object... args) {
+            return 0;
+        }
+
+        @Override
+        public void query(String sql, RowCallbackHandler handler, Object... args) {
+            try {
+                if (sql.startsWith("SELECT doctor_id, DATE(appointment_date)")) {
+                    run(beforeRead);
+                    beforeRead = null;
+                    LocalDateTime from = ((Timestamp) args[0]).toLocalDateTime();
+                    LocalDateTime to = ((Timestamp) args[1]).toLocalDateTime();
+                    Map<LocalDate, Integer> counts = new TreeMap<>();
+                    for (LocalDateTime date : appointments) {
+                        if (!date.isBefore(from) && date.isBefore(to)) {
+                            counts.merge(date.toLocalDate(), 1, Integer::sum);
+                        }
+                    }
+                    run(afterRead);
+                    afterRead = null;
+                    for (Map.Entry<LocalDate, Integer> count : counts.entrySet()) {
+                        handler.processRow(row(DOCTOR, Date.valueOf(count.getKey()), "SCHEDULED", count.getValue()));
+                    }
+                } else if (sql.startsWith("SELECT doctor_id, metric_day")) {
+                    for (Object[] row : saved) {
+                        handler.processRow(row(row[0], Date.valueOf((LocalDate) row[1]), row[2], 0, 0, 0, 0L, 0L));
+                    }
+                } else if (!sql.startsWith("SELECT a.doctor_id, DATE(b.bill_date)")) {
+                    throw new UnsupportedOperationException(sql);
+                }
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private static void run(Runnable hook) {
+            if (hook != null) {
+                hook.run();
+            }
+        }
+
+        private static ResultSet row(Object... columns) throws SQLException {
+            ResultSet rs = mock(ResultSet.class);
+            for (int i = 0; i < columns.length; i++) {
+                Object value = columns[i];
+                if (value instanceof Long number) {
+                    when(rs.getLong(i + 1)).thenReturn(number);
+                } else if (value instanceof Integer number) {
+                    when(rs.getInt(i + 1)).thenReturn(number);
+                } else if (value instanceof Date date) {
+                    when(rs.getDate(i + 1)).thenReturn(date);
+                } else {
+                    when(rs.getString(i + 1)).thenReturn((String) value);
+                }
+            }
+            return rs;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.HMS.Hospitalmanagement.patient;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PatientSearchIndexTest {
+
+    private final PatientsTable table = new PatientsTable();
+    private final PatientSearchIndex index = new PatientSearchIndex(table);
+
+    @BeforeEach
+    void setUp() {
+        table.rows.add(patient(1L, "Jon Smith", "555-123-4567"));
+        table.rows.add(patient(2L, "John Smith", "555-765-4321"));
+        table.rows.add(patient(3L, "Johnny Smithers", null));
+        table.rows.add(patient(4L, "Mary Jones", "(555) 010-0199"));
+    }
+
+    @Test
+    void fullMatchesRankAboveNearOnesAndShorterNamesFirst() {
+        index.rebuild();
+
+        PatientSearchIndex.Matches matches = index.search("smith", 0, 10);
+
+        assertEquals(3, matches.total());
+        assertEquals(List.of(1L, 2L, 3L), ids(matches));
+        assertEquals(List.of(2L), ids(index.search("smith", 1, 1)));
+        assertEquals(List.of(4L), ids(index.search("0199", 0, 10)));
+        assertEquals(List.of(3L), ids(index.search("Jóhnny", 0, 1)));
+    }
+
+    @Test
+    void queriesWithoutLettersOrEnoughDigitsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> index.search("12", 0, 10));
+        assertThrows(IllegalArgumentException.class, () -> index.search("-- ", 0, 10));
+    }
+
+    @Test
+    void eventsUpdateTheIndexInPlace() {
+        index.rebuild();
+
+        index.onPatientEvent(new PatientEvent(PatientEvent.Type.UPDATED, patient(4L, "Mary Smith", null)));
+        index.onPatientEvent(new PatientEvent(PatientEvent.Type.DELETED, table.rows.get(0)));
+        index.onPatientEvent(new PatientEvent(PatientEvent.Type.CREATED, patient(5L, "Ada Lovelace", null)));
+
+        assertEquals(List.of(4L, 2L, 3L), ids(index.search("smith", 0, 10)));
+        assertEquals(0, index.search("0199", 0, 10).total());
+        assertEquals(List.of(5L), ids(index.search("lovelace", 0, 10)));
+    }
+
+    @Test
+    void searchesAreServedAndChangesKeptWhileTheIndexIsBuilt() {
+        index.onPatientEvent(new PatientEvent(PatientEvent.Type.CREATED, patient(9L, "Grace Hopper", null)));
+        table.whileReading = () -> {
+            // Another thread still searches the index in use
+            List<Long> found = CompletableFuture.supplyAsync(() -> ids(index.search("hopper", 0, 10)))
+                    .orTimeout(5, TimeUnit.SECONDS).join();
+            assertEquals(List.of(9L), found);
+            // Patient 2 was read before this rename, patient 5 is created after the read
+            index.onPatientEvent(new PatientEvent(PatientEvent.Type.UPDATED, patient(2L, "Ada Byron", null)));
+            index.onPatientEvent(new PatientEvent(PatientEvent.Type.CREATED, patient(5L, "Ada Lovelace", null)));
+        };
+
+        index.rebuild();
+
+        assertEquals(List.of(1L, 3L), ids(index.search("smith", 0, 10)));
+        assertEquals(List.of(2L), ids(index.search("byron", 0, 10)));
+        assertEquals(List.of(5L), ids(index.search("lovelace", 0, 10)));
+        // Not in the table, so gone with the index it was added to
+        assertEquals(0, index.search("hopper", 0, 10).total());
+    }
+
+    private static List<Long> ids(PatientSearchIndex.Matches matches) {
+        return matches.page().stream().map(PatientSearchIndex.Match::id).toList();
+    }
+
+    private static Patient patient(Long id, String name, String contactNumber) {
+        Patient patient = new Patient();
+        patient.setId(id);
+        patient.setName(name);
+        patient.setContactNumber(contactNumber);
+        return patient;
+    }
+
+    /**
+     * The patients table as the index reads it. A hook can run halfway through the read.
+     */
+    private static final class PatientsTable extends JdbcTemplate {
+
+        final List<Patient> rows = new ArrayList<>();
+        Runnable whileReading;
+
+        @Override
+        public void query(String sql, RowCallbackHandler handler) {
+            List<Patient> snapshot = List.copyOf(rows);
+            try {
+                for (int i = 0; i < snapshot.size(); i++) {
+                    if (i == snapshot.size() / 2 && whileReading != null) {
+                        whileReading.run();
+                    }
+                    Patient patient = snapshot.get(i);
+                    ResultSet rs = mock(ResultSet.class);
+                    when(rs.getLong(1)).thenReturn(patient.getId());
+                    when(rs.getString(2)).thenReturn(patient.getName());
+                    when(rs.getString(3)).thenReturn(patient.getContactNumber());
+                    handler.processRow(rs);
+                }
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
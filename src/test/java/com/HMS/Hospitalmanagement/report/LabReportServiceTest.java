@@ -0,0 +1,61 @@
+package com.HMS.Hospitalmanagement.report;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class LabReportServiceTest {
+
+    private LabReportRepository labReportRepository;
+    private LabReportService labReportService;
+
+    @BeforeEach
+    void setUp() {
+        labReportRepository = mock(LabReportRepository.class);
+        labReportService = new LabReportService();
+        ReflectionTestUtils.setField(labReportService, "labReportRepository", labReportRepository);
+    }
+
+    @Test
+    void pagesContinuePastReportsWithoutADate() {
+        LabReport dated = report(9L, LocalDate.of(2030, 1, 15));
+        LabReport undated = report(7L, null);
+        LabReport older = report(4L, null);
+        when(labReportRepository.search(isNull(), isNull(), isNull(), isNull(), isNull(), isNull(), isNull(),
+                isNull(), isNull(), any(Limit.class))).thenReturn(List.of(dated, undated));
+        when(labReportRepository.search(isNull(), isNull(), isNull(), isNull(), isNull(), isNull(), isNull(),
+                eq(LocalDate.of(2030, 1, 15)), eq(9L), any(Limit.class))).thenReturn(List.of(undated, older));
+        when(labReportRepository.search(isNull(), isNull(), isNull(), isNull(), isNull(), isNull(), isNull(),
+                isNull(), eq(7L), any(Limit.class))).thenReturn(List.of(older));
+
+        LabReportPage first = labReportService.search(null, null, null, null, null, null, null, null, 1);
+        assertEquals(List.of(dated), first.getItems());
+        LabReportPage second = labReportService.search(null, null, null, null, null, null, null,
+                first.getNextCursor(), 1);
+        assertEquals(List.of(undated), second.getItems());
+        assertNotNull(second.getNextCursor());
+        LabReportPage third = labReportService.search(null, null, null, null, null, null, null,
+                second.getNextCursor(), 1);
+        assertEquals(List.of(older), third.getItems());
+        assertNull(third.getNextCursor());
+    }
+
+    private static LabReport report(Long id, LocalDate reportDate) {
+        LabReport report = new LabReport("Ada Lovelace", "Grey", "CBC", reportDate, null, "cbc.pdf");
+        report.setId(id);
+        return report;
+    }
+}
@@ -0,0 +1,178 @@
+package com.HMS.Hospitalmanagement.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * What every BlobStore backend must do, run against each of them by a subclass. Files handed to put
+ * are created in the temp directory, which the local backend also uses as its root's file system.
+ */
+abstract class BlobStoreContract {
+
+    // Over two S3 parts (5 MiB minimum), so the S3 backend goes through a three-part multipart upload
+    static final int LARGE_SIZE = 11 * 1024 * 1024 + 3;
+
+    @TempDir
+    Path dir;
+
+    BlobStore store;
+
+    abstract BlobStore createStore(Path dir) throws IOException;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        store = createStore(dir);
+    }
+
+    @Test
+    void putMovesTheFileInAndOpenReadsItBack() throws IOException {
+        Path file = file("report body");
+
+        store.put("ab/cd/abcd", file);
+
+        assertFalse(Files.exists(file));
+        assertEquals("report body", read("ab/cd/abcd", 0));
+    }
+
+    @Test
+    void openFromAnOffsetSkipsTheStart() throws IOException {
+        store.put("ab/cd/abcd", file("0123456789"));
+
+        assertEquals("456789", read("ab/cd/abcd", 4));
+        assertEquals("", read("ab/cd/abcd", 10));
+    }
+
+    @Test
+    void openingAMissingObjectThrowsNoSuchFile() {
+        assertThrows(NoSuchFileException.class, () -> store.open("ab/cd/missing", 0).close());
+    }
+
+    @Test
+    void putReplacesAnExistingObject() throws IOException {
+        store.put("ab/cd/abcd", file("first"));
+        store.put("ab/cd/abcd", file("second"));
+
+        assertEquals("second", read("ab/cd/abcd", 0));
+    }
+
+    @Test
+    void existsAndDelete() throws IOException {
+        store.put("ab/cd/abcd", file("x"));
+        assertTrue(store.exists("ab/cd/abcd"));
+        assertFalse(store.exists("ab/cd/abce"));
+
+        store.delete("ab/cd/abcd");
+        assertFalse(store.exists("ab/cd/abcd"));
+        // Deleting what is not there is not an error
+        store.delete("ab/cd/abcd");
+    }
+
+    @Test
+    void keysNeedingEscapeRoundTrip() throws IOException {
+        String key = "tmp/lab report (1)+&<final>.pdf";
+        store.put(key, file("escaped"));
+
+        assertTrue(store.exists(key));
+        assertEquals("escaped", read(key, 0));
+        assertEquals(List.of(key), keys("tmp/"));
+    }
+
+    @Test
+    void forEachListsTheObjectsUnderThePrefixWithTheirSizes() throws IOException {
+        store.put("ab/cd/abcd", file("four"));
+        store.put("ab/cd/abcd.gz", file("seven!!"));
+        store.put("ab/ef/abef", file("x"));
+        store.put("cd/ab/cdab", file("other"));
+
+        Map<String, Long> sizes = new TreeMap<>();
+        store.forEach("ab/", entry -> sizes.put(entry.key(), entry.size()));
+
+        assertEquals(Map.of("ab/cd/abcd", 4L, "ab/cd/abcd.gz", 7L, "ab/ef/abef", 1L), sizes);
+        assertEquals(List.of("ab/cd/abcd", "ab/cd/abcd.gz"), keys("ab/cd/"));
+        assertEquals(List.of(), keys("ef/"));
+    }
+
+    @Test
+    void forEachReportsLastModifiedTimes() throws IOException {
+        long before = System.currentTimeMillis() - 2_000;
+        store.put("ab/cd/abcd", file("x"));
+
+        List<BlobStore.Entry> entries = new ArrayList<>();
+        store.forEach("ab/", entries::add);
+
+        assertEquals(1, entries.size());
+        assertTrue(entries.get(0).lastModified() >= before);
+        assertTrue(entries.get(0).lastModified() <= System.currentTimeMillis() + 2_000);
+    }
+
+    @Test
+    void forEachVisitsEveryObjectAcrossPages() throws IOException {
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            String key = "ab/0" + i % 7 + "/object-" + (i < 10 ? "0" + i : i);
+            store.put(key, file("object " + i));
+            expected.add(key);
+        }
+        expected.sort(null);
+
+        assertEquals(expected, keys("ab/"));
+    }
+
+    @Test
+    void largeObjectsRoundTrip() throws IOException {
+        byte[] content = new byte[LARGE_SIZE];
+        new Random(7).nextBytes(content);
+        Path file = Files.write(dir.resolve("large-" + System.nanoTime()), content);
+
+        store.put("ab/cd/large", file);
+
+        assertFalse(Files.exists(file));
+        try (InputStream in = store.open("ab/cd/large", 0)) {
+            assertArrayEquals(content, in.readAllBytes());
+        }
+        long offset = LARGE_SIZE - 100;
+        try (InputStream in = store.open("ab/cd/large", offset)) {
+            assertArrayEquals(Arrays.copyOfRange(content, (int) offset, LARGE_SIZE), in.readAllBytes());
+        }
+        List<BlobStore.Entry> entries = new ArrayList<>();
+        store.forEach("ab/cd/", entries::add);
+        assertEquals(LARGE_SIZE, entries.get(0).size());
+    }
+
+    Path file(String content) throws IOException {
+        return Files.writeString(Files.createTempFile(dir, "put-", ".tmp"), content);
+    }
+
+    String read(String key, long offset) throws IOException {
+        try (InputStream in = store.open(key, offset)) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    List<String> keys(String prefix) throws IOException {
+        List<String> keys = new ArrayList<>();
+        store.forEach(prefix, entry -> keys.add(entry.key()));
+        keys.sort(null);
+        return keys;
+    }
+}
@@ -0,0 +1,211 @@
+package com.HMS.Hospitalmanagement.storage;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.stream.Stream;
+import java.util.zip.DeflaterOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Ratio and throughput of the content store's gzip path on a sample corpus: how much each file
+ * shrinks, whether it clears the 10% bar, and how fast it compresses on store and inflates on a
+ * plain read. Runs only with -Pbenchmark and needs no database. The corpus is generated (lab CSV
+ * exports, JSON results, text reports, PDFs with plain and already-deflated streams, a PNG);
+ * -Dbench.corpus=&lt;dir&gt; measures the files in a directory instead.
+ */
+@Tag("benchmark")
+class CompressionBenchmark {
+
+    private static final int ROUNDS = 5;
+    private static final String[] TESTS = { "HbA1c", "Glucose", "LDL", "HDL", "Creatinine", "ALT", "AST",
+            "TSH", "Hemoglobin", "Platelets", "WBC", "Sodium", "Potassium", "Vitamin D" };
+    private static final String[] WORDS = { "patient", "presents", "with", "no", "acute", "distress", "findings",
+            "within", "normal", "limits", "recommend", "follow-up", "in", "six", "weeks", "mild", "elevation",
+            "of", "the", "serum", "level", "noted", "clinical", "correlation", "advised", "history", "negative" };
+
+    @TempDir
+    Path work;
+
+    @Test
+    void ratioAndThroughputOnSampleCorpus() throws IOException {
+        String corpus = System.getProperty("bench.corpus");
+        List<Path> files = corpus != null ? listFiles(Paths.get(corpus)) : generateCorpus(work.resolve("corpus"));
+
+        long plainTotal = 0;
+        long storedTotal = 0;
+        System.out.printf(Locale.ROOT, "%n%-28s %-26s %11s %11s %7s %6s %12s %12s%n", "file", "content type",
+                "bytes", "stored", "ratio", "kept", "gzip MB/s", "inflate MB/s");
+        for (Path file : files) {
+            String contentType = FileSender.contentTypeOf(file.getFileName().toString());
+            long size = Files.size(file);
+            plainTotal += size;
+            if (!ContentStore.isCompressible(contentType, size)) {
+                storedTotal += size;
+                System.out.printf(Locale.ROOT, "%-28s %-26s %,11d %,11d %7s %6s %12s %12s%n",
+                        file.getFileName(), contentType, size, size, "-", "skip", "-", "-");
+                continue;
+            }
+
+            // The first round warms the JIT and is not timed
+            long compressNanos = 0;
+            Path kept = null;
+            for (int round = 0; round <= ROUNDS; round++) {
+                if (kept != null) {
+                    Files.delete(kept);
+                }
+                long start = System.nanoTime();
+                try (InputStream in = Files.newInputStream(file)) {
+                    ContentStore.Gzipped compressed = ContentStore.compress(in, size, work);
+                    kept = compressed != null ? compressed.file() : null;
+                }
+                if (round > 0) {
+                    compressNanos += System.nanoTime() - start;
+                }
+            }
+            long gzipSize = gzipSize(file);
+            String inflateRate = "-";
+            if (kept != null) {
+                long inflateNanos = 0;
+                for (int round = 0; round <= ROUNDS; round++) {
+                    long start = System.nanoTime();
+                    try (InputStream in = ContentStore.inflate(Files.newInputStream(kept))) {
+                        in.transferTo(OutputStream.nullOutputStream());
+                    }
+                    if (round > 0) {
+                        inflateNanos += System.nanoTime() - start;
+                    }
+                }
+                inflateRate = String.format(Locale.ROOT, "%.1f", megabytesPerSecond(size, inflateNanos));
+                Files.delete(kept);
+            }
+            storedTotal += kept != null ? gzipSize : size;
+            System.out.printf(Locale.ROOT, "%-28s %-26s %,11d %,11d %7.3f %6s %12.1f %12s%n",
+                    file.getFileName(), contentType, size, kept != null ? gzipSize : size,
+                    (double) gzipSize / size, kept != null ? "gzip" : "plain",
+                    megabytesPerSecond(size, compressNanos), inflateRate);
+        }
+        System.out.printf(Locale.ROOT, "%ncorpus: %,d bytes stored as %,d (%.1f%% saved)%n", plainTotal,
+                storedTotal, 100.0 * (plainTotal - storedTotal) / Math.max(1, plainTotal));
+        assertTrue(storedTotal <= plainTotal);
+    }
+
+    private long gzipSize(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            Path compressed = ContentStore.gzip(in, work).file();
+            try {
+                return Files.size(compressed);
+            } finally {
+                Files.delete(compressed);
+            }
+        }
+    }
+
+    private static double megabytesPerSecond(long bytes, long totalNanos) {
+        return bytes * (double) ROUNDS / (1024.0 * 1024.0) / (totalNanos / 1e9);
+    }
+
+    private static List<Path> listFiles(Path dir) throws IOException {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            return paths.filter(Files::isRegularFile).sorted().toList();
+        }
+    }
+
+    private static List<Path> generateCorpus(Path dir) throws IOException {
+        Files.createDirectories(dir);
+        Random random = new Random(42);
+        List<Path> files = new ArrayList<>();
+        files.add(write(dir.resolve("lab-export.csv"), labCsv(random, 40_000)));
+        files.add(write(dir.resolve("lab-results.json"), labJson(random, 8_000)));
+        files.add(write(dir.resolve("discharge-summary.txt"), prose(random, 30_000)));
+        files.add(write(dir.resolve("report-plain-streams.pdf"), pdf(random, 400, false)));
+        files.add(write(dir.resolve("report-deflated-streams.pdf"), pdf(random, 400, true)));
+        byte[] image = new byte[512 * 1024];
+        random.nextBytes(image);
+        files.add(write(dir.resolve("xray.png"), image));
+        return files;
+    }
+
+    private static Path write(Path file, byte[] content) throws IOException {
+        return Files.write(file, content);
+    }
+
+    private static byte[] labCsv(Random random, int rows) {
+        StringBuilder csv = new StringBuilder("patient_id,test,value,unit,ref_low,ref_high,flag,collected_at\n");
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 8, 0);
+        for (int i = 0; i < rows; i++) {
+            double value = 50 + random.nextGaussian() * 20;
+            csv.append(10_000 + random.nextInt(5_000)).append(',')
+                    .append(TESTS[random.nextInt(TESTS.length)]).append(',')
+                    .append(String.format(Locale.ROOT, "%.2f", value)).append(",mg/dL,40.00,80.00,")
+                    .append(value < 40 ? "L" : value > 80 ? "H" : "").append(',')
+                    .append(start.plusMinutes(7L * i)).append('\n');
+        }
+        return csv.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] labJson(Random random, int results) {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < results; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append(String.format(Locale.ROOT, "{\"reportId\":%d,\"patientId\":%d,\"test\":\"%s\","
+                            + "\"value\":%.2f,\"unit\":\"mg/dL\",\"reference\":{\"low\":40.0,\"high\":80.0},"
+                            + "\"verified\":%b}",
+                    i + 1, 10_000 + random.nextInt(5_000), TESTS[random.nextInt(TESTS.length)],
+                    50 + random.nextGaussian() * 20, random.nextBoolean()));
+        }
+        return json.append(']').toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] prose(Random random, int words) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            text.append(WORDS[random.nextInt(WORDS.length)]).append(i % 14 == 13 ? ".\n" : " ");
+        }
+        return text.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * A PDF whose pages carry text content streams, either plain or Flate-encoded the way most
+     * generators write them. Not a renderable document; the bytes are what matter here.
+     */
+    private static byte[] pdf(Random random, int pages, boolean deflated) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write("%PDF-1.7\n".getBytes(StandardCharsets.US_ASCII));
+        for (int page = 0; page < pages; page++) {
+            byte[] content = ("BT /F1 10 Tf 72 720 Td 14 TL\n" + new String(prose(random, 120), StandardCharsets.UTF_8)
+                    .lines().map(line -> "(" + line + ") '\n").reduce("", String::concat) + "ET\n")
+                    .getBytes(StandardCharsets.US_ASCII);
+            if (deflated) {
+                ByteArrayOutputStream packed = new ByteArrayOutputStream();
+                try (OutputStream deflater = new DeflaterOutputStream(packed)) {
+                    deflater.write(content);
+                }
+                content = packed.toByteArray();
+            }
+            out.write(String.format(Locale.ROOT, "%d 0 obj\n<< /Length %d%s >>\nstream\n", page + 1, content.length,
+                    deflated ? " /Filter /FlateDecode" : "").getBytes(StandardCharsets.US_ASCII));
+            out.write(content);
+            out.write("\nendstream\nendobj\n".getBytes(StandardCharsets.US_ASCII));
+        }
+        out.write("trailer\n<< /Size 1 >>\n%%EOF\n".getBytes(StandardCharsets.US_ASCII));
+        return out.toByteArray();
+    }
+}
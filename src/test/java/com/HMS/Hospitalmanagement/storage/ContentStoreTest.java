@@ -0,0 +1,130 @@
+package com.HMS.Hospitalmanagement.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ContentStoreTest {
+
+    @TempDir
+    Path work;
+
+    private final InMemoryBlobStore objects = new InMemoryBlobStore();
+    private final StoredBlobsTable table = new StoredBlobsTable();
+
+    @Test
+    void aRecreatedRowDescribesTheCompressedObjectThatIsThere() throws Exception {
+        byte[] content = "Haemoglobin 135 g/L\n".repeat(200).getBytes(StandardCharsets.UTF_8);
+        String hash = hashOf(content);
+        ContentStore.Gzipped gzipped = ContentStore.gzip(new ByteArrayInputStream(content), work);
+        long storedSize = Files.size(gzipped.file());
+        objects.put(ContentStore.gzipKeyOf(hash), gzipped.file());
+
+        Path upload = Files.write(work.resolve("upload"), content);
+        StoredBlob blob = node().adopt(upload, hash, "text/plain");
+
+        assertEquals(ContentStore.GZIP, blob.getEncoding());
+        assertEquals(storedSize, blob.getStoredSize());
+        assertEquals(content.length, blob.getSize());
+        assertEquals(1, blob.getRefCount());
+        assertFalse(Files.exists(upload));
+    }
+
+    @Test
+    void aRecreatedRowDescribesThePlainObjectThatIsThere() throws Exception {
+        byte[] content = "plain".getBytes(StandardCharsets.UTF_8);
+        String hash = hashOf(content);
+        objects.put(ContentStore.keyOf(hash), Files.write(work.resolve("stored"), content));
+
+        StoredBlob blob = node().adopt(Files.write(work.resolve("upload"), content), hash, "text/plain");
+
+        assertNull(blob.getEncoding());
+        assertEquals(content.length, blob.getStoredSize());
+    }
+
+    @Test
+    void nodesSharingTheDatabaseNeverDeleteAnObjectTheOtherHolds() throws Exception {
+        byte[] content = "CBC: haemoglobin 135 g/L".getBytes(StandardCharsets.UTF_8);
+        String hash = hashOf(content);
+        List<ContentStore> nodes = List.of(node(), node());
+
+        ExecutorService executor = Executors.newFixedThreadPool(nodes.size());
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> results = new ArrayList<>();
+        for (ContentStore node : nodes) {
+            results.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < 500; i++) {
+                    Path upload = Files.write(Files.createTempFile(work, "upload-", ".tmp"), content);
+                    StoredBlob blob = node.adopt(upload, hash, "text/plain");
+                    try (InputStream in = node.open(blob)) {
+                        assertArrayEquals(content, in.readAllBytes());
+                    }
+                    node.release(hash);
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> result : results) {
+            result.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertTrue(table.find(hash).isEmpty());
+        assertFalse(objects.exists(ContentStore.keyOf(hash)));
+    }
+
+    @Test
+    void anOrphanIsNotRemovedOnceItIsAdopted() throws Exception {
+        byte[] content = "plain".getBytes(StandardCharsets.UTF_8);
+        String hash = hashOf(content);
+        objects.put(ContentStore.keyOf(hash), Files.write(work.resolve("stored"), content));
+        ContentStore adopter = node();
+        ContentStore reconciler = node();
+
+        adopter.adopt(Files.write(work.resolve("upload"), content), hash, "text/plain");
+
+        assertFalse(reconciler.removeOrphan(ContentStore.keyOf(hash)));
+        assertTrue(objects.exists(ContentStore.keyOf(hash)));
+        adopter.release(hash);
+        assertTrue(table.find(hash).isEmpty());
+        assertFalse(objects.exists(ContentStore.keyOf(hash)));
+    }
+
+    /**
+     * A ContentStore as one node would have it; all of them share the table and the objects.
+     */
+    private ContentStore node() {
+        StoredBlobRepository repository = mock(StoredBlobRepository.class);
+        when(repository.findById(anyString())).thenAnswer(invocation -> table.find(invocation.getArgument(0)));
+        return new ContentStore(table, repository, objects, table.transactionTemplate());
+    }
+
+    private static String hashOf(byte[] content) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+    }
+}
@@ -0,0 +1,228 @@
+package com.HMS.Hospitalmanagement.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+class FileSenderTest {
+
+    @TempDir
+    Path work;
+
+    private final InMemoryBlobStore objects = new InMemoryBlobStore();
+    private final List<Long> openedAt = new CopyOnWriteArrayList<>();
+    private ContentStore contentStore;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        // Records the offsets objects are read from, to check that range reads seek
+        BlobStore blobStore = new BlobStore() {
+            @Override
+            public void put(String key, Path file) throws IOException {
+                objects.put(key, file);
+            }
+
+            @Override
+            public InputStream open(String key, long offset) throws IOException {
+                openedAt.add(offset);
+                return objects.open(key, offset);
+            }
+
+            @Override
+            public boolean exists(String key) {
+                return objects.exists(key);
+            }
+
+            @Override
+            public void delete(String key) {
+                objects.delete(key);
+            }
+
+            @Override
+            public void forEach(String prefix, Consumer<Entry> action) {
+                objects.forEach(prefix, action);
+            }
+        };
+        contentStore = mock(ContentStore.class);
+        when(contentStore.find(anyString())).thenReturn(Optional.empty());
+        when(contentStore.storedKey(any())).thenCallRealMethod();
+        mockMvc = MockMvcBuilders.standaloneSetup(
+                new StoredFileController(new FileSender(contentStore, blobStore), contentStore)).build();
+    }
+
+    @Test
+    void rangesAreServedAsPartialContent() throws Exception {
+        byte[] content = text(3000);
+        StoredBlob blob = storePlain(content);
+
+        MockHttpServletResponse full = mockMvc.perform(get(ContentStore.urlOf(blob.getHash()))).andReturn()
+                .getResponse();
+        assertEquals(200, full.getStatus());
+        assertArrayEquals(content, full.getContentAsByteArray());
+        assertEquals("bytes", full.getHeader(HttpHeaders.ACCEPT_RANGES));
+
+        MockHttpServletResponse partial = mockMvc.perform(get(ContentStore.urlOf(blob.getHash()))
+                .header(HttpHeaders.RANGE, "bytes=100-199")).andReturn().getResponse();
+        assertEquals(206, partial.getStatus());
+        assertEquals("bytes 100-199/3000", partial.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertArrayEquals(Arrays.copyOfRange(content, 100, 200), partial.getContentAsByteArray());
+
+        MockHttpServletResponse suffix = mockMvc.perform(get(ContentStore.urlOf(blob.getHash()))
+                .header(HttpHeaders.RANGE, "bytes=-10")).andReturn().getResponse();
+        assertEquals(206, suffix.getStatus());
+        assertArrayEquals(Arrays.copyOfRange(content, 2990, 3000), suffix.getContentAsByteArray());
+
+        MockHttpServletResponse unsatisfiable = mockMvc.perform(get(ContentStore.urlOf(blob.getHash()))
+                .header(HttpHeaders.RANGE, "bytes=5000-")).andReturn().getResponse();
+        assertEquals(416, unsatisfiable.getStatus());
+        assertEquals("bytes */3000", unsatisfiable.getHeader(HttpHeaders.CONTENT_RANGE));
+    }
+
+    @Test
+    void ifRangeFallsBackToTheWholeFileWhenTheTagDiffers() throws Exception {
+        StoredBlob blob = storePlain(text(3000));
+        String etag = "\"" + blob.getHash() + "\"";
+
+        MockHttpServletResponse matching = mockMvc.perform(get(ContentStore.urlOf(blob.getHash()))
+                .header(HttpHeaders.RANGE, "bytes=0-9").header(HttpHeaders.IF_RANGE, etag)).andReturn()
+                .getResponse();
+        assertEquals(206, matching.getStatus());
+        assertEquals(10, matching.getContentAsByteArray().length);
+
+        MockHttpServletResponse stale = mockMvc.perform(get(ContentStore.urlOf(blob.getHash()))
+                .header(HttpHeaders.RANGE, "bytes=0-9").header(HttpHeaders.IF_RANGE, "\"other\"")).andReturn()
+                .getResponse();
+        assertEquals(200, stale.getStatus());
+        assertEquals(3000, stale.getContentAsByteArray().length);
+    }
+
+    @Test
+    void aMatchingETagIsNotModified() throws Exception {
+        StoredBlob blob = storePlain(text(3000));
+
+        MockHttpServletResponse first = mockMvc.perform(get(ContentStore.urlOf(blob.getHash()))).andReturn()
+                .getResponse();
+        assertEquals("\"" + blob.getHash() + "\"", first.getHeader(HttpHeaders.ETAG));
+
+        MockHttpServletResponse again = mockMvc.perform(get(ContentStore.urlOf(blob.getHash()))
+                .header(HttpHeaders.IF_NONE_MATCH, first.getHeader(HttpHeaders.ETAG))).andReturn().getResponse();
+        assertEquals(304, again.getStatus());
+        assertEquals(0, again.getContentAsByteArray().length);
+    }
+
+    @Test
+    void gzipBlobsAreSentAsStoredOnlyToClientsThatAcceptIt() throws Exception {
+        byte[] content = text(5000);
+        StoredBlob blob = storeGzipped(content);
+        byte[] stored = objects.open(ContentStore.gzipKeyOf(blob.getHash()), 0).readAllBytes();
+
+        MockHttpServletResponse compressed = mockMvc.perform(get(ContentStore.urlOf(blob.getHash()))
+                .header(HttpHeaders.ACCEPT_ENCODING, "br, gzip")).andReturn().getResponse();
+        assertEquals(200, compressed.getStatus());
+        assertEquals("gzip", compressed.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertEquals("\"" + blob.getHash() + "-gzip\"", compressed.getHeader(HttpHeaders.ETAG));
+        assertEquals(HttpHeaders.ACCEPT_ENCODING, compressed.getHeader(HttpHeaders.VARY));
+        assertArrayEquals(stored, compressed.getContentAsByteArray());
+        assertArrayEquals(content, new GZIPInputStream(new ByteArrayInputStream(stored)).readAllBytes());
+
+        MockHttpServletResponse plain = mockMvc.perform(get(ContentStore.urlOf(blob.getHash()))
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0")).andReturn().getResponse();
+        assertEquals(200, plain.getStatus());
+        assertNull(plain.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertEquals("\"" + blob.getHash() + "\"", plain.getHeader(HttpHeaders.ETAG));
+        assertArrayEquals(content, plain.getContentAsByteArray());
+    }
+
+    @Test
+    void rangesOfGzipBlobsInflateFromTheNearestChunk() throws Exception {
+        byte[] content = text(3 * SeekableGzip.CHUNK_SIZE + 12345);
+        StoredBlob blob = storeGzipped(content);
+        assertEquals(4, blob.getGzipIndex().length / Long.BYTES);
+        int start = 2 * SeekableGzip.CHUNK_SIZE + 777;
+
+        openedAt.clear();
+        MockHttpServletResponse partial = mockMvc.perform(get(ContentStore.urlOf(blob.getHash()))
+                .header(HttpHeaders.RANGE, "bytes=" + start + "-" + (start + 99_999))
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip")).andReturn().getResponse();
+
+        assertEquals(206, partial.getStatus());
+        assertNull(partial.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertArrayEquals(Arrays.copyOfRange(content, start, start + 100_000), partial.getContentAsByteArray());
+        assertEquals(1, openedAt.size());
+        assertTrue(openedAt.get(0) > blob.getStoredSize() / 2, "Read from offset " + openedAt.get(0));
+
+        // The tail of the last chunk, which ends short of CHUNK_SIZE
+        MockHttpServletResponse tail = mockMvc.perform(get(ContentStore.urlOf(blob.getHash()))
+                .header(HttpHeaders.RANGE, "bytes=-500")).andReturn().getResponse();
+        assertArrayEquals(Arrays.copyOfRange(content, content.length - 500, content.length),
+                tail.getContentAsByteArray());
+    }
+
+    private StoredBlob storePlain(byte[] content) throws Exception {
+        StoredBlob blob = blob(content);
+        Path file = Files.write(work.resolve("plain"), content);
+        objects.put(ContentStore.keyOf(blob.getHash()), file);
+        return blob;
+    }
+
+    private StoredBlob storeGzipped(byte[] content) throws Exception {
+        StoredBlob blob = blob(content);
+        ContentStore.Gzipped gzipped = ContentStore.gzip(new ByteArrayInputStream(content), work);
+        blob.setEncoding(ContentStore.GZIP);
+        blob.setStoredSize(Files.size(gzipped.file()));
+        blob.setGzipIndex(gzipped.index());
+        objects.put(ContentStore.gzipKeyOf(blob.getHash()), gzipped.file());
+        return blob;
+    }
+
+    private StoredBlob blob(byte[] content) throws Exception {
+        StoredBlob blob = new StoredBlob();
+        blob.setHash(HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content)));
+        blob.setSize(content.length);
+        blob.setStoredSize((long) content.length);
+        blob.setContentType("text/plain");
+        blob.setCreatedAt(LocalDateTime.of(2030, 1, 15, 10, 0));
+        blob.setRefCount(1);
+        when(contentStore.find(blob.getHash())).thenReturn(Optional.of(blob));
+        return blob;
+    }
+
+    private static byte[] text(int length) {
+        StringBuilder text = new StringBuilder(length + 64);
+        for (int line = 0; text.length() < length; line++) {
+            text.append("Line ").append(line).append(": haemoglobin ").append(line * 7 % 181).append(" g/L\n");
+        }
+        return text.substring(0, length).getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,11 @@
+package com.HMS.Hospitalmanagement.storage;
+
+import java.nio.file.Path;
+
+class InMemoryBlobStoreTest extends BlobStoreContract {
+
+    @Override
+    BlobStore createStore(Path dir) {
+        return new InMemoryBlobStore();
+    }
+}
@@ -0,0 +1,32 @@
+package com.HMS.Hospitalmanagement.storage;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LocalBlobStoreTest extends BlobStoreContract {
+
+    @Override
+    BlobStore createStore(Path dir) throws IOException {
+        return new LocalBlobStore(Files.createDirectories(dir.resolve("store")));
+    }
+
+    @Test
+    void localPathPointsAtTheStoredFile() throws IOException {
+        store.put("ab/cd/abcd", file("on disk"));
+
+        assertEquals("on disk", Files.readString(store.localPath("ab/cd/abcd")));
+        assertNull(store.localPath("ab/cd/missing"));
+    }
+
+    @Test
+    void keysCannotEscapeTheRoot() {
+        assertThrows(IllegalArgumentException.class, () -> store.exists("../outside"));
+    }
+}
@@ -0,0 +1,165 @@
+package com.HMS.Hospitalmanagement.storage;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The stored_blobs table as ContentStore uses it, for running several ContentStores against one
+ * "database". Each statement locks the row of its hash; inside a transaction the lock is held until
+ * commit or rollback, as InnoDB does. Rollback does not undo anything, and any statement the store
+ * does not issue fails.
+ */
+class StoredBlobsTable extends JdbcTemplate {
+
+    private final Map<String, StoredBlob> rows = new ConcurrentHashMap<>();
+    private final Map<String, ReentrantLock> rowLocks = new ConcurrentHashMap<>();
+    private final ThreadLocal<List<ReentrantLock>> held = new ThreadLocal<>();
+
+    TransactionTemplate transactionTemplate() {
+        return new TransactionTemplate(new PlatformTransactionManager() {
+            @Override
+            public TransactionStatus getTransaction(TransactionDefinition definition) {
+                held.set(new ArrayList<>());
+                return new SimpleTransactionStatus();
+            }
+
+            @Override
+            public void commit(TransactionStatus status) {
+                end();
+            }
+
+            @Override
+            public void rollback(TransactionStatus status) {
+                end();
+            }
+        });
+    }
+
+    Optional<StoredBlob> find(String hash) {
+        StoredBlob row = rows.get(hash);
+        if (row == null) {
+            return Optional.empty();
+        }
+        StoredBlob copy = new StoredBlob();
+        copy.setHash(row.getHash());
+        copy.setSize(row.getSize());
+        copy.setContentType(row.getContentType());
+        copy.setEncoding(row.getEncoding());
+        copy.setStoredSize(row.getStoredSize());
+        copy.setGzipIndex(row.getGzipIndex());
+        copy.setRefCount(row.getRefCount());
+        return Optional.of(copy);
+    }
+
+    @Override
+    public int update(String sql, Object... args) {
+        boolean insert = sql.startsWith("INSERT INTO stored_blobs (hash, size, ref_count, created_at)");
+        String hash = (String) (insert ? args[0] : args[args.length - 1]);
+        lock(hash);
+        try {
+            StoredBlob row = rows.get(hash);
+            if (insert) {
+                if (row != null) {
+                    throw new DuplicateKeyException(hash);
+                }
+                row = new StoredBlob();
+                row.setHash(hash);
+                row.setSize((Long) args[1]);
+                rows.put(hash, row);
+                return 1;
+            }
+            if (sql.startsWith("UPDATE stored_blobs SET size = ?, content_type = ?, encoding = ?, stored_size = ?, "
+                    + "gzip_index = ?, ref_count = 1")) {
+                if (row == null) {
+                    return 0;
+                }
+                row.setSize((Long) args[0]);
+                row.setContentType((String) args[1]);
+                row.setEncoding((String) args[2]);
+                row.setStoredSize((Long) args[3]);
+                row.setGzipIndex((byte[]) args[4]);
+                row.setRefCount(1);
+                row.setCreatedAt(((Timestamp) args[5]).toLocalDateTime());
+                return 1;
+            }
+            if (sql.startsWith("UPDATE stored_blobs SET ref_count = ref_count + 1")) {
+                if (row == null || row.getRefCount() == 0) {
+                    return 0;
+                }
+                row.setRefCount(row.getRefCount() + 1);
+                return 1;
+            }
+            if (sql.startsWith("UPDATE stored_blobs SET ref_count = ref_count - 1")) {
+                if (row == null || row.getRefCount() == 0) {
+                    return 0;
+                }
+                row.setRefCount(row.getRefCount() - 1);
+                return 1;
+            }
+            if (sql.startsWith("DELETE FROM stored_blobs WHERE hash = ? AND ref_count = 0")) {
+                return row != null && row.getRefCount() == 0 && rows.remove(hash) != null ? 1 : 0;
+            }
+            throw new UnsupportedOperationException(sql);
+        } finally {
+            unlockOutsideTransaction(hash);
+        }
+    }
+
+    @Override
+    public List<Map<String, Object>> queryForList(String sql, Object... args) {
+        if (!sql.equals("SELECT ref_count, encoding FROM stored_blobs WHERE hash = ? FOR UPDATE")) {
+            throw new UnsupportedOperationException(sql);
+        }
+        String hash = (String) args[0];
+        lock(hash);
+        try {
+            StoredBlob row = rows.get(hash);
+            if (row == null) {
+                return List.of();
+            }
+            Map<String, Object> columns = new HashMap<>();
+            columns.put("ref_count", row.getRefCount());
+            columns.put("encoding", row.getEncoding());
+            return List.of(columns);
+        } finally {
+            unlockOutsideTransaction(hash);
+        }
+    }
+
+    private void lock(String hash) {
+        ReentrantLock lock = rowLocks.computeIfAbsent(hash, key -> new ReentrantLock());
+        lock.lock();
+        List<ReentrantLock> locks = held.get();
+        if (locks != null) {
+            locks.add(lock);
+        }
+    }
+
+    private void unlockOutsideTransaction(String hash) {
+        if (held.get() == null) {
+            rowLocks.get(hash).unlock();
+        }
+    }
+
+    private void end() {
+        List<ReentrantLock> locks = held.get();
+        held.remove();
+        for (int i = locks.size() - 1; i >= 0; i--) {
+            locks.get(i).unlock();
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package com.HMS.Hospitalmanagement.waitlist;
+
+import com.HMS.Hospitalmanagement.appointment.Appointment;
+import com.HMS.Hospitalmanagement.appointment.AppointmentEvent;
+import com.HMS.Hospitalmanagement.appointment.AppointmentRepository;
+import com.HMS.Hospitalmanagement.appointment.AppointmentService;
+import com.HMS.Hospitalmanagement.appointment.DoctorSlotIndex;
+import com.HMS.Hospitalmanagement.archive.AppointmentArchiveService;
+import com.HMS.Hospitalmanagement.archive.ArchivedAppointmentRepository;
+import com.HMS.Hospitalmanagement.doctor.Doctor;
+import com.HMS.Hospitalmanagement.doctor.DoctorRepository;
+import com.HMS.Hospitalmanagement.patient.Patient;
+import com.HMS.Hospitalmanagement.patient.PatientRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class WaitlistServiceConcurrencyTest {
+
+    private static final int SLOTS = 40;
+    private static final int BOOKERS_PER_SLOT = 4;
+    private static final long DOCTOR_ID = 1L;
+
+    // Hourly slots, so neighbouring slots never conflict with each other
+    private final LocalDateTime firstSlot = LocalDate.now().plusDays(2).atStartOfDay();
+
+    private final Map<Long, Appointment> appointments = new ConcurrentHashMap<>();
+    private final Map<Long, WaitlistEntry> entries = new ConcurrentHashMap<>();
+    private AppointmentService appointmentService;
+    private WaitlistService waitlistService;
+
+    @BeforeEach
+    void setUp() {
+        AppointmentRepository appointmentRepository = mock(AppointmentRepository.class);
+        PatientRepository patientRepository = mock(PatientRepository.class);
+        DoctorRepository doctorRepository = mock(DoctorRepository.class);
+        WaitlistRepository waitlistRepository = mock(WaitlistRepository.class);
+
+        AtomicLong appointmentIds = new AtomicLong();
+        when(appointmentRepository.save(any(Appointment.class))).thenAnswer(invocation -> {
+            Appointment appointment = invocation.getArgument(0);
+            if (appointment.getId() == null) {
+                appointment.setId(appointmentIds.incrementAndGet());
+            }
+            appointments.put(appointment.getId(), appointment);
+            return appointment;
+        });
+        when(appointmentRepository.findById(anyLong()))
+                .thenAnswer(invocation -> Optional.ofNullable(appointments.get(invocation.<Long>getArgument(0))));
+        AtomicLong entryIds = new AtomicLong();
+        when(waitlistRepository.save(any(WaitlistEntry.class))).thenAnswer(invocation -> {
+            WaitlistEntry entry = invocation.getArgument(0);
+            if (entry.getId() == null) {
+                entry.setId(entryIds.incrementAndGet());
+            }
+            entries.put(entry.getId(), entry);
+            return entry;
+        });
+        when(waitlistRepository.findById(anyLong()))
+                .thenAnswer(invocation -> Optional.ofNullable(entries.get(invocation.<Long>getArgument(0))));
+        when(patientRepository.findById(anyLong())).thenAnswer(invocation -> {
+            Patient patient = new Patient();
+            patient.setId(invocation.getArgument(0));
+            return Optional.of(patient);
+        });
+        when(doctorRepository.findById(anyLong())).thenAnswer(invocation -> {
+            Doctor doctor = new Doctor();
+            doctor.setId(invocation.getArgument(0));
+            return Optional.of(doctor);
+        });
+
+        DoctorSlotIndex slotIndex = new DoctorSlotIndex(appointmentRepository);
+        // Delivers events synchronously, the way Spring does, once the waitlist service exists
+        AtomicReference<WaitlistService> listener = new AtomicReference<>();
+        appointmentService = new AppointmentService(appointmentRepository, patientRepository, doctorRepository,
+                slotIndex, event -> listener.get().onAppointmentEvent((AppointmentEvent) event),
+                mock(ArchivedAppointmentRepository.class), mock(AppointmentArchiveService.class));
+        waitlistService = new WaitlistService(waitlistRepository, patientRepository, doctorRepository,
+                appointmentService, slotIndex, new TransactionTemplate(mock(PlatformTransactionManager.class)));
+        listener.set(waitlistService);
+    }
+
+    @Test
+    void racingCancellationsAndBookingsNeverDoubleBook() throws Exception {
+        List<Appointment> held = new ArrayList<>();
+        for (int i = 0; i < SLOTS; i++) {
+            held.add(appointmentService.createAppointment(booking(1000L + i, DOCTOR_ID, slot(i))));
+        }
+        // More waiting patients than slots, so every freed slot has a taker
+        for (int i = 0; i < SLOTS + 10; i++) {
+            waitlistService.join(entry(2000L + i, firstSlot, firstSlot.plusDays(2)));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(64);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> results = new ArrayList<>();
+        for (int i = 0; i < SLOTS; i++) {
+            Long heldId = held.get(i).getId();
+            results.add(executor.submit(() -> {
+                start.await();
+                Appointment cancellation = new Appointment();
+                cancellation.setStatus(Appointment.AppointmentStatus.CANCELLED);
+                appointmentService.updateAppointment(heldId, cancellation);
+                return null;
+            }));
+            for (int b = 0; b < BOOKERS_PER_SLOT; b++) {
+                long patientId = 3000L + i * BOOKERS_PER_SLOT + b;
+                LocalDateTime time = slot(i);
+                results.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        appointmentService.createAppointment(booking(patientId, DOCTOR_ID, time));
+                    } catch (RuntimeException e) {
+                        // Lost the race for the slot
+                    }
+                    return null;
+                }));
+            }
+        }
+        start.countDown();
+        for (Future<?> result : results) {
+            result.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        Map<LocalDateTime, Long> activePerSlot = appointments.values().stream()
+                .filter(a -> a.getStatus() != Appointment.AppointmentStatus.CANCELLED)
+                .collect(Collectors.groupingBy(Appointment::getAppointmentDate, Collectors.counting()));
+        assertEquals(SLOTS, activePerSlot.size());
+        activePerSlot.forEach((slot, count) -> assertEquals(1L, count, "Double-booked " + slot));
+
+        Map<LocalDateTime, Long> fulfilledPerSlot = entries.values().stream()
+                .filter(e -> e.getStatus() == WaitlistEntry.WaitlistStatus.BOOKED)
+                .map(e -> appointments.get(e.getBookedAppointmentId()))
+                .peek(a -> assertTrue(a.getStatus() != Appointment.AppointmentStatus.CANCELLED))
+                .collect(Collectors.groupingBy(Appointment::getAppointmentDate, Collectors.counting()));
+        fulfilledPerSlot.forEach((slot, count) -> assertEquals(1L, count, "Waitlist booked twice at " + slot));
+    }
+
+    @Test
+    void reschedulingOffersTheOldSlot() {
+        Appointment appointment = appointmentService.createAppointment(booking(1L, DOCTOR_ID, slot(0)));
+        WaitlistEntry waiting = waitlistService.join(entry(2L, slot(0), slot(1)));
+
+        Appointment move = new Appointment();
+        move.setAppointmentDate(slot(5));
+        appointmentService.updateAppointment(appointment.getId(), move);
+
+        assertEquals(WaitlistEntry.WaitlistStatus.BOOKED, waiting.getStatus());
+        Appointment booked = appointments.get(waiting.getBookedAppointmentId());
+        assertEquals(slot(0), booked.getAppointmentDate());
+        assertEquals(2L, booked.getPatient().getId());
+    }
+
+    @Test
+    void movingToAnotherDoctorOffersTheOldSlot() {
+        Appointment appointment = appointmentService.createAppointment(booking(1L, DOCTOR_ID, slot(0)));
+        WaitlistEntry waiting = waitlistService.join(entry(2L, slot(0), slot(0)));
+
+        Appointment move = new Appointment();
+        move.setDoctor(doctor(2L));
+        appointmentService.updateAppointment(appointment.getId(), move);
+
+        assertEquals(WaitlistEntry.WaitlistStatus.BOOKED, waiting.getStatus());
+        assertEquals(DOCTOR_ID, appointments.get(waiting.getBookedAppointmentId()).getDoctor().getId());
+    }
+
+    @Test
+    void anUpdateThatKeepsTheSlotOffersNothing() {
+        Appointment appointment = appointmentService.createAppointment(booking(1L, DOCTOR_ID, slot(0)));
+        WaitlistEntry waiting = waitlistService.join(entry(2L, slot(0), slot(1)));
+
+        Appointment edit = new Appointment();
+        edit.setReason("Follow-up");
+        appointmentService.updateAppointment(appointment.getId(), edit);
+
+        assertEquals(WaitlistEntry.WaitlistStatus.WAITING, waiting.getStatus());
+        assertNull(waiting.getBookedAppointmentId());
+    }
+
+    private LocalDateTime slot(int i) {
+        return firstSlot.plusHours(i);
+    }
+
+    private static WaitlistEntry entry(Long patientId, LocalDateTime windowStart, LocalDateTime windowEnd) {
+        Patient patient = new Patient();
+        patient.setId(patientId);
+        WaitlistEntry entry = new WaitlistEntry();
+        entry.setPatient(patient);
+        entry.setDoctor(doctor(DOCTOR_ID));
+        entry.setWindowStart(windowStart);
+        entry.setWindowEnd(windowEnd);
+        return entry;
+    }
+
+    private static Appointment booking(Long patientId, Long doctorId, LocalDateTime time) {
+        Patient patient = new Patient();
+        patient.setId(patientId);
+        Appointment appointment = new Appointment();
+        appointment.setPatient(patient);
+        appointment.setDoctor(doctor(doctorId));
+        appointment.setAppointmentDate(time);
+        return appointment;
+    }
+
+    private static Doctor doctor(Long id) {
+        Doctor doctor = new Doctor();
+        doctor.setId(id);
+        return doctor;
+    }
+}